@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2021 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.datamovement.DataMovementManager;
+import com.marklogic.client.datamovement.QueryBatcher;
+import com.marklogic.client.datamovement.WriteBatcher;
+import com.marklogic.client.io.BytesHandle;
+import com.marklogic.client.io.Format;
+import com.marklogic.client.query.StructuredQueryDefinition;
+
+/**
+ * Measures the throughput of a WriteBatcher job writing documents and
+ * of a QueryBatcher job collecting the uris from every forest.
+ * Each invocation runs a complete job against the stub server.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BatcherBenchmark {
+  @Param({"100"})
+  public int batchSize;
+
+  @Param({"4"})
+  public int threadCount;
+
+  @Param({"10000"})
+  public int documentCount;
+
+  private StubRestServer            server;
+  private DatabaseClient            client;
+  private DataMovementManager       moveMgr;
+  private StructuredQueryDefinition query;
+  private byte[]                    content;
+
+  @Setup
+  public void setup() throws IOException {
+    server  = new StubRestServer().withForests(3).withUris(documentCount).start();
+    client  = server.newClient();
+    moveMgr = client.newDataMovementManager();
+    query   = client.newQueryManager().newStructuredQueryBuilder().collection("benchmark");
+    content = "{\"id\":1,\"name\":\"document\",\"values\":[1,2,3,4,5],\"nested\":{\"flag\":true}}"
+                .getBytes(StandardCharsets.UTF_8);
+  }
+  @TearDown
+  public void tearDown() {
+    moveMgr.release();
+    client.release();
+    server.close();
+  }
+
+  @Benchmark
+  public long writeBatcher() {
+    AtomicLong written = new AtomicLong();
+    WriteBatcher batcher = moveMgr.newWriteBatcher()
+        .withBatchSize(batchSize)
+        .withThreadCount(threadCount)
+        .onBatchSuccess(batch -> written.addAndGet(batch.getItems().length))
+        .onBatchFailure((batch, failure) -> {
+          throw new IllegalStateException("benchmark write failed", failure);
+        });
+    moveMgr.startJob(batcher);
+    for (int i = 0; i < documentCount; i++) {
+      batcher.add("/benchmark/doc"+i+".json", new BytesHandle(content).withFormat(Format.JSON));
+    }
+    batcher.flushAndWait();
+    moveMgr.stopJob(batcher);
+    return written.get();
+  }
+
+  @Benchmark
+  public long queryBatcher() throws InterruptedException {
+    AtomicLong collected = new AtomicLong();
+    QueryBatcher batcher = moveMgr.newQueryBatcher(query)
+        .withBatchSize(batchSize)
+        .withThreadCount(threadCount)
+        .onUrisReady(batch -> collected.addAndGet(batch.getItems().length))
+        .onQueryFailure(failure -> {
+          throw new IllegalStateException("benchmark query failed", failure);
+        });
+    moveMgr.startJob(batcher);
+    batcher.awaitCompletion();
+    moveMgr.stopJob(batcher);
+    return collected.get();
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2021 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.marklogic.client.io.DOMHandle;
+import com.marklogic.client.io.JacksonHandle;
+import com.marklogic.client.io.StringHandle;
+import org.w3c.dom.Document;
+
+/**
+ * Measures parsing content into and serializing content from the
+ * JacksonHandle, DOMHandle, and StringHandle, which are the paths
+ * taken for every document read and written with these handles.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HandleBenchmark {
+  @Param({"10", "1000"})
+  public int itemCount;
+
+  private byte[] jsonBytes;
+  private byte[] xmlBytes;
+
+  private JacksonHandle jacksonHandle;
+  private DOMHandle     domHandle;
+  private StringHandle  stringHandle;
+
+  private final ByteArrayOutputStream sink = new ByteArrayOutputStream();
+
+  @Setup
+  public void setup() {
+    StringBuilder json = new StringBuilder("{\"items\":[");
+    StringBuilder xml  = new StringBuilder("<items>");
+    for (int i = 0; i < itemCount; i++) {
+      if (i > 0) json.append(",");
+      json.append("{\"id\":").append(i)
+          .append(",\"name\":\"item ").append(i)
+          .append("\",\"price\":").append(i * 1.25)
+          .append(",\"tags\":[\"a\",\"b\"]}");
+      xml.append("<item id=\"").append(i).append("\"><name>item ").append(i)
+         .append("</name><price>").append(i * 1.25).append("</price><tag>a</tag><tag>b</tag></item>");
+    }
+    jsonBytes = json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    xmlBytes  = xml.append("</items>").toString().getBytes(StandardCharsets.UTF_8);
+
+    jacksonHandle = new JacksonHandle();
+    jacksonHandle.fromBuffer(jsonBytes);
+    domHandle = new DOMHandle();
+    domHandle.fromBuffer(xmlBytes);
+    stringHandle = new StringHandle();
+    stringHandle.fromBuffer(jsonBytes);
+  }
+
+  @Benchmark
+  public JsonNode jacksonParse() {
+    JacksonHandle handle = new JacksonHandle();
+    handle.fromBuffer(jsonBytes);
+    return handle.get();
+  }
+  @Benchmark
+  public int jacksonSerialize() throws IOException {
+    sink.reset();
+    jacksonHandle.write(sink);
+    return sink.size();
+  }
+
+  @Benchmark
+  public Document domParse() {
+    DOMHandle handle = new DOMHandle();
+    handle.fromBuffer(xmlBytes);
+    return handle.get();
+  }
+  @Benchmark
+  public int domSerialize() throws IOException {
+    sink.reset();
+    domHandle.write(sink);
+    return sink.size();
+  }
+
+  @Benchmark
+  public String stringParse() {
+    StringHandle handle = new StringHandle();
+    handle.fromBuffer(jsonBytes);
+    return handle.get();
+  }
+  @Benchmark
+  public int stringSerialize() throws IOException {
+    sink.reset();
+    stringHandle.write(sink);
+    return sink.size();
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2021 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.document.DocumentManager.Metadata;
+import com.marklogic.client.document.DocumentPage;
+import com.marklogic.client.document.DocumentRecord;
+import com.marklogic.client.document.JSONDocumentManager;
+import com.marklogic.client.io.DocumentMetadataHandle;
+import com.marklogic.client.io.Format;
+
+/**
+ * Measures parsing and serializing document metadata in the XML and
+ * JSON formats, both for a single handle and for a bulk read that
+ * returns the metadata for every document.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MetadataBenchmark {
+  @Param({"xml", "json"})
+  public String metadataFormat;
+
+  @Param({"100"})
+  public int documentCount;
+
+  private byte[]                 metadataBytes;
+  private DocumentMetadataHandle metadataHandle;
+
+  private StubRestServer      server;
+  private DatabaseClient      client;
+  private JSONDocumentManager docMgr;
+  private String[]            uris;
+
+  @Setup
+  public void setup() throws IOException {
+    Format format = "json".equals(metadataFormat) ? Format.JSON : Format.XML;
+    String metadata = (format == Format.JSON) ?
+      StubRestServer.makeJSONMetadata(1) : StubRestServer.makeXMLMetadata(1);
+    metadataBytes  = metadata.getBytes(StandardCharsets.UTF_8);
+    metadataHandle = new DocumentMetadataHandle().withFormat(format);
+    metadataHandle.fromBuffer(metadataBytes);
+
+    server = new StubRestServer().start();
+    client = server.newClient();
+    docMgr = client.newJSONDocumentManager();
+    docMgr.setMetadataCategories(Metadata.ALL);
+    docMgr.setNonDocumentFormat(format);
+    uris   = new String[documentCount];
+    for (int i = 0; i < documentCount; i++) {
+      uris[i] = "/benchmark/doc"+i+".json";
+    }
+  }
+  @TearDown
+  public void tearDown() {
+    client.release();
+    server.close();
+  }
+
+  @Benchmark
+  public DocumentMetadataHandle parse() {
+    DocumentMetadataHandle handle = new DocumentMetadataHandle();
+    handle.fromBuffer(metadataBytes);
+    return handle;
+  }
+  @Benchmark
+  public byte[] serialize() {
+    return metadataHandle.toBuffer();
+  }
+
+  @Benchmark
+  public void bulkRead(Blackhole blackhole) {
+    try (DocumentPage page = docMgr.read(uris)) {
+      for (DocumentRecord record: page) {
+        blackhole.consume(record.getMetadata(new DocumentMetadataHandle()));
+      }
+    }
+  }
+}
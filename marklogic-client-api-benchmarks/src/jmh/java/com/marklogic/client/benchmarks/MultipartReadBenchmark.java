@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2021 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.document.DocumentPage;
+import com.marklogic.client.document.DocumentRecord;
+import com.marklogic.client.document.JSONDocumentManager;
+import com.marklogic.client.io.BytesHandle;
+import com.marklogic.client.io.JacksonHandle;
+
+/**
+ * Measures reading a multipart/mixed response for a bulk document read,
+ * which exercises the multipart parsing in OkHttpServices and the
+ * construction of the document records.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MultipartReadBenchmark {
+  @Param({"10", "100", "1000"})
+  public int documentCount;
+
+  private StubRestServer      server;
+  private DatabaseClient      client;
+  private JSONDocumentManager docMgr;
+  private String[]            uris;
+
+  @Setup
+  public void setup() throws IOException {
+    server = new StubRestServer().start();
+    client = server.newClient();
+    docMgr = client.newJSONDocumentManager();
+    uris   = new String[documentCount];
+    for (int i = 0; i < documentCount; i++) {
+      uris[i] = "/benchmark/doc"+i+".json";
+    }
+  }
+  @TearDown
+  public void tearDown() {
+    client.release();
+    server.close();
+  }
+
+  @Benchmark
+  public void readBytes(Blackhole blackhole) {
+    try (DocumentPage page = docMgr.read(uris)) {
+      for (DocumentRecord record: page) {
+        blackhole.consume(record.getContent(new BytesHandle()).get());
+      }
+    }
+  }
+  @Benchmark
+  public void readJackson(Blackhole blackhole) {
+    try (DocumentPage page = docMgr.read(uris)) {
+      for (DocumentRecord record: page) {
+        blackhole.consume(record.getContent(new JacksonHandle()).get());
+      }
+    }
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2021 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.expression.PlanBuilder;
+import com.marklogic.client.io.JacksonHandle;
+import com.marklogic.client.io.StringHandle;
+import com.marklogic.client.type.PlanColumn;
+
+/**
+ * Measures building a plan with the PlanBuilder and exporting the plan
+ * as the AST that is sent to the server.  No request is sent.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PlanExportBenchmark {
+  private StubRestServer          server;
+  private DatabaseClient          client;
+  private PlanBuilder             p;
+  private PlanBuilder.ModifyPlan  plan;
+
+  @Setup
+  public void setup() throws IOException {
+    server = new StubRestServer().start();
+    client = server.newClient();
+    p      = client.newRowManager().newPlanBuilder();
+    plan   = buildPlan();
+  }
+  @TearDown
+  public void tearDown() {
+    client.release();
+    server.close();
+  }
+
+  private PlanBuilder.ModifyPlan buildPlan() {
+    PlanColumn id    = p.col("id");
+    PlanColumn price = p.col("price");
+    return p.fromView("benchmark", "item")
+        .joinInner(p.fromView("benchmark", "order"), p.on(id, p.col("itemId")))
+        .where(p.and(p.gt(price, p.xs.doubleVal(10)), p.lt(price, p.xs.doubleVal(1000))))
+        .groupBy(p.col("name"), p.avg("averagePrice", "price"))
+        .orderBy(p.desc("averagePrice"))
+        .offsetLimit(10, 100);
+  }
+
+  @Benchmark
+  public String buildAndExport() {
+    return buildPlan().export(new StringHandle()).get();
+  }
+  @Benchmark
+  public String exportString() {
+    return plan.export(new StringHandle()).get();
+  }
+  @Benchmark
+  public JsonNode exportJackson() {
+    return plan.export(new JacksonHandle()).get();
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2021 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.expression.PlanBuilder;
+import com.marklogic.client.row.RowCursor;
+import com.marklogic.client.row.RowManager;
+import com.marklogic.client.row.RowRecord;
+import com.marklogic.client.row.RowSet;
+
+/**
+ * Measures decoding the rows produced by a plan in RowManagerImpl,
+ * comparing the row records with the row cursor and its column batches.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RowDecodingBenchmark {
+  @Param({"100", "10000"})
+  public int rowCount;
+
+  private StubRestServer     server;
+  private DatabaseClient     client;
+  private RowManager         rowMgr;
+  private PlanBuilder.Plan   plan;
+
+  @Setup
+  public void setup() throws IOException {
+    server = new StubRestServer().withRows(rowCount).start();
+    client = server.newClient();
+    rowMgr = client.newRowManager();
+    PlanBuilder p = rowMgr.newPlanBuilder();
+    plan = p.fromView("benchmark", "item");
+  }
+  @TearDown
+  public void tearDown() {
+    client.release();
+    server.close();
+  }
+
+  @Benchmark
+  public void rowRecords(Blackhole blackhole) throws IOException {
+    try (RowSet<RowRecord> rows = rowMgr.resultRows(plan)) {
+      for (RowRecord row: rows) {
+        blackhole.consume(row.getLong("id"));
+        blackhole.consume(row.getString("name"));
+        blackhole.consume(row.getDouble("price"));
+        blackhole.consume(row.getContainer("tags"));
+      }
+    }
+  }
+  @Benchmark
+  public void rowCursor(Blackhole blackhole) {
+    try (RowCursor cursor = rowMgr.resultCursor(plan)) {
+      int id    = cursor.getColumnIndex("id");
+      int name  = cursor.getColumnIndex("name");
+      int price = cursor.getColumnIndex("price");
+      int tags  = cursor.getColumnIndex("tags");
+      while (cursor.next()) {
+        blackhole.consume(cursor.getLong(id));
+        blackhole.consume(cursor.getString(name));
+        blackhole.consume(cursor.getDouble(price));
+        blackhole.consume(cursor.getContainer(tags));
+      }
+    }
+  }
+  @Benchmark
+  public void rowCursorBatches(Blackhole blackhole) {
+    try (RowCursor cursor = rowMgr.resultCursor(plan)) {
+      int id    = cursor.getColumnIndex("id");
+      int price = cursor.getColumnIndex("price");
+      for (RowCursor.ColumnBatch batch = cursor.nextBatch(1000); batch.size() > 0; batch = cursor.nextBatch(1000)) {
+        blackhole.consume(batch.getLongs(id));
+        blackhole.consume(batch.getDoubles(price));
+      }
+    }
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2021 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.marklogic.client.datamovement.JSONSplitter;
+import com.marklogic.client.datamovement.XMLSplitter;
+
+/**
+ * Measures splitting a JSON array and an XML document into
+ * one handle for each item.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SplitterBenchmark {
+  @Param({"1000", "100000"})
+  public int itemCount;
+
+  private byte[] jsonBytes;
+  private byte[] xmlBytes;
+
+  @Setup
+  public void setup() {
+    StringBuilder json = new StringBuilder("[");
+    StringBuilder xml  = new StringBuilder("<items>");
+    for (int i = 0; i < itemCount; i++) {
+      if (i > 0) json.append(",");
+      json.append("{\"id\":").append(i)
+          .append(",\"name\":\"item ").append(i)
+          .append("\",\"price\":").append(i * 1.25)
+          .append(",\"tags\":[\"a\",\"b\"],\"nested\":{\"flag\":true}}");
+      xml.append("<item id=\"").append(i).append("\"><name>item ").append(i)
+         .append("</name><price>").append(i * 1.25)
+         .append("</price><tag>a</tag><tag>b</tag><nested flag=\"true\"/></item>");
+    }
+    jsonBytes = json.append("]").toString().getBytes(StandardCharsets.UTF_8);
+    xmlBytes  = xml.append("</items>").toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public void jsonSplitter(Blackhole blackhole) throws Exception {
+    JSONSplitter.makeArraySplitter()
+        .split(new ByteArrayInputStream(jsonBytes))
+        .forEach(blackhole::consume);
+  }
+  @Benchmark
+  public void xmlSplitter(Blackhole blackhole) throws Exception {
+    XMLSplitter.makeSplitter(null, "item")
+        .split(new ByteArrayInputStream(xmlBytes))
+        .forEach(blackhole::consume);
+  }
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) 2021 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.DatabaseClientFactory;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * An in-process stand-in for the REST API so the benchmarks measure
+ * the client without depending on a MarkLogic server or the network.
+ *
+ * The stub answers the endpoints exercised by the benchmarks with
+ * canned responses that are built once and cached:
+ * <ul>
+ * <li>GET /v1/documents returns a multipart/mixed response with one JSON
+ * document for each uri parameter, preceded by its metadata in the
+ * requested format if any metadata category is requested</li>
+ * <li>POST /v1/documents consumes a bulk write</li>
+ * <li>POST /v1/rows returns the configured number of rows as a multipart
+ * response or as a JSON array if requested by the output parameter</li>
+ * <li>/v1/internal/forestinfo lists the configured forests on localhost</li>
+ * <li>/v1/internal/uris pages through the configured number of uris for
+ * each forest and returns 404 after the last page</li>
+ * </ul>
+ */
+public class StubRestServer implements AutoCloseable {
+  final static private String BOUNDARY = "BENCHMARK_BOUNDARY";
+
+  static {
+    // otherwise the response body waits on the delayed ack for the headers
+    System.setProperty("sun.net.httpserver.nodelay", "true");
+  }
+
+  private final HttpServer server;
+  private final ExecutorService executor;
+
+  private final Map<String, byte[]> documentResponses = new ConcurrentHashMap<>();
+  private final Map<String, byte[]> uriPages          = new ConcurrentHashMap<>();
+
+  private byte[] forestResponse;
+  private byte[] rowsResponse;
+  private byte[] rowsArrayResponse;
+  private int    uriCount;
+
+  public StubRestServer() throws IOException {
+    server   = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    executor = Executors.newCachedThreadPool(runnable -> {
+      Thread thread = new Thread(runnable, "benchmark-stub");
+      thread.setDaemon(true);
+      return thread;
+    });
+    server.setExecutor(executor);
+    server.createContext("/", this::handle);
+    withForests(2);
+    withRows(100);
+    withUris(1000);
+  }
+
+  public StubRestServer withForests(int forestCount) {
+    StringBuilder buf = new StringBuilder("[");
+    for (int i = 1; i <= forestCount; i++) {
+      if (i > 1) buf.append(",");
+      buf.append("{\"id\":\"").append(i)
+         .append("\",\"name\":\"benchmark-").append(i)
+         .append("\",\"database\":\"benchmark\",\"host\":\"localhost\",\"updatesAllowed\":\"all\"}");
+    }
+    forestResponse = buf.append("]").toString().getBytes(StandardCharsets.UTF_8);
+    return this;
+  }
+
+  public StubRestServer withRows(int rowCount) {
+    StringBuilder parts = new StringBuilder();
+    StringBuilder array = new StringBuilder();
+    appendPart(parts, "application/json", "inline; kind=columns",
+      "{\"columns\":[{\"name\":\"id\"},{\"name\":\"name\"},{\"name\":\"price\"},{\"name\":\"tags\"}]}");
+    array.append("[[{\"name\":\"id\",\"type\":\"xs:integer\"},{\"name\":\"name\",\"type\":\"xs:string\"},")
+         .append("{\"name\":\"price\",\"type\":\"xs:double\"},{\"name\":\"tags\",\"type\":\"array\"}]");
+    for (int i = 0; i < rowCount; i++) {
+      String tags = "[\"tag"+(i % 7)+"\",\"tag"+(i % 11)+"\"]";
+      appendPart(parts, "application/json", "inline; kind=row",
+        "{\"id\":{\"type\":\"xs:integer\",\"value\":"+i+"},"+
+        "\"name\":{\"type\":\"xs:string\",\"value\":\"item "+i+"\"},"+
+        "\"price\":{\"type\":\"xs:double\",\"value\":"+(i * 1.25)+"},"+
+        "\"tags\":{\"type\":\"array\",\"value\":"+tags+"}}");
+      array.append(",[").append(i).append(",\"item ").append(i).append("\",")
+           .append(i * 1.25).append(",").append(tags).append("]");
+    }
+    rowsResponse      = parts.append("--").append(BOUNDARY).append("--\r\n").toString().getBytes(StandardCharsets.UTF_8);
+    rowsArrayResponse = array.append("]").toString().getBytes(StandardCharsets.UTF_8);
+    return this;
+  }
+
+  public StubRestServer withUris(int uriCount) {
+    this.uriCount = uriCount;
+    uriPages.clear();
+    return this;
+  }
+
+  public StubRestServer start() {
+    server.start();
+    return this;
+  }
+  public int getPort() {
+    return server.getAddress().getPort();
+  }
+  public DatabaseClient newClient() {
+    return DatabaseClientFactory.newClient("localhost", getPort(),
+      new DatabaseClientFactory.BasicAuthContext("benchmark", "benchmark"));
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try {
+      String path   = exchange.getRequestURI().getPath();
+      String query  = exchange.getRequestURI().getRawQuery();
+      String method = exchange.getRequestMethod();
+      drain(exchange.getRequestBody());
+
+      if (path.endsWith("/internal/forestinfo")) {
+        respond(exchange, 200, "application/json", forestResponse);
+      } else if (path.endsWith("/internal/uris")) {
+        // the page begins at the one-based start or after the uri numbered by the after parameter
+        List<String> start = getParameters(query, "start");
+        List<String> after = getParameters(query, "after");
+        int first = !start.isEmpty() ? Integer.parseInt(start.get(0)) - 1 :
+                    !after.isEmpty() ? Integer.parseInt(after.get(0).replaceAll("\\D", "")) + 1 : 0;
+        List<String> pageLengths = getParameters(query, "pageLength");
+        int pageLength = pageLengths.isEmpty() ? uriCount : Integer.parseInt(pageLengths.get(0));
+        if (first < uriCount) {
+          respond(exchange, 200, "text/uri-list",
+            uriPages.computeIfAbsent(first+":"+pageLength, key -> makeUrisResponse(first, pageLength)));
+        } else {
+          respond(exchange, 404, "application/json", "{}".getBytes(StandardCharsets.UTF_8));
+        }
+      } else if (path.endsWith("/rows")) {
+        if (getParameters(query, "output").contains("array")) {
+          respond(exchange, 200, "application/json", rowsArrayResponse);
+        } else {
+          respond(exchange, 200, "multipart/mixed; boundary="+BOUNDARY, rowsResponse);
+        }
+      } else if (path.endsWith("/documents") && "GET".equals(method)) {
+        List<String> uris = getParameters(query, "uri");
+        // any category other than content requests the metadata in the format parameter
+        List<String> formats = getParameters(query, "format");
+        String metadataFormat = getParameters(query, "category").stream().allMatch("content"::equals) ? null :
+          formats.isEmpty() ? "xml" : formats.get(0);
+        respond(exchange, 200, "multipart/mixed; boundary="+BOUNDARY,
+          documentResponses.computeIfAbsent(uris.size()+":"+metadataFormat,
+            key -> makeDocumentsResponse(uris.size(), metadataFormat)));
+      } else if (path.endsWith("/documents")) {
+        respond(exchange, 200, "application/json", "{\"documents\":[]}".getBytes(StandardCharsets.UTF_8));
+      } else {
+        respond(exchange, 404, "application/json", "{}".getBytes(StandardCharsets.UTF_8));
+      }
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private byte[] makeUrisResponse(int first, int pageLength) {
+    StringBuilder buf = new StringBuilder();
+    for (int i = first; i < Math.min(first + pageLength, uriCount); i++) {
+      buf.append("/benchmark/doc").append(i).append(".json\n");
+    }
+    return buf.toString().getBytes(StandardCharsets.UTF_8);
+  }
+  private static byte[] makeDocumentsResponse(int documentCount, String metadataFormat) {
+    StringBuilder buf = new StringBuilder();
+    for (int i = 0; i < documentCount; i++) {
+      if ("json".equals(metadataFormat)) {
+        appendPart(buf, "application/json",
+          "attachment; filename=\"/benchmark/doc"+i+".json\"; category=metadata; format=json",
+          makeJSONMetadata(i));
+      } else if (metadataFormat != null) {
+        appendPart(buf, "application/xml",
+          "attachment; filename=\"/benchmark/doc"+i+".json\"; category=metadata; format=xml",
+          makeXMLMetadata(i));
+      }
+      appendPart(buf, "application/json",
+        "attachment; filename=\"/benchmark/doc"+i+".json\"; category=content; format=json",
+        "{\"id\":"+i+",\"name\":\"document "+i+"\",\"values\":[1,2,3,4,5],\"nested\":{\"flag\":true}}");
+    }
+    return buf.append("--").append(BOUNDARY).append("--\r\n").toString().getBytes(StandardCharsets.UTF_8);
+  }
+  static String makeXMLMetadata(int i) {
+    return "<rapi:metadata uri=\"/benchmark/doc"+i+".json\" xmlns:rapi=\"http://marklogic.com/rest-api\" " +
+        "xmlns:prop=\"http://marklogic.com/xdmp/property\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" " +
+        "xmlns:xs=\"http://www.w3.org/2001/XMLSchema\">" +
+      "<rapi:collections><rapi:collection>benchmark</rapi:collection><rapi:collection>batch"+(i % 10)+"</rapi:collection></rapi:collections>" +
+      "<rapi:permissions>" +
+        "<rapi:permission><rapi:role-name>rest-reader</rapi:role-name><rapi:capability>read</rapi:capability></rapi:permission>" +
+        "<rapi:permission><rapi:role-name>rest-writer</rapi:role-name><rapi:capability>update</rapi:capability></rapi:permission>" +
+      "</rapi:permissions>" +
+      "<prop:properties>" +
+        "<source xsi:type=\"xs:string\">benchmark</source><sequence xsi:type=\"xs:int\">"+i+"</sequence>" +
+        "<prop:last-modified>2021-06-01T12:00:00Z</prop:last-modified>" +
+      "</prop:properties>" +
+      "<rapi:quality>"+(i % 3)+"</rapi:quality>" +
+      "<rapi:metadata-values><rapi:metadata-value key=\"origin\">stub</rapi:metadata-value></rapi:metadata-values>" +
+      "</rapi:metadata>";
+  }
+  static String makeJSONMetadata(int i) {
+    return "{\"collections\":[\"benchmark\",\"batch"+(i % 10)+"\"]," +
+      "\"permissions\":[{\"role-name\":\"rest-reader\",\"capabilities\":[\"read\"]}," +
+        "{\"role-name\":\"rest-writer\",\"capabilities\":[\"update\"]}]," +
+      "\"properties\":{\"source\":\"benchmark\",\"sequence\":"+i+"}," +
+      "\"quality\":"+(i % 3)+",\"metadataValues\":{\"origin\":\"stub\"}}";
+  }
+  private static void appendPart(StringBuilder buf, String mimetype, String disposition, String content) {
+    buf.append("--").append(BOUNDARY).append("\r\n")
+       .append("Content-Type: ").append(mimetype).append("\r\n")
+       .append("Content-Disposition: ").append(disposition).append("\r\n\r\n")
+       .append(content).append("\r\n");
+  }
+  private static List<String> getParameters(String query, String name) throws IOException {
+    List<String> values = new ArrayList<>();
+    if (query == null) return values;
+    String prefix = name+"=";
+    for (String param: query.split("&")) {
+      if (param.startsWith(prefix)) {
+        values.add(URLDecoder.decode(param.substring(prefix.length()), "UTF-8"));
+      }
+    }
+    return values;
+  }
+  private static void drain(InputStream in) throws IOException {
+    byte[] buf = new byte[8192];
+    while (in.read(buf) != -1) {
+      // the content of requests isn't checked
+    }
+  }
+  private static void respond(HttpExchange exchange, int status, String mimetype, byte[] body)
+    throws IOException {
+    exchange.getResponseHeaders().add("Content-Type", mimetype);
+    exchange.sendResponseHeaders(status, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+}
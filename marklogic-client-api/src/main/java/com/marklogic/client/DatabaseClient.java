@@ -31,6 +31,7 @@ import com.marklogic.client.query.QueryManager;
 import com.marklogic.client.row.RowManager;
 import com.marklogic.client.alerting.RuleManager;
 import com.marklogic.client.util.RequestLogger;
+import com.marklogic.client.util.RequestStatistics;
 import com.marklogic.client.pojo.PojoRepository;
 import com.marklogic.client.semantics.GraphManager;
 import com.marklogic.client.semantics.SPARQLQueryManager;
@@ -187,6 +188,19 @@ public interface DatabaseClient {
    */
   RequestLogger newLogger(OutputStream out);
 
+  /**
+   * Returns the timings, payload sizes, and status codes accumulated for the
+   * requests that this client has sent to the server, grouped by endpoint.
+   * The statistics are collected unless the
+   * {@code com.marklogic.client.requestStatistics} system property is false
+   * when the client is created.
+   *
+   * @return	the request statistics, which are empty if not collected
+   */
+  default RequestStatistics getRequestStatistics() {
+    return RequestStatistics.disabled();
+  }
+
   /**
    * Closes the database client and releases associated resources.  After the client is closed,
    * document and query managers can no longer access the database.
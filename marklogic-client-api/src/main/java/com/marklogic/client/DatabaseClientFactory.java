@@ -1168,6 +1168,108 @@ public class DatabaseClientFactory {
     }
   }
 
+  /**
+   * The settings for the connection pool and the asynchronous requests of a
+   * client.  A setting that isn't specified (or is zero) defaults to the
+   * value of its system property, if any, and otherwise to the built-in default.
+   * Clients with the same pool settings share a connection pool.
+   */
+  public static class ConnectionSettings implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private int maxIdleConnections = 0;
+    private int keepAliveSeconds   = 0;
+    private int maxAsyncRequests   = 0;
+
+    public ConnectionSettings() {
+      super();
+    }
+
+    /**
+     * Returns the maximum number of idle connections kept in the pool.
+     * @return the maximum or zero for the default
+     */
+    public int getMaxIdleConnections() {
+      return maxIdleConnections;
+    }
+    /**
+     * Specifies the maximum number of idle connections kept in the pool.
+     * @param maxIdleConnections the maximum or zero for the default
+     */
+    public void setMaxIdleConnections(int maxIdleConnections) {
+      if (maxIdleConnections < 0) {
+        throw new IllegalArgumentException("maxIdleConnections must not be negative: "+maxIdleConnections);
+      }
+      this.maxIdleConnections = maxIdleConnections;
+    }
+    /**
+     * Specifies the maximum number of idle connections kept in the pool.
+     * @param maxIdleConnections the maximum or zero for the default
+     * @return the settings for chaining
+     */
+    public ConnectionSettings withMaxIdleConnections(int maxIdleConnections) {
+      setMaxIdleConnections(maxIdleConnections);
+      return this;
+    }
+
+    /**
+     * Returns how long an idle connection is kept in the pool.
+     * @return the seconds or zero for the default
+     */
+    public int getKeepAliveSeconds() {
+      return keepAliveSeconds;
+    }
+    /**
+     * Specifies how long an idle connection is kept in the pool.
+     * @param keepAliveSeconds the seconds or zero for the default
+     */
+    public void setKeepAliveSeconds(int keepAliveSeconds) {
+      if (keepAliveSeconds < 0) {
+        throw new IllegalArgumentException("keepAliveSeconds must not be negative: "+keepAliveSeconds);
+      }
+      this.keepAliveSeconds = keepAliveSeconds;
+    }
+    /**
+     * Specifies how long an idle connection is kept in the pool.
+     * @param keepAliveSeconds the seconds or zero for the default
+     * @return the settings for chaining
+     */
+    public ConnectionSettings withKeepAliveSeconds(int keepAliveSeconds) {
+      setKeepAliveSeconds(keepAliveSeconds);
+      return this;
+    }
+
+    /**
+     * Returns the maximum number of asynchronous requests that the client
+     * sends at the same time.
+     * @return the maximum or zero for the default
+     */
+    public int getMaxAsyncRequests() {
+      return maxAsyncRequests;
+    }
+    /**
+     * Specifies the maximum number of asynchronous requests that the client
+     * sends at the same time.  Additional requests are queued.
+     * @param maxAsyncRequests the maximum or zero for the default
+     */
+    public void setMaxAsyncRequests(int maxAsyncRequests) {
+      if (maxAsyncRequests < 0) {
+        throw new IllegalArgumentException("maxAsyncRequests must not be negative: "+maxAsyncRequests);
+      }
+      this.maxAsyncRequests = maxAsyncRequests;
+    }
+    /**
+     * Specifies the maximum number of asynchronous requests that the client
+     * sends at the same time.  Additional requests are queued.
+     * @param maxAsyncRequests the maximum or zero for the default
+     * @return the settings for chaining
+     */
+    public ConnectionSettings withMaxAsyncRequests(int maxAsyncRequests) {
+      setMaxAsyncRequests(maxAsyncRequests);
+      return this;
+    }
+  }
+
   /**
    * Creates a client to access the database by means of a REST server
    * without any authentication. Such clients can be convenient for
@@ -1273,8 +1375,33 @@ public class DatabaseClientFactory {
           SecurityContext securityContext,
           DatabaseClient.ConnectionType connectionType)
 {
+    return newClient(host, port, database, securityContext, connectionType, null);
+  }
+
+  /**
+   * Creates a client to access the database by means of a REST server
+   * with its own settings for the connection pool and asynchronous requests.
+   *
+   * @param host the host with the REST server
+   * @param port the port for the REST server
+   * @param database the database to access (default: configured database for
+   *            the REST server)
+   * @param securityContext the security context created depending upon the
+   *            authentication type - BasicAuthContext, DigestAuthContext or KerberosAuthContext
+   *            and communication channel type (SSL)
+   * @param connectionType whether the client connects directly to the MarkLogic host
+   *            or using a gateway such as a load balancer
+   * @param connectionSettings the settings for the connections of the client
+   *            or null to use the system properties and defaults
+   * @return a new client for making database requests
+   */
+  static public DatabaseClient newClient(String host, int port, String database,
+          SecurityContext securityContext,
+          DatabaseClient.ConnectionType connectionType,
+          ConnectionSettings connectionSettings)
+  {
     OkHttpServices services = new OkHttpServices();
-    services.connect(host, port, database, securityContext);
+    services.connect(host, port, database, securityContext, connectionSettings);
 
     if (clientConfigurator != null) {
       if ( clientConfigurator instanceof OkHttpClientConfigurator ) {
@@ -1500,6 +1627,7 @@ public class DatabaseClientFactory {
     private           Authentication        authentication;
     private           String                externalName;
     private           DatabaseClient.ConnectionType connectionType;
+    private           ConnectionSettings    connectionSettings;
 
     transient private SecurityContext       securityContext;
     transient private HandleFactoryRegistry handleRegistry =
@@ -1733,6 +1861,22 @@ public class DatabaseClientFactory {
     public void setConnectionType(DatabaseClient.ConnectionType connectionType) {
       this.connectionType = connectionType;
     }
+    /**
+     * Returns the settings for the connection pool and asynchronous requests
+     * of clients created with a DatabaseClientFactory.Bean object.
+     * @return	the connection settings or null for the defaults
+     */
+    public ConnectionSettings getConnectionSettings() {
+      return connectionSettings;
+    }
+    /**
+     * Specifies the settings for the connection pool and asynchronous requests
+     * of clients created with a DatabaseClientFactory.Bean object.
+     * @param connectionSettings	the connection settings or null for the defaults
+     */
+    public void setConnectionSettings(ConnectionSettings connectionSettings) {
+      this.connectionSettings = connectionSettings;
+    }
 
     /**
      * Returns the registry for associating
@@ -1769,7 +1913,7 @@ public class DatabaseClientFactory {
 	public DatabaseClient newClient() {
       DatabaseClientImpl client = (DatabaseClientImpl) DatabaseClientFactory.newClient(
             host, port, database, (securityContext!=null? securityContext:makeSecurityContext(user, password, authentication, context, verifier)),
-            connectionType);
+            connectionType, connectionSettings);
       client.setHandleRegistry(getHandleRegistry().copy());
       return client;
     }
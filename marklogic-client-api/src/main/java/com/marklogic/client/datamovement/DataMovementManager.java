@@ -75,6 +75,15 @@ public interface DataMovementManager {
    */
   JobTicket startJob(RowBatcher<?>  batcher);
 
+  /**
+   * Starts the GraphBatcher job.
+   * @param batcher the GraphBatcher instance to start
+   * @return a JobTicket which can be used to track the job
+   */
+  default JobTicket startJob(GraphBatcher batcher) {
+    throw new UnsupportedOperationException("Graph batchers not supported by this manager");
+  }
+
   /**
    * Get a snapshot report of the state of the job when the call is made.
    * Depends on some pre-installed listeners attached to the job to collect the
@@ -218,6 +227,16 @@ public interface DataMovementManager {
    */
   <T> RowBatcher<T> newRowBatcher(ContentHandle<T> rowsHandle);
 
+  /**
+   * Create a new GraphBatcher instance to load triples into graphs
+   * in batches.
+   *
+   * @return the new GraphBatcher instance
+   */
+  default GraphBatcher newGraphBatcher() {
+    throw new UnsupportedOperationException("Graph batchers not supported by this manager");
+  }
+
   /**
    * Update the ForestConfiguration with the latest from the server.
    *
@@ -232,4 +251,26 @@ public interface DataMovementManager {
    * @return the connection type
    */
   public DatabaseClient.ConnectionType getConnectionType();
+
+  /**
+   * Sets the listener that receives the measurement of each request made
+   * by the WriteBatcher, QueryBatcher, and RowBatcher jobs of this
+   * DataMovementManager, including jobs that are already running.
+   *
+   * @param listener the listener such as a {@link JobMetrics} instance
+   *        or null to stop measuring requests
+   * @return this instance for method chaining
+   */
+  default DataMovementManager withMetricsListener(MetricsListener listener) {
+    throw new UnsupportedOperationException("Metrics listeners not supported by this manager");
+  }
+
+  /**
+   * The listener that receives the measurement of each request, if any.
+   *
+   * @return the metrics listener or null
+   */
+  default MetricsListener getMetricsListener() {
+    return null;
+  }
 }
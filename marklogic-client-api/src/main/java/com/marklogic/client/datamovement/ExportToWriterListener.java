@@ -15,11 +15,18 @@
  */
 package com.marklogic.client.datamovement;
 
+import java.io.CharArrayWriter;
 import java.io.IOException;
+import java.io.Reader;
 import java.io.Writer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.HashSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.marklogic.client.document.DocumentManager;
 import com.marklogic.client.document.DocumentPage;
@@ -27,7 +34,7 @@ import com.marklogic.client.document.DocumentRecord;
 import com.marklogic.client.document.GenericDocumentManager;
 import com.marklogic.client.document.ServerTransform;
 import com.marklogic.client.io.Format;
-import com.marklogic.client.io.StringHandle;
+import com.marklogic.client.io.ReaderHandle;
 import com.marklogic.client.query.QueryManager;
 
 import org.slf4j.Logger;
@@ -39,6 +46,15 @@ import org.slf4j.LoggerFactory;
  * to write output to a CSV file.  The Writer could pipe to a socket, for
  * example, to send the output directly to another server endpoint.</p>
  *
+ * <p>Each batch is rendered into a buffer before the writer is locked, so
+ * the QueryBatcher threads only wait for each other while a buffer is copied
+ * to the writer.  To take the writes off the QueryBatcher threads entirely,
+ * call {@link #withWriteQueue withWriteQueue} so a dedicated thread for each
+ * writer writes the rendered batches.  Given several writers, the listener
+ * spreads the batches over the writers, for instance to shard the output
+ * over several files.  In either case, call {@link #flushAndWait flushAndWait}
+ * after the job completes.</p>
+ *
  * <p>By default only document contents are retrieved.  If you would also like
  * metadata, make sure to call {@link #withMetadataCategory withMetadataCategory}
  * to configure which categories of metadata you desire.</p>
@@ -51,13 +67,37 @@ import org.slf4j.LoggerFactory;
  */
 public class ExportToWriterListener extends ExportListener {
   private static Logger logger = LoggerFactory.getLogger(ExportToWriterListener.class);
-  private Writer writer;
+  private static final int MAX_IDLE_BUFFERS = 64;
+  private static final Runnable STOP = () -> {};
+  private static final ThreadLocal<char[]> copyBuffer = ThreadLocal.withInitial(() -> new char[8192]);
+
+  private final WriterShard[] shards;
   private String suffix;
   private String prefix;
   private List<OutputListener> outputListeners = new ArrayList<>();
+  private int maxQueuedBatches = 0;
+  private final ConcurrentLinkedQueue<CharArrayWriter> idleBuffers = new ConcurrentLinkedQueue<>();
 
   public ExportToWriterListener(Writer writer) {
-    this.writer = writer;
+    this(new Writer[]{writer});
+  }
+
+  /**
+   * Constructs a listener that spreads the batches over the writers.
+   * Each batch is written to one writer, so each writer receives whole
+   * records.
+   *
+   * @param writers the writers that receive the output
+   */
+  public ExportToWriterListener(Writer... writers) {
+    if ( writers == null || writers.length == 0 ) {
+      throw new IllegalArgumentException("at least one writer is required");
+    }
+    this.shards = new WriterShard[writers.length];
+    for ( int i = 0; i < writers.length; i++ ) {
+      if ( writers[i] == null ) throw new IllegalArgumentException("writer cannot be null");
+      shards[i] = new WriterShard(writers[i], i);
+    }
     logger.debug("new ExportToWriterListener - this should print once/job; " +
       "if you see this once/batch, fix your job configuration");
   }
@@ -83,52 +123,196 @@ public class ExportToWriterListener extends ExportListener {
 
   @Override
   public void processEvent(QueryBatch batch) {
-    try ( DocumentPage docs = getDocs(batch) ) {
-      synchronized(writer) {
-        for ( DocumentRecord doc : docs ) {
-          Format format = doc.getFormat();
-          if ( Format.BINARY.equals(format) ) {
-            throw new IllegalStateException("Document " + doc.getUri() +
-              " is binary and cannot be written.  Change your query to not select any binary documents.");
-          } else {
+    try {
+      CharArrayWriter buffer;
+      try ( DocumentPage docs = getDocs(batch) ) {
+        buffer = render(docs);
+      }
+      WriterShard shard = shards[(int) Math.floorMod(batch.getJobBatchNumber(), (long) shards.length)];
+      if ( maxQueuedBatches > 0 ) {
+        shard.enqueue(batch, buffer);
+      } else {
+        try {
+          shard.write(buffer);
+        } catch (IOException e) {
+          throw new DataMovementException("Failed to write batch " + batch.getJobBatchNumber(), e);
+        } finally {
+          releaseBuffer(buffer);
+        }
+      }
+    } catch (Throwable t) {
+      notifyFailure(batch, t);
+    }
+  }
+
+  private CharArrayWriter render(DocumentPage docs) throws IOException {
+    CharArrayWriter buffer = idleBuffers.poll();
+    if ( buffer == null ) buffer = new CharArrayWriter(8192);
+    try {
+      for ( DocumentRecord doc : docs ) {
+        Format format = doc.getFormat();
+        if ( Format.BINARY.equals(format) ) {
+          throw new IllegalStateException("Document " + doc.getUri() +
+            " is binary and cannot be written.  Change your query to not select any binary documents.");
+        }
+        if ( prefix != null ) buffer.write( prefix );
+        if ( outputListeners.size() > 0 ) {
+          for ( OutputListener listener : outputListeners ) {
+            String output = null;
             try {
-              if ( prefix != null ) writer.write( prefix );
-              if ( outputListeners.size() > 0 ) {
-                for ( OutputListener listener : outputListeners ) {
-                  String output = null;
-                  try {
-                    output = listener.generateOutput(doc);
-                  } catch (Throwable t) {
-                    logger.error("Exception thrown by an onGenerateOutput listener", t);
-                  }
-                  if ( output != null ) {
-                    writer.write( output );
-                  }
-                }
-              } else {
-                writer.write( doc.getContent(new StringHandle()).get() );
-              }
-              if ( suffix != null ) writer.write( suffix );
-            } catch (IOException e) {
-              throw new DataMovementException("Failed to write document \"" + doc.getUri() + "\"", e);
+              output = listener.generateOutput(doc);
+            } catch (Throwable t) {
+              logger.error("Exception thrown by an onGenerateOutput listener", t);
+            }
+            if ( output != null ) {
+              buffer.write( output );
+            }
+          }
+        } else {
+          // copy the content from the response without materializing a string
+          try ( Reader content = doc.getContent(new ReaderHandle()).get() ) {
+            char[] chars = copyBuffer.get();
+            for ( int count = content.read(chars); count != -1; count = content.read(chars) ) {
+              buffer.write(chars, 0, count);
             }
           }
         }
+        if ( suffix != null ) buffer.write( suffix );
       }
+      return buffer;
     } catch (Throwable t) {
-      for ( BatchFailureListener<Batch<String>> listener : getFailureListeners() ) {
+      releaseBuffer(buffer);
+      throw t;
+    }
+  }
+
+  private void releaseBuffer(CharArrayWriter buffer) {
+    buffer.reset();
+    if ( idleBuffers.size() < MAX_IDLE_BUFFERS ) idleBuffers.offer(buffer);
+  }
+
+  private void notifyFailure(QueryBatch batch, Throwable t) {
+    for ( BatchFailureListener<Batch<String>> listener : getFailureListeners() ) {
+      try {
+        listener.processFailure(batch, t);
+      } catch (Throwable t2) {
+        logger.error("Exception thrown by an onBatchFailure listener", t2);
+      }
+    }
+    for ( BatchFailureListener<QueryBatch> queryBatchFailureListener : getBatchFailureListeners() ) {
+      try {
+        queryBatchFailureListener.processFailure(batch, t);
+      } catch (Throwable t2) {
+        logger.error("Exception thrown by an onFailure listener", t2);
+      }
+    }
+  }
+
+  /**
+   * Writes the rendered batches on a dedicated thread for each writer
+   * instead of the QueryBatcher threads.  The QueryBatcher threads wait
+   * when the queue of a writer is full, which limits the memory for
+   * rendered batches.  A failure to write a batch is reported to the
+   * failure listeners on the writer thread.
+   *
+   * @param maxQueuedBatches the maximum number of rendered batches waiting
+   *        for each writer or 0 to write on the QueryBatcher threads
+   * @return this instance (for method chaining)
+   */
+  public ExportToWriterListener withWriteQueue(int maxQueuedBatches) {
+    if ( maxQueuedBatches < 0 ) {
+      throw new IllegalArgumentException("maxQueuedBatches must not be negative: " + maxQueuedBatches);
+    }
+    this.maxQueuedBatches = maxQueuedBatches;
+    return this;
+  }
+
+  /**
+   * Waits until the queued batches have been written, flushes the writers,
+   * and stops the writer threads.  Call this method after the QueryBatcher
+   * completes and before closing the writers.
+   */
+  public void flushAndWait() {
+    for ( WriterShard shard : shards ) {
+      shard.flushAndWait();
+    }
+  }
+
+  private class WriterShard {
+    private final Writer writer;
+    private final int    number;
+    private BlockingQueue<Runnable> queue;
+    private Thread thread;
+
+    WriterShard(Writer writer, int number) {
+      this.writer = writer;
+      this.number = number;
+    }
+
+    void write(CharArrayWriter buffer) throws IOException {
+      synchronized(writer) {
+        buffer.writeTo(writer);
+      }
+    }
+
+    void enqueue(QueryBatch batch, CharArrayWriter buffer) throws InterruptedException {
+      Runnable task = () -> {
         try {
-          listener.processFailure(batch, t);
-        } catch (Throwable t2) {
-          logger.error("Exception thrown by an onBatchFailure listener", t2);
+          write(buffer);
+        } catch (Throwable t) {
+          notifyFailure(batch, new DataMovementException("Failed to write batch " + batch.getJobBatchNumber(), t));
+        } finally {
+          releaseBuffer(buffer);
         }
+      };
+      try {
+        getQueue().put(task);
+      } catch (InterruptedException e) {
+        releaseBuffer(buffer);
+        throw e;
       }
-      for ( BatchFailureListener<QueryBatch> queryBatchFailureListener : getBatchFailureListeners() ) {
-        try {
-          queryBatchFailureListener.processFailure(batch, t);
-        } catch (Throwable t2) {
-          logger.error("Exception thrown by an onFailure listener", t2);
+    }
+
+    private synchronized BlockingQueue<Runnable> getQueue() {
+      if ( thread == null ) {
+        BlockingQueue<Runnable> tasks = new ArrayBlockingQueue<>(maxQueuedBatches);
+        queue = tasks;
+        thread = new Thread(() -> runTasks(tasks), "marklogic-export-writer-" + number);
+        thread.setDaemon(true);
+        thread.start();
+      }
+      return queue;
+    }
+
+    void flushAndWait() {
+      try {
+        synchronized(this) {
+          if ( thread != null ) {
+            // the thread writes the batches queued before the marker and stops
+            queue.put(STOP);
+            thread.join();
+            thread = null;
+            queue = null;
+          }
+        }
+        synchronized(writer) {
+          writer.flush();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new DataMovementException("Interrupted while waiting for the export to be written", e);
+      } catch (IOException e) {
+        throw new DataMovementException("Failed to flush writer", e);
+      }
+    }
+
+    private void runTasks(BlockingQueue<Runnable> tasks) {
+      try {
+        for ( Runnable task = tasks.take(); task != STOP; task = tasks.take() ) {
+          task.run();
         }
+      } catch (InterruptedException e) {
+        logger.warn("Export writer thread interrupted before the queued batches were written");
       }
     }
   }
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2021 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.datamovement;
+
+/**
+ * Predicts the forest in which the database will insert a new document
+ * so a WriteBatcher can send the document directly to the host for
+ * that forest.  The prediction should reproduce the assignment policy
+ * configured for the database (such as the legacy, bucket, or segment
+ * policy) for the list of forests.
+ *
+ * A prediction only affects which host receives the document.  The
+ * database still assigns the document to a forest, so a wrong
+ * prediction costs a forwarding hop between hosts but doesn't change
+ * where the document is stored.
+ *
+ * The client API doesn't provide implementations of the database
+ * policies because the server's hash of the uri isn't a published
+ * contract.
+ *
+ * @see WriteBatcher#withForestAssignmentPolicy
+ */
+@FunctionalInterface
+public interface ForestAssignmentPolicy {
+  /**
+   * Identifies the forest in which the document with the uri will be inserted.
+   *
+   * @param uri the uri of the document
+   * @param forests the updateable forests of the database in the order listed
+   *        by the forest configuration
+   * @return one of the forests or null to send the document to any host
+   */
+  Forest assignForest(String uri, Forest[] forests);
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2021 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.datamovement;
+
+/**
+ * Provides a callback (typically as a lambda) to process an exception
+ * when trying to write a batch of triples to a graph.
+ */
+public interface GraphBatchFailureListener extends BatchFailureListener<GraphBatchFailureListener.GraphBatchFailureEvent> {
+    /**
+     * An exception which occurred when attempting to write a batch of triples
+     * to a graph.
+     */
+    interface GraphBatchFailureEvent extends BatchEvent {
+        /**
+         * Whether the GraphBatcher should retry the attempt to write the
+         * batch of triples, skip the batch of triples, or stop the job.
+         * @return how the GraphBatcher should dispose of the failure
+         */
+        BatchFailureDisposition getDisposition();
+        /**
+         * Specifies whether to retry the attempt to write the batch of triples,
+         * skip the batch of triples, or stop the job.
+         * @param disposition how the GraphBatcher should dispose of the failure
+         * @return  the failure event for chaining other configuration
+         */
+        GraphBatchFailureEvent withDisposition(BatchFailureDisposition disposition);
+        /**
+         * The number of retries before GraphBatcher skips the batch.
+         * @return the maximum number of retries
+         */
+        int getMaxRetries();
+        /**
+         * Specifies the number of retries before skipping the batch.
+         * The GraphBatcher notifies the failure listener after each retry
+         * until the limit is reached.
+         * @param maxRetries the maximum number of retries
+         * @return  the failure event for chaining other configuration
+         */
+        GraphBatchFailureEvent withMaxRetries(int maxRetries);
+
+        /**
+         * The uri of the graph for the batch of triples or
+         * {@link com.marklogic.client.semantics.GraphManager#DEFAULT_GRAPH GraphManager.DEFAULT_GRAPH}
+         * for the default graph.
+         * @return the graph uri
+         */
+        String getGraphUri();
+        /**
+         * The triples in the batch as N-Triples statements.
+         * @return the statements
+         */
+        String[] getTriples();
+        /**
+         * The number of retries so far for this batch of triples.
+         * @return the number of retries
+         */
+        int getBatchRetries();
+        /**
+         * The total number of batches skipped so far during the job.
+         * @return the number of skipped batches
+         */
+        long getFailedJobBatches();
+    }
+
+    /**
+     * Specifies how the GraphBatcher should respond to the failure
+     * to write a batch of triples.
+     */
+    enum BatchFailureDisposition {
+        /**
+         * Attempt to write the batch of triples again on the next host.
+         * This disposition is appropriate only if the exception indicates
+         * that the request might succeed if repeated.
+         */
+        RETRY,
+        /**
+         * Ignore the exception and continue with the other batches
+         * without writing the current batch of triples. This disposition
+         * is appropriate only if the exception indicates an issue
+         * specific to the batch of triples.
+         */
+        SKIP,
+        /**
+         * Stop the job, writing no more triples. This disposition
+         * is appropriate if the exception indicates that attempts
+         * to write batches of triples are likely to fail.
+         */
+        STOP;
+    }
+
+    /**
+     *
+     * @param batch the batch of triples that failed processing
+     * @param throwable the exception that caused the failure
+     */
+    void processFailure(GraphBatchFailureEvent batch, Throwable throwable);
+}
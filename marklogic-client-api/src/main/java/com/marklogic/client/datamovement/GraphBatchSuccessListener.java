@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2021 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.datamovement;
+
+/**
+ * Provides a callback (typically as a lambda) to process a batch of triples
+ * written to a graph by a GraphBatcher.
+ */
+public interface GraphBatchSuccessListener extends BatchListener<GraphBatchSuccessListener.GraphBatchEvent> {
+    /**
+     * A batch of triples written to a graph.
+     */
+    interface GraphBatchEvent extends BatchEvent {
+        /**
+         * The uri of the graph that received the triples or
+         * {@link com.marklogic.client.semantics.GraphManager#DEFAULT_GRAPH GraphManager.DEFAULT_GRAPH}
+         * for the default graph.
+         * @return the graph uri
+         */
+        String getGraphUri();
+        /**
+         * The triples in the batch as N-Triples statements.
+         * @return the statements
+         */
+        String[] getTriples();
+        /**
+         * The total number of triples written so far during the job,
+         * including the triples in this batch (useful for reporting progress).
+         * @return the number of written triples
+         */
+        long getJobTriplesSoFar();
+    }
+}
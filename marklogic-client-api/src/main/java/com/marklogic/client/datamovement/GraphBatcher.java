@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2021 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.datamovement;
+
+import com.marklogic.client.semantics.GraphManager;
+import com.marklogic.client.semantics.GraphPermissions;
+
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coordinates threads to load triples into graphs in batches.
+ *
+ * <p>Where {@link GraphManager#merge(String, com.marklogic.client.io.marker.TriplesWriteHandle) GraphManager.merge()}
+ * sends a graph payload in a single request, a GraphBatcher splits
+ * line-based RDF (that is, N-Triples or N-Quads) into statements, groups
+ * the statements by graph, and merges each batch of statements into its
+ * graph with a separate request. The batches are written concurrently
+ * by the threads of the GraphBatcher and, when connecting directly to
+ * the hosts of the cluster, round-robin over the hosts with forests for
+ * the database.</p>
+ *
+ * <p>To construct a GraphBatcher, use the
+ * {@link DataMovementManager#newGraphBatcher() DataMovementManager.newGraphBatcher()}
+ * factory method. Specify the number of threads with the
+ * {@link GraphBatcher#withThreadCount(int) withThreadCount()}
+ * method and the number of triples in a batch with the
+ * {@link GraphBatcher#withBatchSize(int) withBatchSize()}
+ * method. After starting the job, add the triples and then flush the
+ * batches that aren't full:</p>
+ *
+ * <pre>{@code
+ *    GraphBatcher graphBatcher = dataMovementMgr.newGraphBatcher()
+ *        .withBatchSize(10000)
+ *        .withThreadCount(8)
+ *        .onSuccess(event -> logger.info("{} triples written", event.getJobTriplesSoFar()))
+ *        .onFailure((event, throwable) -> event.withDisposition(
+ *             GraphBatchFailureListener.BatchFailureDisposition.RETRY
+ *             ));
+ *    dataMovementMgr.startJob(graphBatcher);
+ *    try (InputStream quads = new FileInputStream("dump.nq")) {
+ *        graphBatcher.addQuads(quads);
+ *    }
+ *    graphBatcher.flushAndWait();
+ *    dataMovementMgr.stopJob(graphBatcher);
+ *}</pre>
+ *
+ * <p>As with the other batchers, when all of the threads are busy, the
+ * thread that adds the triples writes a full batch itself, so adding
+ * triples slows to the pace of the server instead of buffering the input.</p>
+ *
+ * <p>Because each batch is a separate request, a batch that fails can be
+ * retried without resending the other batches. A batch is written to a graph
+ * as a whole, but the load as a whole isn't atomic.</p>
+ *
+ * <p>Because the statements with the same blank node label can be written
+ * in different batches, the GraphBatcher replaces blank node labels with
+ * IRIs in the {@code http://marklogic.com/semantics/blank/} namespace that
+ * are unique to the job. The labels in each N-Triples or N-Quads input
+ * identify the same node within that input, and the labels of triples
+ * added individually identify the same node within the job.</p>
+ */
+public interface GraphBatcher extends Batcher {
+    /**
+     * Adds a triple to the batch for the graph, writing the batch
+     * when the batch is full.
+     * @param graphUri the graph uri or {@link GraphManager#DEFAULT_GRAPH} (or null) for the default graph
+     * @param triple an N-Triples statement
+     * @return the GraphBatcher for chaining other calls
+     */
+    GraphBatcher add(String graphUri, String triple);
+    /**
+     * Splits N-Triples input into statements and adds the statements to
+     * the batches for the graph. Blank lines and comment lines are ignored.
+     * The input is read as UTF-8 and isn't closed.
+     * @param graphUri the graph uri or {@link GraphManager#DEFAULT_GRAPH} (or null) for the default graph
+     * @param ntriples the N-Triples input
+     * @return the GraphBatcher for chaining other calls
+     */
+    GraphBatcher addTriples(String graphUri, InputStream ntriples);
+    /**
+     * Splits N-Quads input into statements and adds each statement to
+     * the batches for the graph named by the statement. Statements without
+     * a graph name are added to the default graph. Blank lines and comment
+     * lines are ignored. The input is read as UTF-8 and isn't closed.
+     * @param nquads the N-Quads input
+     * @return the GraphBatcher for chaining other calls
+     */
+    GraphBatcher addQuads(InputStream nquads);
+
+    /**
+     * Specifies the permissions for graphs created by the job.
+     * @see GraphManager#permission(String, com.marklogic.client.semantics.Capability...)
+     * @param permissions the graph permissions
+     * @return the GraphBatcher for chaining other initializations
+     */
+    GraphBatcher withGraphPermissions(GraphPermissions permissions);
+    /**
+     * Gets the permissions for graphs created by the job.
+     * @return the graph permissions
+     */
+    GraphPermissions getGraphPermissions();
+
+    /**
+     * Specifies a success listener that is notified after a batch of
+     * triples is written to a graph.
+     * @param listener The callback function that receives the written batches
+     * @return the GraphBatcher for chaining other initializations
+     */
+    GraphBatcher onSuccess(GraphBatchSuccessListener listener);
+    /**
+     * Specifies a failure listener that is notified when a batch of
+     * triples can't be written and that decides whether to retry
+     * the batch.
+     * @param listener The callback function that receives any errors
+     * @return the GraphBatcher for chaining other initializations
+     */
+    GraphBatcher onFailure(GraphBatchFailureListener listener);
+
+    /**
+     * Specifies the number of triples in each batch written to a graph.
+     * @param batchSize the number of triples in a batch
+     * @return the GraphBatcher for chaining other initializations
+     */
+    @Override
+    GraphBatcher withBatchSize(int batchSize);
+    /**
+     * Specifies the forest configuration, which also identifies
+     * the enodes for the cluster when not using a load balancer.
+     * @param forestConfig the updated forest configuration
+     * @return the GraphBatcher for chaining other initializations
+     */
+    @Override
+    GraphBatcher withForestConfig(ForestConfiguration forestConfig);
+    /**
+     * Specifies the identifier for the job executed by the GraphBatcher.
+     * @param jobId the unique id you would like to assign to this job
+     * @return the GraphBatcher for chaining other initializations
+     */
+    @Override
+    GraphBatcher withJobId(String jobId);
+    /**
+     * Specifies the name for the job executed by the GraphBatcher.
+     * @param jobName the name you would like to assign to this job
+     * @return the GraphBatcher for chaining other initializations
+     */
+    @Override
+    GraphBatcher withJobName(String jobName);
+    /**
+     * Specifies how many batches of triples to write concurrently.
+     * @param threadCount the number of threads to use in this Batcher
+     * @return the GraphBatcher for chaining other initializations
+     */
+    @Override
+    GraphBatcher withThreadCount(int threadCount);
+
+    /**
+     * Gets the callback functions for successfully written batches.
+     * @return the success listeners
+     */
+    GraphBatchSuccessListener[] getSuccessListeners();
+    /**
+     * Gets the callback functions for errors.
+     * @return the failure listeners
+     */
+    GraphBatchFailureListener[] getFailureListeners();
+    /**
+     * Specifies the callback functions for successfully written
+     * batches when more than one callback function is needed.
+     * @param listeners the success listeners
+     */
+    void setSuccessListeners(GraphBatchSuccessListener... listeners);
+    /**
+     * Specifies the callback functions for errors when more than
+     * one callback function is needed.
+     * @param listeners the failure listeners
+     */
+    void setFailureListeners(GraphBatchFailureListener... listeners);
+
+    /**
+     * Submits the batches that aren't full yet for writing without
+     * waiting for the batches to be written.
+     */
+    void flushAsync();
+    /**
+     * Submits the batches that aren't full yet for writing and waits
+     * until all of the batches have been written or the job is stopped.
+     */
+    void flushAndWait();
+    /**
+     * Suspends execution of the current thread until either all batches
+     * submitted so far have been written or the job is stopped. Batches
+     * that aren't full are not submitted.
+     * @return true if all submitted batches were processed
+     */
+    boolean awaitCompletion();
+    /**
+     * Suspends execution of the current thread until either all batches
+     * submitted so far have been written, the job is stopped, or a timeout
+     * expires. Batches that aren't full are not submitted.
+     * @param timeout the amount for the timeout
+     * @param unit the unit of measure for the amount
+     * @return true if all submitted batches were processed
+     * @throws InterruptedException on interruption before the batches finish or timeout expires
+     */
+    boolean awaitCompletion(long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * The total number of batches of triples submitted for writing.
+     * @return the number of batches
+     */
+    long getBatchCount();
+    /**
+     * The number of batches that the GraphBatcher failed to write,
+     * including the batches that weren't written because the job
+     * stopped. The failure listeners are also notified of those batches.
+     * @return the number of batches
+     */
+    long getFailedBatches();
+    /**
+     * The number of triples added to the GraphBatcher so far, including
+     * triples that are still waiting in a batch.
+     * @return the number of added triples
+     */
+    long getTriplesAdded();
+    /**
+     * The number of triples written to graphs so far. To estimate progress,
+     * the written triples can be compared to the added triples.
+     * @return the number of written triples
+     */
+    long getTriplesWritten();
+}
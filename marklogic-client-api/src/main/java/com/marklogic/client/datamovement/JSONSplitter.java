@@ -21,8 +21,10 @@ import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.util.JsonParserDelegate;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
 import com.marklogic.client.document.DocumentWriteOperation;
 import com.marklogic.client.impl.DocumentWriteOperationImpl;
+import com.marklogic.client.io.ByteBufferHandle;
 import com.marklogic.client.io.Format;
 import com.marklogic.client.io.StringHandle;
 import com.marklogic.client.io.marker.AbstractWriteHandle;
@@ -31,6 +33,7 @@ import com.marklogic.client.io.marker.JSONWriteHandle;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.StringWriter;
+import java.nio.ByteBuffer;
 import java.util.ArrayDeque;
 import java.util.Spliterator;
 import java.util.Spliterators;
@@ -154,7 +157,8 @@ public class JSONSplitter<T extends JSONWriteHandle> implements Splitter<T> {
         }
         count = 0;
 
-        JSONSplitter.HandleSpliterator<T> handleSpliterator = new JSONSplitter.HandleSpliterator<>(this, input);
+        JSONSplitter.HandleSpliterator<T> handleSpliterator = new JSONSplitter.HandleSpliterator<>(this, input,
+                parser -> getVisitor().makeBufferedHandle(new JSONSplitter.JsonContainerParser(parser)));
         return StreamSupport.stream(handleSpliterator, true);
     }
 
@@ -173,11 +177,92 @@ public class JSONSplitter<T extends JSONWriteHandle> implements Splitter<T> {
         count = 0;
 
         this.splitFilename = splitFilename;
-        JSONSplitter.DocumentWriteOperationSpliterator spliterator =
-                new JSONSplitter.DocumentWriteOperationSpliterator<>(this, input);
+        JSONSplitter.DocumentWriteOperationSpliterator<T> spliterator =
+                new JSONSplitter.DocumentWriteOperationSpliterator<>(this, input,
+                        parser -> getVisitor().makeBufferedHandle(new JSONSplitter.JsonContainerParser(parser)),
+                        getVisitor()::makeDocumentWriteOperation);
         return StreamSupport.stream(spliterator, true);
     }
 
+    /**
+     * Takes a buffer with the bytes of a UTF-8 encoded JSON file and splits it into a stream of handles
+     * that reference the bytes of each split object or array in the buffer. The content isn't parsed
+     * into a handle and serialized again, which saves the time and memory for large files. The buffer can be
+     * a memory-mapped file.
+     *
+     * The visitor decides which objects and arrays to split, but its makeBufferedHandle() method isn't called.
+     * The bytes of the buffer must not change until the documents have been written.
+     * @param input the buffer with the JSON from its position to its limit
+     * @return a stream of handles to write to database
+     * @throws IOException if the input cannot be split
+     */
+    public Stream<ByteBufferHandle> splitBuffer(ByteBuffer input) throws IOException {
+        if (input == null) {
+            throw new IllegalArgumentException("Input cannot be null");
+        }
+        count = 0;
+
+        ByteBuffer source = input.slice();
+        JSONSplitter.HandleSpliterator<ByteBufferHandle> handleSpliterator =
+                new JSONSplitter.HandleSpliterator<>(this, makeBufferParser(source), parser -> sliceContainer(source, parser));
+        return StreamSupport.stream(handleSpliterator, true);
+    }
+
+    /**
+     * Takes a buffer with the bytes of a UTF-8 encoded JSON file and the file name and splits it into a stream of
+     * DocumentWriteOperation with handles that reference the bytes of each split object or array in the buffer.
+     * @param input the buffer with the JSON from its position to its limit
+     * @param splitFilename is the name of input file, including name and extension. It is used to generate URLs for split
+     *                  files.The splitFilename could either be provided here or in user-defined UriMaker.
+     * @return a stream of DocumentWriteOperation to write to database
+     * @throws IOException if the input cannot be split
+     * @see #splitBuffer(ByteBuffer)
+     */
+    public Stream<DocumentWriteOperation> splitBufferWriteOperations(ByteBuffer input, String splitFilename)
+            throws IOException {
+        if (input == null) {
+            throw new IllegalArgumentException("Input cannot be null");
+        }
+        count = 0;
+
+        this.splitFilename = splitFilename;
+        ByteBuffer source = input.slice();
+        JSONSplitter.DocumentWriteOperationSpliterator<ByteBufferHandle> spliterator =
+                new JSONSplitter.DocumentWriteOperationSpliterator<>(this, makeBufferParser(source),
+                        parser -> sliceContainer(source, parser),
+                        JSONSplitter::makeSliceWriteOperation);
+        return StreamSupport.stream(spliterator, true);
+    }
+
+    private static JsonParser makeBufferParser(ByteBuffer source) throws IOException {
+        // the byte offsets reported by the parser are relative to the start of the array range or stream
+        if (source.hasArray()) {
+            return new JsonFactory().createParser(
+                    source.array(), source.arrayOffset() + source.position(), source.remaining());
+        }
+        return new JsonFactory().createParser(new ByteBufferBackedInputStream(source.duplicate()));
+    }
+
+    private static ByteBufferHandle sliceContainer(ByteBuffer source, JsonParser parser) throws IOException {
+        long start = parser.getTokenLocation().getByteOffset();
+        parser.skipChildren();
+        long end = parser.getCurrentLocation().getByteOffset();
+
+        ByteBuffer slice = source.duplicate();
+        slice.position((int) start);
+        slice.limit((int) end);
+        return new ByteBufferHandle(slice).withFormat(Format.JSON);
+    }
+
+    private static DocumentWriteOperation makeSliceWriteOperation(UriMaker uriMaker, long count, ByteBufferHandle handle) {
+        return new DocumentWriteOperationImpl(
+                DocumentWriteOperation.OperationType.DOCUMENT_WRITE,
+                uriMaker.makeUri(count, handle),
+                null,
+                handle
+        );
+    }
+
     /**
      * The Visitor class is used to accumulate and inspect state during the depth-first traversal of the JSON tree
      * and make the decision of how to split the JSON file.
@@ -355,6 +440,16 @@ public class JSONSplitter<T extends JSONWriteHandle> implements Splitter<T> {
         }
     }
 
+    @FunctionalInterface
+    private interface ContainerReader<T> {
+        T read(JsonParser jsonParser) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface WriteOperationMaker<T> {
+        DocumentWriteOperation make(UriMaker uriMaker, long count, T handle);
+    }
+
     private static abstract class JSONSpliterator<U, T extends JSONWriteHandle> extends Spliterators.AbstractSpliterator<U> {
 
         private JsonParser jsonParser;
@@ -368,25 +463,27 @@ public class JSONSplitter<T extends JSONWriteHandle> implements Splitter<T> {
         }
 
         private ArrayDeque<String> key = new ArrayDeque<>();
-        private Visitor<T> visitor;
-        private JSONSplitter<T> splitter;
+        private Visitor<?> visitor;
+        private JSONSplitter<?> splitter;
+        private ContainerReader<T> containerReader;
 
-        private void setSplitter(JSONSplitter<T> splitter) {
+        private void setSplitter(JSONSplitter<?> splitter) {
             if (splitter == null) {
                 throw new IllegalArgumentException("JSONSplitter cannot be null");
             }
             this.splitter = splitter;
         }
 
-        JSONSplitter<T> getSplitter() {
+        JSONSplitter<?> getSplitter() {
             return this.splitter;
         }
 
-        JSONSpliterator(JSONSplitter<T> splitter, JsonParser jsonParser) {
+        JSONSpliterator(JSONSplitter<?> splitter, JsonParser jsonParser, ContainerReader<T> containerReader) {
             super(Long.MAX_VALUE, Spliterator.NONNULL + Spliterator.IMMUTABLE);
             setSplitter(splitter);
             setJsonParser(jsonParser);
             this.visitor = splitter.getVisitor();
+            this.containerReader = containerReader;
         }
 
         T getNextHandle() {
@@ -410,7 +507,7 @@ public class JSONSplitter<T extends JSONWriteHandle> implements Splitter<T> {
                                     break;
 
                                 case PROCESS:
-                                    T handle = visitor.makeBufferedHandle(new JSONSplitter.JsonContainerParser(jsonParser));
+                                    T handle = containerReader.read(jsonParser);
                                     if (handle != null) {
                                         return handle;
                                     }
@@ -439,7 +536,7 @@ public class JSONSplitter<T extends JSONWriteHandle> implements Splitter<T> {
                                     break;
 
                                 case PROCESS:
-                                    T handle = visitor.makeBufferedHandle(new JSONSplitter.JsonContainerParser(jsonParser));
+                                    T handle = containerReader.read(jsonParser);
                                     if (handle != null) {
                                         return handle;
                                     }
@@ -472,13 +569,13 @@ public class JSONSplitter<T extends JSONWriteHandle> implements Splitter<T> {
 
     private static class HandleSpliterator<T extends JSONWriteHandle> extends JSONSpliterator<T, T> {
 
-        HandleSpliterator(JSONSplitter<T> splitter, JsonParser jsonParser) {
-            super(splitter, jsonParser);
+        HandleSpliterator(JSONSplitter<?> splitter, JsonParser jsonParser, ContainerReader<T> containerReader) {
+            super(splitter, jsonParser, containerReader);
         }
 
         @Override
         public boolean tryAdvance(Consumer<? super T> action) {
-            T handle = (T) getNextHandle();
+            T handle = getNextHandle();
             if (handle == null) {
                 return false;
             }
@@ -492,13 +589,17 @@ public class JSONSplitter<T extends JSONWriteHandle> implements Splitter<T> {
 
     private static class DocumentWriteOperationSpliterator<T extends JSONWriteHandle> extends JSONSpliterator<DocumentWriteOperation, T> {
 
-        DocumentWriteOperationSpliterator(JSONSplitter<T> splitter, JsonParser jsonParser) {
-            super(splitter, jsonParser);
+        private WriteOperationMaker<T> writeOperationMaker;
+
+        DocumentWriteOperationSpliterator(JSONSplitter<?> splitter, JsonParser jsonParser,
+                                          ContainerReader<T> containerReader, WriteOperationMaker<T> writeOperationMaker) {
+            super(splitter, jsonParser, containerReader);
+            this.writeOperationMaker = writeOperationMaker;
         }
 
         @Override
         public boolean tryAdvance(Consumer<? super DocumentWriteOperation> action) {
-            T handle = (T) getNextHandle();
+            T handle = getNextHandle();
             if (handle == null) {
                 return false;
             }
@@ -516,7 +617,7 @@ public class JSONSplitter<T extends JSONWriteHandle> implements Splitter<T> {
             }
 
             getSplitter().count = getSplitter().getCount() + 1;
-            DocumentWriteOperation documentWriteOperation = getSplitter().getVisitor().makeDocumentWriteOperation(
+            DocumentWriteOperation documentWriteOperation = writeOperationMaker.make(
                     getSplitter().getUriMaker(),
                     getSplitter().getCount(),
                     handle);
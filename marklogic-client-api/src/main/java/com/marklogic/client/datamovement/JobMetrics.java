@@ -0,0 +1,305 @@
+/*
+ * Copyright (c) 2021 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.datamovement;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A MetricsListener that aggregates the measurements in memory for each
+ * job and for each host without depending on a metrics library.  The
+ * statistics accumulate from the time the listener is registered and can
+ * be read at any time while the jobs run, for instance to log or export
+ * them periodically:
+ *
+ * <pre>{@code
+ *     JobMetrics metrics = new JobMetrics();
+ *     dataMovementManager.withMetricsListener(metrics);
+ *     ...
+ *     JobMetrics.Stats stats = metrics.getJobStats(ticket.getJobId());
+ *     logger.info("requests={} failures={} p99={}ms",
+ *         stats.getRequests(), stats.getFailures(), stats.getLatencyPercentileMillis(0.99));
+ *}</pre>
+ *
+ * Latencies are counted in a histogram with fixed bucket bounds, so the
+ * percentiles are the upper bound of the bucket that contains them.
+ */
+public class JobMetrics implements MetricsListener {
+  private static final long[] LATENCY_BOUNDS_MILLIS = {
+    1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 30000, 60000, Long.MAX_VALUE
+  };
+
+  private final Map<String, Stats> jobStats  = new ConcurrentHashMap<>();
+  private final Map<String, Stats> hostStats = new ConcurrentHashMap<>();
+
+  @Override
+  public void processEvent(RequestMetrics request) {
+    if (request == null) {
+      throw new IllegalArgumentException("request must not be null");
+    }
+    String jobId = request.getJobId();
+    if (jobId != null) {
+      jobStats.computeIfAbsent(jobId, key -> new Stats()).record(request);
+    }
+    String host = request.getHost();
+    if (host != null) {
+      hostStats.computeIfAbsent(host, key -> new Stats()).record(request);
+    }
+  }
+
+  /**
+   * The ids of the jobs with measurements.
+   *
+   * @return the job ids
+   */
+  public Set<String> getJobIds() {
+    return Collections.unmodifiableSet(jobStats.keySet());
+  }
+
+  /**
+   * The statistics for the requests of a job.
+   *
+   * @param jobId the id of the job
+   * @return the statistics or null if the job hasn't made any requests
+   */
+  public Stats getJobStats(String jobId) {
+    return jobStats.get(jobId);
+  }
+
+  /**
+   * The hosts with measurements.
+   *
+   * @return the host names
+   */
+  public Set<String> getHosts() {
+    return Collections.unmodifiableSet(hostStats.keySet());
+  }
+
+  /**
+   * The statistics for the requests of all jobs to a host.
+   *
+   * @param host the name of the host
+   * @return the statistics or null if no job has made requests to the host
+   */
+  public Stats getHostStats(String host) {
+    return hostStats.get(host);
+  }
+
+  /**
+   * Discards the statistics for a job, for instance after the job is stopped.
+   *
+   * @param jobId the id of the job
+   */
+  public void removeJob(String jobId) {
+    jobStats.remove(jobId);
+  }
+
+  /**
+   * The statistics accumulated for the requests of a job or host.
+   * The counts are updated concurrently, so values read while
+   * requests complete may be slightly out of step with each other.
+   */
+  public static class Stats {
+    private final LongAdder requests      = new LongAdder();
+    private final LongAdder failures      = new LongAdder();
+    private final LongAdder retries       = new LongAdder();
+    private final LongAdder items         = new LongAdder();
+    private final LongAdder bytesSent     = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+    private final LongAdder totalNanos    = new LongAdder();
+    private final AtomicLong maxNanos     = new AtomicLong();
+    private final LongAdder[] latencyBuckets = new LongAdder[LATENCY_BOUNDS_MILLIS.length];
+    private final Map<Integer, LongAdder> statusCounts = new ConcurrentHashMap<>();
+    private final AtomicInteger lastQueueDepth = new AtomicInteger();
+    private final AtomicInteger maxQueueDepth  = new AtomicInteger();
+
+    Stats() {
+      for (int i = 0; i < latencyBuckets.length; i++) {
+        latencyBuckets[i] = new LongAdder();
+      }
+    }
+
+    void record(RequestMetrics request) {
+      requests.increment();
+      if (request.getThrowable() != null) {
+        failures.increment();
+      }
+      if (request.isRetry()) {
+        retries.increment();
+      }
+      items.add(request.getItemCount());
+      if (request.getBytesSent() > 0) {
+        bytesSent.add(request.getBytesSent());
+      }
+      if (request.getBytesReceived() > 0) {
+        bytesReceived.add(request.getBytesReceived());
+      }
+
+      long nanos = Math.max(0, request.getDurationNanos());
+      totalNanos.add(nanos);
+      maxNanos.accumulateAndGet(nanos, Math::max);
+      long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+      for (int i = 0; i < LATENCY_BOUNDS_MILLIS.length; i++) {
+        if (millis < LATENCY_BOUNDS_MILLIS[i]) {
+          latencyBuckets[i].increment();
+          break;
+        }
+      }
+
+      int status = request.getServerStatusCode();
+      if (status > 0) {
+        statusCounts.computeIfAbsent(status, key -> new LongAdder()).increment();
+      }
+
+      lastQueueDepth.set(request.getQueueDepth());
+      maxQueueDepth.accumulateAndGet(request.getQueueDepth(), Math::max);
+    }
+
+    /**
+     * The number of completed requests, including failures and retries.
+     * @return the request count
+     */
+    public long getRequests() {
+      return requests.sum();
+    }
+    /**
+     * The number of requests that failed.
+     * @return the failure count
+     */
+    public long getFailures() {
+      return failures.sum();
+    }
+    /**
+     * The number of requests that retried a failed batch.
+     * @return the retry count
+     */
+    public long getRetries() {
+      return retries.sum();
+    }
+    /**
+     * The number of documents, uris, or rows in the requests.
+     * @return the item count
+     */
+    public long getItems() {
+      return items.sum();
+    }
+    /**
+     * The number of bytes sent in requests with a known content length.
+     * @return the byte count
+     */
+    public long getBytesSent() {
+      return bytesSent.sum();
+    }
+    /**
+     * The number of bytes received in responses with a known content length.
+     * @return the byte count
+     */
+    public long getBytesReceived() {
+      return bytesReceived.sum();
+    }
+    /**
+     * The number of failed requests that received a response with the HTTP status,
+     * such as 503 when the server is unavailable.
+     * @param statusCode the HTTP status code
+     * @return the failure count for the status
+     */
+    public long getStatusCount(int statusCode) {
+      LongAdder count = statusCounts.get(statusCode);
+      return (count == null) ? 0 : count.sum();
+    }
+    /**
+     * The mean latency of the requests.
+     * @return the latency in milliseconds
+     */
+    public double getMeanLatencyMillis() {
+      long count = requests.sum();
+      return (count == 0) ? 0 : totalNanos.sum() / (count * 1000000.0);
+    }
+    /**
+     * The longest latency of the requests.
+     * @return the latency in milliseconds
+     */
+    public double getMaxLatencyMillis() {
+      return maxNanos.get() / 1000000.0;
+    }
+    /**
+     * The upper bound of the latency histogram bucket that contains the
+     * percentile of the requests.
+     * @param percentile the percentile between 0 and 1 such as 0.99
+     * @return the latency in milliseconds or Long.MAX_VALUE for requests longer than a minute
+     */
+    public long getLatencyPercentileMillis(double percentile) {
+      if (percentile < 0 || percentile > 1) {
+        throw new IllegalArgumentException("percentile must be between 0 and 1: "+percentile);
+      }
+      long[] counts = getLatencyHistogram();
+      long total = 0;
+      for (long count : counts) {
+        total += count;
+      }
+      if (total == 0) {
+        return 0;
+      }
+      long threshold = (long) Math.ceil(percentile * total);
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= threshold && seen > 0) {
+          return LATENCY_BOUNDS_MILLIS[i];
+        }
+      }
+      return LATENCY_BOUNDS_MILLIS[LATENCY_BOUNDS_MILLIS.length - 1];
+    }
+    /**
+     * The number of requests in each bucket of the latency histogram.
+     * @return the counts in the order of {@link #getLatencyBucketBoundsMillis}
+     */
+    public long[] getLatencyHistogram() {
+      long[] counts = new long[latencyBuckets.length];
+      for (int i = 0; i < counts.length; i++) {
+        counts[i] = latencyBuckets[i].sum();
+      }
+      return counts;
+    }
+    /**
+     * The exclusive upper bounds of the buckets of the latency histogram.
+     * @return the bounds in milliseconds
+     */
+    public long[] getLatencyBucketBoundsMillis() {
+      return LATENCY_BOUNDS_MILLIS.clone();
+    }
+    /**
+     * The number of batches waiting for a thread when the latest request completed.
+     * @return the queue depth
+     */
+    public int getQueueDepth() {
+      return lastQueueDepth.get();
+    }
+    /**
+     * The largest number of batches waiting for a thread when a request completed.
+     * @return the queue depth
+     */
+    public int getMaxQueueDepth() {
+      return maxQueueDepth.get();
+    }
+  }
+}
@@ -48,6 +48,34 @@ public interface JobReport {
    */
   long getFailureBatchesCount();
 
+  /**
+   * {@link WriteBatcher} : gets the number of documents in the next batch,
+   * which changes over time with adaptive batching<br>
+   * {@link QueryBatcher} : gets the batch size
+   * @return the current batch size or zero if not reported
+   */
+  default int getCurrentBatchSize() {
+    return 0;
+  }
+  /**
+   * {@link WriteBatcher} : gets the number of threads writing batches,
+   * which changes over time with adaptive batching<br>
+   * {@link QueryBatcher} : gets the thread count
+   * @return the current thread count or zero if not reported
+   */
+  default int getCurrentThreadCount() {
+    return 0;
+  }
+  /**
+   * {@link WriteBatcher} : gets the number of times adaptive batching
+   * changed the batch size or thread count<br>
+   * {@link QueryBatcher} : always zero
+   * @return the number of adjustments
+   */
+  default long getAdjustmentsCount() {
+    return 0;
+  }
+
   //boolean isJobComplete();
 
   /**
@@ -38,5 +38,5 @@ public interface JobTicket {
    */
   Batcher getBatcher();
 
-  enum JobType { WRITE_BATCHER, QUERY_BATCHER, ROW_BATCHER; };
+  enum JobType { WRITE_BATCHER, QUERY_BATCHER, ROW_BATCHER, GRAPH_BATCHER; };
 }
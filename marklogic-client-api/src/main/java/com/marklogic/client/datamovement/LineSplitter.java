@@ -22,16 +22,31 @@ import com.marklogic.client.io.Format;
 import com.marklogic.client.io.StringHandle;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * The LineSplitter class is used to separate lines in line-delimited JSON, XML or TEXT files.
  * It should also work with gzip-compressed line-delimited files.
  */
 public class LineSplitter implements Splitter<StringHandle> {
+    final static private long DEFAULT_CHUNK_SIZE = 32 * 1024 * 1024;
+
     private Format format = Format.JSON;
     private long count = 0;
+    private long chunkSize = DEFAULT_CHUNK_SIZE;
 
     /**
      * Returns the document format set to splitter.
@@ -54,6 +69,28 @@ public class LineSplitter implements Splitter<StringHandle> {
         this.format = format;
     }
 
+    /**
+     * Returns the approximate size of the chunks of a file split in parallel.
+     * @return the chunk size in bytes. The default is 32 MB.
+     */
+    public long getChunkSize() {
+        return this.chunkSize;
+    }
+
+    /**
+     * Used to set the approximate size of the chunks of a file split in parallel
+     * by {@link #splitWriteOperations(Path, String)}. Each chunk is extended to
+     * the end of its last line, so the chunk size should be much larger than a line.
+     * @param chunkSize the chunk size in bytes.
+     */
+    public void setChunkSize(long chunkSize) {
+        if (chunkSize <= 0 || chunkSize >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Chunk size must be positive and less than 2 GB: "+chunkSize);
+        }
+
+        this.chunkSize = chunkSize;
+    }
+
     /**
      * Used to return the number of objects in the stream.
      * @return the number of objects in the stream.
@@ -106,20 +143,7 @@ public class LineSplitter implements Splitter<StringHandle> {
         }
 
         count = 0;
-        String extension = getFormat().getDefaultExtension();
-        if (getUriMaker() == null) {
-            LineSplitter.UriMakerImpl uriMaker = new LineSplitter.UriMakerImpl();
-            uriMaker.setSplitFilename(splitFilename);
-            uriMaker.setExtension(extension);
-            setUriMaker(uriMaker);
-        } else {
-            if (splitFilename != null) {
-                getUriMaker().setSplitFilename(splitFilename);
-            }
-            if (getUriMaker() instanceof LineSplitter.UriMakerImpl) {
-                ((LineSplitter.UriMakerImpl)getUriMaker()).setExtension(extension);
-            }
-        }
+        prepareUriMaker(splitFilename);
 
         return new BufferedReader(new InputStreamReader(input))
                 .lines()
@@ -137,6 +161,109 @@ public class LineSplitter implements Splitter<StringHandle> {
                 });
     }
 
+    /**
+     * Takes the path of a line-delimited file and converts it into a parallel stream of DocumentWriteOperation.
+     * @param path is the path of the UTF-8 encoded, uncompressed file.
+     * @return a parallel stream of DocumentWriteOperation.
+     * @throws IOException if the file cannot be read
+     * @see #splitWriteOperations(Path, String)
+     */
+    public Stream<DocumentWriteOperation> splitWriteOperations(Path path) throws IOException {
+        return splitWriteOperations(path, null);
+    }
+
+    /**
+     * Takes the path of a line-delimited file and input file name and converts it into a parallel stream
+     * of DocumentWriteOperation, which can be passed to {@link WriteBatcher#addAll(Stream)} to add
+     * documents to the batcher from several threads.
+     *
+     * The file is memory-mapped in chunks that end at a line break, and the chunks are split in parallel.
+     * The lines are counted before splitting, so each document has the same number in its URI as when
+     * splitting the file sequentially, and {@link #getCount()} returns the total number of lines when
+     * this method returns. The UriMaker is called from several threads at once, so a user-defined
+     * UriMaker must be thread-safe.
+     * @param path is the path of the UTF-8 encoded, uncompressed file.
+     * @param splitFilename is the name of the input file, including name and extension. It is used to generate URLs for
+     *                  split files. The splitFilename could either be provided here or in user-defined UriMaker.
+     * @return a parallel stream of DocumentWriteOperation.
+     * @throws IOException if the file cannot be read
+     */
+    public Stream<DocumentWriteOperation> splitWriteOperations(Path path, String splitFilename) throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException("Path cannot be null.");
+        }
+
+        prepareUriMaker(splitFilename);
+        List<LineChunk> chunks = mapChunks(path);
+        chunks.parallelStream().forEach(LineChunk::countLines);
+
+        long total = 0;
+        for (LineChunk chunk: chunks) {
+            chunk.firstNumber = total + 1;
+            total += chunk.lineCount;
+        }
+        count = total;
+
+        LineSplitter.UriMaker uriMaker = getUriMaker();
+        Format chunkFormat = getFormat();
+        return chunks.parallelStream()
+                .flatMap(chunk -> chunk.lines(uriMaker, chunkFormat));
+    }
+
+    private void prepareUriMaker(String splitFilename) {
+        String extension = getFormat().getDefaultExtension();
+        if (getUriMaker() == null) {
+            LineSplitter.UriMakerImpl uriMaker = new LineSplitter.UriMakerImpl();
+            uriMaker.setSplitFilename(splitFilename);
+            uriMaker.setExtension(extension);
+            setUriMaker(uriMaker);
+        } else {
+            if (splitFilename != null) {
+                getUriMaker().setSplitFilename(splitFilename);
+            }
+            if (getUriMaker() instanceof LineSplitter.UriMakerImpl) {
+                ((LineSplitter.UriMakerImpl)getUriMaker()).setExtension(extension);
+            }
+        }
+    }
+
+    private List<LineChunk> mapChunks(Path path) throws IOException {
+        List<LineChunk> chunks = new ArrayList<>();
+        // the mappings remain valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer probe = ByteBuffer.allocate(8192);
+            long start = 0;
+            while (start < size) {
+                long end = Math.min(start + getChunkSize(), size);
+                end = findLineEnd(channel, probe, end, size);
+                if (end - start > Integer.MAX_VALUE) {
+                    throw new IOException("Line longer than 2 GB at offset "+start+" in "+path);
+                }
+                chunks.add(new LineChunk(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start)));
+                start = end;
+            }
+        }
+        return chunks;
+    }
+
+    private static long findLineEnd(FileChannel channel, ByteBuffer probe, long position, long size) throws IOException {
+        while (position < size) {
+            probe.clear();
+            int length = channel.read(probe, position);
+            if (length <= 0) {
+                break;
+            }
+            for (int i = 0; i < length; i++) {
+                if (probe.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += length;
+        }
+        return size;
+    }
+
     /**
      * Takes the input stream and converts it into a stream of StringHandle. The content could be
      * line-delimited JSON file, line-delimited XML file or gzip-compressed line-delimited JSON file.
@@ -209,6 +336,76 @@ public class LineSplitter implements Splitter<StringHandle> {
         String makeUri(long num, StringHandle handle);
     }
 
+    private static class LineChunk {
+        private final MappedByteBuffer buffer;
+        private long firstNumber;
+        private long lineCount;
+
+        LineChunk(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        void countLines() {
+            long lines = 0;
+            int lineStart = 0;
+            int limit = buffer.limit();
+            for (int i = 0; i <= limit; i++) {
+                if (i == limit || buffer.get(i) == '\n') {
+                    if (lineEnd(lineStart, i) > lineStart) {
+                        lines++;
+                    }
+                    lineStart = i + 1;
+                }
+            }
+            lineCount = lines;
+        }
+
+        Stream<DocumentWriteOperation> lines(LineSplitter.UriMaker uriMaker, Format format) {
+            Spliterator<DocumentWriteOperation> lineSpliterator =
+                new Spliterators.AbstractSpliterator<DocumentWriteOperation>(lineCount,
+                        Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.SIZED) {
+                    private final ByteBuffer source = buffer.duplicate();
+                    private int position = 0;
+                    private long number = firstNumber;
+                    @Override
+                    public boolean tryAdvance(Consumer<? super DocumentWriteOperation> action) {
+                        int limit = buffer.limit();
+                        while (position < limit) {
+                            int lineStart = position;
+                            int i = lineStart;
+                            while (i < limit && buffer.get(i) != '\n') {
+                                i++;
+                            }
+                            position = i + 1;
+                            int end = lineEnd(lineStart, i);
+                            if (end > lineStart) {
+                                byte[] bytes = new byte[end - lineStart];
+                                source.position(lineStart);
+                                source.get(bytes);
+                                StringHandle handle = new StringHandle(new String(bytes, StandardCharsets.UTF_8))
+                                        .withFormat(format);
+                                String uri = uriMaker.makeUri(number++, handle);
+                                action.accept(new DocumentWriteOperationImpl(
+                                        DocumentWriteOperation.OperationType.DOCUMENT_WRITE,
+                                        uri,
+                                        null,
+                                        handle
+                                ));
+                                return true;
+                            }
+                        }
+                        return false;
+                    }
+                };
+            return StreamSupport.stream(lineSpliterator, false);
+        }
+
+        // excludes the carriage return of a Windows line break
+        private int lineEnd(int lineStart, int newline) {
+            return (newline > lineStart && buffer.get(newline - 1) == '\r') ? newline - 1 : newline;
+        }
+    }
+
     private static class UriMakerImpl extends com.marklogic.client.datamovement.impl.UriMakerImpl<StringHandle> implements LineSplitter.UriMaker {
     }
 }
\ No newline at end of file
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2021 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.datamovement;
+
+/**
+ * Receives the measurements of the requests made by the batchers of a
+ * DataMovementManager so the latency, throughput, and failures of each
+ * job and host can be monitored while the jobs run.
+ *
+ * A listener can aggregate the measurements itself as the {@link JobMetrics}
+ * listener does or can forward the measurements to a metrics library.
+ * For instance, a listener could record the latency with Micrometer:
+ *
+ * <pre>{@code
+ *     dataMovementManager.withMetricsListener(request ->
+ *         Timer.builder("marklogic.batch.request")
+ *             .tag("job",  request.getJobName())
+ *             .tag("host", request.getHost())
+ *             .tag("outcome", request.getThrowable() == null ? "success" : "failure")
+ *             .register(meterRegistry)
+ *             .record(request.getDurationNanos(), TimeUnit.NANOSECONDS));
+ *}</pre>
+ *
+ * The batchers call the listener on the threads that make the requests,
+ * so the listener must be thread safe and should return quickly.
+ * Exceptions thrown by the listener are logged and ignored.
+ *
+ * @see DataMovementManager#withMetricsListener
+ */
+@FunctionalInterface
+public interface MetricsListener {
+  /**
+   * Receives the measurement of a completed request.
+   *
+   * @param request the measurement of the request
+   */
+  void processEvent(RequestMetrics request);
+}
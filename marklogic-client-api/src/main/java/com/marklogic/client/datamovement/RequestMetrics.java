@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2021 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.datamovement;
+
+/**
+ * The measurement of a request made by a batcher for a batch: writing the
+ * documents of a WriteBatcher batch, reading the uris of a QueryBatcher
+ * batch, or reading the rows of a RowBatcher batch.
+ *
+ * @see MetricsListener
+ */
+public interface RequestMetrics {
+  /**
+   * The id of the job that made the request.
+   *
+   * @return the job id
+   */
+  String getJobId();
+
+  /**
+   * The name of the job that made the request.
+   *
+   * @return the job name
+   */
+  String getJobName();
+
+  /**
+   * The kind of batcher that made the request.
+   *
+   * @return the job type
+   */
+  JobTicket.JobType getJobType();
+
+  /**
+   * The host that received the request.
+   *
+   * @return the host name
+   */
+  String getHost();
+
+  /**
+   * The number of the batch within the job.  A QueryBatcher reads the uris
+   * before numbering the batches, so its requests only have a batch number
+   * when retrying a batch.
+   *
+   * @return the job batch number or 0 if unknown
+   */
+  long getJobBatchNumber();
+
+  /**
+   * Whether the request retried a batch that failed before.
+   *
+   * @return true for a retry
+   */
+  boolean isRetry();
+
+  /**
+   * The time between sending the request and receiving the response.
+   *
+   * @return the duration in nanoseconds
+   */
+  long getDurationNanos();
+
+  /**
+   * The number of documents written or of uris or rows read.
+   *
+   * @return the item count
+   */
+  long getItemCount();
+
+  /**
+   * The number of bytes of content sent with the request
+   * if known for all of the content.
+   *
+   * @return the byte count or -1 if unknown
+   */
+  long getBytesSent();
+
+  /**
+   * The number of bytes of content received in the response if known.
+   *
+   * @return the byte count or -1 if unknown
+   */
+  long getBytesReceived();
+
+  /**
+   * The number of batches waiting for a thread of the job when the request completed.
+   *
+   * @return the queue depth
+   */
+  int getQueueDepth();
+
+  /**
+   * The HTTP status of the failure response from the server, if any.
+   *
+   * @return the status code or 0 if the request succeeded or failed without a response
+   */
+  int getServerStatusCode();
+
+  /**
+   * The reason the request failed, if any.
+   *
+   * @return the throwable or null if the request succeeded
+   */
+  Throwable getThrowable();
+}
@@ -16,6 +16,7 @@
 package com.marklogic.client.datamovement;
 
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 import com.marklogic.client.document.DocumentWriteOperation;
@@ -278,6 +279,66 @@ public interface WriteBatcher extends Batcher {
   @Override
   WriteBatcher withForestConfig(ForestConfiguration forestConfig);
 
+  /**
+   * Groups documents into batches by the host of the forest predicted
+   * for each document instead of sending each batch to the next host
+   * in round-robin order.  Sending a document to the host for its forest
+   * avoids forwarding the document between hosts of the cluster.  Documents
+   * for which the policy doesn't predict a forest on one of the hosts are
+   * batched in round-robin order as usual.
+   *
+   * Each host has its own queue, so a batch is written when batchSize
+   * documents accumulate for one host, and flushAsync or flushAndWait
+   * writes the partial batches for all hosts.
+   *
+   * @param policy the prediction of the forest for each document or null
+   *        to write batches in round-robin order
+   *
+   * @return this instance for method chaining
+   */
+  default WriteBatcher withForestAssignmentPolicy(ForestAssignmentPolicy policy) {
+    throw new UnsupportedOperationException("Forest assignment not supported by this batcher");
+  }
+
+  /**
+   * The policy for predicting the forest of each document, if any.
+   *
+   * @return the forest assignment policy or null
+   */
+  default ForestAssignmentPolicy getForestAssignmentPolicy() {
+    return null;
+  }
+
+  /**
+   * Receives each document of a batch after the batch has been written and
+   * the batch success listeners have run so the handles of the document
+   * can be reused for documents added later instead of being garbage.  For
+   * instance, the {@link com.marklogic.client.io.PooledBytesHandle#recycle
+   * PooledBytesHandle.recycle} method returns pooled handles and their
+   * buffers to their pool.
+   *
+   * Documents of a batch that fails aren't recycled unless a failure
+   * listener retries the batch and the retry succeeds.  The recycler
+   * must not throw exceptions.
+   *
+   * @param recycler the recycler for the documents of written batches or
+   *        null to leave the handles to the garbage collector
+   *
+   * @return this instance for method chaining
+   */
+  default WriteBatcher withHandleRecycler(Consumer<DocumentWriteOperation> recycler) {
+    throw new UnsupportedOperationException("Handle recycling not supported by this batcher");
+  }
+
+  /**
+   * The recycler for the documents of written batches, if any.
+   *
+   * @return the handle recycler or null
+   */
+  default Consumer<DocumentWriteOperation> getHandleRecycler() {
+    return null;
+  }
+
   /**
    * Sets the job name.  Eventually, this may become useful for seeing named
    * jobs in ops director.
@@ -322,6 +383,147 @@ public interface WriteBatcher extends Batcher {
   @Override
   WriteBatcher withThreadCount(int threadCount);
 
+  /**
+   * Limits the documents in flight, which are the documents that have been
+   * added but not yet written or failed, to keep memory use flat when
+   * documents are added faster than the cluster can write them.  When a
+   * limit is reached, add waits until batches finish and tryAdd waits up to
+   * its timeout.  With a limit, the threads that add documents never write
+   * batches themselves.
+   *
+   * Only handles that know the content length without sending the content
+   * count toward maxBytes (see {@link #withMaxBatchBytes}).  A document
+   * larger than maxBytes is admitted when no other document is in flight.
+   * If all of the documents in flight are waiting for their batch to fill,
+   * the partial batches are written to make room.  The job fails to start
+   * if maxDocuments is less than the batchSize.
+   *
+   * @param maxDocuments the number of documents in flight, which must be at
+   *        least the batchSize, or 0 for no limit
+   * @param maxBytes the content length of the documents in flight or 0 for no limit
+   *
+   * @return this instance for method chaining
+   */
+  default WriteBatcher withMaxInFlight(int maxDocuments, long maxBytes) {
+    throw new UnsupportedOperationException("In-flight limits not supported by this batcher");
+  }
+
+  /**
+   * The limit on the number of documents in flight, if any.
+   *
+   * @return the maximum number of documents in flight or 0 for no limit
+   */
+  default int getMaxInFlightDocuments() {
+    return 0;
+  }
+
+  /**
+   * The limit on the content length of the documents in flight, if any.
+   *
+   * @return the maximum bytes in flight or 0 for no limit
+   */
+  default long getMaxInFlightBytes() {
+    return 0;
+  }
+
+  /**
+   * <p>Adds a document to be batched like {@link #add(DocumentWriteOperation) add},
+   * waiting up to the timeout if the documents in flight are at the limits
+   * set with {@link #withMaxInFlight}.</p>
+   *
+   * @param writeOperation the DocumentWriteOperation object containing
+   *          the document's details to be written to the server
+   * @param timeout the maximum time to wait
+   * @param unit the unit of the timeout
+   * @return true if the document was added or false if the timeout elapsed first
+   * @throws InterruptedException if interrupted while waiting
+   */
+  default boolean tryAdd(DocumentWriteOperation writeOperation, long timeout, TimeUnit unit) throws InterruptedException {
+    add(writeOperation);
+    return true;
+  }
+
+  /**
+   * <p>Adds a document to be batched like {@link #add(String, DocumentMetadataWriteHandle, AbstractWriteHandle) add},
+   * waiting up to the timeout if the documents in flight are at the limits
+   * set with {@link #withMaxInFlight}.</p>
+   *
+   * @param uri the document uri
+   * @param metadataHandle the metadata (collection, permissions, metdata values, properties, quality)
+   * @param contentHandle the document contents
+   * @param timeout the maximum time to wait
+   * @param unit the unit of the timeout
+   * @return true if the document was added or false if the timeout elapsed first
+   * @throws InterruptedException if interrupted while waiting
+   */
+  default boolean tryAdd(String uri, DocumentMetadataWriteHandle metadataHandle, AbstractWriteHandle contentHandle,
+                         long timeout, TimeUnit unit) throws InterruptedException {
+    add(uri, metadataHandle, contentHandle);
+    return true;
+  }
+
+  /**
+   * Limits the size of each batch by the content length of the documents
+   * as well as by the batchSize.  A batch is written when the documents
+   * queued for it reach either the batchSize or maxBatchBytes, and a batch
+   * ends before the document that would put it over maxBatchBytes.  A
+   * document with maxBatchBytes or more is written in a batch by itself
+   * as soon as it is added.
+   *
+   * Only handles that know the content length without sending the content
+   * count toward the limit, which includes BytesHandle, StringHandle, and
+   * FileHandle.  The content of other handles such as InputStreamHandle is
+   * counted as zero bytes, and metadata is not counted.
+   *
+   * @param maxBatchBytes the content length of a batch in bytes or 0 (the
+   *        default) to limit batches by the batchSize only
+   *
+   * @return this instance for method chaining
+   */
+  default WriteBatcher withMaxBatchBytes(long maxBatchBytes) {
+    throw new UnsupportedOperationException("Batch byte limits not supported by this batcher");
+  }
+
+  /**
+   * The content length that ends a batch, if any.
+   *
+   * @return the maximum bytes in a batch or 0 if batches are limited by the batchSize only
+   */
+  default long getMaxBatchBytes() {
+    return 0;
+  }
+
+  /**
+   * Adapts the batch size and thread count while the job runs instead of
+   * keeping the batchSize and threadCount fixed.  The job starts with the
+   * configured batchSize and threadCount.  While batches succeed without
+   * slowing down, the job adds threads and then grows the batch size up
+   * to the maximums.  When batches slow down to twice the best observed
+   * time per document or fail because the server is overloaded (such as
+   * a 5xx status or exhausted retries), the job halves the batch size and
+   * thread count.  The current values and the number of adjustments are
+   * reported by {@link JobReport}.
+   *
+   * @param maxBatchSize the largest batch size to use, which is raised
+   *        to the batchSize if smaller
+   * @param maxThreadCount the largest thread count to use, which is raised
+   *        to the threadCount if smaller
+   *
+   * @return this instance for method chaining
+   */
+  default WriteBatcher withAdaptiveBatching(int maxBatchSize, int maxThreadCount) {
+    throw new UnsupportedOperationException("Adaptive batching not supported by this batcher");
+  }
+
+  /**
+   * Whether the job adapts the batch size and thread count.
+   *
+   * @return true if adaptive batching was enabled with withAdaptiveBatching
+   */
+  default boolean isAdaptiveBatching() {
+    return false;
+  }
+
   /** Create a batch from any unbatched documents and write that batch
    * asynchronously.
    */
@@ -16,8 +16,10 @@
 
 package com.marklogic.client.datamovement;
 
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
 import com.marklogic.client.document.DocumentWriteOperation;
 import com.marklogic.client.impl.DocumentWriteOperationImpl;
+import com.marklogic.client.io.ByteBufferHandle;
 import com.marklogic.client.io.Format;
 import com.marklogic.client.io.StringHandle;
 import com.marklogic.client.io.marker.XMLWriteHandle;
@@ -36,6 +38,12 @@ import javax.xml.transform.stream.StreamResult;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Spliterator;
 import java.util.Spliterators;
 import java.util.function.Consumer;
@@ -161,7 +169,8 @@ public class XMLSplitter<T extends XMLWriteHandle> implements Splitter<T> {
         }
         count = 0;
 
-        XMLSplitter.HandleSpliterator<T> handleSpliterator = new XMLSplitter.HandleSpliterator<>(this, input);
+        XMLSplitter.HandleSpliterator<T> handleSpliterator = new XMLSplitter.HandleSpliterator<>(this, input,
+                reader -> getVisitor().makeBufferedHandle(new XMLBranchStreamReader(reader)));
 
         return StreamSupport.stream(handleSpliterator, true);
     }
@@ -183,11 +192,74 @@ public class XMLSplitter<T extends XMLWriteHandle> implements Splitter<T> {
 
         this.splitFilename = splitFilename;
         XMLSplitter.DocumentWriteOperationSpliterator<T> documentWriteOperationSpliterator =
-                new XMLSplitter.DocumentWriteOperationSpliterator<>(this, input);
+                new XMLSplitter.DocumentWriteOperationSpliterator<>(this, input,
+                        reader -> getVisitor().makeBufferedHandle(new XMLBranchStreamReader(reader)),
+                        getVisitor()::makeDocumentWriteOperation);
 
         return StreamSupport.stream(documentWriteOperationSpliterator, true);
     }
 
+    /**
+     * Takes a buffer with the bytes of a UTF-8 encoded XML file and splits it into a stream of handles
+     * that reference the bytes of each split element in the buffer. The elements aren't serialized again,
+     * which saves the time and memory for large files. The buffer can be a memory-mapped file.
+     *
+     * The visitor decides which elements to split, but its makeBufferedHandle() method isn't called.
+     * If a split element uses namespace declarations of its ancestors, the element is copied once
+     * with the declarations added to its start tag so the document stays well-formed.
+     * The bytes of the buffer must not change until the documents have been written.
+     * @param input the buffer with the XML from its position to its limit
+     * @return a stream of handles to write to database
+     * @throws XMLStreamException if there is an error processing the underlying XML source
+     */
+    public Stream<ByteBufferHandle> splitBuffer(ByteBuffer input) throws XMLStreamException {
+        if (input == null) {
+            throw new IllegalArgumentException("Input cannot be null");
+        }
+        count = 0;
+
+        XMLSplitter.ElementSliceReader sliceReader = new XMLSplitter.ElementSliceReader(input.slice());
+        XMLSplitter.HandleSpliterator<ByteBufferHandle> handleSpliterator =
+                new XMLSplitter.HandleSpliterator<>(this, sliceReader.makeStreamReader(), sliceReader);
+
+        return StreamSupport.stream(handleSpliterator, true);
+    }
+
+    /**
+     * Takes a buffer with the bytes of a UTF-8 encoded XML file and the file name and splits it into a stream of
+     * DocumentWriteOperation with handles that reference the bytes of each split element in the buffer.
+     * @param input the buffer with the XML from its position to its limit
+     * @param splitFilename is the name of input file, including name and extension. It is used to generate URLs for split
+     *                  files.The splitFilename could either be provided here or in user-defined UriMaker.
+     * @return a stream of DocumentWriteOperation to write to database
+     * @throws XMLStreamException if there is an error processing the underlying XML source
+     * @see #splitBuffer(ByteBuffer)
+     */
+    public Stream<DocumentWriteOperation> splitBufferWriteOperations(ByteBuffer input, String splitFilename)
+            throws XMLStreamException {
+        if (input == null) {
+            throw new IllegalArgumentException("Input cannot be null");
+        }
+        count = 0;
+
+        this.splitFilename = splitFilename;
+        XMLSplitter.ElementSliceReader sliceReader = new XMLSplitter.ElementSliceReader(input.slice());
+        XMLSplitter.DocumentWriteOperationSpliterator<ByteBufferHandle> documentWriteOperationSpliterator =
+                new XMLSplitter.DocumentWriteOperationSpliterator<>(this, sliceReader.makeStreamReader(), sliceReader,
+                        XMLSplitter::makeSliceWriteOperation);
+
+        return StreamSupport.stream(documentWriteOperationSpliterator, true);
+    }
+
+    private static DocumentWriteOperation makeSliceWriteOperation(UriMaker uriMaker, long count, ByteBufferHandle handle) {
+        return new DocumentWriteOperationImpl(
+                DocumentWriteOperation.OperationType.DOCUMENT_WRITE,
+                uriMaker.makeUri(count, handle),
+                null,
+                handle
+        );
+    }
+
     /**
      * The StartElementReader is used in visitor to check if the current element is the one to split. It supports some
      * of the XMLStreamReader methods that inspect the start element state without changing the stream state.
@@ -363,11 +435,30 @@ public class XMLSplitter<T extends XMLWriteHandle> implements Splitter<T> {
         }
     }
 
+    /**
+     * Reads the element at the current start element into a handle and receives notifications about
+     * the other start and end elements so the reader can keep track of its position.
+     */
+    @FunctionalInterface
+    private interface BranchReader<T> {
+        default void startElement(XMLStreamReader reader) {
+        }
+        default void endElement() {
+        }
+        T read(XMLStreamReader reader) throws XMLStreamException;
+    }
+
+    @FunctionalInterface
+    private interface WriteOperationMaker<T> {
+        DocumentWriteOperation make(UriMaker uriMaker, long count, T handle);
+    }
+
     private static abstract class XMLSpliterator<U, T extends XMLWriteHandle> extends Spliterators.AbstractSpliterator<U> {
 
-        private XMLSplitter<T> splitter;
+        private XMLSplitter<?> splitter;
         private XMLStreamReader xmlStreamReader;
-        private Visitor<T> visitor;
+        private Visitor<?> visitor;
+        private BranchReader<T> branchReader;
 
         private XMLStreamReader getXmlStreamReader() {
             return this.xmlStreamReader;
@@ -380,22 +471,23 @@ public class XMLSplitter<T extends XMLWriteHandle> implements Splitter<T> {
             this.xmlStreamReader = xmlStreamReader;
         }
 
-        private void setSplitter(XMLSplitter<T> xmlSplitter) {
+        private void setSplitter(XMLSplitter<?> xmlSplitter) {
             if (xmlSplitter == null) {
                 throw new IllegalArgumentException("XMLSplitter cannot be null");
             }
             this.splitter = xmlSplitter;
         }
 
-        XMLSplitter<T> getSplitter() {
+        XMLSplitter<?> getSplitter() {
             return this.splitter;
         }
 
-        XMLSpliterator(XMLSplitter<T> xmlSplitter, XMLStreamReader input) {
+        XMLSpliterator(XMLSplitter<?> xmlSplitter, XMLStreamReader input, BranchReader<T> branchReader) {
             super(Long.MAX_VALUE, Spliterator.NONNULL + Spliterator.IMMUTABLE);
             setSplitter(xmlSplitter);
             setXmlStreamReader(input);
             visitor = splitter.getVisitor();
+            this.branchReader = branchReader;
         }
 
         T getNextHandle() {
@@ -406,6 +498,7 @@ public class XMLSplitter<T extends XMLWriteHandle> implements Splitter<T> {
                     checkForHandle:
                     switch (event) {
                         case XMLStreamReader.START_ELEMENT:
+                            branchReader.startElement(xmlStreamReader);
                             StartElementReaderImpl startElementReader = new StartElementReaderImpl(xmlStreamReader);
                             NodeOperation nodeOperation = visitor.startElement(startElementReader);
 
@@ -418,7 +511,7 @@ public class XMLSplitter<T extends XMLWriteHandle> implements Splitter<T> {
                                     break checkForHandle;
 
                                 case PROCESS:
-                                    T handle = visitor.makeBufferedHandle(new XMLBranchStreamReader(xmlStreamReader));
+                                    T handle = branchReader.read(xmlStreamReader);
                                     if (handle != null) {
                                         return handle;
                                     }
@@ -431,10 +524,12 @@ public class XMLSplitter<T extends XMLWriteHandle> implements Splitter<T> {
                                         skipCheck:
                                         switch (next) {
                                             case XMLStreamReader.START_ELEMENT:
+                                                branchReader.startElement(xmlStreamReader);
                                                 depth++;
                                                 break skipCheck;
 
                                             case XMLStreamReader.END_ELEMENT:
+                                                branchReader.endElement();
                                                 if (depth == 0) {
                                                     break checkForHandle;
                                                 }
@@ -452,6 +547,7 @@ public class XMLSplitter<T extends XMLWriteHandle> implements Splitter<T> {
                             }
 
                         case XMLStreamReader.END_ELEMENT:
+                            branchReader.endElement();
                             visitor.endElement(
                                     xmlStreamReader.getNamespaceURI(),
                                     xmlStreamReader.getLocalName());
@@ -471,13 +567,13 @@ public class XMLSplitter<T extends XMLWriteHandle> implements Splitter<T> {
 
     private static class HandleSpliterator<T extends XMLWriteHandle> extends XMLSpliterator<T, T> {
 
-        HandleSpliterator(XMLSplitter<T> xmlSplitter, XMLStreamReader input) {
-            super(xmlSplitter, input);
+        HandleSpliterator(XMLSplitter<?> xmlSplitter, XMLStreamReader input, BranchReader<T> branchReader) {
+            super(xmlSplitter, input, branchReader);
         }
 
         @Override
         public boolean tryAdvance(Consumer<? super T> action) {
-            T handle = (T) getNextHandle();
+            T handle = getNextHandle();
             if (handle == null) {
                 return false;
             }
@@ -491,13 +587,17 @@ public class XMLSplitter<T extends XMLWriteHandle> implements Splitter<T> {
 
     private static class DocumentWriteOperationSpliterator<T extends XMLWriteHandle> extends XMLSpliterator<DocumentWriteOperation, T> {
 
-        DocumentWriteOperationSpliterator(XMLSplitter<T> xmlSplitter, XMLStreamReader input) {
-            super(xmlSplitter, input);
+        private WriteOperationMaker<T> writeOperationMaker;
+
+        DocumentWriteOperationSpliterator(XMLSplitter<?> xmlSplitter, XMLStreamReader input,
+                                          BranchReader<T> branchReader, WriteOperationMaker<T> writeOperationMaker) {
+            super(xmlSplitter, input, branchReader);
+            this.writeOperationMaker = writeOperationMaker;
         }
         @Override
         public boolean tryAdvance(Consumer<? super DocumentWriteOperation> action) {
 
-            T handle = (T) getNextHandle();
+            T handle = getNextHandle();
             if (handle == null) {
                 return false;
             }
@@ -515,7 +615,7 @@ public class XMLSplitter<T extends XMLWriteHandle> implements Splitter<T> {
             }
 
             splitter.count = splitter.getCount() + 1;
-            DocumentWriteOperation documentWriteOperation = splitter.getVisitor().makeDocumentWriteOperation(
+            DocumentWriteOperation documentWriteOperation = writeOperationMaker.make(
                     splitter.getUriMaker(),
                     splitter.getCount(),
                     handle);
@@ -575,6 +675,301 @@ public class XMLSplitter<T extends XMLWriteHandle> implements Splitter<T> {
         }
     }
 
+    /**
+     * Slices split elements out of the bytes of a UTF-8 encoded XML file. The StAX reader decides which
+     * elements to split, but StAX implementations don't report reliable byte offsets, so the slice reader
+     * scans the tags in the bytes in step with the start element events of the StAX reader.
+     */
+    private static class ElementSliceReader implements BranchReader<ByteBufferHandle> {
+        private final ByteBuffer source;
+        private final int limit;
+        private int position = 0;
+
+        private int tagStart;
+        private int nameEnd;
+        private int tagEnd;
+        private boolean emptyTag;
+
+        private final ArrayDeque<String[]> namespaceScopes = new ArrayDeque<>();
+
+        ElementSliceReader(ByteBuffer source) {
+            this.source = source;
+            this.limit  = source.limit();
+        }
+
+        XMLStreamReader makeStreamReader() throws XMLStreamException {
+            XMLStreamReader reader = XMLInputFactory.newFactory().createXMLStreamReader(
+                    new ByteBufferBackedInputStream(source.duplicate()));
+            String encoding = reader.getEncoding();
+            if (encoding != null && !"UTF-8".equalsIgnoreCase(encoding) && !"US-ASCII".equalsIgnoreCase(encoding)) {
+                throw new IllegalArgumentException("Can only slice UTF-8 encoded XML instead of "+encoding);
+            }
+            return reader;
+        }
+
+        @Override
+        public void startElement(XMLStreamReader reader) {
+            nextStartTag();
+
+            String prefix = reader.getPrefix();
+            String qname = (prefix == null || prefix.length() == 0) ?
+                    reader.getLocalName() : prefix + ":" + reader.getLocalName();
+            String tagName = decode(tagStart + 1, nameEnd);
+            if (!qname.equals(tagName)) {
+                throw new IllegalStateException(
+                        "Start tag "+tagName+" at byte "+tagStart+" doesn't match element "+qname);
+            }
+
+            int namespaceCount = reader.getNamespaceCount();
+            String[] declarations = new String[namespaceCount * 2];
+            for (int i = 0; i < namespaceCount; i++) {
+                String declaredPrefix = reader.getNamespacePrefix(i);
+                String declaredUri    = reader.getNamespaceURI(i);
+                declarations[i * 2]     = (declaredPrefix == null) ? "" : declaredPrefix;
+                declarations[i * 2 + 1] = (declaredUri    == null) ? "" : declaredUri;
+            }
+            namespaceScopes.push(declarations);
+        }
+
+        @Override
+        public void endElement() {
+            namespaceScopes.pop();
+        }
+
+        @Override
+        public ByteBufferHandle read(XMLStreamReader reader) throws XMLStreamException {
+            int start = tagStart;
+            int end   = emptyTag ? tagEnd : skipElementContent();
+            position  = end;
+
+            int depth = 1;
+            while (depth > 0 && reader.hasNext()) {
+                int next = reader.next();
+                if (next == XMLStreamReader.START_ELEMENT) {
+                    depth++;
+                } else if (next == XMLStreamReader.END_ELEMENT) {
+                    depth--;
+                }
+            }
+
+            Map<String, String> inherited = getInheritedNamespaces();
+            namespaceScopes.pop();
+
+            ByteBuffer slice = source.duplicate();
+            slice.position(start);
+            slice.limit(end);
+            if (inherited.isEmpty()) {
+                return new ByteBufferHandle(slice).withFormat(Format.XML);
+            }
+
+            StringBuilder declarations = new StringBuilder();
+            for (Map.Entry<String, String> entry : inherited.entrySet()) {
+                declarations.append(entry.getKey().length() == 0 ? " xmlns" : " xmlns:" + entry.getKey());
+                declarations.append("=\"").append(escapeAttribute(entry.getValue())).append('"');
+            }
+            byte[] declarationBytes = declarations.toString().getBytes(StandardCharsets.UTF_8);
+
+            ByteBuffer copy = ByteBuffer.allocate(end - start + declarationBytes.length);
+            slice.limit(nameEnd);
+            copy.put(slice);
+            copy.put(declarationBytes);
+            slice.limit(end);
+            copy.put(slice);
+            copy.flip();
+            return new ByteBufferHandle(copy).withFormat(Format.XML);
+        }
+
+        private Map<String, String> getInheritedNamespaces() {
+            Map<String, String> inherited = new LinkedHashMap<>();
+            Iterator<String[]> ancestors = namespaceScopes.descendingIterator();
+            while (ancestors.hasNext()) {
+                String[] declarations = ancestors.next();
+                if (!ancestors.hasNext()) {
+                    // the split element's own declarations take precedence
+                    for (int i = 0; i < declarations.length; i += 2) {
+                        inherited.remove(declarations[i]);
+                    }
+                    break;
+                }
+                for (int i = 0; i < declarations.length; i += 2) {
+                    inherited.put(declarations[i], declarations[i + 1]);
+                }
+            }
+            // an undeclared default namespace is the same as no declaration
+            if ("".equals(inherited.get(""))) {
+                inherited.remove("");
+            }
+            return inherited;
+        }
+
+        private void nextStartTag() {
+            while (true) {
+                int markup = indexOf('<', position);
+                if (markup < 0) {
+                    throw new IllegalStateException("No more start tags after byte "+position);
+                }
+                if (skipMarkup(markup)) {
+                    continue;
+                }
+                if (source.get(markup + 1) == '/') {
+                    position = indexOf('>', markup) + 1;
+                    continue;
+                }
+                readStartTag(markup);
+                position = tagEnd;
+                return;
+            }
+        }
+
+        private int skipElementContent() {
+            int depth = 1;
+            int offset = tagEnd;
+            while (true) {
+                int markup = indexOf('<', offset);
+                if (markup < 0) {
+                    throw new IllegalStateException("No end tag for element at byte "+tagStart);
+                }
+                position = markup;
+                if (skipMarkup(markup)) {
+                    offset = position;
+                    continue;
+                }
+                if (source.get(markup + 1) == '/') {
+                    offset = indexOf('>', markup) + 1;
+                    if (--depth == 0) {
+                        return offset;
+                    }
+                    continue;
+                }
+                int outerStart = tagStart;
+                int outerNameEnd = nameEnd;
+                int outerEnd = tagEnd;
+                boolean outerEmpty = emptyTag;
+                readStartTag(markup);
+                offset = tagEnd;
+                if (!emptyTag) {
+                    depth++;
+                }
+                tagStart = outerStart;
+                nameEnd  = outerNameEnd;
+                tagEnd   = outerEnd;
+                emptyTag = outerEmpty;
+            }
+        }
+
+        // skips processing instructions, comments, CDATA sections, and doctype declarations
+        private boolean skipMarkup(int markup) {
+            byte next = source.get(markup + 1);
+            if (next == '?') {
+                position = indexOf("?>", markup + 2) + 2;
+                return true;
+            } else if (next != '!') {
+                return false;
+            } else if (startsWith("<!--", markup)) {
+                position = indexOf("-->", markup + 4) + 3;
+            } else if (startsWith("<![CDATA[", markup)) {
+                position = indexOf("]]>", markup + 9) + 3;
+            } else {
+                int offset = markup + 2;
+                int brackets = 0;
+                byte quote = 0;
+                for (; offset < limit; offset++) {
+                    byte b = source.get(offset);
+                    if (quote != 0) {
+                        if (b == quote) {
+                            quote = 0;
+                        }
+                    } else if (b == '"' || b == '\'') {
+                        quote = b;
+                    } else if (b == '[') {
+                        brackets++;
+                    } else if (b == ']') {
+                        brackets--;
+                    } else if (b == '<' && startsWith("<!--", offset)) {
+                        offset = indexOf("-->", offset + 4) + 2;
+                    } else if (b == '>' && brackets == 0) {
+                        break;
+                    }
+                }
+                position = offset + 1;
+            }
+            return true;
+        }
+
+        private void readStartTag(int markup) {
+            int offset = markup + 1;
+            for (; offset < limit; offset++) {
+                byte b = source.get(offset);
+                if (b == '>' || b == '/' || b == ' ' || b == '\t' || b == '\n' || b == '\r') {
+                    break;
+                }
+            }
+            tagStart = markup;
+            nameEnd  = offset;
+
+            byte quote = 0;
+            for (; offset < limit; offset++) {
+                byte b = source.get(offset);
+                if (quote != 0) {
+                    if (b == quote) {
+                        quote = 0;
+                    }
+                } else if (b == '"' || b == '\'') {
+                    quote = b;
+                } else if (b == '>') {
+                    break;
+                }
+            }
+            if (offset >= limit) {
+                throw new IllegalStateException("Unterminated start tag at byte "+markup);
+            }
+            emptyTag = source.get(offset - 1) == '/';
+            tagEnd   = offset + 1;
+        }
+
+        private int indexOf(char c, int from) {
+            for (int offset = from; offset < limit; offset++) {
+                if (source.get(offset) == c) {
+                    return offset;
+                }
+            }
+            return -1;
+        }
+
+        private int indexOf(String match, int from) {
+            for (int offset = from; offset <= limit - match.length(); offset++) {
+                if (startsWith(match, offset)) {
+                    return offset;
+                }
+            }
+            throw new IllegalStateException("No "+match+" after byte "+from);
+        }
+
+        private boolean startsWith(String match, int offset) {
+            if (offset + match.length() > limit) {
+                return false;
+            }
+            for (int i = 0; i < match.length(); i++) {
+                if (source.get(offset + i) != match.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private String decode(int start, int end) {
+            byte[] bytes = new byte[end - start];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = source.get(start + i);
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private static String escapeAttribute(String value) {
+            return value.replace("&", "&amp;").replace("<", "&lt;").replace("\"", "&quot;");
+        }
+    }
+
     private XMLSplitter.UriMaker uriMaker;
 
     /**
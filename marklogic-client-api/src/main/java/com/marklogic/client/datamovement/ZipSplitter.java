@@ -21,6 +21,7 @@ import com.marklogic.client.impl.DocumentWriteOperationImpl;
 import com.marklogic.client.io.BytesHandle;
 import com.marklogic.client.io.Format;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
@@ -33,6 +34,7 @@ import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
 /**
@@ -230,9 +232,175 @@ public class ZipSplitter implements Splitter<BytesHandle> {
         return StreamSupport.stream(documentWriteOperationSpliterator, true);
     }
 
+    /**
+     * Takes a ZIP file and converts it to a parallel stream of BytesHandle.
+     * Because a ZipFile can read its entries in any order, the entries are inflated
+     * concurrently by the threads that process the parallel stream. The handles are
+     * in the order of the entries in the ZIP file, and {@link #getCount()} returns the
+     * number of entries accepted by the entryFilter and extensionFormats when this
+     * method returns.
+     * The ZIP file must remain open until the stream has been processed.
+     * @param input is the ZIP file
+     * @return a parallel stream of BytesHandle
+     */
+    public Stream<BytesHandle> split(ZipFile input) {
+        if (input == null) {
+            throw new IllegalArgumentException("Input cannot be null");
+        }
+
+        List<FormatEntry> entries = listEntries(input);
+        return entries.parallelStream()
+                .map(entry -> readEntry(input, entry));
+    }
+
+    /**
+     * Takes a ZIP file and converts it to a parallel stream of DocumentWriteOperation.
+     * @param input is the ZIP file
+     * @return a parallel stream of DocumentWriteOperation
+     * @see #splitWriteOperations(ZipFile, String)
+     */
+    public Stream<DocumentWriteOperation> splitWriteOperations(ZipFile input) {
+        return splitWriteOperations(input, null);
+    }
+
+    /**
+     * Takes a ZIP file and its name and converts it to a parallel stream of DocumentWriteOperation,
+     * which can be passed to {@link WriteBatcher#addAll(Stream)} to add documents to the batcher
+     * from several threads.
+     * Because a ZipFile can read its entries in any order, the entries are inflated
+     * concurrently by the threads that process the parallel stream. Each document has
+     * the number of its entry among the entries accepted by the entryFilter and extensionFormats,
+     * so a user-defined UriMaker receives the same numbers as when splitting a ZipInputStream
+     * but is called from several threads at once and must be thread-safe.
+     * The ZIP file must remain open until the stream has been processed.
+     * @param input is the ZIP file
+     * @param splitFilename is the file name of input file, including name and extension. It is used to generate URLs for
+     *                  split files.The splitFilename could either be provided here or in user-defined UriMaker.
+     * @return a parallel stream of DocumentWriteOperation
+     */
+    public Stream<DocumentWriteOperation> splitWriteOperations(ZipFile input, String splitFilename) {
+        if (input == null) {
+            throw new IllegalArgumentException("Input cannot be null");
+        }
+
+        this.splitFilename = splitFilename;
+        prepareUriMaker();
+        List<FormatEntry> entries = listEntries(input);
+        return entries.parallelStream()
+                .map(entry -> {
+                    BytesHandle handle = readEntry(input, entry);
+                    return new DocumentWriteOperationImpl(
+                            DocumentWriteOperation.OperationType.DOCUMENT_WRITE,
+                            makeUri(entry.getNumber(), entry.getZipEntry().getName(), handle),
+                            null,
+                            handle
+                    );
+                });
+    }
+
+    private List<FormatEntry> listEntries(ZipFile input) {
+        List<FormatEntry> entries = new ArrayList<>();
+        Enumeration<? extends ZipEntry> zipEntries = input.entries();
+        while (zipEntries.hasMoreElements()) {
+            ZipEntry zipEntry = zipEntries.nextElement();
+            if (zipEntry.isDirectory()) {
+                continue;
+            }
+            FormatEntry entry = toFormatEntry(zipEntry, getEntryFilter(), getExtensionFormats());
+            if (entry != null) {
+                entry.setNumber(entries.size() + 1);
+                entries.add(entry);
+            }
+        }
+        count = entries.size();
+        return entries;
+    }
+
+    private static BytesHandle readEntry(ZipFile input, FormatEntry entry) {
+        ZipEntry zipEntry = entry.getZipEntry();
+        long entrySize = zipEntry.getSize();
+        if (entrySize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                "zip entry "+zipEntry.getName()+" too large: "+entrySize);
+        }
+        // an entry of the central directory has a known size, so the content is read
+        // directly into its array, which for a stored entry doesn't involve an inflater
+        try (InputStream entryStream = input.getInputStream(zipEntry)) {
+            byte[] content;
+            if (entrySize >= 0) {
+                content = new byte[(int) entrySize];
+                int offset = 0;
+                while (offset < content.length) {
+                    int readSize = entryStream.read(content, offset, content.length - offset);
+                    if (readSize == -1) {
+                        throw new ZipException(
+                            "read "+zipEntry.getName()+" expecting length of "+content.length+" instead of "+offset);
+                    }
+                    offset += readSize;
+                }
+            } else {
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                byte[] chunk = new byte[8192];
+                for (int readSize = entryStream.read(chunk); readSize != -1; readSize = entryStream.read(chunk)) {
+                    buffer.write(chunk, 0, readSize);
+                }
+                content = buffer.toByteArray();
+            }
+            return new BytesHandle(content).withFormat(entry.getFormat());
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read ZipEntry", e);
+        }
+    }
+
+    private static FormatEntry toFormatEntry(ZipEntry candidateEntry, Predicate<ZipEntry> entryFilter,
+                                             Map<String, Format> extensionFormats) {
+        if (entryFilter != null && !entryFilter.test(candidateEntry)) {
+            return null;
+        }
+
+        String name = candidateEntry.getName();
+        Matcher matcher = extensionRegex.matcher(name);
+        matcher.find();
+        Format format = extensionFormats.get(matcher.group(2));
+
+        if (format == null) {
+            format = extensionFormats.get("");
+        }
+
+        if (format == null || format == Format.UNKNOWN) {
+            return null;
+        }
+
+        FormatEntry newEntry = new FormatEntry();
+        newEntry.setFormat(format);
+        newEntry.setZipEntry(candidateEntry);
+
+        return newEntry;
+    }
+
+    private void prepareUriMaker() {
+        if (getUriTransformer() == null && getUriMaker() == null) {
+            ZipSplitter.UriMakerImpl uriMaker = new ZipSplitter.UriMakerImpl();
+            uriMaker.setSplitFilename(splitFilename);
+            setUriMaker(uriMaker);
+        }
+
+        if (getUriMaker() != null && splitFilename != null) {
+            getUriMaker().setSplitFilename(splitFilename);
+        }
+    }
+
+    private String makeUri(long num, String name, BytesHandle handle) {
+        if (getUriMaker() != null) {
+            return getUriMaker().makeUri(num, name, handle);
+        }
+        return getUriTransformer().apply(name);
+    }
+
     private static class FormatEntry {
         private ZipEntry zipEntry;
         private Format   format;
+        private long     number;
 
         private ZipEntry getZipEntry() {
             return this.zipEntry;
@@ -257,6 +425,14 @@ public class ZipSplitter implements Splitter<BytesHandle> {
 
             this.format = format;
         }
+
+        private long getNumber() {
+            return this.number;
+        }
+
+        private void setNumber(long number) {
+            this.number = number;
+        }
     }
 
     private static abstract class ZipEntrySpliterator<T> extends Spliterators.AbstractSpliterator<T> {
@@ -304,28 +480,10 @@ public class ZipSplitter implements Splitter<BytesHandle> {
             ZipEntry candidateEntry;
 
             while ((candidateEntry = getZipStream().getNextEntry()) != null) {
-                if (getEntryFilter() != null && !getEntryFilter().test(candidateEntry)) {
-                    continue;
-                }
-
-                String name = candidateEntry.getName();
-                Matcher matcher = extensionRegex.matcher(name);
-                matcher.find();
-                Format format = getExtensionFormats().get(matcher.group(2));
-
-                if (format == null) {
-                    format = getExtensionFormats().get("");
-                }
-
-                if (format == null || format == Format.UNKNOWN) {
-                    continue;
+                FormatEntry newEntry = toFormatEntry(candidateEntry, getEntryFilter(), getExtensionFormats());
+                if (newEntry != null) {
+                    return newEntry;
                 }
-
-                FormatEntry newEntry = new FormatEntry();
-                newEntry.setFormat(format);
-                newEntry.setZipEntry(candidateEntry);
-
-                return newEntry;
             }
 
             return null;
@@ -401,22 +559,9 @@ public class ZipSplitter implements Splitter<BytesHandle> {
                 splitter.count = splitter.getCount() + 1;
                 BytesHandle nextBytesHandle = readEntry(nextEntry);
                 String name = nextEntry.getZipEntry().getName();
-                String uri = name;
 
-                if (splitter.getUriTransformer() == null && splitter.getUriMaker() == null) {
-                    ZipSplitter.UriMakerImpl uriMaker = new ZipSplitter.UriMakerImpl();
-                    uriMaker.setSplitFilename(splitter.splitFilename);
-                    splitter.setUriMaker(uriMaker);
-                }
-
-                if (splitter.getUriMaker() != null) {
-                    if (splitter.splitFilename != null) {
-                        splitter.getUriMaker().setSplitFilename(splitter.splitFilename);
-                    }
-                    uri = splitter.getUriMaker().makeUri(splitter.getCount(), name, nextBytesHandle);
-                } else {
-                    uri = splitter.uriTransformer.apply(name);
-                }
+                splitter.prepareUriMaker();
+                String uri = splitter.makeUri(splitter.getCount(), name, nextBytesHandle);
 
                 DocumentWriteOperationImpl documentWriteOperation = new DocumentWriteOperationImpl(
                         DocumentWriteOperation.OperationType.DOCUMENT_WRITE,
@@ -35,6 +35,9 @@ public class BatchWriteSet {
   private Runnable onSuccess;
   private Consumer<Throwable> onFailure;
   private Runnable onBeforeWrite;
+  private long writeDuration;
+  private boolean retry;
+  private Runnable onComplete;
 
   public BatchWriteSet(WriteBatcher batcher, DocumentWriteSet writeSet, DatabaseClient client,
     ServerTransform transform, String temporalCollection)
@@ -114,6 +117,30 @@ public class BatchWriteSet {
     this.onBeforeWrite = onBeforeWrite;
   }
 
+  public Runnable getOnComplete() {
+    return onComplete;
+  }
+
+  public void onComplete(Runnable onComplete) {
+    this.onComplete = onComplete;
+  }
+
+  public long getWriteDuration() {
+    return writeDuration;
+  }
+
+  public void setWriteDuration(long writeDuration) {
+    this.writeDuration = writeDuration;
+  }
+
+  public boolean isRetry() {
+    return retry;
+  }
+
+  public void setRetry(boolean retry) {
+    this.retry = retry;
+  }
+
   public WriteBatch getBatchOfWriteEvents() {
     WriteBatchImpl batch = new WriteBatchImpl()
       .withBatcher(batcher)
@@ -18,10 +18,14 @@ package com.marklogic.client.datamovement.impl;
 import com.marklogic.client.DatabaseClient;
 import com.marklogic.client.datamovement.*;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public abstract class BatcherImpl implements Batcher {
+  private static Logger logger = LoggerFactory.getLogger(BatcherImpl.class);
   private String jobName = "unnamed";
   private String jobId = null;
   private int batchSize = 100;
@@ -155,6 +159,20 @@ public abstract class BatcherImpl implements Batcher {
     return moveMgr;
   }
 
+  // the measurements are only assembled while a listener is registered
+  protected boolean isMeasuring() {
+    return moveMgr.getMetricsListener() != null;
+  }
+  protected void publishMetrics(RequestMetricsImpl metrics) {
+    MetricsListener listener = moveMgr.getMetricsListener();
+    if (listener == null) return;
+    try {
+      listener.processEvent(metrics.withJobId(getJobId()).withJobName(getJobName()));
+    } catch (Throwable t) {
+      logger.error("Exception thrown by a metrics listener", t);
+    }
+  }
+
   protected Forest[] forests(ForestConfiguration config) {
     if (config == null) {
       throw new IllegalArgumentException("forestConfig must not be null");
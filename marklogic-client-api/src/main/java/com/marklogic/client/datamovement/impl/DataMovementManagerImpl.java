@@ -36,6 +36,7 @@ public class DataMovementManagerImpl implements DataMovementManager {
   private static final ConcurrentHashMap<String, JobTicket> activeJobs = new ConcurrentHashMap<>();
   private ForestConfiguration forestConfig;
   private DatabaseClient primaryClient;
+  private volatile MetricsListener metricsListener;
   // clientMap key is the hostname_database
   private final Map<String,DatabaseClient> clientMap = new HashMap<>();
 
@@ -211,6 +212,17 @@ public class DataMovementManagerImpl implements DataMovementManager {
     return primaryClient.getConnectionType();
   }
 
+  @Override
+  public DataMovementManager withMetricsListener(MetricsListener listener) {
+    this.metricsListener = listener;
+    return this;
+  }
+
+  @Override
+  public MetricsListener getMetricsListener() {
+    return metricsListener;
+  }
+
   @Override
   public <T> RowBatcher<T> newRowBatcher(ContentHandle<T> rowsHandle) {
     return new RowBatcherImpl<>(this, rowsHandle);
@@ -223,6 +235,18 @@ public class DataMovementManagerImpl implements DataMovementManager {
     return service.startJob(batcher, activeJobs);
   }
 
+  @Override
+  public GraphBatcher newGraphBatcher() {
+    return new GraphBatcherImpl(this);
+  }
+
+  @Override
+  public JobTicket startJob(GraphBatcher batcher) {
+    if (batcher == null)
+      throw new IllegalArgumentException("batcher must not be null");
+    return service.startJob(batcher, activeJobs);
+  }
+
   public DataMovementServices getDataMovementServices() {
     return service;
   }
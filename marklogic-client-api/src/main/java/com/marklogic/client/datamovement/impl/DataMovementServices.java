@@ -150,6 +150,10 @@ public class DataMovementServices {
     return startJobImpl((RowBatcherImpl<?>) batcher, JobType.ROW_BATCHER, activeJobs)
             .withRowBatcher((RowBatcherImpl<?>) batcher);
   }
+  public JobTicket startJob(GraphBatcher batcher, ConcurrentHashMap<String, JobTicket> activeJobs) {
+    return startJobImpl((GraphBatcherImpl) batcher, JobType.GRAPH_BATCHER, activeJobs)
+            .withGraphBatcher((GraphBatcherImpl) batcher);
+  }
 
   private JobTicketImpl startJobImpl(
           BatcherImpl batcher, JobTicket.JobType jobType, ConcurrentHashMap<String, JobTicket> activeJobs
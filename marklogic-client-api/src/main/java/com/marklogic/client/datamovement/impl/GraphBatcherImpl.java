@@ -0,0 +1,824 @@
+/*
+ * Copyright (c) 2021 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.datamovement.impl;
+
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.MarkLogicIOException;
+import com.marklogic.client.MarkLogicInternalException;
+import com.marklogic.client.datamovement.*;
+import com.marklogic.client.io.StringHandle;
+import com.marklogic.client.semantics.GraphManager;
+import com.marklogic.client.semantics.GraphPermissions;
+import com.marklogic.client.semantics.RDFMimeTypes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+class GraphBatcherImpl extends BatcherImpl implements GraphBatcher {
+    final static private int DEFAULT_BATCH_SIZE = 10000;
+    // the namespace of the IRIs that the server assigns to blank nodes
+    final static private String SKOLEM_NAMESPACE = "http://marklogic.com/semantics/blank/";
+
+    private static Logger logger = LoggerFactory.getLogger(GraphBatcherImpl.class);
+
+    private BatchThreadPoolExecutor threadPool;
+    private final AtomicLong batchNum = new AtomicLong(0);
+    private final AtomicLong failedBatches = new AtomicLong(0);
+    private final AtomicLong triplesAdded = new AtomicLong(0);
+    private final AtomicLong triplesWritten = new AtomicLong(0);
+    private final AtomicLong blankNodeScopes = new AtomicLong(0);
+    private String skolemPrefix;
+    private GraphBatchFailureListener[] failureListeners;
+    private GraphBatchSuccessListener[] sucessListeners;
+
+    private GraphManager defaultGraphMgr;
+    private GraphPermissions permissions;
+    private HostInfo[] hostInfos;
+
+    // the statements waiting for a full batch, keyed by graph uri
+    private final Map<String, List<String>> pendingBatches = new HashMap<>();
+    private final Object taskLock = new Object();
+    private int activeTasks = 0;
+
+    GraphBatcherImpl(DataMovementManagerImpl moveMgr) {
+        super(moveMgr);
+        defaultGraphMgr = getPrimaryClient().newGraphManager();
+        super.withBatchSize(DEFAULT_BATCH_SIZE);
+        if (moveMgr.getConnectionType() == DatabaseClient.ConnectionType.DIRECT) {
+            withForestConfig(moveMgr.getForestConfig());
+        }
+    }
+
+    @Override
+    public GraphBatcher add(String graphUri, String triple) {
+        requireStarted("Must start job before adding triples");
+        if (triple == null)
+            throw new IllegalArgumentException("Triple cannot be null");
+        String statement = triple.trim();
+        if (statement.length() == 0)
+            throw new IllegalArgumentException("Triple cannot be empty");
+        // triples added individually share the blank nodes of the job
+        addStatement(graphUri, skolemize(statement, 0));
+        return this;
+    }
+    @Override
+    public GraphBatcher addTriples(String graphUri, InputStream ntriples) {
+        requireStarted("Must start job before adding triples");
+        if (ntriples == null)
+            throw new IllegalArgumentException("N-Triples input cannot be null");
+        long scope = blankNodeScopes.incrementAndGet();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(ntriples, StandardCharsets.UTF_8));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String statement = line.trim();
+                if (statement.length() == 0 || statement.charAt(0) == '#') continue;
+                addStatement(graphUri, skolemize(statement, scope));
+            }
+        } catch (IOException e) {
+            throw new MarkLogicIOException("Could not read N-Triples input", e);
+        }
+        return this;
+    }
+    @Override
+    public GraphBatcher addQuads(InputStream nquads) {
+        requireStarted("Must start job before adding quads");
+        if (nquads == null)
+            throw new IllegalArgumentException("N-Quads input cannot be null");
+        long scope = blankNodeScopes.incrementAndGet();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(nquads, StandardCharsets.UTF_8));
+        try {
+            String[] quad = new String[2];
+            long lineNum = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNum++;
+                String statement = line.trim();
+                if (statement.length() == 0 || statement.charAt(0) == '#') continue;
+                if (!splitQuad(statement, quad)) {
+                    throw new IllegalArgumentException("Malformed N-Quads statement on line "+lineNum+": "+statement);
+                }
+                addStatement(quad[0], skolemize(quad[1], scope));
+            }
+        } catch (IOException e) {
+            throw new MarkLogicIOException("Could not read N-Quads input", e);
+        }
+        return this;
+    }
+
+    /**
+     * Splits an N-Quads statement into the graph uri and the N-Triples statement.
+     * @param statement the trimmed N-Quads statement
+     * @param quad receives the graph uri (or null for the default graph) and triple
+     * @return false if the statement is malformed
+     */
+    static boolean splitQuad(String statement, String[] quad) {
+        int pos = 0;
+        int tripleEnd = 0;
+        for (int i=0; i < 3; i++) {
+            tripleEnd = termEnd(statement, pos);
+            if (tripleEnd < 0) return false;
+            pos = skipSpace(statement, tripleEnd);
+        }
+        if (pos >= statement.length()) return false;
+        if (statement.charAt(pos) == '.') {
+            quad[0] = null;
+        } else if (statement.charAt(pos) == '<') {
+            int graphEnd = termEnd(statement, pos);
+            if (graphEnd < 0) return false;
+            int next = skipSpace(statement, graphEnd);
+            if (next >= statement.length() || statement.charAt(next) != '.') return false;
+            quad[0] = statement.substring(pos + 1, graphEnd - 1);
+        } else {
+            // MarkLogic doesn't support blank nodes as graph names
+            return false;
+        }
+        quad[1] = statement.substring(0, tripleEnd) + " .";
+        return true;
+    }
+    /*
+     * A blank node label identifies the same node only within one document,
+     * but the server assigns new blank nodes for each request, and the
+     * statements of a document are split over many batches. So the labels are
+     * replaced with IRIs that are unique to the job and to the input, as the
+     * server would do for a single request, to keep the references intact.
+     */
+    private String skolemize(String statement, long scope) {
+        if (statement.indexOf("_:") < 0) return statement;
+        StringBuilder buf = null;
+        int copied = 0;
+        int pos = 0;
+        for (int i=0; i < 3; i++) {
+            int end = termEnd(statement, pos);
+            // leave a malformed statement for the server to reject
+            if (end < 0) return statement;
+            if (statement.startsWith("_:", pos)) {
+                if (buf == null) buf = new StringBuilder(statement.length() + 64);
+                buf.append(statement, copied, pos)
+                   .append('<').append(skolemPrefix).append(scope).append('/')
+                   .append(statement, pos + 2, end)
+                   .append('>');
+                copied = end;
+            }
+            pos = skipSpace(statement, end);
+        }
+        if (buf == null) return statement;
+        return buf.append(statement, copied, statement.length()).toString();
+    }
+    private static int termEnd(String statement, int start) {
+        int length = statement.length();
+        if (start >= length) return -1;
+        int pos = start;
+        switch (statement.charAt(pos)) {
+            case '<':
+                pos = statement.indexOf('>', pos + 1);
+                return (pos < 0) ? -1 : pos + 1;
+            case '"':
+                for (pos++; pos < length; pos++) {
+                    char c = statement.charAt(pos);
+                    if (c == '\\') {
+                        pos++;
+                    } else if (c == '"') {
+                        break;
+                    }
+                }
+                if (pos >= length) return -1;
+                pos++;
+                if (statement.startsWith("^^", pos)) {
+                    return termEnd(statement, pos + 2);
+                } else if (pos < length && statement.charAt(pos) == '@') {
+                    for (pos++; pos < length; pos++) {
+                        char c = statement.charAt(pos);
+                        if (!Character.isLetterOrDigit(c) && c != '-') break;
+                    }
+                }
+                return pos;
+            default:
+                // a blank node label, which can't end with a period
+                for (; pos < length; pos++) {
+                    char c = statement.charAt(pos);
+                    if (Character.isWhitespace(c)) break;
+                    if (c == '.' && (pos + 1 == length || Character.isWhitespace(statement.charAt(pos + 1)))) break;
+                }
+                return (pos == start) ? -1 : pos;
+        }
+    }
+    private static int skipSpace(String statement, int pos) {
+        int length = statement.length();
+        while (pos < length && Character.isWhitespace(statement.charAt(pos))) pos++;
+        return pos;
+    }
+
+    private void addStatement(String graphUri, String statement) {
+        if (graphUri == null) graphUri = GraphManager.DEFAULT_GRAPH;
+        List<String> fullBatch = null;
+        synchronized (pendingBatches) {
+            // checked under the lock so stopping can't miss the statement
+            if (super.getStopped().get())
+                throw new IllegalStateException("Cannot write triples after the job is stopped");
+            List<String> batch = pendingBatches.get(graphUri);
+            if (batch == null) {
+                batch = new ArrayList<>();
+                pendingBatches.put(graphUri, batch);
+            }
+            batch.add(statement);
+            if (batch.size() >= getBatchSize()) {
+                fullBatch = pendingBatches.remove(graphUri);
+            }
+        }
+        triplesAdded.incrementAndGet();
+        if (fullBatch != null) {
+            submit(graphUri, fullBatch);
+        }
+    }
+
+    @Override
+    public GraphBatcher withGraphPermissions(GraphPermissions permissions) {
+        requireNotStarted("Must set graph permissions before starting job");
+        this.permissions = permissions;
+        return this;
+    }
+    @Override
+    public GraphPermissions getGraphPermissions() {
+        return permissions;
+    }
+
+    @Override
+    public GraphBatcher withBatchSize(int batchSize) {
+        requireNotStarted("Must set batch size before starting job");
+        super.withBatchSize(batchSize);
+        return this;
+    }
+    @Override
+    public GraphBatcher withThreadCount(int threadCount) {
+        requireNotStarted("Must set thread count before starting job");
+        super.withThreadCount(threadCount);
+        return this;
+    }
+
+    @Override
+    public GraphBatcher onSuccess(GraphBatchSuccessListener listener) {
+        requireNotStarted("Must set success listener before starting job");
+        if (listener == null) {
+            sucessListeners = null;
+        } else if (sucessListeners == null || sucessListeners.length == 0) {
+            sucessListeners = new GraphBatchSuccessListener[]{listener};
+        } else {
+            sucessListeners = Arrays.copyOf(sucessListeners, sucessListeners.length + 1);
+            sucessListeners[sucessListeners.length - 1] = listener;
+        }
+        return this;
+    }
+    @Override
+    public GraphBatcher onFailure(GraphBatchFailureListener listener) {
+        requireNotStarted("Must set failure listener before starting job");
+        if (listener == null) {
+            failureListeners = null;
+        } else if (failureListeners == null || failureListeners.length == 0) {
+            failureListeners = new GraphBatchFailureListener[]{listener};
+        } else {
+            failureListeners = Arrays.copyOf(failureListeners, failureListeners.length + 1);
+            failureListeners[failureListeners.length - 1] = listener;
+        }
+        return this;
+    }
+
+    @Override
+    public GraphBatcher withJobId(String jobId) {
+        requireNotStarted("Must set job id before starting job");
+        super.setJobId(jobId);
+        return this;
+    }
+    @Override
+    public GraphBatcher withJobName(String jobName) {
+        requireNotStarted("Must set job name before starting job");
+        super.withJobName(jobName);
+        return this;
+    }
+
+    @Override
+    public GraphBatchSuccessListener[] getSuccessListeners() {
+        return sucessListeners;
+    }
+    @Override
+    public GraphBatchFailureListener[] getFailureListeners() {
+        return failureListeners;
+    }
+    @Override
+    public void setSuccessListeners(GraphBatchSuccessListener... listeners) {
+        requireNotStarted("Must set success listeners before starting job");
+        this.sucessListeners = listeners;
+    }
+    @Override
+    public void setFailureListeners(GraphBatchFailureListener... listeners) {
+        requireNotStarted("Must set failure listeners before starting job");
+        this.failureListeners = listeners;
+    }
+    private void initRequestEvent(GraphBatchEventImpl event) {
+        event.withClient(getPrimaryClient());
+        event.withJobTicket(getJobTicket());
+    }
+    private void notifySuccess(GraphBatchSuccessListener.GraphBatchEvent event) {
+        if (sucessListeners == null || sucessListeners.length == 0) return;
+        for (GraphBatchSuccessListener sucessListener: sucessListeners) {
+            try {
+                sucessListener.processEvent(event);
+            } catch(Throwable e) {
+                logger.info("error in success listener: {}", e.toString());
+            }
+        }
+    }
+    private void notifyFailure(GraphBatchFailureEventImpl event, Throwable throwable) {
+        GraphBatchFailureListener.BatchFailureDisposition priorDisposition = null;
+        int priorMaxRetries = 0;
+        // notify all failure listeners
+        for (GraphBatchFailureListener failureListener: failureListeners) {
+            priorDisposition = event.getDisposition();
+            priorMaxRetries  = event.getMaxRetries();
+
+            try {
+                failureListener.processFailure(event, throwable);
+            } catch(Throwable e) {
+                logger.info("error in failure listener: {}", e.toString());
+            }
+
+            int nextMaxRetries = event.getMaxRetries();
+            if (priorMaxRetries < nextMaxRetries) {
+                event.withMaxRetries(priorMaxRetries);
+            }
+
+            GraphBatchFailureListener.BatchFailureDisposition nextDisposition = event.getDisposition();
+            if (priorDisposition != nextDisposition) {
+                // in precedence order
+                switch(priorDisposition) {
+                    case SKIP:
+                        break;
+                    case RETRY:
+                        if (nextDisposition == GraphBatchFailureListener.BatchFailureDisposition.SKIP)
+                            event.withDisposition(priorDisposition);
+                        break;
+                    case STOP:
+                        event.withDisposition(priorDisposition);
+                        break;
+                    default:
+                        throw new MarkLogicInternalException(
+                                "unknown failure disposition: "+priorDisposition.toString()
+                        );
+                }
+            }
+        }
+    }
+
+    @Override
+    public void flushAsync() {
+        requireStarted("Must start job before flushing");
+        Map<String, List<String>> batches;
+        synchronized (pendingBatches) {
+            batches = new HashMap<>(pendingBatches);
+            pendingBatches.clear();
+        }
+        for (Map.Entry<String, List<String>> batch: batches.entrySet()) {
+            submit(batch.getKey(), batch.getValue());
+        }
+    }
+    @Override
+    public void flushAndWait() {
+        flushAsync();
+        awaitCompletion();
+    }
+    @Override
+    public boolean awaitCompletion() {
+        try {
+            return awaitCompletion(Long.MAX_VALUE, TimeUnit.DAYS);
+        } catch(InterruptedException e) {
+            return false;
+        }
+    }
+    @Override
+    public boolean awaitCompletion(long timeout, TimeUnit unit) throws InterruptedException {
+        requireStarted("Must start job before awaiting completion");
+        long deadline = System.nanoTime() + Math.min(unit.toNanos(timeout), Long.MAX_VALUE / 2);
+        synchronized (taskLock) {
+            while (activeTasks > 0) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) return false;
+                TimeUnit.NANOSECONDS.timedWait(taskLock, remaining);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public long getBatchCount() {
+        requireStarted("Must start job before getting batch count");
+        return this.batchNum.get();
+    }
+    @Override
+    public long getFailedBatches() {
+        requireStarted("Must start job before getting failed batches");
+        return this.failedBatches.get();
+    }
+    @Override
+    public long getTriplesAdded() {
+        return this.triplesAdded.get();
+    }
+    @Override
+    public long getTriplesWritten() {
+        return this.triplesWritten.get();
+    }
+    @Override
+    public JobTicket getJobTicket() {
+        requireStarted("Must start job before getting ticket");
+        return super.getJobTicket();
+    }
+    private void requireNotStarted(String msg) {
+        if (this.isStarted()) {
+            throw new IllegalStateException(msg);
+        }
+    }
+    private void requireStarted(String msg) {
+        if (!this.isStarted()) {
+            throw new IllegalStateException(msg);
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (super.getStopped().get()) return;
+        super.getStopped().set(true);
+        if (threadPool != null) {
+            // the batches that never started are reported and finished without writing
+            List<Runnable> unstartedTasks = threadPool.shutdownNow();
+            for (Runnable task: unstartedTasks) {
+                ((GraphBatchTask) task).drop();
+            }
+            finishTasks(unstartedTasks.size());
+        }
+        dropPendingBatches();
+        super.setJobEndTime();
+    }
+    private void orderlyStop() {
+        if (super.getStopped().get()) return;
+        super.getStopped().set(true);
+        // the queued batches are reported as they are dequeued
+        if (threadPool != null) threadPool.shutdown();
+        dropPendingBatches();
+        super.setJobEndTime();
+    }
+    private void dropPendingBatches() {
+        Map<String, List<String>> batches;
+        synchronized (pendingBatches) {
+            batches = new HashMap<>(pendingBatches);
+            pendingBatches.clear();
+        }
+        for (Map.Entry<String, List<String>> batch: batches.entrySet()) {
+            List<String> triples = batch.getValue();
+            dropBatch(this.batchNum.incrementAndGet(), batch.getKey(), triples.toArray(new String[triples.size()]));
+        }
+    }
+    /*
+     * Reports a batch that won't be written because the job stopped to the
+     * failure listeners as a failed batch. The disposition is ignored because
+     * the job has already stopped.
+     */
+    private void dropBatch(long currentBatch, String graphUri, String[] triples) {
+        logger.warn("job stopped before writing batch {} with {} triples for graph {}",
+                currentBatch, triples.length, graphUri);
+        GraphBatchFailureEventImpl event = new GraphBatchFailureEventImpl(currentBatch, graphUri, triples);
+        initRequestEvent(event);
+        notifyFailure(
+            event.withFailedJobBatches(this.failedBatches.get()),
+            new IllegalStateException("Job stopped before writing batch "+currentBatch));
+        this.failedBatches.incrementAndGet();
+    }
+
+    @Override
+    public synchronized void start(JobTicket ticket) {
+        requireNotStarted("Job already started");
+
+        if (failureListeners == null || failureListeners.length == 0) {
+            logger.warn("starting job with default failure listener");
+            onFailure((batch, throwable) -> {
+                logger.warn("batch "+batch.getJobBatchNumber()+" failed with error: "+throwable.getMessage());
+            });
+        }
+
+        if (super.getBatchSize() <= 0) {
+            logger.warn("batchSize must be 1 or greater--setting batchSize to "+DEFAULT_BATCH_SIZE);
+            super.withBatchSize(DEFAULT_BATCH_SIZE);
+        }
+
+        this.threadPool = new BatchThreadPoolExecutor(super.getThreadCount());
+        this.skolemPrefix = SKOLEM_NAMESPACE + UUID.randomUUID() + "/";
+
+        super.setJobTicket(ticket);
+        super.setJobStartTime();
+        super.getStarted().set(true);
+    }
+
+    private void submit(String graphUri, List<String> triples) {
+        if (super.getStopped().get())
+            throw new IllegalStateException("Cannot write triples after the job is stopped");
+        long currentBatch = this.batchNum.incrementAndGet();
+        GraphBatchTask task = new GraphBatchTask(
+                this, currentBatch, graphUri, triples.toArray(new String[triples.size()])
+        );
+        synchronized (taskLock) {
+            activeTasks++;
+        }
+        try {
+            threadPool.execute(task);
+        } catch (RejectedExecutionException e) {
+            finishTasks(1);
+            throw new IllegalStateException("Cannot write triples after the job is stopped", e);
+        }
+    }
+    private void finishTasks(int count) {
+        if (count == 0) return;
+        synchronized (taskLock) {
+            activeTasks -= count;
+            taskLock.notifyAll();
+        }
+    }
+
+    private boolean writeTriples(long currentBatch, String graphUri, String[] triples) {
+        // a batch dequeued after the job stopped isn't written
+        if (super.getStopped().get()) {
+            dropBatch(currentBatch, graphUri, triples);
+            return false;
+        }
+
+        StringBuilder buf = new StringBuilder();
+        for (String triple: triples) {
+            buf.append(triple).append('\n');
+        }
+        String content = buf.toString();
+        long bytesSent = isMeasuring() ? content.getBytes(StandardCharsets.UTF_8).length : -1;
+
+        HostInfo[] currentHosts = this.hostInfos;
+        boolean isDirect =
+                (currentHosts != null && getMoveMgr().getConnectionType() == DatabaseClient.ConnectionType.DIRECT);
+
+        GraphBatchFailureEventImpl requestEvent = null;
+        for (int batchRetries = 0; shouldWriteBatch(requestEvent, batchRetries); batchRetries++) {
+            // batches round-robin over the direct hosts as do retries
+            HostInfo requestHost = isDirect ?
+                    currentHosts[(int) ((currentBatch + batchRetries) % currentHosts.length)] : null;
+            GraphManager requestGraphMgr = (requestHost != null) ? requestHost.graphMgr : this.defaultGraphMgr;
+
+            Throwable throwable = null;
+            long requestStart = System.nanoTime();
+            try {
+                StringHandle handle = new StringHandle(content).withMimetype(RDFMimeTypes.NTRIPLES);
+                if (permissions == null) {
+                    requestGraphMgr.merge(graphUri, handle);
+                } else {
+                    requestGraphMgr.merge(graphUri, handle, permissions);
+                }
+            } catch(Throwable e) {
+                throwable = e;
+            }
+            publishTriplesMetrics(
+                    (requestHost != null) ? requestHost.hostName : getPrimaryClient().getHost(),
+                    currentBatch, batchRetries, requestStart, triples.length, bytesSent, throwable);
+
+            if (throwable != null) {
+                logger.debug("failed for batch: {}, retry: {}", currentBatch, batchRetries);
+                if (requestEvent == null) {
+                    requestEvent = new GraphBatchFailureEventImpl(currentBatch, graphUri, triples);
+                    initRequestEvent(requestEvent);
+                }
+                notifyFailure(
+                    requestEvent
+                        .withBatchRetries(batchRetries)
+                        .withFailedJobBatches(this.failedBatches.get()),
+                    throwable);
+            } else {
+                long jobTriples = this.triplesWritten.addAndGet(triples.length);
+                GraphBatchEventImpl responseEvent = new GraphBatchEventImpl(
+                        currentBatch, graphUri, triples, jobTriples
+                );
+                initRequestEvent(responseEvent);
+                notifySuccess(responseEvent);
+                requestEvent = null;
+                break;
+            }
+        }
+        if (requestEvent != null) {
+            this.failedBatches.incrementAndGet();
+            if (requestEvent.getDisposition() == GraphBatchFailureListener.BatchFailureDisposition.STOP) {
+                logger.debug("stopped for failed batch: {}", currentBatch);
+                this.orderlyStop();
+            }
+        }
+        logger.debug("finished batch: {}", currentBatch);
+
+        return (requestEvent == null);
+    }
+    private void publishTriplesMetrics(String host, long currentBatch, int batchRetries, long requestStart,
+                                       int itemCount, long bytesSent, Throwable throwable) {
+        if (!isMeasuring()) return;
+        publishMetrics(new RequestMetricsImpl(JobTicket.JobType.GRAPH_BATCHER)
+                .withHost(host)
+                .withJobBatchNumber(currentBatch)
+                .withRetry(batchRetries > 0)
+                .withDurationNanos(System.nanoTime() - requestStart)
+                .withItemCount(itemCount)
+                .withBytesSent(bytesSent)
+                .withQueueDepth(threadPool.getQueue().size())
+                .withThrowable(throwable));
+    }
+    private boolean shouldWriteBatch(GraphBatchFailureEventImpl requestEvent, int batchRetries) {
+        if (batchRetries == 0)        return true;  // first request
+        if (requestEvent == null)     return false; // request succeeded
+        if (super.getStopped().get()) return false; // stopped
+        // whether to retry request
+        return (requestEvent.getDisposition() == GraphBatchFailureListener.BatchFailureDisposition.RETRY &&
+                batchRetries < requestEvent.getMaxRetries());
+    }
+
+    @Override
+    public synchronized GraphBatcher withForestConfig(ForestConfiguration forestConfig) {
+        super.withForestConfig(forestConfig);
+        this.hostInfos = forestHosts(forestConfig, this.hostInfos);
+        return this;
+    }
+
+    static private class GraphBatchTask implements Runnable {
+        private GraphBatcherImpl graphBatcher;
+        private long batchNumber;
+        private String graphUri;
+        private String[] triples;
+        GraphBatchTask(GraphBatcherImpl graphBatcher, long batchNumber, String graphUri, String[] triples) {
+            this.graphBatcher = graphBatcher;
+            this.batchNumber = batchNumber;
+            this.graphUri = graphUri;
+            this.triples = triples;
+        }
+        @Override
+        public void run() {
+            try {
+                graphBatcher.writeTriples(batchNumber, graphUri, triples);
+            } catch(Throwable e) {
+                logger.error("internal error", e);
+            } finally {
+                graphBatcher.finishTasks(1);
+            }
+        }
+        void drop() {
+            graphBatcher.dropBatch(batchNumber, graphUri, triples);
+        }
+    }
+
+    static private class GraphBatchEventImpl extends BatchEventImpl
+            implements GraphBatchSuccessListener.GraphBatchEvent {
+        private String graphUri;
+        private String[] triples;
+        private long jobTriplesSoFar;
+        private GraphBatchEventImpl(long batchnum, String graphUri, String[] triples, long jobTriplesSoFar) {
+            this.graphUri = graphUri;
+            this.triples = triples;
+            this.jobTriplesSoFar = jobTriplesSoFar;
+            withJobBatchNumber(batchnum);
+        }
+        @Override
+        public String getGraphUri() {
+            return graphUri;
+        }
+        @Override
+        public String[] getTriples() {
+            return triples;
+        }
+        @Override
+        public long getJobTriplesSoFar() {
+            return jobTriplesSoFar;
+        }
+    }
+    static private class GraphBatchFailureEventImpl extends GraphBatchEventImpl
+            implements GraphBatchFailureListener.GraphBatchFailureEvent {
+        private final static int DEFAULT_MAX_RETRIES = 10;
+
+        private GraphBatchFailureListener.BatchFailureDisposition disposition;
+        private int  maxRetries       = DEFAULT_MAX_RETRIES;
+        private int  batchRetries     = 0;
+        private long failedJobBatches = 0;
+        private GraphBatchFailureEventImpl(long batchnum, String graphUri, String[] triples) {
+            super(batchnum, graphUri, triples, 0);
+            disposition = GraphBatchFailureListener.BatchFailureDisposition.SKIP;
+        }
+
+        @Override
+        public int getBatchRetries() {
+            return this.batchRetries;
+        }
+        private GraphBatchFailureEventImpl withBatchRetries(int batchRetries) {
+            this.batchRetries = batchRetries;
+            return this;
+        }
+        @Override
+        public long getFailedJobBatches() {
+            return this.failedJobBatches;
+        }
+        private GraphBatchFailureEventImpl withFailedJobBatches(long failedJobBatches) {
+            this.failedJobBatches = failedJobBatches;
+            return this;
+        }
+        @Override
+        public GraphBatchFailureListener.BatchFailureDisposition getDisposition() {
+            return this.disposition;
+        }
+        @Override
+        public GraphBatchFailureListener.GraphBatchFailureEvent withDisposition(
+                GraphBatchFailureListener.BatchFailureDisposition disposition
+        ) {
+            this.disposition = disposition;
+            return this;
+        }
+        @Override
+        public int getMaxRetries() {
+            return this.maxRetries;
+        }
+        @Override
+        public GraphBatchFailureEventImpl withMaxRetries(int maxRetries) {
+            this.maxRetries = maxRetries;
+            return this;
+        }
+    }
+
+    private class BatchThreadPoolExecutor extends ThreadPoolExecutor {
+        BatchThreadPoolExecutor(int threadCount) {
+            // like CallerRunsPolicy but rejects instead of discarding the batch after shutdown
+            super(threadCount, threadCount, 0, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<Runnable>(threadCount),
+                    (task, executor) -> {
+                        if (executor.isShutdown())
+                            throw new RejectedExecutionException("Job stopped");
+                        task.run();
+                    });
+        }
+    }
+
+    synchronized HostInfo[] forestHosts(ForestConfiguration forestConfig, HostInfo[] hostInfos) {
+        // get the list of hosts to use
+        Forest[] forests = forests(forestConfig);
+        Set<String> hosts = hosts(forests);
+        Map<String, HostInfo> existingHostInfos = new HashMap<>();
+
+        if (hostInfos != null) {
+            for (HostInfo hostInfo : hostInfos) {
+                existingHostInfos.put(hostInfo.hostName, hostInfo);
+            }
+        }
+        logger.info("(withForestConfig) Using forests on {} hosts for \"{}\"", hosts, forests[0].getDatabaseName());
+        // initialize a DatabaseClient for each host
+        HostInfo[] newHostInfos = new HostInfo[hosts.size()];
+        int i = 0;
+        for (String host : hosts) {
+            HostInfo existingHost = existingHostInfos.get(host);
+            if (existingHost != null) {
+                newHostInfos[i] = existingHost;
+            } else {
+                existingHost = new HostInfo();
+                newHostInfos[i] = existingHost;
+                existingHost.hostName = host;
+                // this is a host-specific client (no DatabaseClient is actually forest-specific)
+                existingHost.client = getMoveMgr().getHostClient(host);
+                if (getMoveMgr().getConnectionType() == DatabaseClient.ConnectionType.DIRECT) {
+                    logger.info("Adding DatabaseClient on port {} for host \"{}\" to the rotation",
+                            newHostInfos[i].client.getPort(), host);
+                    existingHost.graphMgr = existingHost.client.newGraphManager();
+                }
+            }
+            i++;
+        }
+
+        return newHostInfos;
+    }
+
+    private static class HostInfo {
+        private String hostName;
+        private DatabaseClient client;
+        private GraphManager graphMgr;
+    }
+}
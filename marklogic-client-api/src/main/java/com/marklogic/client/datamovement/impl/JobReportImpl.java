@@ -25,6 +25,9 @@ public class JobReportImpl implements JobReport {
   private long failureEventsCount = 0;
   private long successBatchesCount = 0;
   private long failureBatchesCount = 0;
+  private int currentBatchSize = 0;
+  private int currentThreadCount = 0;
+  private long adjustmentsCount = 0;
   private boolean isJobComplete;
   private Calendar jobStartTime;
   private Calendar jobEndTime;
@@ -75,6 +78,15 @@ public class JobReportImpl implements JobReport {
     failureBatchesCount = writeJobSuccessListener.getFailureBatchesCount();
     successEventsCount = writeJobSuccessListener.getSuccessEventsCount();
     failureEventsCount = writeJobSuccessListener.getFailureEventsCount();
+    if (batcher instanceof WriteBatcherImpl) {
+      WriteBatcherImpl batcherImpl = (WriteBatcherImpl) batcher;
+      currentBatchSize = batcherImpl.getCurrentBatchSize();
+      currentThreadCount = batcherImpl.getCurrentThreadCount();
+      adjustmentsCount = batcherImpl.getAdjustmentsCount();
+    } else {
+      currentBatchSize = batcher.getBatchSize();
+      currentThreadCount = batcher.getThreadCount();
+    }
     isJobComplete = batcher.isStopped();
     reportTimestamp = Calendar.getInstance();
     jobStartTime = batcher.getJobStartTime();
@@ -110,6 +122,8 @@ public class JobReportImpl implements JobReport {
     failureBatchesCount = queryJobSuccessListener.getFailureBatchesCount();
     failureEventsCount = failureBatchesCount;
     successEventsCount = queryJobSuccessListener.getSuccessEventsCount();
+    currentBatchSize = batcher.getBatchSize();
+    currentThreadCount = batcher.getThreadCount();
     isJobComplete = batcher.isStopped();
     reportTimestamp = Calendar.getInstance();
     jobStartTime = batcher.getJobStartTime();
@@ -136,6 +150,21 @@ public class JobReportImpl implements JobReport {
     return failureBatchesCount;
   }
 
+  @Override
+  public int getCurrentBatchSize() {
+    return currentBatchSize;
+  }
+
+  @Override
+  public int getCurrentThreadCount() {
+    return currentThreadCount;
+  }
+
+  @Override
+  public long getAdjustmentsCount() {
+    return adjustmentsCount;
+  }
+
   public boolean isJobComplete() {
     return isJobComplete;
   }
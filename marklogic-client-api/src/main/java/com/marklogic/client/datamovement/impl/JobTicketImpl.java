@@ -23,6 +23,7 @@ public class JobTicketImpl implements JobTicket {
   private QueryBatcherImpl queryBatcher;
   private WriteBatcherImpl writeBatcher;
   private RowBatcherImpl<?> rowBatcher;
+  private GraphBatcherImpl graphBatcher;
 
   public JobTicketImpl(String jobId, JobType jobType) {
     this.jobId = jobId;
@@ -48,6 +49,7 @@ public class JobTicketImpl implements JobTicket {
       case QUERY_BATCHER: return getQueryBatcher();
       case WRITE_BATCHER: return getWriteBatcher();
       case ROW_BATCHER:   return getRowBatcher();
+      case GRAPH_BATCHER: return getGraphBatcher();
       default:
         throw new InternalError("unknown job type: "+jobType.name());
     }
@@ -63,6 +65,9 @@ public class JobTicketImpl implements JobTicket {
   public RowBatcherImpl<?> getRowBatcher() {
     return rowBatcher;
   }
+  public GraphBatcherImpl getGraphBatcher() {
+    return graphBatcher;
+  }
 
   public JobTicketImpl withQueryBatcher(QueryBatcherImpl queryBatcher) {
     this.queryBatcher = queryBatcher;
@@ -76,4 +81,8 @@ public class JobTicketImpl implements JobTicket {
     this.rowBatcher = rowBatcher;
     return this;
   }
+  public JobTicketImpl withGraphBatcher(GraphBatcherImpl graphBatcher) {
+    this.graphBatcher = graphBatcher;
+    return this;
+  }
 }
@@ -735,6 +735,7 @@ public class QueryBatcherImpl extends BatcherImpl implements QueryBatcher {
         // this try-with-resources block will call results.close() once the block is done
         // here we call the /v1/internal/uris endpoint to get the text/uri-list of documents
         // matching this structured or string query
+        long requestStart = System.nanoTime();
         try (UrisHandle results = queryMgr.uris(queryMethod, query, filtered, handle, start, afterUri, forest.getForestName())) {
           // if we're doing consistentSnapshot and this is the first result set, let's capture the
           // serverTimestamp so we can use it for all future queries
@@ -769,10 +770,15 @@ public class QueryBatcherImpl extends BatcherImpl implements QueryBatcher {
           // we're done if we get a 404 NOT FOUND which throws ResourceNotFoundException
           // this should only happen if the last query retrieved a full batch so it thought
           // there would be more and queued this task which retrieved 0 results
+          publishUrisMetrics(client, requestStart, 0, null);
           isDone.set(true);
           shutdownIfAllForestsAreDone();
           return;
+        } catch (RuntimeException e) {
+          publishUrisMetrics(client, requestStart, 0, e);
+          throw e;
         }
+        publishUrisMetrics(client, requestStart, totalProcessedCount, null);
 
         batch = batch
                 .withItems(uris.get(0).toArray(new String[uris.get(0).size()]))
@@ -832,6 +838,18 @@ public class QueryBatcherImpl extends BatcherImpl implements QueryBatcher {
       }
     }
 
+    private void publishUrisMetrics(DatabaseClient client, long requestStart, int uriCount, Throwable throwable) {
+      if ( isMeasuring() == false ) return;
+      publishMetrics(new RequestMetricsImpl(JobTicket.JobType.QUERY_BATCHER)
+        .withHost(client.getHost())
+        .withJobBatchNumber((retryBatchNumber != -1) ? retryBatchNumber : 0)
+        .withRetry(retryBatchNumber != -1)
+        .withDurationNanos(System.nanoTime() - requestStart)
+        .withItemCount(uriCount)
+        .withQueueDepth(threadPool.getQueue().size())
+        .withThrowable(throwable));
+    }
+
     private void processDocs(QueryBatchImpl batch) {
       AtomicBoolean isDone = forestIsDone.get(forest);
 
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2021 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.datamovement.impl;
+
+import com.marklogic.client.MarkLogicServerException;
+import com.marklogic.client.datamovement.JobTicket;
+import com.marklogic.client.datamovement.RequestMetrics;
+
+public class RequestMetricsImpl implements RequestMetrics {
+  private String jobId;
+  private String jobName;
+  private JobTicket.JobType jobType;
+  private String host;
+  private long jobBatchNumber;
+  private boolean retry;
+  private long durationNanos;
+  private long itemCount;
+  private long bytesSent = -1;
+  private long bytesReceived = -1;
+  private int queueDepth;
+  private Throwable throwable;
+
+  public RequestMetricsImpl(JobTicket.JobType jobType) {
+    this.jobType = jobType;
+  }
+
+  @Override
+  public String getJobId() {
+    return jobId;
+  }
+  public RequestMetricsImpl withJobId(String jobId) {
+    this.jobId = jobId;
+    return this;
+  }
+
+  @Override
+  public String getJobName() {
+    return jobName;
+  }
+  public RequestMetricsImpl withJobName(String jobName) {
+    this.jobName = jobName;
+    return this;
+  }
+
+  @Override
+  public JobTicket.JobType getJobType() {
+    return jobType;
+  }
+
+  @Override
+  public String getHost() {
+    return host;
+  }
+  public RequestMetricsImpl withHost(String host) {
+    this.host = host;
+    return this;
+  }
+
+  @Override
+  public long getJobBatchNumber() {
+    return jobBatchNumber;
+  }
+  public RequestMetricsImpl withJobBatchNumber(long jobBatchNumber) {
+    this.jobBatchNumber = jobBatchNumber;
+    return this;
+  }
+
+  @Override
+  public boolean isRetry() {
+    return retry;
+  }
+  public RequestMetricsImpl withRetry(boolean retry) {
+    this.retry = retry;
+    return this;
+  }
+
+  @Override
+  public long getDurationNanos() {
+    return durationNanos;
+  }
+  public RequestMetricsImpl withDurationNanos(long durationNanos) {
+    this.durationNanos = durationNanos;
+    return this;
+  }
+
+  @Override
+  public long getItemCount() {
+    return itemCount;
+  }
+  public RequestMetricsImpl withItemCount(long itemCount) {
+    this.itemCount = itemCount;
+    return this;
+  }
+
+  @Override
+  public long getBytesSent() {
+    return bytesSent;
+  }
+  public RequestMetricsImpl withBytesSent(long bytesSent) {
+    this.bytesSent = bytesSent;
+    return this;
+  }
+
+  @Override
+  public long getBytesReceived() {
+    return bytesReceived;
+  }
+  public RequestMetricsImpl withBytesReceived(long bytesReceived) {
+    this.bytesReceived = bytesReceived;
+    return this;
+  }
+
+  @Override
+  public int getQueueDepth() {
+    return queueDepth;
+  }
+  public RequestMetricsImpl withQueueDepth(int queueDepth) {
+    this.queueDepth = queueDepth;
+    return this;
+  }
+
+  @Override
+  @SuppressWarnings("deprecation")
+  public int getServerStatusCode() {
+    if ( !(throwable instanceof MarkLogicServerException) ) return 0;
+    MarkLogicServerException serverException = (MarkLogicServerException) throwable;
+    // the status code is available only if the error came from the server
+    return (serverException.getFailedRequest() != null) ? serverException.getServerStatusCode() : 0;
+  }
+
+  @Override
+  public Throwable getThrowable() {
+    return throwable;
+  }
+  public RequestMetricsImpl withThrowable(Throwable throwable) {
+    this.throwable = throwable;
+    return this;
+  }
+}
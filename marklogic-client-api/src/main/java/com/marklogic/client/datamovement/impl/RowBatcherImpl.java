@@ -421,13 +421,14 @@ class RowBatcherImpl<T>  extends BatcherImpl implements RowBatcher<T> {
 
         RowBatchFailureEventImpl requestEvent = null;
         for (int batchRetries = 0; shouldRequestBatch(requestEvent, batchRetries); batchRetries++) {
-            RowManager requestRowMgr = isDirect ?
-                    // batches round-robin over the direct hosts as do retries
-                    this.hostInfos[(int) ((currentBatch + batchRetries) % hostInfos.length)].rowMgr :
-                    this.getRowManager();
+            // batches round-robin over the direct hosts as do retries
+            HostInfo requestHost = isDirect ?
+                    this.hostInfos[(int) ((currentBatch + batchRetries) % hostInfos.length)] : null;
+            RowManager requestRowMgr = (requestHost != null) ? requestHost.rowMgr : this.getRowManager();
 
             Throwable throwable = null;
             T rowsDoc = null;
+            long requestStart = System.nanoTime();
             try {
                 BaseHandle baseThreadHandle = (BaseHandle) threadHandle;
                 if (consistentSnapshot && baseThreadHandle.getPointInTimeQueryTimestamp() == -1) {
@@ -453,6 +454,9 @@ class RowBatcherImpl<T>  extends BatcherImpl implements RowBatcher<T> {
             } catch(Throwable e) {
                 throwable = e;
             }
+            publishRowsMetrics(
+                    (requestHost != null) ? requestHost.hostName : getPrimaryClient().getHost(),
+                    currentBatch, batchRetries, requestStart, threadHandle, rowsDoc, throwable);
 
             if (throwable != null) {
                 logger.debug("failed for batch: {}, retry: {}", currentBatch, batchRetries);
@@ -498,6 +502,20 @@ class RowBatcherImpl<T>  extends BatcherImpl implements RowBatcher<T> {
 
         return (requestEvent == null);
     }
+    private void publishRowsMetrics(String host, long currentBatch, int batchRetries, long requestStart,
+                                    ContentHandle<T> threadHandle, T rowsDoc, Throwable throwable) {
+        if (!isMeasuring()) return;
+        long bytesReceived = (rowsDoc != null && threadHandle instanceof BaseHandle) ?
+                ((BaseHandle) threadHandle).getByteLength() : -1;
+        publishMetrics(new RequestMetricsImpl(JobTicket.JobType.ROW_BATCHER)
+                .withHost(host)
+                .withJobBatchNumber(currentBatch)
+                .withRetry(batchRetries > 0)
+                .withDurationNanos(System.nanoTime() - requestStart)
+                .withBytesReceived(bytesReceived)
+                .withQueueDepth(threadPool.getQueue().size())
+                .withThrowable(throwable));
+    }
     private boolean shouldRequestBatch(RowBatchFailureEventImpl requestEvent, int batchRetries) {
         if (batchRetries == 0)        return true;  // first request
         if (requestEvent == null)     return false; // request succeeded
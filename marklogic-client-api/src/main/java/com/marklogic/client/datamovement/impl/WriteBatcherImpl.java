@@ -16,14 +16,19 @@
 package com.marklogic.client.datamovement.impl;
 
 import java.io.Closeable;
+import java.io.File;
 import java.util.*;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 
@@ -32,13 +37,23 @@ import org.slf4j.LoggerFactory;
 
 import com.marklogic.client.DatabaseClient;
 import com.marklogic.client.DatabaseClientFactory;
+import com.marklogic.client.FailedRetryException;
+import com.marklogic.client.MarkLogicIOException;
+import com.marklogic.client.MarkLogicServerException;
+import com.marklogic.client.document.ContentDescriptor;
 import com.marklogic.client.document.DocumentWriteOperation;
 import com.marklogic.client.document.ServerTransform;
 import com.marklogic.client.document.XMLDocumentManager;
 import com.marklogic.client.document.DocumentWriteOperation.OperationType;
+import com.marklogic.client.io.BaseHandle;
+import com.marklogic.client.io.BytesHandle;
 import com.marklogic.client.io.DocumentMetadataHandle;
+import com.marklogic.client.io.FileHandle;
 import com.marklogic.client.io.Format;
+import com.marklogic.client.io.StringHandle;
+import com.marklogic.client.impl.DatabaseClientImpl;
 import com.marklogic.client.impl.DocumentWriteOperationImpl;
+import com.marklogic.client.impl.RESTServices;
 import com.marklogic.client.impl.Utilities;
 import com.marklogic.client.io.marker.AbstractWriteHandle;
 import com.marklogic.client.io.marker.ContentHandle;
@@ -47,6 +62,7 @@ import com.marklogic.client.io.marker.DocumentMetadataWriteHandle;
 import com.marklogic.client.datamovement.DataMovementException;
 import com.marklogic.client.datamovement.DataMovementManager;
 import com.marklogic.client.datamovement.Forest;
+import com.marklogic.client.datamovement.ForestAssignmentPolicy;
 import com.marklogic.client.datamovement.ForestConfiguration;
 import com.marklogic.client.datamovement.JobTicket;
 import com.marklogic.client.datamovement.WriteBatch;
@@ -66,14 +82,22 @@ import com.marklogic.client.datamovement.WriteBatcher;
  *   - topology-aware by calling /v1/forestinfo
  *     - get list of hosts which have writeable forests
  *     - each write hits the next writeable host for round-robin network calls
+ *     - or, with a ForestAssignmentPolicy, each document is queued for the host
+ *       of its predicted forest and batches are written to that host
  *   - manage an internal threadPool of size threadCount for network calls
  *   - when batchSize reached, writes a batch
  *     - using a thread from threadPool
  *     - no synchronization or unnecessary delays while emptying queue
  *     - and calls each successListener
  *   - when a batch fails, calls each failureListener
+ *   - optionally, also writes a batch when the queued documents reach maxBatchBytes
+ *     - documents of maxBatchBytes or more are written in a batch by themselves
+ *   - optionally, limits the documents in flight (added but not yet written)
+ *     - add() blocks and tryAdd() waits with a timeout until batches finish
+ *     - the thread pool queue is unbounded so callers don't write batches
+ *   - optionally, adapts the batch size and thread count to the latency and
+ *     overload failures of the batches written so far (see AdaptiveController)
  *   - flush() writes all queued documents whether the last batch is full or not
- *     - and resets counter so the next batch will be a normal batch size
  *   - awaitCompletion allows the calling thread to block until all tasks queued to that point
  *     are finished writing batches
  *
@@ -89,14 +113,14 @@ import com.marklogic.client.datamovement.WriteBatcher;
  *         see the same state yet only one of the threads will perform the processing
  *         - do this by using AtomicLong.incrementAndGet() so each thread gets a different
  *           number, then trigger the logic with the thread that gets the correct number
- *         - for example, we decide to write a batch by
- *           timeToWriteBatch = (recordNum % getBatchSize()) == 0;
- *           - in other words, when we reach a recordNum which is a multiple of getBatchSize
- *           - only one thread will get the correct number and that thread will have
- *             timeToWriteBatch == true
- *           - we don't reset recordNum at each batch as that would introduce a race condition
- *           - however, when flush is called we want subsequent batches to start over, so
- *             in that case we reset recordNum to 0
+ *         - for example, we choose the host for the next batch by
+ *           batchNumber.incrementAndGet() % hostInfos.length
+ *     - when the queue holds a full batch (getCurrentBatchSize() docs or maxBatchBytes),
+ *       the thread that added the doc writes the batch
+ *       - the check is repeated while holding the lock on the queue, so only one thread
+ *         takes each full batch even if the adaptive controller changes the batch size
+ *       - the docs are taken from the queue while holding the lock, but the batch is
+ *         submitted after releasing it
  *     - use classes from java.util.concurrent and java.util.concurrent.atomic
  *       - so external threads don't block when calling add/addAs
  *       - so internal state doesn't get confused by race conditions
@@ -123,8 +147,7 @@ import com.marklogic.client.datamovement.WriteBatcher;
  *         and CompletableRejectedExecutionHandler
  *   - track
  *     - one queue of DocumentWriteOperation
- *     - batchCounter to decide if it's time to write a batch
- *       - flush resets this so after flush batch sizes will be normal
+ *       - plus one queue per host when a ForestAssignmentPolicy is set
  *     - batchNumber to decide which host to use next (round-robin)
  *     - initialized to ensure configuration doesn't change after add/addAs are called
  *     - threadPool of threadCount size for most calls to the server
@@ -134,6 +157,7 @@ import com.marklogic.client.datamovement.WriteBatcher;
  *       - client (contains http connection pool)
  *         - auth challenge once per client
  *       - number of batches
+ *       - queue for documents predicted for forests on the host
  *     - each task (Runnable) in the thread pool task queue
  *       - so we can know which tasks to monitor when awaitCompletion is called
  *       - we remove each task when it's complete
@@ -152,12 +176,24 @@ public class WriteBatcherImpl
   private List<WriteBatchListener> successListeners = new ArrayList<>();
   private List<WriteFailureListener> failureListeners = new ArrayList<>();
   private AtomicLong batchNumber = new AtomicLong(0);
-  private AtomicLong batchCounter = new AtomicLong(0);
   private AtomicLong itemsSoFar = new AtomicLong(0);
-  private HostInfo[] hostInfos;
+  private volatile HostInfo[] hostInfos;
   private boolean initialized = false;
   private CompletableThreadPoolExecutor threadPool = null;
   private DocumentMetadataHandle defaultMetadata;
+  private ForestAssignmentPolicy assignmentPolicy;
+  private Consumer<DocumentWriteOperation> handleRecycler;
+  private volatile Routing routing = new Routing(new Forest[0], Collections.emptyMap());
+  private int maxAdaptiveBatchSize = 0;
+  private int maxAdaptiveThreadCount = 0;
+  private AdaptiveController adaptiveController = null;
+  private long maxBatchBytes = 0;
+  private AtomicLong queuedBytes = new AtomicLong(0);
+  // the doc that would have put the last batch over maxBatchBytes, which starts the next batch
+  private volatile DocumentWriteOperation carryOver = null;
+  private int maxInFlightDocuments = 0;
+  private long maxInFlightBytes = 0;
+  private InFlightLimit inFlightLimit = null;
 
   public WriteBatcherImpl(DataMovementManager moveMgr, ForestConfiguration forestConfig) {
     super(moveMgr);
@@ -177,10 +213,34 @@ public class WriteBatcherImpl
         withThreadCount( hostInfos.length );
         logger.warn("threadCount should be 1 or greater--setting threadCount to number of hosts ({})", hostInfos.length);
       }
+      if ( maxInFlightDocuments > 0 && maxInFlightDocuments < getBatchSize() ) {
+        throw new IllegalStateException("maxInFlightDocuments (" + maxInFlightDocuments +
+          ") must be at least the batchSize (" + getBatchSize() + ")");
+      }
+      int maxThreadCount = getThreadCount();
+      if ( isAdaptiveBatching() ) {
+        int maxBatchSize = Math.max(getBatchSize(), maxAdaptiveBatchSize);
+        // a batch can't fill if it's larger than the documents allowed in flight
+        if ( maxInFlightDocuments > 0 ) maxBatchSize = Math.min(maxBatchSize, maxInFlightDocuments);
+        adaptiveController = new AdaptiveController(getBatchSize(), maxBatchSize,
+          getThreadCount(), Math.max(getThreadCount(), maxAdaptiveThreadCount));
+        maxThreadCount = adaptiveController.maxThreadCount;
+        logger.info("adapting batchSize up to {} and threadCount up to {}",
+          adaptiveController.maxBatchSize, adaptiveController.maxThreadCount);
+      }
       // create a thread pool where threads are kept alive for up to one minute of inactivity,
-      // max queue size is threadCount * 3, and callers run tasks past the max queue size
+      // max queue size is threadCount * 3 (for the largest adaptive threadCount), and callers
+      // run tasks past the max queue size
+      // unless the in-flight limits already bound the queued batches so callers never have to
+      // run tasks and add blocks instead
+      BlockingQueue<Runnable> taskQueue = new LinkedBlockingQueue<Runnable>(maxThreadCount * 3);
+      if ( maxInFlightDocuments > 0 || maxInFlightBytes > 0 ) {
+        inFlightLimit = new InFlightLimit(maxInFlightDocuments, maxInFlightBytes);
+        taskQueue = new LinkedBlockingQueue<Runnable>();
+        logger.info("maxInFlightDocuments={} maxInFlightBytes={}", maxInFlightDocuments, maxInFlightBytes);
+      }
       threadPool = new CompletableThreadPoolExecutor(getThreadCount(), getThreadCount(), 1, TimeUnit.MINUTES,
-        new LinkedBlockingQueue<Runnable>(getThreadCount() * 3));
+        taskQueue);
       threadPool.allowCoreThreadTimeOut(true);
 
       initialized = true;
@@ -205,35 +265,252 @@ public class WriteBatcherImpl
 
   @Override
   public WriteBatcher add(DocumentWriteOperation writeOperation) {
+    try {
+      addImpl(writeOperation, -1);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new DataMovementException("Interrupted while waiting to add uri " + writeOperation.getUri(), e);
+    }
+    return this;
+  }
+
+  @Override
+  public boolean tryAdd(String uri, DocumentMetadataWriteHandle metadataHandle, AbstractWriteHandle contentHandle,
+                        long timeout, TimeUnit unit) throws InterruptedException {
+    return tryAdd(new DocumentWriteOperationImpl(OperationType.DOCUMENT_WRITE, uri, metadataHandle, contentHandle),
+      timeout, unit);
+  }
+
+  @Override
+  public boolean tryAdd(DocumentWriteOperation writeOperation, long timeout, TimeUnit unit) throws InterruptedException {
+    if ( unit == null ) throw new IllegalArgumentException("unit must not be null");
+    return addImpl(writeOperation, Math.max(0, unit.toNanos(timeout)));
+  }
+
+  // queue the doc, first waiting up to timeoutNanos (or without a timeout
+  // if negative) for the in-flight docs to drop under the limits
+  private boolean addImpl(DocumentWriteOperation writeOperation, long timeoutNanos) throws InterruptedException {
     if ( writeOperation.getUri() == null ) throw new IllegalArgumentException("uri must not be null");
     if ( writeOperation.getContent() == null ) throw new IllegalArgumentException("contentHandle must not be null");
     initialize();
     requireNotStopped();
-    queue.add(writeOperation);
-    logger.trace("add uri={}", writeOperation.getUri());
-    // if we have queued batchSize, it's time to flush a batch
-    long recordNum = batchCounter.incrementAndGet();
-    boolean timeToWriteBatch = (recordNum % getBatchSize()) == 0;
-    if ( timeToWriteBatch ) {
-      BatchWriteSet writeSet = newBatchWriteSet();
-      int minBatchSize = 0;
-      if(defaultMetadata != null) {
-        writeSet.getWriteSet().add(new DocumentWriteOperationImpl(OperationType.METADATA_DEFAULT, null, defaultMetadata, null));
-        minBatchSize = 1;
-      }
-      for (int i=0; i < getBatchSize(); i++ ) {
-        DocumentWriteOperation doc = queue.poll();
-        if ( doc == null ) {
-          // strange, there should have been a full batch of docs in the queue...
-          break;
+    long byteLength = (maxBatchBytes > 0 || (inFlightLimit != null && inFlightLimit.maxBytes > 0)) ?
+      getByteLength(writeOperation) : ContentDescriptor.UNKNOWN_LENGTH;
+    HostInfo affinityHost = getAffinityHost(writeOperation.getUri());
+    if ( inFlightLimit != null && acquireInFlight(Math.max(0, byteLength), timeoutNanos) == false ) {
+      logger.trace("timed out waiting to add uri={}", writeOperation.getUri());
+      return false;
+    }
+    if ( maxBatchBytes > 0 && byteLength >= maxBatchBytes ) {
+      // a doc that fills a batch by itself is written alone instead of waiting in the queue
+      logger.trace("add uri={} in a batch by itself for {} bytes", writeOperation.getUri(), byteLength);
+      BatchWriteSet writeSet = newBatchWriteSetWithDefaults(affinityHost);
+      writeSet.getWriteSet().add(writeOperation);
+      submitBatch(writeSet);
+      return true;
+    }
+    if ( affinityHost != null ) {
+      affinityHost.queue.add(writeOperation);
+      logger.trace("add uri={} for host \"{}\"", writeOperation.getUri(), affinityHost.hostName);
+      if ( maxBatchBytes > 0 && byteLength > 0 ) affinityHost.queuedBytes.addAndGet(byteLength);
+      if ( affinityHost.retired == true ) {
+        // the forest config dropped the host after the lookup, so the doc
+        // (and any others left behind) moves to the round-robin queue
+        requeueRetiredHost(affinityHost);
+        affinityHost = null;
+      }
+    } else {
+      queue.add(writeOperation);
+      logger.trace("add uri={}", writeOperation.getUri());
+      if ( maxBatchBytes > 0 && byteLength > 0 ) queuedBytes.addAndGet(byteLength);
+    }
+    // if we have queued batchSize or maxBatchBytes (for the host), it's time to write a batch
+    writeFullBatches(affinityHost);
+    // a thread waiting for room might have checked for stalled batches before this doc was queued
+    if ( inFlightLimit != null && inFlightLimit.hasWaiters() ) writeStalledBatches();
+    return true;
+  }
+
+  // move the docs queued for a host that left the forest config to the round-robin queue
+  private void requeueRetiredHost(HostInfo host) {
+    List<DocumentWriteOperation> docs = new ArrayList<>();
+    drainQueued(host, docs);
+    queue.addAll(docs);
+    queuedBytes.addAndGet(host.queuedBytes.getAndSet(0));
+  }
+
+  // drain the queue in order, starting with any doc carried over from the last batch
+  private void drainQueued(HostInfo host, List<DocumentWriteOperation> docs) {
+    LinkedBlockingQueue<DocumentWriteOperation> source = (host != null) ? host.queue : queue;
+    synchronized ( source ) {
+      DocumentWriteOperation doc = takeCarryOver(host);
+      if ( doc != null ) docs.add(doc);
+      source.drainTo(docs);
+    }
+  }
+
+  // must hold the lock on the queue
+  private DocumentWriteOperation takeCarryOver(HostInfo host) {
+    DocumentWriteOperation doc;
+    if ( host != null ) {
+      doc = host.carryOver;
+      host.carryOver = null;
+    } else {
+      doc = carryOver;
+      carryOver = null;
+    }
+    return doc;
+  }
+
+  private int getQueuedCount(HostInfo host) {
+    Queue<DocumentWriteOperation> source = (host != null) ? host.queue : queue;
+    DocumentWriteOperation held = (host != null) ? host.carryOver : carryOver;
+    return source.size() + ((held != null) ? 1 : 0);
+  }
+
+  // wait for batches to release in-flight docs, which is signalled by the limit,
+  // checking for stalled batches whenever the limit changes without making room
+  private boolean acquireInFlight(long byteLength, long timeoutNanos) throws InterruptedException {
+    if ( inFlightLimit.acquire(byteLength, 0, 0) ) return true;
+    long deadline = System.nanoTime() + timeoutNanos;
+    // registering as a waiter before checking means that a doc queued after the
+    // check makes the thread that queued it check for stalled batches instead
+    inFlightLimit.addWaiter();
+    try {
+      while ( true ) {
+        requireNotStopped();
+        long releases = inFlightLimit.getReleases();
+        writeStalledBatches();
+        long waitNanos = (timeoutNanos < 0) ? Long.MAX_VALUE : deadline - System.nanoTime();
+        if ( inFlightLimit.acquire(byteLength, waitNanos, releases) ) return true;
+        if ( timeoutNanos >= 0 && deadline - System.nanoTime() <= 0 ) return false;
+      }
+    } finally {
+      inFlightLimit.removeWaiter();
+    }
+  }
+
+  // if every in-flight doc is still waiting for its batch to fill, no batch
+  // will finish to make room, so write the partial batches
+  private void writeStalledBatches() {
+    if ( inFlightLimit.getDocuments() > getQueuedCount() ) return;
+    logger.debug("writing partial batches to stay under the in-flight limits");
+    if ( getQueuedCount(null) > 0 ) writeQueuedBatch(null);
+    for ( HostInfo host : hostInfos ) {
+      if ( getQueuedCount(host) > 0 ) writeQueuedBatch(host);
+    }
+  }
+
+  private long getQueuedCount() {
+    long queuedCount = getQueuedCount(null);
+    for ( HostInfo host : hostInfos ) {
+      queuedCount += getQueuedCount(host);
+    }
+    return queuedCount;
+  }
+
+  // submit the batch to the thread pool, releasing its docs from the in-flight
+  // limits after the batch finishes
+  private void submitBatch(BatchWriteSet writeSet) {
+    InFlightLimit limit = inFlightLimit;
+    if ( limit != null ) {
+      int documents = 0;
+      long bytes = 0;
+      for ( DocumentWriteOperation doc : writeSet.getWriteSet() ) {
+        if ( doc.getOperationType() == OperationType.METADATA_DEFAULT ) continue;
+        documents++;
+        if ( limit.maxBytes > 0 ) bytes += Math.max(0, getByteLength(doc));
+      }
+      int batchDocuments = documents;
+      long batchBytes = bytes;
+      writeSet.onComplete( () -> limit.release(batchDocuments, batchBytes) );
+    }
+    threadPool.submit( new BatchWriter(writeSet, threadPool) );
+  }
+
+  // write a batch of the queued docs even if the batch isn't full
+  private void writeQueuedBatch(HostInfo host) {
+    if ( host != null && host.retired == true ) {
+      requeueRetiredHost(host);
+      host = null;
+    }
+    BatchWriteSet writeSet = takeQueuedBatch(host);
+    if ( writeSet != null ) {
+      submitBatch(writeSet);
+    }
+  }
+
+  // write each full batch in the queue, which could be more than one batch
+  // if the adaptive controller shrank the batch size
+  private void writeFullBatches(HostInfo host) {
+    Queue<DocumentWriteOperation> source = (host != null) ? host.queue : queue;
+    if ( hasFullBatch(host) == false ) return;
+    List<BatchWriteSet> writeSets = new ArrayList<>();
+    synchronized ( source ) {
+      while ( hasFullBatch(host) ) {
+        BatchWriteSet writeSet = takeQueuedBatch(host);
+        if ( writeSet == null ) break;
+        writeSets.add(writeSet);
+      }
+    }
+    for ( BatchWriteSet writeSet : writeSets ) {
+      submitBatch(writeSet);
+    }
+  }
+
+  private boolean hasFullBatch(HostInfo host) {
+    int queuedCount = getQueuedCount(host);
+    if ( queuedCount == 0 ) return false;
+    AtomicLong bytes = (host != null) ? host.queuedBytes : queuedBytes;
+    return queuedCount >= getCurrentBatchSize() || (maxBatchBytes > 0 && bytes.get() >= maxBatchBytes);
+  }
+
+  // take up to a batch of docs from the queue or return null if the queue is empty
+  private BatchWriteSet takeQueuedBatch(HostInfo host) {
+    Queue<DocumentWriteOperation> source = (host != null) ? host.queue : queue;
+    AtomicLong bytes = (host != null) ? host.queuedBytes : queuedBytes;
+    synchronized ( source ) {
+      DocumentWriteOperation first = takeCarryOver(host);
+      if ( first == null ) first = source.poll();
+      // check before creating the batch so an empty queue doesn't use up a batch number
+      if ( first == null ) return null;
+      BatchWriteSet writeSet = newBatchWriteSetWithDefaults(host);
+      long batchBytes = 0;
+      int batchSize = getCurrentBatchSize();
+      for (int i=0; i < batchSize; i++ ) {
+        DocumentWriteOperation doc = (i == 0) ? first : source.poll();
+        if ( doc == null ) break;
+        if ( maxBatchBytes > 0 ) {
+          long byteLength = Math.max(0, getByteLength(doc));
+          if ( batchBytes > 0 && batchBytes + byteLength > maxBatchBytes ) {
+            // this doc would put the batch over maxBatchBytes, so it starts the next batch
+            // (instead of going to the back of the queue behind later docs)
+            if ( host != null ) {
+              host.carryOver = doc;
+            } else {
+              carryOver = doc;
+            }
+            break;
+          }
+          bytes.addAndGet(-byteLength);
+          batchBytes += byteLength;
         }
         writeSet.getWriteSet().add(doc);
       }
-      if ( writeSet.getWriteSet().size() > minBatchSize ) {
-        threadPool.submit( new BatchWriter(writeSet) );
-      }
+      return writeSet;
     }
-    return this;
+  }
+
+  // the host for the forest predicted by the assignment policy or null
+  // if the document should be batched in round-robin order
+  private HostInfo getAffinityHost(String uri) {
+    ForestAssignmentPolicy policy = assignmentPolicy;
+    if ( policy == null ) return null;
+    Routing current = routing;
+    if ( current.forests.length == 0 ) return null;
+    Forest forest = policy.assignForest(uri, current.forests);
+    if ( forest == null ) return null;
+    return current.forestHosts.get(forest.getForestId());
   }
 
   @Override
@@ -290,20 +567,93 @@ public class WriteBatcherImpl
 
   private BatchWriteSet newBatchWriteSet(long batchNum) {
     int hostToUse = (int) (batchNum % hostInfos.length);
-    HostInfo host = hostInfos[hostToUse];
+    return newBatchWriteSet(batchNum, hostInfos[hostToUse]);
+  }
+
+  // a batch for the host (or the next host if null) that starts with any default metadata
+  private BatchWriteSet newBatchWriteSetWithDefaults(HostInfo host) {
+    BatchWriteSet writeSet = (host == null) ?
+      newBatchWriteSet() : newBatchWriteSet(batchNumber.incrementAndGet(), host);
+    if(defaultMetadata != null) {
+      writeSet.getWriteSet().add(new DocumentWriteOperationImpl(OperationType.METADATA_DEFAULT, null, defaultMetadata, null));
+    }
+    return writeSet;
+  }
+
+  private BatchWriteSet newBatchWriteSet(long batchNum, HostInfo host) {
     DatabaseClient hostClient = host.client;
     BatchWriteSet batchWriteSet = new BatchWriteSet(this, hostClient.newDocumentManager().newWriteSet(),
       hostClient, getTransform(), getTemporalCollection());
     batchWriteSet.setBatchNumber(batchNum);
     batchWriteSet.onSuccess( () -> {
+      adaptToBatch(batchWriteSet, null);
+      publishBatchMetrics(batchWriteSet, null);
       sendSuccessToListeners(batchWriteSet);
+      recycleHandles(batchWriteSet);
     });
     batchWriteSet.onFailure( (throwable) -> {
+      adaptToBatch(batchWriteSet, throwable);
+      publishBatchMetrics(batchWriteSet, throwable);
       sendThrowableToListeners(throwable, "Error writing batch: {}", batchWriteSet);
     });
     return batchWriteSet;
   }
 
+  private void publishBatchMetrics(BatchWriteSet batchWriteSet, Throwable throwable) {
+    if ( isMeasuring() == false ) return;
+    long items = 0;
+    long bytes = 0;
+    for ( DocumentWriteOperation doc : batchWriteSet.getWriteSet() ) {
+      if ( doc.getOperationType() != OperationType.DOCUMENT_WRITE ) continue;
+      items++;
+      long byteLength = getByteLength(doc);
+      bytes = (bytes < 0 || byteLength < 0) ? -1 : bytes + byteLength;
+    }
+    CompletableThreadPoolExecutor pool = threadPool;
+    publishMetrics(new RequestMetricsImpl(JobTicket.JobType.WRITE_BATCHER)
+      .withHost(batchWriteSet.getClient().getHost())
+      .withJobBatchNumber(batchWriteSet.getBatchNumber())
+      .withRetry(batchWriteSet.isRetry())
+      .withDurationNanos(batchWriteSet.getWriteDuration())
+      .withItemCount(items)
+      .withBytesSent(bytes)
+      .withQueueDepth((pool == null) ? 0 : pool.getQueue().size())
+      .withThrowable(throwable));
+  }
+
+  // after the listeners are done with the batch, the handles can be reused
+  private void recycleHandles(BatchWriteSet batchWriteSet) {
+    Consumer<DocumentWriteOperation> recycler = handleRecycler;
+    if ( recycler == null ) return;
+    for ( DocumentWriteOperation doc : batchWriteSet.getWriteSet() ) {
+      if ( doc.getOperationType() != OperationType.DOCUMENT_WRITE ) continue;
+      try {
+        recycler.accept(doc);
+      } catch (Throwable t) {
+        logger.error("Exception thrown by handle recycler for uri={}", doc.getUri(), t);
+      }
+    }
+  }
+
+  private void adaptToBatch(BatchWriteSet batchWriteSet, Throwable throwable) {
+    AdaptiveController controller = adaptiveController;
+    if ( controller == null ) return;
+    boolean adjusted = (throwable == null) ?
+      controller.batchSucceeded(batchWriteSet.getWriteSet().size(), batchWriteSet.getWriteDuration()) :
+      controller.batchFailed(throwable);
+    if ( adjusted == false ) return;
+    int threadCount = controller.getThreadCount();
+    // the core size can't exceed the maximum size, so change them in the order that keeps that true
+    if ( threadCount < threadPool.getMaximumPoolSize() ) {
+      threadPool.setCorePoolSize(threadCount);
+      threadPool.setMaximumPoolSize(threadCount);
+    } else if ( threadCount > threadPool.getMaximumPoolSize() ) {
+      threadPool.setMaximumPoolSize(threadCount);
+      threadPool.setCorePoolSize(threadCount);
+    }
+    logger.info("adapted batchSize={} threadCount={}", controller.getBatchSize(), threadCount);
+  }
+
   @Override
   public WriteBatcher onBatchSuccess(WriteBatchListener listener) {
     if ( listener == null ) throw new IllegalArgumentException("listener must not be null");
@@ -334,6 +684,7 @@ public class WriteBatcherImpl
     }
     if ( batch == null ) throw new IllegalArgumentException("batch must not be null");
     BatchWriteSet writeSet = newBatchWriteSet(batch.getJobBatchNumber());
+    writeSet.setRetry(true);
     if ( !callFailListeners ) {
       writeSet.onFailure(throwable -> {
         if ( throwable instanceof RuntimeException )
@@ -395,29 +746,103 @@ public class WriteBatcherImpl
     requireNotStopped();
     // drain any docs left in the queue
     List<DocumentWriteOperation> docs = new ArrayList<>();
-    batchCounter.set(0);
-    queue.drainTo(docs);
+    drainQueued(null, docs);
+    if ( maxBatchBytes > 0 ) queuedBytes.addAndGet(-getByteLength(docs));
     logger.info("flushing {} queued docs", docs.size());
-    Iterator<DocumentWriteOperation> iter = docs.iterator();
-    for ( int i=0; iter.hasNext(); i++ ) {
+    boolean flushed = flushDocs(docs, null);
+    // drain any docs left in the queues for the hosts of predicted forests
+    HostInfo[] hosts = hostInfos;
+    for ( int i=0; flushed == true && i < hosts.length; i++ ) {
+      HostInfo host = hosts[i];
+      List<DocumentWriteOperation> hostDocs = new ArrayList<>();
+      drainQueued(host, hostDocs);
+      if ( hostDocs.size() == 0 ) continue;
+      if ( maxBatchBytes > 0 ) host.queuedBytes.addAndGet(-getByteLength(hostDocs));
+      logger.info("flushing {} queued docs for host \"{}\"", hostDocs.size(), host.hostName);
+      flushed = flushDocs(hostDocs, host);
+    }
+
+    if ( waitForCompletion == true ) awaitCompletion();
+  }
+
+  // write the docs in batches to the host or, if the host is null, to the
+  // hosts in round-robin order, returning false if the job was stopped
+  private boolean flushDocs(List<DocumentWriteOperation> docs, HostInfo host) {
+    int i=0;
+    while ( i < docs.size() ) {
       if ( isStopped() == true ) {
         logger.warn("Job is now stopped, preventing the flush of {} queued docs", docs.size() - i);
-        if ( waitForCompletion == true ) awaitCompletion();
-        return;
+        return false;
       }
-      BatchWriteSet writeSet = newBatchWriteSet();
-      if(defaultMetadata != null) {
-          writeSet.getWriteSet().add(new DocumentWriteOperationImpl(OperationType.METADATA_DEFAULT, null, defaultMetadata, null));
+      BatchWriteSet writeSet = newBatchWriteSetWithDefaults(host);
+      long batchBytes = 0;
+      int batchSize = getCurrentBatchSize();
+      for ( int j=0; j < batchSize && i < docs.size(); j++, i++ ) {
+        DocumentWriteOperation doc = docs.get(i);
+        if ( maxBatchBytes > 0 ) {
+          long byteLength = Math.max(0, getByteLength(doc));
+          // end the batch before this doc would put it over maxBatchBytes
+          if ( j > 0 && batchBytes + byteLength > maxBatchBytes ) break;
+          batchBytes += byteLength;
         }
-      int j=0;
-      for ( ; j < getBatchSize() && iter.hasNext(); j++ ) {
-        DocumentWriteOperation doc = iter.next();
         writeSet.getWriteSet().add(doc);
       }
-      threadPool.submit( new BatchWriter(writeSet) );
+      submitBatch(writeSet);
     }
+    return true;
+  }
 
-    if ( waitForCompletion == true ) awaitCompletion();
+  private static long getByteLength(List<DocumentWriteOperation> docs) {
+    long total = 0;
+    for ( DocumentWriteOperation doc : docs ) {
+      total += Math.max(0, getByteLength(doc));
+    }
+    return total;
+  }
+
+  /**
+   * Gets the length of the content of a document for handles that
+   * know the length without sending the content, which includes
+   * BytesHandle, StringHandle, FileHandle, and handles with a byte
+   * length from reading the content from the server.
+   * @param doc	the document
+   * @return	the length in bytes or ContentDescriptor.UNKNOWN_LENGTH
+   */
+  static long getByteLength(DocumentWriteOperation doc) {
+    AbstractWriteHandle handle = doc.getContent();
+    if ( handle instanceof BytesHandle ) {
+      byte[] content = ((BytesHandle) handle).get();
+      return (content == null) ? 0 : content.length;
+    } else if ( handle instanceof StringHandle ) {
+      return getUTF8Length(((StringHandle) handle).get());
+    } else if ( handle instanceof FileHandle ) {
+      File content = ((FileHandle) handle).get();
+      return (content == null) ? 0 : content.length();
+    } else if ( handle instanceof BaseHandle ) {
+      return ((BaseHandle<?,?>) handle).getByteLength();
+    }
+    return ContentDescriptor.UNKNOWN_LENGTH;
+  }
+
+  // count the UTF-8 bytes without encoding the string
+  private static long getUTF8Length(String content) {
+    if ( content == null ) return 0;
+    long length = 0;
+    int charCount = content.length();
+    for ( int i=0; i < charCount; i++ ) {
+      char c = content.charAt(i);
+      if ( c < 0x80 ) {
+        length++;
+      } else if ( c < 0x800 ) {
+        length += 2;
+      } else if ( Character.isHighSurrogate(c) && i + 1 < charCount && Character.isLowSurrogate(content.charAt(i + 1)) ) {
+        length += 4;
+        i++;
+      } else {
+        length += 3;
+      }
+    }
+    return length;
   }
 
   private void sendSuccessToListeners(BatchWriteSet batchWriteSet) {
@@ -456,6 +881,8 @@ public class WriteBatcherImpl
     super.setJobEndTime();
     super.getStopped().set(true);
     if ( threadPool != null ) threadPool.shutdownNow();
+    // wake any threads waiting to add docs since unstarted batches won't release them
+    if ( inFlightLimit != null ) inFlightLimit.cancel();
     closeAllListeners();
   }
 
@@ -547,6 +974,94 @@ public class WriteBatcherImpl
     return this;
   }
 
+  @Override
+  public WriteBatcher withMaxInFlight(int maxDocuments, long maxBytes) {
+    requireNotInitialized();
+    if ( maxDocuments < 0 ) {
+      throw new IllegalArgumentException("maxDocuments must be 0 or greater");
+    }
+    if ( maxBytes < 0 ) {
+      throw new IllegalArgumentException("maxBytes must be 0 or greater");
+    }
+    this.maxInFlightDocuments = maxDocuments;
+    this.maxInFlightBytes = maxBytes;
+    return this;
+  }
+
+  @Override
+  public int getMaxInFlightDocuments() {
+    return maxInFlightDocuments;
+  }
+
+  @Override
+  public long getMaxInFlightBytes() {
+    return maxInFlightBytes;
+  }
+
+  @Override
+  public WriteBatcher withMaxBatchBytes(long maxBatchBytes) {
+    requireNotInitialized();
+    if ( maxBatchBytes < 0 ) {
+      throw new IllegalArgumentException("maxBatchBytes must be 0 or greater");
+    }
+    this.maxBatchBytes = maxBatchBytes;
+    return this;
+  }
+
+  @Override
+  public long getMaxBatchBytes() {
+    return maxBatchBytes;
+  }
+
+  @Override
+  public WriteBatcher withAdaptiveBatching(int maxBatchSize, int maxThreadCount) {
+    requireNotInitialized();
+    if ( maxBatchSize <= 0 ) {
+      throw new IllegalArgumentException("maxBatchSize must be 1 or greater");
+    }
+    if ( maxThreadCount <= 0 ) {
+      throw new IllegalArgumentException("maxThreadCount must be 1 or greater");
+    }
+    this.maxAdaptiveBatchSize = maxBatchSize;
+    this.maxAdaptiveThreadCount = maxThreadCount;
+    return this;
+  }
+
+  @Override
+  public boolean isAdaptiveBatching() {
+    return maxAdaptiveBatchSize > 0;
+  }
+
+  /**
+   * The number of documents in the next batch, which is the batchSize
+   * unless adapted by adaptive batching.
+   * @return the current batch size
+   */
+  public int getCurrentBatchSize() {
+    AdaptiveController controller = adaptiveController;
+    return (controller == null) ? getBatchSize() : controller.getBatchSize();
+  }
+
+  /**
+   * The number of threads writing batches, which is the threadCount
+   * unless adapted by adaptive batching.
+   * @return the current thread count
+   */
+  public int getCurrentThreadCount() {
+    AdaptiveController controller = adaptiveController;
+    return (controller == null) ? getThreadCount() : controller.getThreadCount();
+  }
+
+  /**
+   * The number of times adaptive batching has changed the batch size
+   * or thread count.
+   * @return the number of adjustments
+   */
+  public long getAdjustmentsCount() {
+    AdaptiveController controller = adaptiveController;
+    return (controller == null) ? 0 : controller.getAdjustmentsCount();
+  }
+
   @Override
   public WriteBatcher withTemporalCollection(String collection) {
     requireNotInitialized();
@@ -605,10 +1120,34 @@ public class WriteBatcherImpl
       }
       i++;
     }
+    // map each updateable forest to the host for its batches
+    List<Forest> newAssignableForests = new ArrayList<>();
+    Map<String,HostInfo> newForestHosts = new HashMap<>();
+    Map<String,HostInfo> newHostsByName = new HashMap<>();
+    for ( HostInfo hostInfo : newHostInfos ) {
+      newHostsByName.put(hostInfo.hostName, hostInfo);
+    }
+    for ( Forest forest : forests ) {
+      if ( forest.isUpdateable() == false ) continue;
+      newAssignableForests.add(forest);
+      HostInfo hostInfo = newHostsByName.get(forest.getPreferredHost());
+      if ( hostInfo != null ) newForestHosts.put(forest.getForestId(), hostInfo);
+    }
     this.forestConfig = forestConfig;
     this.hostInfos = newHostInfos;
+    // publish the forests and their hosts together so add() never sees a mismatched pair
+    this.routing = new Routing(
+      newAssignableForests.toArray(new Forest[newAssignableForests.size()]),
+      Collections.unmodifiableMap(newForestHosts)
+    );
 
     if ( removedHostInfos.size() > 0 ) {
+      // requeue any docs predicted for a removed host so they're batched in round-robin order;
+      // an add() that queues for the host after it's retired requeues its doc itself
+      for ( HostInfo removedHostInfo : removedHostInfos.values() ) {
+        removedHostInfo.retired = true;
+        requeueRetiredHost(removedHostInfo);
+      }
       DataMovementManagerImpl moveMgrImpl = getMoveMgr();
       String primaryHost = moveMgrImpl.getPrimaryClient().getHost();
       if ( removedHostInfos.containsKey(primaryHost) ) {
@@ -625,6 +1164,7 @@ public class WriteBatcherImpl
             // this batch was targeting a host that's no longer on the list
             // if we re-add these docs they'll now be in batches that target acceptable hosts
             BatchWriteSet writeSet = newBatchWriteSet(writerTask.writeSet.getBatchNumber());
+            writeSet.setRetry(true);
             writeSet.onFailure(throwable -> {
               if ( throwable instanceof RuntimeException ) throw (RuntimeException) throwable;
               else throw new DataMovementException("Failed to retry batch after failover", throwable);
@@ -632,7 +1172,9 @@ public class WriteBatcherImpl
             for ( WriteEvent doc : writerTask.writeSet.getBatchOfWriteEvents().getItems() ) {
               writeSet.getWriteSet().add(doc.getTargetUri(), doc.getMetadata(), doc.getContent());
             }
-            BatchWriter retryWriterTask = new BatchWriter(writeSet);
+            // the retried batch releases the docs from the in-flight limits instead
+            writeSet.onComplete(writerTask.writeSet.getOnComplete());
+            BatchWriter retryWriterTask = new BatchWriter(writeSet, threadPool);
             Runnable fretryWriterTask = (Runnable) threadPool.submit(retryWriterTask);
             threadPool.replaceTask(writerTask, fretryWriterTask);
             // jump to the next task
@@ -652,42 +1194,153 @@ public class WriteBatcherImpl
     return forestConfig;
   }
 
+  @Override
+  public WriteBatcher withForestAssignmentPolicy(ForestAssignmentPolicy policy) {
+    requireNotInitialized();
+    this.assignmentPolicy = policy;
+    return this;
+  }
+
+  @Override
+  public ForestAssignmentPolicy getForestAssignmentPolicy() {
+    return assignmentPolicy;
+  }
+
+  @Override
+  public WriteBatcher withHandleRecycler(Consumer<DocumentWriteOperation> recycler) {
+    requireNotInitialized();
+    this.handleRecycler = recycler;
+    return this;
+  }
+
+  @Override
+  public Consumer<DocumentWriteOperation> getHandleRecycler() {
+    return handleRecycler;
+  }
+
   public static class HostInfo {
     public String hostName;
     public DatabaseClient client;
+    // docs for the forests on this host when batching with a ForestAssignmentPolicy
+    LinkedBlockingQueue<DocumentWriteOperation> queue = new LinkedBlockingQueue<>();
+    AtomicLong queuedBytes = new AtomicLong(0);
+    volatile DocumentWriteOperation carryOver = null;
+    // set when the host leaves the forest config so docs are no longer queued for it
+    volatile boolean retired = false;
+  }
+
+  // the updateable forests and the host for the batches of each forest
+  private static class Routing {
+    final Forest[] forests;
+    final Map<String,HostInfo> forestHosts;
+    Routing(Forest[] forests, Map<String,HostInfo> forestHosts) {
+      this.forests = forests;
+      this.forestHosts = forestHosts;
+    }
   }
 
   public static class BatchWriter implements Runnable {
     private BatchWriteSet writeSet;
+    private CompletableThreadPoolExecutor threadPool;
 
     public BatchWriter(BatchWriteSet writeSet) {
+      this(writeSet, null);
+    }
+
+    // a batch run by a thread of the pool frees the thread while waiting
+    // to retry and finishes on another thread of the pool after the retry
+    public BatchWriter(BatchWriteSet writeSet, CompletableThreadPoolExecutor threadPool) {
       if ( writeSet.getWriteSet().size() == 0 ) {
         throw new IllegalStateException("Attempt to write an empty batch");
       }
       this.writeSet = writeSet;
+      this.threadPool = threadPool;
     }
 
     @Override
     public void run() {
+      Runnable taskCompletion = (threadPool != null) ? threadPool.deferCompletion() : null;
+      long startTime = 0;
+      boolean isWriting = false;
+      CompletableFuture<Void> write;
       try {
         Runnable onBeforeWrite = writeSet.getOnBeforeWrite();
         if ( onBeforeWrite != null ) {
           onBeforeWrite.run();
         }
         logger.trace("begin write batch {} to forest on host \"{}\"", writeSet.getBatchNumber(), writeSet.getClient().getHost());
-        if ( writeSet.getTemporalCollection() == null ) {
-          writeSet.getClient().newDocumentManager().write(
-                  writeSet.getWriteSet(), writeSet.getTransform(), null
-          );
+        startTime = System.nanoTime();
+        isWriting = true;
+        write = (taskCompletion != null) ? writeWithAsyncRetry() : write();
+      } catch (Throwable t) {
+        write = new CompletableFuture<>();
+        write.completeExceptionally(t);
+      }
+      if ( write.isDone() ) {
+        // time the failed write but not a failure before it
+        long writeDuration = isWriting ? System.nanoTime() - startTime : -1;
+        finish(write, writeDuration);
+        if ( taskCompletion != null ) {
+          taskCompletion.run();
+        }
+        return;
+      }
+      long writeStart = startTime;
+      CompletableFuture<Void> retriedWrite = write;
+      retriedWrite.whenComplete((result, throwable) -> {
+        long writeDuration = System.nanoTime() - writeStart;
+        Runnable finisher = () -> {
+          try {
+            finish(retriedWrite, writeDuration);
+          } finally {
+            taskCompletion.run();
+          }
+        };
+        // the listeners shouldn't run on the thread that timed the retry
+        if ( threadPool.isShutdown() ) {
+          finisher.run();
         } else {
-          // to get access to the TemporalDocumentManager write overload we need to instantiate
-          // a JSONDocumentManager or XMLDocumentManager, but we don't want to make assumptions about content
-          // format, so we'll set the default content format to unknown
-          XMLDocumentManager docMgr = writeSet.getClient().newXMLDocumentManager();
-          docMgr.setContentFormat(Format.UNKNOWN);
-          docMgr.write(
-                  writeSet.getWriteSet(), writeSet.getTransform(), null, writeSet.getTemporalCollection()
-          );
+          threadPool.submit(finisher);
+        }
+      });
+    }
+
+    private CompletableFuture<Void> write() {
+      if ( writeSet.getTemporalCollection() == null ) {
+        writeSet.getClient().newDocumentManager().write(
+                writeSet.getWriteSet(), writeSet.getTransform(), null
+        );
+      } else {
+        // to get access to the TemporalDocumentManager write overload we need to instantiate
+        // a JSONDocumentManager or XMLDocumentManager, but we don't want to make assumptions about content
+        // format, so we'll set the default content format to unknown
+        XMLDocumentManager docMgr = writeSet.getClient().newXMLDocumentManager();
+        docMgr.setContentFormat(Format.UNKNOWN);
+        docMgr.write(
+                writeSet.getWriteSet(), writeSet.getTransform(), null, writeSet.getTemporalCollection()
+        );
+      }
+      return CompletableFuture.completedFuture(null);
+    }
+
+    // the same write as write() but without waiting while the server is unavailable
+    private CompletableFuture<Void> writeWithAsyncRetry() {
+      RESTServices services = ((DatabaseClientImpl) writeSet.getClient()).getServices();
+      return services.postBulkDocumentsWithAsyncRetry(
+              null, writeSet.getWriteSet(), writeSet.getTransform(), Format.UNKNOWN,
+              writeSet.getTemporalCollection(), ""
+      );
+    }
+
+    private void finish(CompletableFuture<Void> write, long writeDuration) {
+      if ( writeDuration >= 0 ) {
+        writeSet.setWriteDuration(writeDuration);
+      }
+      try {
+        try {
+          write.join();
+        } catch (CompletionException e) {
+          throw e.getCause();
         }
         closeAllHandles();
         Runnable onSuccess = writeSet.getOnSuccess();
@@ -700,6 +1353,11 @@ public class WriteBatcherImpl
         if ( onFailure != null ) {
           onFailure.accept(t);
         }
+      } finally {
+        Runnable onComplete = writeSet.getOnComplete();
+        if ( onComplete != null ) {
+          onComplete.run();
+        }
       }
     }
 
@@ -722,6 +1380,273 @@ public class WriteBatcherImpl
     }
   }
 
+  /**
+   * Limits the documents that have been added but not yet written (or
+   * failed).  Threads adding documents wait on the condition for batches
+   * to finish and release their documents.  The count of releases lets a
+   * thread that checked the state before waiting detect a release that
+   * happened in between.  A document larger than maxBytes is admitted when
+   * nothing else is in flight so it can't wait forever.
+   */
+  public static class InFlightLimit {
+    final int maxDocuments;
+    final long maxBytes;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private int documents = 0;
+    private long bytes = 0;
+    private long releases = 0;
+    private int waiters = 0;
+    private boolean cancelled = false;
+
+    public InFlightLimit(int maxDocuments, long maxBytes) {
+      this.maxDocuments = maxDocuments;
+      this.maxBytes = maxBytes;
+    }
+
+    public int getDocuments() {
+      lock.lock();
+      try {
+        return documents;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    public long getReleases() {
+      lock.lock();
+      try {
+        return releases;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    public boolean hasWaiters() {
+      lock.lock();
+      try {
+        return waiters > 0;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    public void addWaiter() {
+      lock.lock();
+      try {
+        waiters++;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    public void removeWaiter() {
+      lock.lock();
+      try {
+        waiters--;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    /**
+     * Admits a document if there's room.  Otherwise, unless a release has
+     * happened since the count of releases was read, waits up to waitNanos
+     * for the next release and checks for room once more.
+     * @return false if there wasn't room
+     */
+    public boolean acquire(long byteLength, long waitNanos, long releasesSeen) throws InterruptedException {
+      lock.lockInterruptibly();
+      try {
+        if ( hasRoom(byteLength) == false ) {
+          if ( cancelled == true ) throw new IllegalStateException("This instance has been stopped");
+          if ( waitNanos <= 0 ) return false;
+          if ( releases == releasesSeen ) released.awaitNanos(waitNanos);
+          if ( cancelled == true ) throw new IllegalStateException("This instance has been stopped");
+          if ( hasRoom(byteLength) == false ) return false;
+        }
+        documents++;
+        bytes += byteLength;
+        return true;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    private boolean hasRoom(long byteLength) {
+      if ( maxDocuments > 0 && documents >= maxDocuments ) return false;
+      if ( maxBytes > 0 && bytes > 0 && bytes + byteLength > maxBytes ) return false;
+      return true;
+    }
+
+    public void release(int releasedDocuments, long releasedBytes) {
+      lock.lock();
+      try {
+        documents = Math.max(0, documents - releasedDocuments);
+        bytes = Math.max(0, bytes - releasedBytes);
+        releases++;
+        released.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    public void cancel() {
+      lock.lock();
+      try {
+        cancelled = true;
+        released.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Adapts the batch size and thread count with additive increase and
+   * multiplicative decrease (AIMD) in the same way as TCP congestion control.
+   *
+   * The controller tracks an exponentially weighted moving average of the
+   * time to write each document and remembers the best average since the
+   * last decrease.
+   * The controller decides once per round of batches (one batch per thread)
+   * because batches that were already in flight report on the old settings.
+   * If a batch in the round failed because the server is overloaded (a 5xx
+   * status, exhausted retries, or an I/O failure such as a timeout) or the
+   * average time per document has reached twice the best average, the
+   * controller halves both the batch size and the thread count.  Otherwise,
+   * the controller adds a thread or, once at the maximum thread count, adds
+   * a step to the batch size.  The methods are synchronized because the
+   * decisions depend on several fields together.
+   */
+  public static class AdaptiveController {
+    // weight of the latest batch in the moving average
+    private static final double SMOOTHING = 0.2;
+    // ratio of the moving average to the best average that signals congestion
+    private static final double CONGESTION_RATIO = 2.0;
+
+    final int maxBatchSize;
+    final int maxThreadCount;
+    private final int batchSizeStep;
+    private volatile int batchSize;
+    private volatile int threadCount;
+    private double averageNanosPerDoc = 0;
+    private double bestNanosPerDoc = 0;
+    private int batchesSinceAdjustment = 0;
+    private boolean overloadedSinceAdjustment = false;
+    private final AtomicLong adjustmentsCount = new AtomicLong(0);
+
+    public AdaptiveController(int batchSize, int maxBatchSize, int threadCount, int maxThreadCount) {
+      this.maxBatchSize = maxBatchSize;
+      this.maxThreadCount = maxThreadCount;
+      this.batchSize = batchSize;
+      this.threadCount = threadCount;
+      this.batchSizeStep = Math.max(1, batchSize / 10);
+    }
+
+    public int getBatchSize() {
+      return batchSize;
+    }
+
+    public int getThreadCount() {
+      return threadCount;
+    }
+
+    public long getAdjustmentsCount() {
+      return adjustmentsCount.get();
+    }
+
+    /**
+     * Records a successful batch.
+     * @return true if the batch size or thread count changed
+     */
+    public synchronized boolean batchSucceeded(int docCount, long writeNanos) {
+      if ( docCount > 0 && writeNanos > 0 ) {
+        double nanosPerDoc = ((double) writeNanos) / docCount;
+        averageNanosPerDoc = (averageNanosPerDoc == 0) ?
+          nanosPerDoc : (SMOOTHING * nanosPerDoc) + ((1 - SMOOTHING) * averageNanosPerDoc);
+        if ( bestNanosPerDoc == 0 || averageNanosPerDoc < bestNanosPerDoc ) {
+          bestNanosPerDoc = averageNanosPerDoc;
+        }
+      }
+      return decide();
+    }
+
+    /**
+     * Records a failed batch.
+     * @return true if the batch size or thread count changed
+     */
+    public synchronized boolean batchFailed(Throwable throwable) {
+      if ( isOverloaded(throwable) ) {
+        overloadedSinceAdjustment = true;
+      }
+      return decide();
+    }
+
+    // decide once per round of batches whether to back off or to grow
+    private boolean decide() {
+      batchesSinceAdjustment++;
+      if ( batchesSinceAdjustment < threadCount ) return false;
+      if ( overloadedSinceAdjustment == true ||
+           (averageNanosPerDoc > 0 && averageNanosPerDoc >= CONGESTION_RATIO * bestNanosPerDoc) ) {
+        if ( decrease() == true ) return true;
+        // already at the minimum, so start a new round
+        batchesSinceAdjustment = 0;
+        overloadedSinceAdjustment = false;
+        return false;
+      }
+      return increase();
+    }
+
+    private boolean increase() {
+      if ( threadCount < maxThreadCount ) {
+        threadCount++;
+      } else if ( batchSize < maxBatchSize ) {
+        batchSize = Math.min(maxBatchSize, batchSize + batchSizeStep);
+      } else {
+        return false;
+      }
+      return adjusted();
+    }
+
+    private boolean decrease() {
+      int newBatchSize = Math.max(1, batchSize / 2);
+      int newThreadCount = Math.max(1, threadCount / 2);
+      if ( newBatchSize == batchSize && newThreadCount == threadCount ) return false;
+      batchSize = newBatchSize;
+      threadCount = newThreadCount;
+      // after backing off, the old averages no longer describe the cluster
+      averageNanosPerDoc = 0;
+      bestNanosPerDoc = 0;
+      return adjusted();
+    }
+
+    private boolean adjusted() {
+      batchesSinceAdjustment = 0;
+      overloadedSinceAdjustment = false;
+      adjustmentsCount.incrementAndGet();
+      return true;
+    }
+
+    @SuppressWarnings("deprecation")
+    static boolean isOverloaded(Throwable throwable) {
+      for ( Throwable cause = throwable; cause != null; cause = cause.getCause() ) {
+        if ( cause instanceof FailedRetryException || cause instanceof MarkLogicIOException ) {
+          return true;
+        }
+        if ( cause instanceof MarkLogicServerException ) {
+          MarkLogicServerException serverException = (MarkLogicServerException) cause;
+          // the status code is available only if the error came from the server
+          if ( serverException.getFailedRequest() != null && serverException.getServerStatusCode() >= 500 ) {
+            return true;
+          }
+        }
+        if ( cause.getCause() == cause ) break;
+      }
+      return false;
+    }
+  }
+
   /**
    * The following classes and CompletableThreadPoolExecutor
    * CompletableRejectedExecutionHandler exist exclusively to enable the
@@ -774,7 +1699,15 @@ public class WriteBatcherImpl
     // CallerRunsPolicy it first allows the calling thread to execute the task
     // to completion, then it removes it.
     public void rejectedExecution(Runnable r, ThreadPoolExecutor e) {
-      super.rejectedExecution(r, e);
+      // the calling thread runs the task outside of the pool, so the task
+      // can't defer its completion even if the thread belongs to the pool
+      Runnable callerTask = threadPool.runningTask.get();
+      threadPool.runningTask.remove();
+      try {
+        super.rejectedExecution(r, e);
+      } finally {
+        if ( callerTask != null ) threadPool.runningTask.set(callerTask);
+      }
       threadPool.taskComplete(r);
     }
   }
@@ -791,6 +1724,11 @@ public class WriteBatcherImpl
     // each call to awaitCompletion is done.
     Map<Thread, ConcurrentLinkedQueue<Runnable>> activeSnapshots = new ConcurrentHashMap<>();
 
+    // the task executing on each thread of the pool and the tasks that
+    // remain incomplete after they return until they complete themselves
+    ThreadLocal<Runnable> runningTask = new ThreadLocal<>();
+    Set<Runnable> deferredTasks = ConcurrentHashMap.<Runnable>newKeySet();
+
     public CompletableThreadPoolExecutor(int corePoolSize, int maximumPoolSize, long keepAliveTime,
                                          TimeUnit unit, BlockingQueue<Runnable> queue)
     {
@@ -810,13 +1748,34 @@ public class WriteBatcherImpl
       super.execute(r);
     }
 
+    protected void beforeExecute(Thread t, Runnable r) {
+      super.beforeExecute(t, r);
+      runningTask.set(r);
+    }
+
     // afterExecute is called when a task has run to completion in a thread
     // from the thread pool
     protected void afterExecute(Runnable r, Throwable t) {
-      taskComplete(r);
+      runningTask.remove();
+      // a deferred task is complete when its completion runs, which may
+      // have happened already
+      if ( !deferredTasks.remove(r) ) {
+        taskComplete(r);
+      }
       super.afterExecute(r, t);
     }
 
+    // deferCompletion lets the task executing on the current thread finish
+    // its work asynchronously.  The task remains queued and executing for
+    // awaitCompletion after it returns until the returned Runnable is run.
+    // Returns null if the current thread isn't executing a task of the pool.
+    public Runnable deferCompletion() {
+      Runnable r = runningTask.get();
+      if ( r == null ) return null;
+      deferredTasks.add(r);
+      return () -> taskComplete(r);
+    }
+
     public ConcurrentLinkedQueue<Runnable> snapshotQueuedAndExecutingTasks() {
       ConcurrentLinkedQueue<Runnable> snapshot = new ConcurrentLinkedQueue<>();
       activeSnapshots.put( Thread.currentThread(), snapshot );
@@ -15,6 +15,7 @@
 package com.marklogic.client.document;
 
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import com.marklogic.client.FailedRequestException;
 import com.marklogic.client.ForbiddenUserException;
@@ -1141,6 +1142,151 @@ public interface DocumentManager<R extends AbstractReadHandle, W extends Abstrac
   void delete(DocumentDescriptor desc, Transaction transaction)
     throws ResourceNotFoundException, ForbiddenUserException, FailedRequestException;
 
+  /**
+   * Reads the document content from the database without blocking the calling thread.
+   *
+   * The request is sent by the connection's dispatcher threads, and retries of
+   * an unavailable service are scheduled instead of waiting.  Failures complete
+   * the future exceptionally with the exception that read() would throw.
+   *
+   * To call readAsync(), an application must authenticate as rest-reader, rest-writer, or rest-admin.
+   *
+   * @param docId	the URI identifier for the document
+   * @param contentHandle	a handle for reading the content of the document
+   * @param <T> the type of content handle to return
+   * @return	a future that completes with the content handle populated by the content of the document
+   */
+  default <T extends R> CompletableFuture<T> readAsync(String docId, T contentHandle) {
+    return readAsync(docId, null, contentHandle);
+  }
+  /**
+   * Reads the document metadata and content from the database without blocking the calling thread.
+   *
+   * To call readAsync(), an application must authenticate as rest-reader, rest-writer, or rest-admin.
+   *
+   * @param docId	the URI identifier for the document
+   * @param metadataHandle	a handle for reading the metadata of the document
+   * @param contentHandle	a handle for reading the content of the document
+   * @param <T> the type of content handle to return
+   * @return	a future that completes with the content handle populated by the content of the document
+   */
+  default <T extends R> CompletableFuture<T> readAsync(String docId, DocumentMetadataReadHandle metadataHandle, T contentHandle) {
+    throw new UnsupportedOperationException("Asynchronous reads not supported by this document manager");
+  }
+  /**
+   * Reads the document metadata and content from the database without blocking
+   * the calling thread, transforming the content on the server.
+   *
+   * To call readAsync(), an application must authenticate as rest-reader, rest-writer, or rest-admin.
+   *
+   * @param desc	a descriptor for the URI identifier, format, and mimetype of the document
+   * @param metadataHandle	a handle for reading the metadata of the document or null
+   * @param contentHandle	a handle for reading the content of the document
+   * @param transform	a server transform to modify the document content or null
+   * @param <T> the type of content handle to return
+   * @return	a future that completes with the content handle or with null if the
+   *          document hasn't changed since the version in the descriptor
+   */
+  default <T extends R> CompletableFuture<T> readAsync(DocumentDescriptor desc, DocumentMetadataReadHandle metadataHandle, T contentHandle, ServerTransform transform) {
+    throw new UnsupportedOperationException("Asynchronous reads not supported by this document manager");
+  }
+
+  /**
+   * Writes the document content to the database without blocking the calling thread.
+   *
+   * The handles must be resendable so the request can be retried if the
+   * service is unavailable.  Failures complete the future exceptionally with
+   * the exception that write() would throw.
+   *
+   * To call writeAsync(), an application must authenticate as rest-writer or rest-admin.
+   *
+   * @param docId	the URI identifier for the document
+   * @param contentHandle	a handle for writing the content of the document
+   * @return	a future that completes when the document has been written
+   */
+  default CompletableFuture<Void> writeAsync(String docId, W contentHandle) {
+    return writeAsync(docId, null, contentHandle);
+  }
+  /**
+   * Writes the document metadata and content to the database without blocking the calling thread.
+   *
+   * To call writeAsync(), an application must authenticate as rest-writer or rest-admin.
+   *
+   * @param docId	the URI identifier for the document
+   * @param metadataHandle	a handle for writing the metadata of the document
+   * @param contentHandle	a handle for writing the content of the document
+   * @return	a future that completes when the document has been written
+   */
+  default CompletableFuture<Void> writeAsync(String docId, DocumentMetadataWriteHandle metadataHandle, W contentHandle) {
+    throw new UnsupportedOperationException("Asynchronous writes not supported by this document manager");
+  }
+  /**
+   * Writes the document metadata and content to the database without blocking
+   * the calling thread, transforming the content on the server.
+   *
+   * To call writeAsync(), an application must authenticate as rest-writer or rest-admin.
+   *
+   * @param desc	a descriptor for the URI identifier, format, and mimetype of the document
+   * @param metadataHandle	a handle for writing the metadata of the document or null
+   * @param contentHandle	a handle for writing the content of the document or null
+   * @param transform	a server transform to modify the document content or null
+   * @return	a future that completes when the document has been written
+   */
+  default CompletableFuture<Void> writeAsync(DocumentDescriptor desc, DocumentMetadataWriteHandle metadataHandle, W contentHandle, ServerTransform transform) {
+    throw new UnsupportedOperationException("Asynchronous writes not supported by this document manager");
+  }
+  /**
+   * Writes a set of documents and/or document metadata to the database in a
+   * single request without blocking the calling thread.
+   *
+   * To call writeAsync(), an application must authenticate as rest-writer or rest-admin.
+   *
+   * @param writeSet	the set of documents and/or metadata to write
+   * @return	a future that completes when the documents have been written
+   */
+  default CompletableFuture<Void> writeAsync(DocumentWriteSet writeSet) {
+    return writeAsync(writeSet, null);
+  }
+  /**
+   * Writes a set of documents and/or document metadata to the database in a
+   * single request without blocking the calling thread, transforming the
+   * content on the server.
+   *
+   * To call writeAsync(), an application must authenticate as rest-writer or rest-admin.
+   *
+   * @param writeSet	the set of documents and/or metadata to write
+   * @param transform	a server transform to modify the contents of each document
+   * @return	a future that completes when the documents have been written
+   */
+  default CompletableFuture<Void> writeAsync(DocumentWriteSet writeSet, ServerTransform transform) {
+    throw new UnsupportedOperationException("Asynchronous writes not supported by this document manager");
+  }
+
+  /**
+   * Deletes the document metadata and content from the database without
+   * blocking the calling thread.
+   *
+   * To call deleteAsync(), an application must authenticate as rest-writer or rest-admin.
+   *
+   * @param docId	the URI identifier for the document
+   * @return	a future that completes when the document has been deleted
+   */
+  default CompletableFuture<Void> deleteAsync(String docId) {
+    throw new UnsupportedOperationException("Asynchronous deletes not supported by this document manager");
+  }
+  /**
+   * Deletes the documents' metadata and content from the database in a single
+   * request without blocking the calling thread.
+   *
+   * To call deleteAsync(), an application must authenticate as rest-writer or rest-admin.
+   *
+   * @param uris	the identifiers for the documents to delete
+   * @return	a future that completes when the documents have been deleted
+   */
+  default CompletableFuture<Void> deleteAsync(String... uris) {
+    throw new UnsupportedOperationException("Asynchronous deletes not supported by this document manager");
+  }
+
   /**
    * Creates a database document with a uri assigned by the server from an object of an IO class.
    *
@@ -71,12 +71,15 @@ public class ClientPropertiesImpl extends NameMapBase<Object>{
   }
   @Override
   public Object put(QName name, Object value) {
+    if (isValidValue(value))
+      return super.put(name, value);
+    throw new IllegalArgumentException("Invalid value for metadata property "+value.getClass().getName());
+  }
+  protected boolean isValidValue(Object value) {
     // Number includes BigDecimal, BigInteger, Byte, Double, Float, Integer, Long, Short
-    if (value instanceof Boolean || value instanceof byte[] ||
+    return value instanceof Boolean || value instanceof byte[] ||
       value instanceof Calendar || value instanceof Duration ||
       value instanceof NodeList || value instanceof Number ||
-      value instanceof String)
-      return super.put(name, value);
-    throw new IllegalArgumentException("Invalid value for metadata property "+value.getClass().getName());
+      value instanceof String;
   }
 }
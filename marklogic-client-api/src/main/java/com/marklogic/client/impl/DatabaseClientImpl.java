@@ -33,6 +33,7 @@ import com.marklogic.client.row.RowManager;
 import com.marklogic.client.semantics.GraphManager;
 import com.marklogic.client.semantics.SPARQLQueryManager;
 import com.marklogic.client.util.RequestLogger;
+import com.marklogic.client.util.RequestStatistics;
 import com.marklogic.client.eval.ServerEvaluationCall;
 import com.marklogic.client.extensions.ResourceManager;
 import com.marklogic.client.DatabaseClientFactory.HandleFactoryRegistry;
@@ -231,6 +232,12 @@ public class DatabaseClientImpl implements DatabaseClient {
     return services.getClientImplementation();
   }
 
+  @Override
+  public RequestStatistics getRequestStatistics() {
+    RequestStatistics statistics = (services == null) ? null : services.getRequestStatistics();
+    return (statistics == null) ? RequestStatistics.disabled() : statistics;
+  }
+
   // undocumented backdoor access to JerseyServices
   public RESTServices getServices() {
     return services;
@@ -17,6 +17,7 @@ package com.marklogic.client.impl;
 
 import java.nio.charset.CharsetEncoder;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 import javax.xml.bind.DatatypeConverter;
 import javax.xml.datatype.Duration;
@@ -366,17 +367,7 @@ abstract class DocumentManagerImpl<R extends AbstractReadHandle, W extends Abstr
     if (logger.isInfoEnabled())
       logger.info("Reading metadata and content for {}", desc.getUri());
 
-    if (metadataHandle != null) {
-      HandleImplementation metadataBase = HandleAccessor.checkHandle(
-        metadataHandle, "metadata");
-      Format metadataFormat = metadataBase.getFormat();
-      if (metadataFormat != Format.JSON && metadataFormat != Format.XML) {
-        if (logger.isWarnEnabled())
-          logger.warn("Unsupported metadata format {}, using XML",
-                  (metadataFormat == null) ? "null" : metadataFormat.name());
-        metadataBase.setFormat(Format.XML);
-      }
-    }
+    checkMetadataFormat(metadataHandle);
 
     checkContentFormat(contentHandle);
 
@@ -395,6 +386,55 @@ abstract class DocumentManagerImpl<R extends AbstractReadHandle, W extends Abstr
     return wasModified ? contentHandle : null;
   }
 
+  @Override
+  public <T extends R> CompletableFuture<T> readAsync(String uri, T contentHandle) {
+    return readAsync(new DocumentDescriptorImpl(uri, true), null, contentHandle, null);
+  }
+
+  @Override
+  public <T extends R> CompletableFuture<T> readAsync(String uri, DocumentMetadataReadHandle metadataHandle,
+                                                      T contentHandle) {
+    return readAsync(new DocumentDescriptorImpl(uri, true), metadataHandle, contentHandle, null);
+  }
+
+  @Override
+  public <T extends R> CompletableFuture<T> readAsync(DocumentDescriptor desc,
+                                                      DocumentMetadataReadHandle metadataHandle, T contentHandle,
+                                                      ServerTransform transform) {
+    if (desc == null)
+      throw new IllegalArgumentException(
+        "Attempt to call readAsync with null DocumentDescriptor");
+
+    if (logger.isInfoEnabled())
+      logger.info("Reading metadata and content asynchronously for {}", desc.getUri());
+
+    checkMetadataFormat(metadataHandle);
+    checkContentFormat(contentHandle);
+
+    return services.getDocumentAsync(
+      requestLogger,
+      desc,
+      null,
+      (metadataHandle != null) ? processedMetadata : null,
+      mergeTransformParameters((transform != null) ? transform
+        : getReadTransform(), getReadParams()), metadataHandle, contentHandle)
+      .thenApply(wasModified -> wasModified ? contentHandle : null);
+  }
+
+  private void checkMetadataFormat(Object metadataHandle) {
+    if (metadataHandle != null) {
+      HandleImplementation<?,?> metadataBase = HandleAccessor.checkHandle(
+        metadataHandle, "metadata");
+      Format metadataFormat = metadataBase.getFormat();
+      if (metadataFormat != Format.JSON && metadataFormat != Format.XML) {
+        if (logger.isWarnEnabled())
+          logger.warn("Unsupported metadata format {}, using XML",
+                  (metadataFormat == null) ? "null" : metadataFormat.name());
+        metadataBase.setFormat(Format.XML);
+      }
+    }
+  }
+
   @Override
   public DocumentPage read(String... uris) {
     return read(-1, null, null, uris);
@@ -629,6 +669,26 @@ abstract class DocumentManagerImpl<R extends AbstractReadHandle, W extends Abstr
                     Transaction transaction, String temporalCollection) {
     if ( writeSet == null ) throw new IllegalArgumentException("writeSet must not be null");
     Format defaultFormat = contentFormat;
+    services.postBulkDocuments(requestLogger, writeSet,
+      (transform != null) ? transform : getWriteTransform(),
+      transaction,
+      defaultFormat, null, temporalCollection, getExtraContentDispositionParams());
+  }
+
+  @Override
+  public CompletableFuture<Void> writeAsync(DocumentWriteSet writeSet) {
+    return writeAsync(writeSet, null);
+  }
+
+  @Override
+  public CompletableFuture<Void> writeAsync(DocumentWriteSet writeSet, ServerTransform transform) {
+    if ( writeSet == null ) throw new IllegalArgumentException("writeSet must not be null");
+    return services.postBulkDocumentsAsync(requestLogger, writeSet,
+      (transform != null) ? transform : getWriteTransform(),
+      null, contentFormat, null, getExtraContentDispositionParams());
+  }
+
+  private String getExtraContentDispositionParams() {
     RequestParameters extraParams = getWriteParams();
     String extraContentDispositionParams = "";
     if (extraParams != null && extraParams.size() > 0) {
@@ -646,10 +706,7 @@ abstract class DocumentManagerImpl<R extends AbstractReadHandle, W extends Abstr
         extraContentDispositionParams = extraParamBldr.toString();
       }
     }
-    services.postBulkDocuments(requestLogger, writeSet,
-      (transform != null) ? transform : getWriteTransform(),
-      transaction,
-      defaultFormat, null, temporalCollection, extraContentDispositionParams);
+    return extraContentDispositionParams;
   }
 
   // shortcut writers
@@ -935,17 +992,7 @@ abstract class DocumentManagerImpl<R extends AbstractReadHandle, W extends Abstr
     if (logger.isInfoEnabled())
       logger.info("Writing content for {}", desc.getUri());
 
-    if (metadataHandle != null) {
-      HandleImplementation metadataBase = HandleAccessor.checkHandle(
-        metadataHandle, "metadata");
-      Format metadataFormat = metadataBase.getFormat();
-      if (metadataFormat != Format.JSON && metadataFormat != Format.XML) {
-        if (logger.isWarnEnabled())
-          logger.warn("Unsupported metadata format {}, using XML",
-                  (metadataFormat == null) ? "null" : metadataFormat.name());
-        metadataBase.setFormat(Format.XML);
-      }
-    }
+    checkMetadataFormat(metadataHandle);
 
     checkContentFormat(contentHandle);
 
@@ -960,6 +1007,41 @@ abstract class DocumentManagerImpl<R extends AbstractReadHandle, W extends Abstr
         : getWriteTransform(), extraParams), metadataHandle, contentHandle);
   }
 
+  @Override
+  public CompletableFuture<Void> writeAsync(String uri, W contentHandle) {
+    return writeAsync(new DocumentDescriptorImpl(uri, true), null, contentHandle, null);
+  }
+
+  @Override
+  public CompletableFuture<Void> writeAsync(String uri, DocumentMetadataWriteHandle metadataHandle,
+                                            W contentHandle) {
+    return writeAsync(new DocumentDescriptorImpl(uri, true), metadataHandle, contentHandle, null);
+  }
+
+  @Override
+  public CompletableFuture<Void> writeAsync(DocumentDescriptor desc,
+                                            DocumentMetadataWriteHandle metadataHandle, W contentHandle,
+                                            ServerTransform transform) {
+    if (desc == null)
+      throw new IllegalArgumentException(
+        "Writing document with null identifier");
+
+    if (logger.isInfoEnabled())
+      logger.info("Writing content asynchronously for {}", desc.getUri());
+
+    checkMetadataFormat(metadataHandle);
+    checkContentFormat(contentHandle);
+
+    return services.putDocumentAsync(
+      requestLogger,
+      desc,
+      null,
+      (metadataHandle != null) ? processedMetadata : null,
+      mergeTransformParameters((transform != null) ? transform
+        : getWriteTransform(), getWriteParams()), metadataHandle, contentHandle)
+      .thenApply(temporalDesc -> null);
+  }
+
   @Override
   public void delete(String uri) throws ResourceNotFoundException,
     ForbiddenUserException, FailedRequestException {
@@ -983,6 +1065,22 @@ abstract class DocumentManagerImpl<R extends AbstractReadHandle, W extends Abstr
     services.delete(requestLogger, null, null, uris);
   }
 
+  @Override
+  public CompletableFuture<Void> deleteAsync(String uri) {
+    if (logger.isInfoEnabled())
+      logger.info("Deleting {} asynchronously", uri);
+
+    return services.deleteDocumentAsync(requestLogger, new DocumentDescriptorImpl(uri, true), null, null)
+      .thenApply(temporalDesc -> null);
+  }
+
+  @Override
+  public CompletableFuture<Void> deleteAsync(String... uris) {
+    if ( uris == null ) throw new IllegalArgumentException("uris must not be null");
+    if ( uris.length == 0 ) throw new IllegalArgumentException("uris array must not be zero-length");
+    return services.deleteAsync(requestLogger, null, uris);
+  }
+
   @Override
   public void delete(Transaction transaction, String... uris)
     throws ResourceNotFoundException, ForbiddenUserException,
@@ -1258,17 +1356,7 @@ abstract class DocumentManagerImpl<R extends AbstractReadHandle, W extends Abstr
     if ( logger.isInfoEnabled() ) logger.info("Creating content");
     if ( extraParams == null ) extraParams = getWriteParams();
 
-    if (metadataHandle != null) {
-      HandleImplementation metadataBase = HandleAccessor.checkHandle(
-        metadataHandle, "metadata");
-      Format metadataFormat = metadataBase.getFormat();
-      if (metadataFormat != Format.JSON && metadataFormat != Format.XML) {
-        if (logger.isWarnEnabled())
-          logger.warn("Unsupported metadata format {}, using XML",
-                  (metadataFormat == null) ? "null" : metadataFormat.name());
-        metadataBase.setFormat(Format.XML);
-      }
-    }
+    checkMetadataFormat(metadataHandle);
 
     extraParams = addTemporalParams(extraParams, temporalCollection, null, systemTime);
 
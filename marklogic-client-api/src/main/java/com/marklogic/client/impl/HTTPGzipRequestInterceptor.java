@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2021 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.impl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.BufferedSink;
+import okio.Okio;
+
+/**
+ * An HTTP Request interceptor that compresses the bodies of document writes
+ * with gzip and sets the 'Content-Encoding' request header.  The body is
+ * compressed while it is written to the connection, so streaming content
+ * isn't buffered, and a body that can be sent again can also be compressed
+ * again for an authentication challenge.
+ *
+ * Bodies with a known length below the minimum and content types that are
+ * usually compressed already are sent as is.
+ */
+class HTTPGzipRequestInterceptor implements Interceptor {
+  final static private int BUFFER_SIZE = 8192;
+
+  private final int  level;
+  private final long minBytes;
+
+  HTTPGzipRequestInterceptor(int level, long minBytes) {
+    if (level < 1 || level > 9) {
+      throw new IllegalArgumentException("gzip compression level must be from 1 to 9: "+level);
+    }
+    this.level    = level;
+    this.minBytes = minBytes;
+  }
+
+  @Override
+  public Response intercept(Chain chain) throws IOException {
+    Request request = chain.request();
+    RequestBody body = request.body();
+    if (body == null || !isDocumentWrite(request) || request.header("Content-Encoding") != null ||
+        !isCompressible(body.contentType())) {
+      return chain.proceed(request);
+    }
+    long length = body.contentLength();
+    if (length >= 0 && length < minBytes) {
+      return chain.proceed(request);
+    }
+    return chain.proceed(request.newBuilder()
+      .header("Content-Encoding", "gzip")
+      .method(request.method(), new GzipRequestBody(body, level))
+      .build());
+  }
+
+  private static boolean isDocumentWrite(Request request) {
+    String method = request.method();
+    return ("PUT".equals(method) || "POST".equals(method)) &&
+      request.url().encodedPath().endsWith("/documents");
+  }
+  private static boolean isCompressible(MediaType contentType) {
+    if (contentType == null) return true;
+    switch (contentType.type()) {
+      case "image":
+      case "audio":
+      case "video":
+        return false;
+      case "application":
+        switch (contentType.subtype()) {
+          case "zip":
+          case "gzip":
+          case "x-gzip":
+          case "pdf":
+            return false;
+          default:
+            return true;
+        }
+      default:
+        return true;
+    }
+  }
+
+  static private class GzipRequestBody extends RequestBody {
+    private final RequestBody body;
+    private final int level;
+    GzipRequestBody(RequestBody body, int level) {
+      this.body  = body;
+      this.level = level;
+    }
+    @Override
+    public MediaType contentType() {
+      return body.contentType();
+    }
+    @Override
+    public long contentLength() {
+      // the compressed length isn't known until the body is written
+      return -1;
+    }
+    @Override
+    public boolean isOneShot() {
+      return body.isOneShot();
+    }
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+      LevelGzipOutputStream gzipOut = new LevelGzipOutputStream(sink.outputStream(), level);
+      try {
+        BufferedSink gzipSink = Okio.buffer(Okio.sink(gzipOut));
+        body.writeTo(gzipSink);
+        gzipSink.emit();
+        // finish instead of close so the connection sink stays open
+        gzipOut.finish();
+      } finally {
+        gzipOut.end();
+      }
+    }
+  }
+
+  static private class LevelGzipOutputStream extends GZIPOutputStream {
+    LevelGzipOutputStream(OutputStream out, int level) throws IOException {
+      super(out, BUFFER_SIZE);
+      def.setLevel(level);
+    }
+    void end() {
+      def.end();
+    }
+  }
+}
@@ -19,6 +19,7 @@ import com.marklogic.client.*;
 import com.marklogic.client.DatabaseClient.ConnectionResult;
 import com.marklogic.client.DatabaseClientFactory.BasicAuthContext;
 import com.marklogic.client.DatabaseClientFactory.CertificateAuthContext;
+import com.marklogic.client.DatabaseClientFactory.ConnectionSettings;
 import com.marklogic.client.DatabaseClientFactory.DigestAuthContext;
 import com.marklogic.client.DatabaseClientFactory.KerberosAuthContext;
 import com.marklogic.client.DatabaseClientFactory.SAMLAuthContext;
@@ -52,6 +53,7 @@ import com.marklogic.client.semantics.SPARQLRuleset;
 import com.marklogic.client.util.EditableNamespaceContext;
 import com.marklogic.client.util.RequestLogger;
 import com.marklogic.client.util.RequestParameters;
+import com.marklogic.client.util.RequestStatistics;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
@@ -60,10 +62,12 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import okhttp3.*;
 import okhttp3.MultipartBody.Part;
 import okhttp3.logging.HttpLoggingInterceptor;
+import okio.Buffer;
 import okio.BufferedSink;
 import okio.Okio;
 import okio.Source;
 import com.burgstaller.okhttp.AuthenticationCacheInterceptor;
+import com.burgstaller.okhttp.CacheKeyProvider;
 import com.burgstaller.okhttp.CachingAuthenticatorDecorator;
 import com.burgstaller.okhttp.digest.CachingAuthenticator;
 import com.burgstaller.okhttp.digest.Credentials;
@@ -72,10 +76,14 @@ import com.burgstaller.okhttp.digest.DigestAuthenticator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
 import javax.mail.BodyPart;
-import javax.mail.Header;
 import javax.mail.MessagingException;
+import javax.mail.internet.ContentDisposition;
+import javax.mail.internet.ContentType;
 import javax.mail.internet.MimeMultipart;
+import javax.mail.internet.ParseException;
 import javax.mail.util.ByteArrayDataSource;
 import javax.net.SocketFactory;
 import javax.net.ssl.*;
@@ -103,10 +111,12 @@ import java.nio.file.StandardCopyOption;
 import java.security.KeyManagementException;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
+import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -127,11 +137,38 @@ public class OkHttpServices implements RESTServices {
   static final private int DELAY_MULTIPLIER  =     20;
   static final private int DEFAULT_MAX_DELAY = 120000;
   static final private int DEFAULT_MIN_RETRY =      8;
+  static final private int DEFAULT_BREAKER_SECONDS = 30;
+  static final private int DEFAULT_MAX_IDLE_CONNECTIONS = 5;
+  static final private int DEFAULT_KEEP_ALIVE_SECONDS   = 300;
+  static final private int DEFAULT_MAX_ASYNC_REQUESTS   = 64;
+  static final private int DEFAULT_COMPRESSION_MIN_BYTES = 1024;
 
   private final static MediaType URLENCODED_MIME_TYPE = MediaType.parse("application/x-www-form-urlencoded; charset=UTF-8");
   private final static String UTF8_ID = StandardCharsets.UTF_8.toString();
 
-  static final private ConnectionPool connectionPool = new ConnectionPool();
+  static final private ConnectionPool connectionPool = new ConnectionPool(
+          DEFAULT_MAX_IDLE_CONNECTIONS, DEFAULT_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+  // clients configured with other pool settings share a pool with the same settings
+  static final private Map<String,ConnectionPool> configuredPools = new ConcurrentHashMap<>();
+
+  // like the connection pool, the digest authenticators are shared by all clients
+  // for the same host and credentials so that a new client can reuse the server nonce;
+  // an authenticator is evicted when the last of its clients is released, and the
+  // least recently used are evicted beyond the limit, which only costs a new challenge
+  static final private int DIGEST_AUTH_CACHE_SIZE = 1000;
+  static final private Map<String,CachingAuthenticator> digestAuthCache = Collections.synchronizedMap(
+    new LinkedHashMap<String,CachingAuthenticator>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String,CachingAuthenticator> eldest) {
+        return size() > DIGEST_AUTH_CACHE_SIZE;
+      }
+    });
+  // the number of unreleased clients for each digest cache key, guarded by itself
+  static final private Map<String,Integer> digestAuthClients = new HashMap<>();
+  // the credentials are keyed by an HMAC with a secret that never leaves the process
+  static final private SecretKeySpec credentialKeySecret = makeCredentialKeySecret();
 
   private DatabaseClient databaseClient;
   private String database = null;
@@ -144,7 +181,13 @@ public class OkHttpServices implements RESTServices {
   private int maxDelay = DEFAULT_MAX_DELAY;
   private int minRetry = DEFAULT_MIN_RETRY;
 
+  private final RetryScheduler retryScheduler = new RetryScheduler();
+
+  private RequestStatisticsImpl requestStatistics;
+
   private boolean checkFirstRequest = true;
+  private String  digestCredentialKey;
+  private String  digestCacheKey;
 
   private final Set<Integer> retryStatus = new HashSet<>();
 
@@ -169,6 +212,11 @@ public class OkHttpServices implements RESTServices {
     return retryStatus;
   }
 
+  @Override
+  public RequestStatistics getRequestStatistics() {
+    return requestStatistics;
+  }
+
   @Override
   public int getMaxDelay() {
     return maxDelay;
@@ -201,6 +249,11 @@ public class OkHttpServices implements RESTServices {
 
   @Override
   public void connect(String host, int port, String database, SecurityContext securityContext){
+    connect(host, port, database, securityContext, null);
+  }
+
+  public void connect(String host, int port, String database, SecurityContext securityContext,
+                      ConnectionSettings connectionSettings){
     SSLContext sslContext = null;
     SSLHostnameVerifier sslVerifier = null;
     X509TrustManager trustManager = null;
@@ -211,7 +264,7 @@ public class OkHttpServices implements RESTServices {
     OkHttpClient.Builder clientBldr = new OkHttpClient.Builder()
     	      .followRedirects(false)
     	      .followSslRedirects(false)
-    	      // all clients share a single connection pool
+    	      // clients share a connection pool unless configured otherwise
     	      .connectionPool(connectionPool)
     	      // cookies are ignored (except when a Transaction is being used)
     	      .cookieJar(CookieJar.NO_COOKIES)
@@ -296,6 +349,13 @@ public class OkHttpServices implements RESTServices {
       .encodedPath("/v1/ping")
       .build();
 
+    if (digestCredentialKey != null) {
+      digestCacheKey = makeDigestCacheKey(baseUri, digestCredentialKey);
+      synchronized (digestAuthClients) {
+        digestAuthClients.merge(digestCacheKey, 1, Integer::sum);
+      }
+    }
+
     if (sslContext != null) {
       if (trustManager == null) {
         // OkHttp requires the trust manager on Java 9 and on Java 8 after 8u251
@@ -372,6 +432,34 @@ public class OkHttpServices implements RESTServices {
         minRetry = min;
       }
     }
+    if (props.containsKey(RETRY_BUDGET_PROP)) {
+      int budget = Utilities.parseInt(props.getProperty(RETRY_BUDGET_PROP));
+      if (budget > 0) {
+        retryScheduler.setRetryBudget(budget);
+      }
+    }
+    if (props.containsKey(CIRCUIT_BREAKER_FAILURES_PROP)) {
+      int failures = Utilities.parseInt(props.getProperty(CIRCUIT_BREAKER_FAILURES_PROP));
+      if (failures > 0) {
+        int seconds = Utilities.parseInt(props.getProperty(CIRCUIT_BREAKER_SECONDS_PROP));
+        retryScheduler.setCircuitBreaker(failures, ((seconds > 0) ? seconds : DEFAULT_BREAKER_SECONDS) * 1000L);
+      }
+    }
+
+    configureConnections(clientBldr, props, connectionSettings, (sslContext != null));
+
+    // responses are already compressed if the server offers gzip because OkHttp
+    // sends Accept-Encoding and decompresses transparently
+    int compressionLevel = Utilities.parseInt(props.getProperty(REQUEST_COMPRESSION_LEVEL_PROP));
+    if (compressionLevel > 0) {
+      long minBytes = Utilities.parseLong(props.getProperty(REQUEST_COMPRESSION_MIN_BYTES_PROP), DEFAULT_COMPRESSION_MIN_BYTES);
+      clientBldr.addInterceptor(new HTTPGzipRequestInterceptor(compressionLevel, minBytes));
+    }
+
+    if (!"false".equalsIgnoreCase(props.getProperty(REQUEST_STATISTICS_PROP))) {
+      requestStatistics = new RequestStatisticsImpl();
+      clientBldr.eventListenerFactory(requestStatistics);
+    }
 
     this.client = clientBldr.build();
     // System.setProperty("javax.net.debug", "all"); // all or ssl
@@ -381,6 +469,59 @@ public class OkHttpServices implements RESTServices {
      */
   }
   
+  /*
+   * Applies the connection settings of the client and otherwise from the system
+   * properties, which affect the clients created after the properties are set.
+   * The defaults keep the previous behavior except that a client can send as many
+   * asynchronous requests to its host as in total because a client only has one host.
+   */
+  private void configureConnections(
+        OkHttpClient.Builder clientBldr, Properties props, ConnectionSettings settings, boolean isSecure
+  ) {
+    int maxIdle = (settings != null && settings.getMaxIdleConnections() > 0) ?
+      settings.getMaxIdleConnections() : Utilities.parseInt(props.getProperty(MAX_IDLE_CONNECTIONS_PROP));
+    int keepAlive = (settings != null && settings.getKeepAliveSeconds() > 0) ?
+      settings.getKeepAliveSeconds() : Utilities.parseInt(props.getProperty(KEEP_ALIVE_SECONDS_PROP));
+    if (maxIdle > 0 || keepAlive > 0) {
+      int poolMaxIdle = (maxIdle > 0) ? maxIdle : DEFAULT_MAX_IDLE_CONNECTIONS;
+      int poolKeepAlive = (keepAlive > 0) ? keepAlive : DEFAULT_KEEP_ALIVE_SECONDS;
+      clientBldr.connectionPool(configuredPools.computeIfAbsent(poolMaxIdle+":"+poolKeepAlive,
+              key -> new ConnectionPool(poolMaxIdle, poolKeepAlive, TimeUnit.SECONDS)));
+    }
+
+    int connectTimeout = Utilities.parseInt(props.getProperty(CONNECT_TIMEOUT_SECONDS_PROP));
+    if (connectTimeout >= 0) {
+      clientBldr.connectTimeout(connectTimeout, TimeUnit.SECONDS);
+    }
+    int readTimeout = Utilities.parseInt(props.getProperty(READ_TIMEOUT_SECONDS_PROP));
+    if (readTimeout >= 0) {
+      clientBldr.readTimeout(readTimeout, TimeUnit.SECONDS);
+    }
+    int writeTimeout = Utilities.parseInt(props.getProperty(WRITE_TIMEOUT_SECONDS_PROP));
+    if (writeTimeout >= 0) {
+      clientBldr.writeTimeout(writeTimeout, TimeUnit.SECONDS);
+    }
+
+    int maxAsync = (settings != null && settings.getMaxAsyncRequests() > 0) ?
+      settings.getMaxAsyncRequests() : Utilities.parseInt(props.getProperty(MAX_ASYNC_REQUESTS_PROP));
+    Dispatcher dispatcher = new Dispatcher();
+    dispatcher.setMaxRequests((maxAsync > 0) ? maxAsync : DEFAULT_MAX_ASYNC_REQUESTS);
+    dispatcher.setMaxRequestsPerHost(dispatcher.getMaxRequests());
+    clientBldr.dispatcher(dispatcher);
+
+    // OkHttp negotiates HTTP/2 over TLS by default where the JVM supports ALPN, so
+    // the property can only force HTTP/1.1 or opt into HTTP/2 without TLS (h2c),
+    // which requires a server or load balancer that accepts h2c with prior knowledge
+    String http2 = props.getProperty(HTTP2_PROP);
+    if ("false".equalsIgnoreCase(http2)) {
+      clientBldr.protocols(Collections.singletonList(Protocol.HTTP_1_1));
+    } else if ("true".equalsIgnoreCase(http2) && !isSecure) {
+      clientBldr.protocols(Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE));
+    } else if (http2 != null && !"true".equalsIgnoreCase(http2)) {
+      throw new IllegalArgumentException(HTTP2_PROP+" must be true or false: "+http2);
+    }
+  }
+
   public OkHttpClient.Builder configureAuthentication(BasicAuthContext basicAuthContext, OkHttpClient.Builder clientBuilder) {
       String user = basicAuthContext.getUser();
       String password = basicAuthContext.getPassword();
@@ -407,19 +548,47 @@ public class OkHttpServices implements RESTServices {
         if (password == null) 
             throw new IllegalArgumentException("No password provided");
         Credentials credentials = new Credentials(user, password);
-        final Map<String,CachingAuthenticator> authCache = new ConcurrentHashMap<String,CachingAuthenticator>();
+        final String credentialKey = makeCredentialKey(user, password);
+        CacheKeyProvider cacheKeyProvider = request -> makeDigestCacheKey(request.url(), credentialKey);
 	    CachingAuthenticator authenticator = new DigestAuthenticator(credentials);
-	    Interceptor interceptor =  new AuthenticationCacheInterceptor(authCache);
+	    Interceptor interceptor =  new AuthenticationCacheInterceptor(digestAuthCache, cacheKeyProvider);
         checkFirstRequest = true;
+        digestCredentialKey = credentialKey;
         
         if(authenticator != null) {
-        	builder.authenticator(new CachingAuthenticatorDecorator(authenticator, authCache));
+        	builder.authenticator(new CachingAuthenticatorDecorator(authenticator, digestAuthCache, cacheKeyProvider));
         }
         if(interceptor != null) {
   		  builder.addInterceptor(interceptor);
         }
 	    return builder;
   }
+
+  /*
+   * The digest authenticators are cached by the host and a hash of the credentials
+   * so clients only share an authenticator (and its nonce count) if they would
+   * answer the challenge in the same way.  The server has one realm per port, so
+   * the host and port identify the realm.  The hash is keyed with a random secret
+   * so a key can't be checked against guessed passwords outside the process.
+   */
+  static private String makeCredentialKey(String user, String password) {
+    try {
+      Mac mac = Mac.getInstance(credentialKeySecret.getAlgorithm());
+      mac.init(credentialKeySecret);
+      byte[] hash = mac.doFinal((user+":"+password).getBytes(StandardCharsets.UTF_8));
+      return user+":"+Base64.getEncoder().encodeToString(hash);
+    } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+      throw new MarkLogicInternalException("could not hash digest credentials", e);
+    }
+  }
+  static private SecretKeySpec makeCredentialKeySecret() {
+    byte[] secret = new byte[32];
+    new SecureRandom().nextBytes(secret);
+    return new SecretKeySpec(secret, "HmacSHA256");
+  }
+  static private String makeDigestCacheKey(HttpUrl url, String credentialKey) {
+    return url.scheme()+":"+url.host()+":"+url.port()+":"+credentialKey;
+  }
   
   public OkHttpClient.Builder configureAuthentication(KerberosAuthContext keberosAuthContext, String host, OkHttpClient.Builder clientBuilder) {
 	  Map<String, String> kerberosOptions = keberosAuthContext.getKrbOptions();
@@ -477,6 +646,7 @@ public class OkHttpServices implements RESTServices {
     if ( client == null ) return;
     try {
       released = true;
+      releaseDigestAuth();
       client.dispatcher().executorService().shutdownNow();
     } finally {
       try {
@@ -490,8 +660,24 @@ public class OkHttpServices implements RESTServices {
     }
   }
 
+  private void releaseDigestAuth() {
+    if (digestCacheKey == null) return;
+    synchronized (digestAuthClients) {
+      if (digestAuthClients.merge(digestCacheKey, -1, Integer::sum) <= 0) {
+        digestAuthClients.remove(digestCacheKey);
+        digestAuthCache.remove(digestCacheKey);
+      }
+    }
+  }
+
   private boolean isFirstRequest() {
-    return threadState.get().isFirstRequest;
+    ThreadState state = threadState.get();
+    // once any client has answered the digest challenge for the host and credentials,
+    // requests are authenticated preemptively, so a streaming request needs no ping
+    if (state.isFirstRequest && digestCacheKey != null && digestAuthCache.containsKey(digestCacheKey)) {
+      state.isFirstRequest = false;
+    }
+    return state.isFirstRequest;
   }
   private void setFirstRequest(boolean value) {
     threadState.get().isFirstRequest = value;
@@ -584,6 +770,29 @@ public class OkHttpServices implements RESTServices {
                                            Transaction transaction, Set<Metadata> categories, RequestParameters extraParams)
     throws ResourceNotFoundException, ForbiddenUserException, FailedRequestException
   {
+    Request.Builder requestBldr = makeDeleteDocumentRequest(desc, transaction, categories, extraParams);
+
+    Function<Request.Builder, Response> doDeleteFunction = new Function<Request.Builder, Response>() {
+      public Response apply(Request.Builder funcBuilder) {
+        return sendRequestOnce(funcBuilder.delete().build());
+      }
+    };
+    Response response = sendRequestWithRetry(requestBldr, (transaction == null), doDeleteFunction, null);
+
+    return receiveDeletedDocument(reqlog, desc, response);
+  }
+
+  @Override
+  public CompletableFuture<TemporalDescriptor> deleteDocumentAsync(RequestLogger reqlog, DocumentDescriptor desc,
+                                                                   Transaction transaction, RequestParameters extraParams)
+  {
+    Request request = makeDeleteDocumentRequest(desc, transaction, null, extraParams).delete().build();
+    return sendRequestWithRetryAsync(request, (transaction == null))
+      .thenApply(response -> receiveDeletedDocument(reqlog, desc, response));
+  }
+
+  private Request.Builder makeDeleteDocumentRequest(DocumentDescriptor desc, Transaction transaction,
+                                                    Set<Metadata> categories, RequestParameters extraParams) {
     String uri = desc.getUri();
     if (uri == null) {
       throw new IllegalArgumentException(
@@ -597,14 +806,11 @@ public class OkHttpServices implements RESTServices {
 
     requestBldr = addVersionHeader(desc, requestBldr, "If-Match");
     requestBldr = addTransactionScopedCookies(requestBldr, transaction);
-    requestBldr = addTelemetryAgentId(requestBldr);
+    return addTelemetryAgentId(requestBldr);
+  }
 
-    Function<Request.Builder, Response> doDeleteFunction = new Function<Request.Builder, Response>() {
-      public Response apply(Request.Builder funcBuilder) {
-        return sendRequestOnce(funcBuilder.delete().build());
-      }
-    };
-    Response response = sendRequestWithRetry(requestBldr, (transaction == null), doDeleteFunction, null);
+  private TemporalDescriptor receiveDeletedDocument(RequestLogger reqlog, DocumentDescriptor desc, Response response) {
+    String uri = desc.getUri();
     int status = response.code();
 
     if (status == STATUS_NOT_FOUND) {
@@ -689,6 +895,45 @@ public class OkHttpServices implements RESTServices {
     return false;
   }
 
+  @Override
+  public CompletableFuture<Boolean> getDocumentAsync(RequestLogger reqlog, DocumentDescriptor desc,
+                                                     Transaction transaction, Set<Metadata> categories,
+                                                     RequestParameters extraParams,
+                                                     DocumentMetadataReadHandle metadataHandle,
+                                                     AbstractReadHandle contentHandle)
+  {
+    HandleImplementation metadataBase = HandleAccessor.checkHandle(
+      metadataHandle, "metadata");
+    HandleImplementation contentBase = HandleAccessor.checkHandle(
+      contentHandle, "content");
+
+    Request request = null;
+    Function<Response, Boolean> receiver = null;
+    if (metadataBase != null && contentBase != null) {
+      String metadataFormat = metadataBase.getFormat().toString().toLowerCase();
+      request = makeGetMultipartDocumentRequest(desc, transaction, categories, extraParams, metadataFormat, contentHandle)
+        .addHeader(HEADER_ACCEPT, multipartMixedWithBoundary()).get().build();
+      receiver = response ->
+        receiveMultipartDocument(reqlog, desc, transaction, categories, metadataHandle, contentHandle, response);
+    } else if (metadataBase != null) {
+      String metadataMimetype = metadataBase.getMimetype();
+      request = makeGetDocumentRequest(desc, transaction, categories, extraParams, metadataMimetype, metadataHandle)
+        .get().build();
+      receiver = response ->
+        receiveDocument(reqlog, desc, transaction, categories, metadataMimetype, metadataHandle, response);
+    } else if (contentBase != null) {
+      String contentMimetype = contentBase.getMimetype();
+      request = makeGetDocumentRequest(desc, transaction, null, extraParams, contentMimetype, contentHandle)
+        .get().build();
+      receiver = response ->
+        receiveDocument(reqlog, desc, transaction, null, contentMimetype, contentHandle, response);
+    } else {
+      return CompletableFuture.completedFuture(false);
+    }
+
+    return sendRequestWithRetryAsync(request, (transaction == null)).thenApply(receiver);
+  }
+
   private int getRetryAfterTime(Response response) {
     return Utilities.parseInt(response.header("Retry-After")) ;
   }
@@ -717,13 +962,12 @@ public class OkHttpServices implements RESTServices {
     long startTime = System.currentTimeMillis();
     int nextDelay = 0;
     int retry = 0;
+    RetryScheduler.Refusal refusal = null;
     /*
      * This loop is for retrying the request if the service is unavailable
      */
     for (; retry < minRetry || (System.currentTimeMillis() - startTime) < maxDelay; retry++) {
-      if (nextDelay > 0) {
-        try { Thread.sleep(nextDelay);} catch (InterruptedException e) {}
-      }
+      if (nextDelay > 0 && (refusal = retryScheduler.awaitRetry(nextDelay)) != null) break;
 
       /*
        * Execute the function which is passed as an argument
@@ -738,6 +982,7 @@ public class OkHttpServices implements RESTServices {
       status = response.code();
       if (!isRetryable || !retryStatus.contains(status)) {
         if (isFirstRequest()) setFirstRequest(false);
+        if (!retryStatus.contains(status)) retryScheduler.recordSuccess();
         /*
          * If we don't get a service unavailable status or if the request
          * is not retryable, we break from the retrying loop and return
@@ -770,10 +1015,7 @@ public class OkHttpServices implements RESTServices {
     if (retryStatus.contains(status)) {
       checkFirstRequest();
       closeResponse(response);
-      throw new FailedRetryException(
-        "Service unavailable and maximum retry period elapsed: "+
-          ((System.currentTimeMillis() - startTime) / 1000)+
-          " seconds after "+retry+" retries");
+      throw failedRetry(refusal, startTime, retry);
     }
     /*
      * Once we break from the retry loop, we just return the Response
@@ -782,12 +1024,117 @@ public class OkHttpServices implements RESTServices {
     return response;
   }
 
+  /*
+   * Sends the request without blocking the calling thread. Instead of sleeping
+   * while the service is unavailable, the retry is scheduled on the timer shared
+   * by all clients, and the future completes with the first response that
+   * doesn't call for a retry. The request body must be resendable.
+   *
+   * If the first request is sent by the caller, the calling thread waits for
+   * the first response but not for any retries.
+   */
+  private CompletableFuture<Response> sendRequestWithRetryAsync(Request request, boolean isRetryable) {
+    return sendRequestWithRetryAsync(request, isRetryable, false);
+  }
+
+  private CompletableFuture<Response> sendRequestWithRetryAsync(
+        Request request, boolean isRetryable, boolean isFirstSentByCaller
+  ) {
+    CompletableFuture<Response> future = new CompletableFuture<>();
+    long startTime = System.currentTimeMillis();
+    if (isFirstSentByCaller) {
+      Response response;
+      try {
+        response = sendRequestOnce(request);
+      } catch (MarkLogicIOException e) {
+        future.completeExceptionally(e);
+        return future;
+      }
+      receiveResponseAsync(request, isRetryable, future, startTime, 0, response);
+    } else {
+      sendRequestAsync(request, isRetryable, future, startTime, 0);
+    }
+    return future;
+  }
+
+  private void sendRequestAsync(
+        Request request, boolean isRetryable, CompletableFuture<Response> future, long startTime, int retry
+  ) {
+    getConnection().newCall(request).enqueue(new Callback() {
+      @Override
+      public void onFailure(Call call, IOException e) {
+        future.completeExceptionally(new MarkLogicIOException(e));
+      }
+      @Override
+      public void onResponse(Call call, Response response) {
+        receiveResponseAsync(request, isRetryable, future, startTime, retry, response);
+      }
+    });
+  }
+
+  private void receiveResponseAsync(
+        Request request, boolean isRetryable, CompletableFuture<Response> future, long startTime, int retry,
+        Response response
+  ) {
+    int status = response.code();
+    if (!isRetryable || !retryStatus.contains(status)) {
+      if (!retryStatus.contains(status)) retryScheduler.recordSuccess();
+      // the caller may have cancelled the future while the request was in flight
+      if (!future.complete(response)) closeResponse(response);
+      return;
+    }
+    int nextDelay = Math.max(getRetryAfterTime(response), calculateDelay(randRetry, retry));
+    closeResponse(response);
+    if (future.isDone()) return;
+
+    int nextRetry = retry + 1;
+    boolean isExpired = nextRetry >= minRetry && (System.currentTimeMillis() - startTime) >= maxDelay;
+    if (isExpired) {
+      future.completeExceptionally(failedRetry(null, startTime, nextRetry));
+      return;
+    }
+    retryScheduler.scheduleRetry(nextDelay).thenAccept(refusal -> {
+      if (refusal == null) {
+        sendRequestAsync(request, isRetryable, future, startTime, nextRetry);
+      } else {
+        future.completeExceptionally(failedRetry(refusal, startTime, nextRetry));
+      }
+    });
+  }
+
+  /*
+   * Reports why the retries of a request for an unavailable service ended:
+   * the maximum retry period elapsed unless the retry scheduler refused the retry.
+   */
+  private FailedRetryException failedRetry(RetryScheduler.Refusal refusal, long startTime, int retry) {
+    return new FailedRetryException(
+      "Service unavailable and "+
+        ((refusal != null) ? refusal.getReason() : "maximum retry period elapsed")+": "+
+        ((System.currentTimeMillis() - startTime) / 1000)+
+        " seconds after "+retry+" retries");
+  }
+
   private boolean getDocumentImpl(RequestLogger reqlog,
                                   DocumentDescriptor desc, Transaction transaction,
                                   Set<Metadata> categories, RequestParameters extraParams,
                                   String mimetype, AbstractReadHandle handle)
     throws ResourceNotFoundException, ForbiddenUserException, FailedRequestException
   {
+    Request.Builder requestBldr = makeGetDocumentRequest(desc, transaction, categories, extraParams, mimetype, handle);
+
+    Function<Request.Builder, Response> doGetFunction = new Function<Request.Builder, Response>() {
+      public Response apply(Request.Builder funcBuilder) {
+        return sendRequestOnce(funcBuilder.get().build());
+      }
+    };
+    Response response = sendRequestWithRetry(requestBldr, (transaction == null), doGetFunction, null);
+
+    return receiveDocument(reqlog, desc, transaction, categories, mimetype, handle, response);
+  }
+
+  private Request.Builder makeGetDocumentRequest(DocumentDescriptor desc, Transaction transaction,
+                                                 Set<Metadata> categories, RequestParameters extraParams,
+                                                 String mimetype, AbstractReadHandle handle) {
     String uri = desc.getUri();
     if (uri == null) {
       throw new IllegalArgumentException(
@@ -810,15 +1157,13 @@ public class OkHttpServices implements RESTServices {
       requestBldr = requestBldr.header("range", extraParams.get("range").get(0));
     }
 
-    requestBldr = addVersionHeader(desc, requestBldr, "If-None-Match");
-
-    Function<Request.Builder, Response> doGetFunction = new Function<Request.Builder, Response>() {
-      public Response apply(Request.Builder funcBuilder) {
-        return sendRequestOnce(funcBuilder.get().build());
-      }
-    };
-    Response response = sendRequestWithRetry(requestBldr, (transaction == null), doGetFunction, null);
+    return addVersionHeader(desc, requestBldr, "If-None-Match");
+  }
 
+  private boolean receiveDocument(RequestLogger reqlog, DocumentDescriptor desc, Transaction transaction,
+                                  Set<Metadata> categories, String mimetype, AbstractReadHandle handle,
+                                  Response response) {
+    String uri = desc.getUri();
     int status = response.code();
     if (status == STATUS_NOT_FOUND) {
       throw new ResourceNotFoundException(
@@ -880,7 +1225,7 @@ public class OkHttpServices implements RESTServices {
     OkHttpResultIterator iterator =
       getBulkDocumentsImpl(reqlog, serverTimestamp, transaction, categories, format, extraParams,
         withContent, uris);
-    return new OkHttpDocumentPage(iterator, withContent, hasMetadata);
+    return new OkHttpDocumentPage(iterator, withContent, hasMetadata, true);
   }
 
   @Override
@@ -905,24 +1250,52 @@ public class OkHttpServices implements RESTServices {
     private final OkHttpResultIterator iterator;
     private final boolean hasMetadata;
     private final boolean hasContent;
+    private final boolean isUriRead;
 
     OkHttpDocumentPage(OkHttpResultIterator iterator, boolean hasContent, boolean hasMetadata) {
+      this(iterator, hasContent, hasMetadata, false);
+    }
+
+    OkHttpDocumentPage(OkHttpResultIterator iterator, boolean hasContent, boolean hasMetadata, boolean isUriRead) {
       super(
         new ArrayList<DocumentRecord>().iterator(),
         iterator != null ? iterator.getStart() : 1,
-        iterator != null ? iterator.getPageSize() : 0,
-        iterator != null ? iterator.getTotalSize() : 0
+        0,
+        0
       );
       this.iterator = iterator;
       this.hasContent = hasContent;
       this.hasMetadata = hasMetadata;
-      if ( iterator == null ) {
-        setSize(0);
-      } else if ( hasContent && hasMetadata ) {
-        setSize(iterator.getSize() / 2);
-      } else {
-        setSize(iterator.getSize());
-      }
+      this.isUriRead = isUriRead;
+    }
+
+    // the parts are streamed from the response, so the page sizes come from
+    // the response headers or the requested uris instead of counting the parts
+    @Override
+    public long size() {
+      if ( iterator == null ) return 0;
+      long partCount = iterator.getSize();
+      // a read by uri omits missing documents, so only the parts tell the size
+      if ( partCount == -1 && isUriRead ) partCount = iterator.countParts();
+      if ( partCount == -1 ) return super.size();
+      return ( hasContent && hasMetadata ) ? partCount / 2 : partCount;
+    }
+
+    @Override
+    public boolean hasContent() {
+      return hasNext();
+    }
+
+    @Override
+    public long getPageSize() {
+      if ( iterator == null ) return 0;
+      return iterator.getPageSize();
+    }
+
+    @Override
+    public long getTotalSize() {
+      if ( iterator == null ) return 0;
+      return iterator.getTotalSize();
     }
 
     @Override
@@ -995,11 +1368,11 @@ public class OkHttpServices implements RESTServices {
     OkHttpResultIterator iterator = getIteratedResourceImpl(DefaultOkHttpResultIterator::new,
       reqlog, path, transaction, params, MIMETYPE_MULTIPART_MIXED);
     if ( iterator != null ) {
+      // every requested document is returned in a single page
+      long uriCount = params.get("uri") == null ? 0 : params.get("uri").size();
       if ( iterator.getStart() == -1 ) iterator.setStart(1);
-      if ( iterator.getSize() != -1 ) {
-        if ( iterator.getPageSize() == -1 ) iterator.setPageSize(iterator.getSize());
-        if ( iterator.getTotalSize() == -1 )  iterator.setTotalSize(iterator.getSize());
-      }
+      if ( iterator.getPageSize() == -1 ) iterator.setPageSize(uriCount);
+      if ( iterator.getTotalSize() == -1 ) iterator.setTotalSize(uriCount);
     }
     return iterator;
   }
@@ -1011,52 +1384,42 @@ public class OkHttpServices implements RESTServices {
                                                     RequestParameters extraParams, String forestName)
     throws ResourceNotFoundException, ForbiddenUserException, FailedRequestException
   {
-    try {
-      RequestParameters params = new RequestParameters();
-      if ( extraParams != null ) params.putAll(extraParams);
-      addCategoryParams(categories, params, true);
-      if ( searchHandle != null && view != null ) params.add("view", view.toString().toLowerCase());
-      if ( start > 1 ) params.add("start", Long.toString(start));
-      if ( pageLength >= 0 ) params.add("pageLength", Long.toString(pageLength));
-      if (serverTimestamp != -1) params.add("timestamp",  Long.toString(serverTimestamp));
-      addPointInTimeQueryParam(params, searchHandle);
-      if ( format != null ) params.add("format", format.toString().toLowerCase());
-      HandleImplementation handleBase = HandleAccessor.as(searchHandle);
-      if ( format == null && searchHandle != null ) {
-        if ( Format.XML == handleBase.getFormat() ) {
-          params.add("format", "xml");
-        } else if ( Format.JSON == handleBase.getFormat() ) {
-          params.add("format", "json");
-        }
+    RequestParameters params = new RequestParameters();
+    if ( extraParams != null ) params.putAll(extraParams);
+    addCategoryParams(categories, params, true);
+    if ( searchHandle != null && view != null ) params.add("view", view.toString().toLowerCase());
+    if ( start > 1 ) params.add("start", Long.toString(start));
+    if ( pageLength >= 0 ) params.add("pageLength", Long.toString(pageLength));
+    if (serverTimestamp != -1) params.add("timestamp",  Long.toString(serverTimestamp));
+    addPointInTimeQueryParam(params, searchHandle);
+    if ( format != null ) params.add("format", format.toString().toLowerCase());
+    HandleImplementation handleBase = HandleAccessor.as(searchHandle);
+    if ( format == null && searchHandle != null ) {
+      if ( Format.XML == handleBase.getFormat() ) {
+        params.add("format", "xml");
+      } else if ( Format.JSON == handleBase.getFormat() ) {
+        params.add("format", "json");
       }
+    }
 
-      OkHttpSearchRequest request =
-        generateSearchRequest(reqlog, querydef, MIMETYPE_MULTIPART_MIXED, transaction, responseTransform, params, forestName);
-      Response response = request.getResponse();
-      if ( response == null ) return null;
-      MimeMultipart entity = null;
-      if ( searchHandle != null ) {
-        updateServerTimestamp(handleBase, response.headers());
-        ResponseBody body = response.body();
-        if ( body.contentLength() != 0 ) {
-          entity = getEntity(body, MimeMultipart.class);
-          if ( entity != null ) {
-            List<BodyPart> partList = getPartList(entity);
-            if ( entity.getCount() > 0 ) {
-              BodyPart searchResponsePart = entity.getBodyPart(0);
-              handleBase.receiveContent(getEntity(searchResponsePart, handleBase.receiveAs()));
-              partList = partList.subList(1, partList.size());
-            }
-            Closeable closeable = response;
-            return makeResults(OkHttpServiceResultIterator::new, reqlog, "read", "resource", partList, response,
-              closeable);
-          }
+    OkHttpSearchRequest request =
+      generateSearchRequest(reqlog, querydef, MIMETYPE_MULTIPART_MIXED, transaction, responseTransform, params, forestName);
+    Response response = request.getResponse();
+    if ( response == null ) return null;
+    if ( searchHandle != null ) {
+      updateServerTimestamp(handleBase, response.headers());
+      MultipartReader partReader = getPartReader(response.body());
+      if ( partReader != null ) {
+        OkHttpBodyPart searchResponsePart = readPart(partReader);
+        if ( searchResponsePart != null ) {
+          handleBase.receiveContent(getEntity(searchResponsePart, handleBase.receiveAs()));
         }
+        Closeable closeable = response;
+        return makeResults(OkHttpServiceResultIterator::new, reqlog, "read", "resource", partReader, response,
+          closeable);
       }
-      return makeResults(OkHttpServiceResultIterator::new, reqlog, "read", "resource", response);
-    } catch (MessagingException e) {
-      throw new MarkLogicIOException(e);
     }
+    return makeResults(OkHttpServiceResultIterator::new, reqlog, "read", "resource", response);
   }
 
   private boolean getDocumentImpl(RequestLogger reqlog,
@@ -1066,15 +1429,31 @@ public class OkHttpServices implements RESTServices {
                                   AbstractReadHandle contentHandle)
     throws ResourceNotFoundException, ForbiddenUserException, FailedRequestException
   {
+    assert metadataHandle != null : "metadataHandle is null";
+    assert contentHandle != null : "contentHandle is null";
+
+    Request.Builder requestBldr = makeGetMultipartDocumentRequest(desc, transaction, categories, extraParams,
+      metadataFormat, contentHandle);
+
+    Function<Request.Builder, Response> doGetFunction = new Function<Request.Builder, Response>() {
+      public Response apply(Request.Builder funcBuilder) {
+        return sendRequestOnce(funcBuilder.addHeader(HEADER_ACCEPT, multipartMixedWithBoundary()).get());
+      }
+    };
+    Response response = sendRequestWithRetry(requestBldr, (transaction == null), doGetFunction, null);
+
+    return receiveMultipartDocument(reqlog, desc, transaction, categories, metadataHandle, contentHandle, response);
+  }
+
+  private Request.Builder makeGetMultipartDocumentRequest(DocumentDescriptor desc, Transaction transaction,
+                                                          Set<Metadata> categories, RequestParameters extraParams,
+                                                          String metadataFormat, AbstractReadHandle contentHandle) {
     String uri = desc.getUri();
     if (uri == null) {
       throw new IllegalArgumentException(
         "Document read for document identifier without uri");
     }
 
-    assert metadataHandle != null : "metadataHandle is null";
-    assert contentHandle != null : "contentHandle is null";
-
     logger.debug("Getting multipart for {} in transaction {}", uri, getTransactionId(transaction));
 
     addPointInTimeQueryParam(extraParams, contentHandle);
@@ -1085,14 +1464,13 @@ public class OkHttpServices implements RESTServices {
     Request.Builder requestBldr = makeDocumentResource(docParams);
     requestBldr = addTransactionScopedCookies(requestBldr, transaction);
     requestBldr = addTelemetryAgentId(requestBldr);
-    requestBldr = addVersionHeader(desc, requestBldr, "If-None-Match");
+    return addVersionHeader(desc, requestBldr, "If-None-Match");
+  }
 
-    Function<Request.Builder, Response> doGetFunction = new Function<Request.Builder, Response>() {
-      public Response apply(Request.Builder funcBuilder) {
-        return sendRequestOnce(funcBuilder.addHeader(HEADER_ACCEPT, multipartMixedWithBoundary()).get());
-      }
-    };
-    Response response = sendRequestWithRetry(requestBldr, (transaction == null), doGetFunction, null);
+  private boolean receiveMultipartDocument(RequestLogger reqlog, DocumentDescriptor desc, Transaction transaction,
+                                           Set<Metadata> categories, DocumentMetadataReadHandle metadataHandle,
+                                           AbstractReadHandle contentHandle, Response response) {
+    String uri = desc.getUri();
     int status = response.code();
     if (status == STATUS_NOT_FOUND) {
       throw new ResourceNotFoundException(
@@ -1276,16 +1654,7 @@ public class OkHttpServices implements RESTServices {
       metadataMimetype = metadataBase.getMimetype();
     }
 
-    Format descFormat = desc.getFormat();
-    String contentMimetype = (descFormat != null && descFormat != Format.UNKNOWN) ? desc.getMimetype() : null;
-    if (contentMimetype == null && contentBase != null) {
-      Format contentFormat = contentBase.getFormat();
-      if (descFormat != null && descFormat != contentFormat) {
-        contentMimetype = descFormat.getDefaultMimetype();
-      } else if (contentFormat != null && contentFormat != Format.UNKNOWN) {
-        contentMimetype = contentBase.getMimetype();
-      }
-    }
+    String contentMimetype = getContentMimetype(desc, contentBase);
 
     if (metadataBase != null && contentBase != null) {
       return putPostDocumentImpl(reqlog, "put", desc, transaction, categories,
@@ -1301,6 +1670,90 @@ public class OkHttpServices implements RESTServices {
     throw new IllegalArgumentException("Either metadataHandle or contentHandle must not be null");
   }
 
+  @Override
+  public CompletableFuture<TemporalDescriptor> putDocumentAsync(RequestLogger reqlog, DocumentDescriptor desc,
+                                                                Transaction transaction, Set<Metadata> categories,
+                                                                RequestParameters extraParams,
+                                                                DocumentMetadataWriteHandle metadataHandle,
+                                                                AbstractWriteHandle contentHandle)
+  {
+    if (desc.getUri() == null) {
+      throw new IllegalArgumentException(
+        "Document write for document identifier without uri");
+    }
+
+    HandleImplementation metadataBase = HandleAccessor.checkHandle(
+      metadataHandle, "metadata");
+    HandleImplementation contentBase = HandleAccessor.checkHandle(
+      contentHandle, "content");
+
+    // the request is sent by another thread and can be sent again, so the content must be resendable
+    if ((metadataBase != null && !metadataBase.isResendable()) ||
+        (contentBase != null && !contentBase.isResendable())) {
+      throw new IllegalArgumentException(
+        "Asynchronous write requires resendable handles for " + desc.getUri());
+    }
+
+    String metadataMimetype = null;
+    if (metadataBase != null) {
+      metadataMimetype = metadataBase.getMimetype();
+    }
+
+    String contentMimetype = getContentMimetype(desc, contentBase);
+
+    Request.Builder requestBldr = null;
+    if (metadataBase != null && contentBase != null) {
+      MultipartBody.Builder multiPart = new MultipartBody.Builder();
+      addParts(multiPart, reqlog,
+        new String[] { metadataMimetype, contentMimetype },
+        new AbstractWriteHandle[] { metadataHandle, contentHandle });
+      requestBldr = makeMultipartDocumentWriteRequest(reqlog, desc, transaction, categories, extraParams)
+        .put(multiPart.build());
+    } else if (metadataBase != null) {
+      requestBldr = makeDocumentWriteRequest(reqlog, desc, transaction, categories, false,
+        extraParams, metadataMimetype);
+      requestBldr = requestBldr.put(makeDocumentBody(reqlog, desc, metadataBase, requestBldr));
+    } else if (contentBase != null) {
+      requestBldr = makeDocumentWriteRequest(reqlog, desc, transaction, null, true,
+        extraParams, contentMimetype);
+      requestBldr = requestBldr.put(makeDocumentBody(reqlog, desc, contentBase, requestBldr));
+    } else {
+      throw new IllegalArgumentException("Either metadataHandle or contentHandle must not be null");
+    }
+
+    return sendRequestWithRetryAsync(requestBldr.build(), (transaction == null))
+      .thenApply(response -> receiveWrittenDocument(desc, response));
+  }
+
+  private String getContentMimetype(DocumentDescriptor desc, HandleImplementation contentBase) {
+    Format descFormat = desc.getFormat();
+    String contentMimetype = (descFormat != null && descFormat != Format.UNKNOWN) ? desc.getMimetype() : null;
+    if (contentMimetype == null && contentBase != null) {
+      Format contentFormat = contentBase.getFormat();
+      if (descFormat != null && descFormat != contentFormat) {
+        contentMimetype = descFormat.getDefaultMimetype();
+      } else if (contentFormat != null && contentFormat != Format.UNKNOWN) {
+        contentMimetype = contentBase.getMimetype();
+      }
+    }
+    return contentMimetype;
+  }
+
+  private RequestBody makeDocumentBody(RequestLogger reqlog, DocumentDescriptor desc,
+                                       HandleImplementation handleBase, Request.Builder requestBldr) {
+    Object value = handleBase.sendContent();
+    if (value == null) {
+      throw new IllegalArgumentException(
+        "Document write with null value for " + desc.getUri());
+    }
+
+    MediaType mediaType = makeType(requestBldr.build().header(HEADER_CONTENT_TYPE));
+    if (value instanceof OutputStreamSender) {
+      return new StreamingOutputImpl((OutputStreamSender) value, reqlog, mediaType);
+    }
+    return new ObjectRequestBody((reqlog != null) ? reqlog.copyContent(value) : value, mediaType);
+  }
+
   @Override
   public DocumentDescriptorImpl postDocument(RequestLogger reqlog, DocumentUriTemplate template,
                                              Transaction transaction, Set<Metadata> categories, RequestParameters extraParams,
@@ -1362,29 +1815,8 @@ public class OkHttpServices implements RESTServices {
 
     HandleImplementation handleBase = HandleAccessor.as(handle);
 
-    logger.debug("Sending {} document in transaction {}",
-        (uri != null) ? uri : "new", getTransactionId(transaction));
-
-    logRequest(
-      reqlog,
-      "writing %s document from %s transaction with %s mime type and %s metadata categories",
-      (uri != null) ? uri : "new",
-      (transaction != null) ? transaction.getTransactionId() : "no",
-      (mimetype != null) ? mimetype : "no",
-      stringJoin(categories, ", ", "no"));
-
-    Request.Builder requestBldr = makeDocumentResource(
-      makeDocumentParams(
-        uri, categories, transaction, extraParams, isOnContent
-      ));
-
-    requestBldr = requestBldr.header(HEADER_CONTENT_TYPE,
-      (mimetype != null) ? mimetype : MIMETYPE_WILDCARD);
-    requestBldr = addTransactionScopedCookies(requestBldr, transaction);
-    requestBldr = addTelemetryAgentId(requestBldr);
-    if (uri != null) {
-      requestBldr = addVersionHeader(desc, requestBldr, "If-Match");
-    }
+    Request.Builder requestBldr = makeDocumentWriteRequest(reqlog, desc, transaction, categories, isOnContent,
+      extraParams, mimetype);
 
     if ("patch".equals(method)) {
       requestBldr = requestBldr.header("X-HTTP-Method-Override", "PATCH");
@@ -1394,17 +1826,12 @@ public class OkHttpServices implements RESTServices {
 
     Response response = null;
     int status = -1;
-    Headers responseHeaders = null;
     long startTime = System.currentTimeMillis();
     int nextDelay = 0;
     int retry = 0;
+    RetryScheduler.Refusal refusal = null;
     for (; retry < minRetry || (System.currentTimeMillis() - startTime) < maxDelay; retry++) {
-      if (nextDelay > 0) {
-        try {
-          Thread.sleep(nextDelay);
-        } catch (InterruptedException e) {
-        }
-      }
+      if (nextDelay > 0 && (refusal = retryScheduler.awaitRetry(nextDelay)) != null) break;
 
       Object value = handleBase.sendContent();
       if (value == null) {
@@ -1437,9 +1864,9 @@ public class OkHttpServices implements RESTServices {
 
       status = response.code();
 
-      responseHeaders = response.headers();
       if (transaction != null || !retryStatus.contains(status)) {
         if (isFirstRequest()) setFirstRequest(false);
+        if (!retryStatus.contains(status)) retryScheduler.recordSuccess();
 
         break;
       }
@@ -1460,160 +1887,54 @@ public class OkHttpServices implements RESTServices {
     if (retryStatus.contains(status)) {
       checkFirstRequest();
       closeResponse(response);
-      throw new FailedRetryException(
-        "Service unavailable and maximum retry period elapsed: "+
-          ((System.currentTimeMillis() - startTime) / 1000)+
-          " seconds after "+retry+" retries");
-    }
-    if (status == STATUS_NOT_FOUND) {
-      throw new ResourceNotFoundException(
-        "Could not write non-existent document",
-        extractErrorFields(response));
-    }
-    if (status == STATUS_PRECONDITION_REQUIRED) {
-      FailedRequest failure = extractErrorFields(response);
-      if (failure.getMessageCode().equals("RESTAPI-CONTENTNOVERSION")) {
-        throw new FailedRequestException(
-          "Content version required to write document", failure);
-      }
-      throw new FailedRequestException(
-        "Precondition required to write document", failure);
-    } else if (status == STATUS_FORBIDDEN) {
-      FailedRequest failure = extractErrorFields(response);
-      throw new ForbiddenUserException(
-        "User is not allowed to write documents", failure);
-    }
-    if (status == STATUS_PRECONDITION_FAILED) {
-      FailedRequest failure = extractErrorFields(response);
-      if (failure.getMessageCode().equals("RESTAPI-CONTENTWRONGVERSION")) {
-        throw new FailedRequestException(
-          "Content version must match to write document", failure);
-      } else if (failure.getMessageCode().equals("RESTAPI-EMPTYBODY")) {
-        throw new FailedRequestException(
-          "Empty request body sent to server", failure);
-      }
-      throw new FailedRequestException("Precondition Failed", failure);
+      throw failedRetry(refusal, startTime, retry);
     }
     if (status == -1) {
       throw new FailedRequestException("write failed: Unknown Reason", extractErrorFields(response));
     }
-    if (status != STATUS_CREATED && status != STATUS_NO_CONTENT) {
-      throw new FailedRequestException("write failed: "
-        + getReasonPhrase(response), extractErrorFields(response));
-    }
 
-    if (uri == null) {
-      String location = response.header("Location");
-      if (location != null) {
-        int offset = location.indexOf(DOCUMENT_URI_PREFIX);
-        if (offset == -1) {
-          closeResponse(response);
-          throw new MarkLogicInternalException(
-            "document create produced invalid location: " + location);
-        }
-        uri = location.substring(offset + DOCUMENT_URI_PREFIX.length());
-        if (uri == null) {
-          closeResponse(response);
-          throw new MarkLogicInternalException(
-            "document create produced location without uri: " + location);
-        }
-        desc.setUri(uri);
-        updateVersion(desc, responseHeaders);
-        updateDescriptor(desc, responseHeaders);
-      }
-    }
-    TemporalDescriptor temporalDesc = updateTemporalSystemTime(desc, responseHeaders);
-    closeResponse(response);
-    return temporalDesc;
+    return receiveWrittenDocument(desc, response);
   }
 
-  private TemporalDescriptor putPostDocumentImpl(RequestLogger reqlog, String method, DocumentDescriptor desc,
-                                                 Transaction transaction, Set<Metadata> categories, RequestParameters extraParams,
-                                                 String metadataMimetype, DocumentMetadataWriteHandle metadataHandle, String contentMimetype,
-                                                 AbstractWriteHandle contentHandle)
-    throws ResourceNotFoundException, ResourceNotResendableException,ForbiddenUserException, FailedRequestException
-  {
+  private Request.Builder makeDocumentWriteRequest(RequestLogger reqlog, DocumentDescriptor desc,
+                                                   Transaction transaction, Set<Metadata> categories, boolean isOnContent,
+                                                   RequestParameters extraParams, String mimetype) {
     String uri = desc.getUri();
 
-    logger.debug("Sending {} multipart document in transaction {}",
-      (uri != null) ? uri : "new", getTransactionId(transaction));
+    logger.debug("Sending {} document in transaction {}",
+        (uri != null) ? uri : "new", getTransactionId(transaction));
 
     logRequest(
       reqlog,
-      "writing %s document from %s transaction with %s metadata categories and content",
+      "writing %s document from %s transaction with %s mime type and %s metadata categories",
       (uri != null) ? uri : "new",
       (transaction != null) ? transaction.getTransactionId() : "no",
+      (mimetype != null) ? mimetype : "no",
       stringJoin(categories, ", ", "no"));
 
-    RequestParameters docParams =
-      makeDocumentParams(uri, categories, transaction, extraParams, true);
+    Request.Builder requestBldr = makeDocumentResource(
+      makeDocumentParams(
+        uri, categories, transaction, extraParams, isOnContent
+      ));
 
-    Request.Builder requestBldr = makeDocumentResource(docParams)
-      .addHeader(HEADER_ACCEPT, MIMETYPE_MULTIPART_MIXED);
+    requestBldr = requestBldr.header(HEADER_CONTENT_TYPE,
+      (mimetype != null) ? mimetype : MIMETYPE_WILDCARD);
     requestBldr = addTransactionScopedCookies(requestBldr, transaction);
     requestBldr = addTelemetryAgentId(requestBldr);
     if (uri != null) {
-      requestBldr = addVersionHeader(desc, requestBldr, "If-Match");
-    }
-
-    Response response = null;
-    int status = -1;
-    Headers responseHeaders = null;
-    long startTime = System.currentTimeMillis();
-    int nextDelay = 0;
-    int retry = 0;
-    for (; retry < minRetry || (System.currentTimeMillis() - startTime) < maxDelay; retry++) {
-      if (nextDelay > 0) {
-        try {
-          Thread.sleep(nextDelay);
-        } catch (InterruptedException e) {
-        }
-      }
-
-      MultipartBody.Builder multiPart = new MultipartBody.Builder();
-      boolean hasStreamingPart = addParts(multiPart, reqlog,
-        new String[] { metadataMimetype, contentMimetype },
-        new AbstractWriteHandle[] { metadataHandle, contentHandle });
-
-      if (isFirstRequest() && hasStreamingPart) {
-        nextDelay = makeFirstRequest(retry);
-        if (nextDelay != 0) continue;
-      }
-
-      requestBldr = ("put".equals(method)) ?  requestBldr.put(multiPart.build()) : requestBldr.post(multiPart.build());
-      response = sendRequestOnce(requestBldr);
-      status = response.code();
-
-      responseHeaders = response.headers();
-      if (transaction != null || !retryStatus.contains(status)) {
-        if (isFirstRequest()) setFirstRequest(false);
-
-        break;
-      }
-      String retryAfterRaw = response.header("Retry-After");
-      closeResponse(response);
-
-      if (hasStreamingPart) {
-        throw new ResourceNotResendableException(
-          "Cannot retry request for " +
-            ((uri != null) ? uri : "new document"));
-      }
-
-      int retryAfter = Utilities.parseInt(retryAfterRaw);
-      nextDelay = Math.max(retryAfter, calculateDelay(randRetry, retry));
-    }
-    if (retryStatus.contains(status)) {
-      checkFirstRequest();
-      closeResponse(response);
-      throw new FailedRetryException(
-        "Service unavailable and maximum retry period elapsed: "+
-          ((System.currentTimeMillis() - startTime) / 1000)+
-          " seconds after "+retry+" retries");
+      requestBldr = addVersionHeader(desc, requestBldr, "If-Match");
     }
+    return requestBldr;
+  }
+
+  private TemporalDescriptor receiveWrittenDocument(DocumentDescriptor desc, Response response) {
+    String uri = desc.getUri();
+    int status = response.code();
+    Headers responseHeaders = response.headers();
     if (status == STATUS_NOT_FOUND) {
-      closeResponse(response);
       throw new ResourceNotFoundException(
-        "Could not write non-existent document");
+        "Could not write non-existent document",
+        extractErrorFields(response));
     }
     if (status == STATUS_PRECONDITION_REQUIRED) {
       FailedRequest failure = extractErrorFields(response);
@@ -1669,6 +1990,94 @@ public class OkHttpServices implements RESTServices {
     return temporalDesc;
   }
 
+  private TemporalDescriptor putPostDocumentImpl(RequestLogger reqlog, String method, DocumentDescriptor desc,
+                                                 Transaction transaction, Set<Metadata> categories, RequestParameters extraParams,
+                                                 String metadataMimetype, DocumentMetadataWriteHandle metadataHandle, String contentMimetype,
+                                                 AbstractWriteHandle contentHandle)
+    throws ResourceNotFoundException, ResourceNotResendableException,ForbiddenUserException, FailedRequestException
+  {
+    String uri = desc.getUri();
+
+    Request.Builder requestBldr = makeMultipartDocumentWriteRequest(reqlog, desc, transaction, categories, extraParams);
+
+    Response response = null;
+    int status = -1;
+    long startTime = System.currentTimeMillis();
+    int nextDelay = 0;
+    int retry = 0;
+    RetryScheduler.Refusal refusal = null;
+    for (; retry < minRetry || (System.currentTimeMillis() - startTime) < maxDelay; retry++) {
+      if (nextDelay > 0 && (refusal = retryScheduler.awaitRetry(nextDelay)) != null) break;
+
+      MultipartBody.Builder multiPart = new MultipartBody.Builder();
+      boolean hasStreamingPart = addParts(multiPart, reqlog,
+        new String[] { metadataMimetype, contentMimetype },
+        new AbstractWriteHandle[] { metadataHandle, contentHandle });
+
+      if (isFirstRequest() && hasStreamingPart) {
+        nextDelay = makeFirstRequest(retry);
+        if (nextDelay != 0) continue;
+      }
+
+      requestBldr = ("put".equals(method)) ?  requestBldr.put(multiPart.build()) : requestBldr.post(multiPart.build());
+      response = sendRequestOnce(requestBldr);
+      status = response.code();
+
+      if (transaction != null || !retryStatus.contains(status)) {
+        if (isFirstRequest()) setFirstRequest(false);
+        if (!retryStatus.contains(status)) retryScheduler.recordSuccess();
+
+        break;
+      }
+      String retryAfterRaw = response.header("Retry-After");
+      closeResponse(response);
+
+      if (hasStreamingPart) {
+        throw new ResourceNotResendableException(
+          "Cannot retry request for " +
+            ((uri != null) ? uri : "new document"));
+      }
+
+      int retryAfter = Utilities.parseInt(retryAfterRaw);
+      nextDelay = Math.max(retryAfter, calculateDelay(randRetry, retry));
+    }
+    if (retryStatus.contains(status)) {
+      checkFirstRequest();
+      closeResponse(response);
+      throw failedRetry(refusal, startTime, retry);
+    }
+
+    return receiveWrittenDocument(desc, response);
+  }
+
+  private Request.Builder makeMultipartDocumentWriteRequest(RequestLogger reqlog, DocumentDescriptor desc,
+                                                            Transaction transaction, Set<Metadata> categories,
+                                                            RequestParameters extraParams) {
+    String uri = desc.getUri();
+
+    logger.debug("Sending {} multipart document in transaction {}",
+      (uri != null) ? uri : "new", getTransactionId(transaction));
+
+    logRequest(
+      reqlog,
+      "writing %s document from %s transaction with %s metadata categories and content",
+      (uri != null) ? uri : "new",
+      (transaction != null) ? transaction.getTransactionId() : "no",
+      stringJoin(categories, ", ", "no"));
+
+    RequestParameters docParams =
+      makeDocumentParams(uri, categories, transaction, extraParams, true);
+
+    Request.Builder requestBldr = makeDocumentResource(docParams)
+      .addHeader(HEADER_ACCEPT, MIMETYPE_MULTIPART_MIXED);
+    requestBldr = addTransactionScopedCookies(requestBldr, transaction);
+    requestBldr = addTelemetryAgentId(requestBldr);
+    if (uri != null) {
+      requestBldr = addVersionHeader(desc, requestBldr, "If-Match");
+    }
+    return requestBldr;
+  }
+
   @Override
   public void patchDocument(RequestLogger reqlog, DocumentDescriptor desc, Transaction transaction,
                             Set<Metadata> categories, boolean isOnContent, DocumentPatchHandle patchHandle)
@@ -1919,10 +2328,23 @@ public class OkHttpServices implements RESTServices {
   }
 
   static private Format getHeaderFormat(BodyPart part) {
-    String contentDisposition = getHeader(part, HEADER_CONTENT_DISPOSITION);
+    return getHeaderFormat(
+      getHeader(part, HEADER_CONTENT_DISPOSITION),
+      getHeader(part, HEADER_VND_MARKLOGIC_DOCUMENT_FORMAT),
+      getHeader(part, HEADER_CONTENT_TYPE)
+    );
+  }
+
+  static private Format getHeaderFormat(OkHttpBodyPart part) {
+    return getHeaderFormat(
+      part.getHeader(HEADER_CONTENT_DISPOSITION),
+      part.getHeader(HEADER_VND_MARKLOGIC_DOCUMENT_FORMAT),
+      part.getHeader(HEADER_CONTENT_TYPE)
+    );
+  }
+
+  static private Format getHeaderFormat(String contentDisposition, String format, String contentType) {
     String formatRegex = ".* format=(text|binary|xml|json).*";
-    String format = getHeader(part, HEADER_VND_MARKLOGIC_DOCUMENT_FORMAT);
-    String contentType = getHeader(part, HEADER_CONTENT_TYPE);
     if ( format != null && format.length() > 0 ) {
       return Format.valueOf(format.toUpperCase());
     } else if ( contentDisposition != null && contentDisposition.matches(formatRegex) ) {
@@ -2008,18 +2430,6 @@ public class OkHttpServices implements RESTServices {
     return Utilities.parseLong(length, ContentDescriptor.UNKNOWN_LENGTH);
   }
 
-  static private String getHeaderUri(BodyPart part) {
-    try {
-      if ( part != null ) {
-        return part.getFileName();
-      }
-      // if it's not found, just return null
-      return null;
-    } catch(MessagingException e) {
-      throw new MarkLogicIOException(e);
-    }
-  }
-
   static private void updateVersion(DocumentDescriptor descriptor, Headers headers) {
       updateVersion(descriptor, extractVersion(headers.get(HEADER_ETAG)));
   }
@@ -2298,13 +2708,9 @@ public class OkHttpServices implements RESTServices {
       long startTime = System.currentTimeMillis();
       int nextDelay = 0;
       int retry = 0;
+      RetryScheduler.Refusal refusal = null;
       for (; retry < minRetry || (System.currentTimeMillis() - startTime) < maxDelay; retry++) {
-        if (nextDelay > 0) {
-          try {
-            Thread.sleep(nextDelay);
-          } catch (InterruptedException e) {
-          }
-        }
+        if (nextDelay > 0 && (refusal = retryScheduler.awaitRetry(nextDelay)) != null) break;
 
         if (queryDef instanceof StructuredQueryDefinition && ! (queryDef instanceof RawQueryDefinition)) {
           response = doPost(reqlog, requestBldr, structure);
@@ -2329,6 +2735,7 @@ public class OkHttpServices implements RESTServices {
 
         if (transaction != null || !retryStatus.contains(status)) {
           if (isFirstRequest()) setFirstRequest(false);
+          if (!retryStatus.contains(status)) retryScheduler.recordSuccess();
 
           break;
         }
@@ -2343,10 +2750,7 @@ public class OkHttpServices implements RESTServices {
       if (retryStatus.contains(status)) {
         checkFirstRequest();
         closeResponse(response);
-        throw new FailedRetryException(
-          "Service unavailable and maximum retry period elapsed: "+
-            ((System.currentTimeMillis() - startTime) / 1000)+
-            " seconds after "+retry+" retries");
+        throw failedRetry(refusal, startTime, retry);
       }
       if (status == STATUS_NOT_FOUND) {
         closeResponse(response);
@@ -2446,6 +2850,29 @@ public class OkHttpServices implements RESTServices {
     deleteResource(logger, "documents", transaction, params, null);
   }
 
+  @Override
+  public CompletableFuture<Void> deleteAsync(RequestLogger reqlog, Transaction transaction, String... uris)
+  {
+    RequestParameters params = new RequestParameters();
+    for ( String uri : uris ) {
+      params.add("uri", uri);
+    }
+    if ( transaction != null ) params.add("txid", transaction.getTransactionId());
+
+    Request.Builder requestBldr = makeDeleteWebResource("documents", params);
+    requestBldr = addTransactionScopedCookies(requestBldr, transaction);
+    requestBldr = addTelemetryAgentId(requestBldr);
+
+    return sendRequestWithRetryAsync(requestBldr.delete().build(), (transaction == null))
+      .thenApply(response -> {
+        checkStatus(response, response.code(), "delete", "resource", "documents",
+          ResponseStatus.OK_OR_NO_CONTENT);
+        closeResponse(response);
+        logRequest(reqlog, "deleted %s documents", uris.length);
+        return null;
+      });
+  }
+
   @Override
   public <T> T values(Class<T> as, ValuesDefinition valDef, String mimetype,
                       long start, long pageLength, Transaction transaction)
@@ -2860,13 +3287,9 @@ public class OkHttpServices implements RESTServices {
     long startTime = System.currentTimeMillis();
     int nextDelay = 0;
     int retry = 0;
+    RetryScheduler.Refusal refusal = null;
     for (; retry < minRetry || (System.currentTimeMillis() - startTime) < maxDelay; retry++) {
-      if (nextDelay > 0) {
-        try {
-          Thread.sleep(nextDelay);
-        } catch (InterruptedException e) {
-        }
-      }
+      if (nextDelay > 0 && (refusal = retryScheduler.awaitRetry(nextDelay)) != null) break;
 
       Object nextValue = (handle != null) ? handle.sendContent() : value;
 
@@ -2924,6 +3347,7 @@ public class OkHttpServices implements RESTServices {
 
       if (!retryStatus.contains(status)) {
         if (isFirstRequest()) setFirstRequest(false);
+        retryScheduler.recordSuccess();
         break;
       }
 
@@ -2942,10 +3366,7 @@ public class OkHttpServices implements RESTServices {
     if (retryStatus.contains(status)) {
       checkFirstRequest();
       closeResponse(response);
-      throw new FailedRetryException(
-        "Service unavailable and maximum retry period elapsed: "+
-          ((System.currentTimeMillis() - startTime) / 1000)+
-          " seconds after "+retry+" retries");
+      throw failedRetry(refusal, startTime, retry);
     }
     if (status == STATUS_FORBIDDEN) {
       throw new ForbiddenUserException("User is not allowed to write "
@@ -3331,13 +3752,9 @@ public class OkHttpServices implements RESTServices {
     long startTime = System.currentTimeMillis();
     int nextDelay = 0;
     int retry = 0;
+    RetryScheduler.Refusal refusal = null;
     for (; retry < minRetry || (System.currentTimeMillis() - startTime) < maxDelay; retry++) {
-      if (nextDelay > 0) {
-        try {
-          Thread.sleep(nextDelay);
-        } catch (InterruptedException e) {
-        }
-      }
+      if (nextDelay > 0 && (refusal = retryScheduler.awaitRetry(nextDelay)) != null) break;
 
       MultipartBody.Builder multiPart = new MultipartBody.Builder();
       boolean hasStreamingPart = addParts(multiPart, reqlog, input);
@@ -3352,6 +3769,7 @@ public class OkHttpServices implements RESTServices {
 
       if (transaction != null || !retryStatus.contains(status)) {
         if (isFirstRequest()) setFirstRequest(false);
+        if (!retryStatus.contains(status)) retryScheduler.recordSuccess();
 
         break;
       }
@@ -3370,10 +3788,7 @@ public class OkHttpServices implements RESTServices {
     if (retryStatus.contains(status)) {
       checkFirstRequest();
       closeResponse(response);
-      throw new FailedRetryException(
-        "Service unavailable and maximum retry period elapsed: "+
-          ((System.currentTimeMillis() - startTime) / 1000)+
-          " seconds after "+retry+" retries");
+      throw failedRetry(refusal, startTime, retry);
     }
 
     checkStatus(response, status, "write", "resource", path,
@@ -3510,13 +3925,9 @@ public class OkHttpServices implements RESTServices {
     long startTime = System.currentTimeMillis();
     int nextDelay = 0;
     int retry = 0;
+    RetryScheduler.Refusal refusal = null;
     for (; retry < minRetry || (System.currentTimeMillis() - startTime) < maxDelay; retry++) {
-      if (nextDelay > 0) {
-        try {
-          Thread.sleep(nextDelay);
-        } catch (InterruptedException e) {
-        }
-      }
+      if (nextDelay > 0 && (refusal = retryScheduler.awaitRetry(nextDelay)) != null) break;
 
       MultipartBody.Builder multiPart = new MultipartBody.Builder();
       boolean hasStreamingPart = addParts(multiPart, reqlog, null, input, requestHeaders);
@@ -3531,6 +3942,7 @@ public class OkHttpServices implements RESTServices {
 
       if (transaction != null || !retryStatus.contains(status)) {
         if (isFirstRequest()) setFirstRequest(false);
+        if (!retryStatus.contains(status)) retryScheduler.recordSuccess();
 
         break;
       }
@@ -3549,10 +3961,7 @@ public class OkHttpServices implements RESTServices {
     if (retryStatus.contains(status)) {
       checkFirstRequest();
       closeResponse(response);
-      throw new FailedRetryException(
-        "Service unavailable and maximum retry period elapsed: "+
-          ((System.currentTimeMillis() - startTime) / 1000)+
-          " seconds after "+retry+" retries");
+      throw failedRetry(refusal, startTime, retry);
     }
 
     checkStatus(response, status, "apply", "resource", path,
@@ -3575,10 +3984,97 @@ public class OkHttpServices implements RESTServices {
     String temporalCollection, String extraContentDispositionParams)
     throws ForbiddenUserException,  FailedRequestException
   {
-    CharsetEncoder asciiEncoder = java.nio.charset.StandardCharsets.US_ASCII.newEncoder();
+    List<AbstractWriteHandle> writeHandles = new ArrayList<AbstractWriteHandle>();
+    List<RequestParameters> headerList = new ArrayList<RequestParameters>();
+    addBulkWriteParts(writeSet, defaultFormat, extraContentDispositionParams, writeHandles, headerList);
+
+    return postResource(reqlog, "documents", transaction, makeBulkWriteParams(transform, temporalCollection),
+      (AbstractWriteHandle[]) writeHandles.toArray(new AbstractWriteHandle[0]),
+      (RequestParameters[]) headerList.toArray(new RequestParameters[0]),
+      output);
+  }
+
+  @Override
+  public CompletableFuture<Void> postBulkDocumentsAsync(
+    RequestLogger reqlog, DocumentWriteSet writeSet,
+    ServerTransform transform, Transaction transaction, Format defaultFormat,
+    String temporalCollection, String extraContentDispositionParams)
+  {
+    List<AbstractWriteHandle> writeHandles = new ArrayList<AbstractWriteHandle>();
+    List<RequestParameters> headerList = new ArrayList<RequestParameters>();
+    addBulkWriteParts(writeSet, defaultFormat, extraContentDispositionParams, writeHandles, headerList);
 
+    return postBulkDocumentsAsync(reqlog, writeSet, transform, transaction, temporalCollection,
+      writeHandles, headerList, false);
+  }
+
+  @Override
+  public CompletableFuture<Void> postBulkDocumentsWithAsyncRetry(
+    RequestLogger reqlog, DocumentWriteSet writeSet,
+    ServerTransform transform, Format defaultFormat,
+    String temporalCollection, String extraContentDispositionParams)
+  {
     List<AbstractWriteHandle> writeHandles = new ArrayList<AbstractWriteHandle>();
     List<RequestParameters> headerList = new ArrayList<RequestParameters>();
+    addBulkWriteParts(writeSet, defaultFormat, extraContentDispositionParams, writeHandles, headerList);
+
+    // streaming content can't be resent, so the write doesn't wait for any retries anyway
+    for (AbstractWriteHandle writeHandle : writeHandles) {
+      if (!HandleAccessor.isResendable(writeHandle)) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        try {
+          postResource(reqlog, "documents", null, makeBulkWriteParams(transform, temporalCollection),
+            writeHandles.toArray(new AbstractWriteHandle[0]),
+            headerList.toArray(new RequestParameters[0]),
+            null);
+          future.complete(null);
+        } catch (RuntimeException e) {
+          future.completeExceptionally(e);
+        }
+        return future;
+      }
+    }
+
+    return postBulkDocumentsAsync(reqlog, writeSet, transform, null, temporalCollection,
+      writeHandles, headerList, true);
+  }
+
+  private CompletableFuture<Void> postBulkDocumentsAsync(
+    RequestLogger reqlog, DocumentWriteSet writeSet, ServerTransform transform, Transaction transaction,
+    String temporalCollection, List<AbstractWriteHandle> writeHandles, List<RequestParameters> headerList,
+    boolean isFirstSentByCaller)
+  {
+    RequestParameters params = makeBulkWriteParams(transform, temporalCollection);
+    if ( transaction != null ) params.add("txid", transaction.getTransactionId());
+
+    MultipartBody.Builder multiPart = new MultipartBody.Builder();
+    boolean hasStreamingPart = addParts(multiPart, reqlog, null,
+      writeHandles.toArray(new AbstractWriteHandle[0]),
+      headerList.toArray(new RequestParameters[0]));
+    // the request is sent by another thread and can be sent again, so the content must be resendable
+    if (hasStreamingPart) {
+      throw new IllegalArgumentException("Asynchronous write requires resendable handles");
+    }
+
+    Request.Builder requestBldr = makePostWebResource("documents", params);
+    requestBldr = setupRequest(requestBldr, multiPart, null);
+    requestBldr = addTransactionScopedCookies(requestBldr, transaction);
+    requestBldr = addTelemetryAgentId(requestBldr);
+
+    return sendRequestWithRetryAsync(requestBldr.post(multiPart.build()).build(), (transaction == null), isFirstSentByCaller)
+      .thenApply(response -> {
+        checkStatus(response, response.code(), "apply", "resource", "documents",
+          ResponseStatus.OK_OR_CREATED_OR_NO_CONTENT);
+        closeResponse(response);
+        logRequest(reqlog, "wrote %s documents", writeSet.size());
+        return null;
+      });
+  }
+
+  private void addBulkWriteParts(DocumentWriteSet writeSet, Format defaultFormat, String extraContentDispositionParams,
+                                 List<AbstractWriteHandle> writeHandles, List<RequestParameters> headerList) {
+    CharsetEncoder asciiEncoder = java.nio.charset.StandardCharsets.US_ASCII.newEncoder();
+
     for ( DocumentWriteOperation write : writeSet ) {
       HandleImplementation metadata = HandleAccessor.checkHandle(write.getMetadata(), "write");
       HandleImplementation content = HandleAccessor.checkHandle(write.getContent(), "write");
@@ -3624,15 +4120,15 @@ public class OkHttpServices implements RESTServices {
         writeHandles.add(write.getContent());
       }
     }
+  }
+
+  private RequestParameters makeBulkWriteParams(ServerTransform transform, String temporalCollection) {
     RequestParameters params = new RequestParameters();
     if ( transform != null ) {
       transform.merge(params);
     }
     if ( temporalCollection != null ) params.add("temporal-collection", temporalCollection);
-    return postResource(reqlog, "documents", transaction, params,
-      (AbstractWriteHandle[]) writeHandles.toArray(new AbstractWriteHandle[0]),
-      (RequestParameters[]) headerList.toArray(new RequestParameters[0]),
-      output);
+    return params;
   }
 
     public class OkHttpEvalResultIterator implements EvalResultIterator {
@@ -4021,13 +4517,9 @@ public class OkHttpServices implements RESTServices {
     long startTime = System.currentTimeMillis();
     int nextDelay = 0;
     int retry = 0;
+    RetryScheduler.Refusal refusal = null;
     for (; retry < minRetry || (System.currentTimeMillis() - startTime) < maxDelay; retry++) {
-      if (nextDelay > 0) {
-        try {
-          Thread.sleep(nextDelay);
-        } catch (InterruptedException e) {
-        }
-      }
+      if (nextDelay > 0 && (refusal = retryScheduler.awaitRetry(nextDelay)) != null) break;
 
       MultipartBody.Builder multiPart = new MultipartBody.Builder();
       boolean hasStreamingPart = addParts(multiPart, reqlog, input);
@@ -4045,6 +4537,7 @@ public class OkHttpServices implements RESTServices {
 
       if (transaction != null || !retryStatus.contains(status)) {
         if (isFirstRequest()) setFirstRequest(false);
+        if (!retryStatus.contains(status)) retryScheduler.recordSuccess();
 
         break;
       }
@@ -4063,10 +4556,7 @@ public class OkHttpServices implements RESTServices {
     if (retryStatus.contains(status)) {
       checkFirstRequest();
       closeResponse(response);
-      throw new FailedRetryException(
-        "Service unavailable and maximum retry period elapsed: "+
-          ((System.currentTimeMillis() - startTime) / 1000)+
-          " seconds after "+retry+" retries");
+      throw failedRetry(refusal, startTime, retry);
     }
 
     checkStatus(response, status, "apply", "resource", path,
@@ -4496,25 +4986,21 @@ public class OkHttpServices implements RESTServices {
     ResultIteratorConstructor<U> constructor, RequestLogger reqlog,
     String operation, String entityType, Response response) {
     if ( response == null ) return null;
-    ResponseBody body = response.body();
-    MimeMultipart entity = body.contentLength() != 0 ?
-      getEntity(body, MimeMultipart.class) : null;
-
-    List<BodyPart> partList = getPartList(entity);
+    MultipartReader partReader = getPartReader(response.body());
     Closeable closeable = response;
-    return makeResults(constructor, reqlog, operation, entityType, partList, response, closeable);
+    return makeResults(constructor, reqlog, operation, entityType, partReader, response, closeable);
   }
 
   private <U extends OkHttpResultIterator> U makeResults(
     ResultIteratorConstructor<U> constructor, RequestLogger reqlog,
-    String operation, String entityType, List<BodyPart> partList, Response response,
+    String operation, String entityType, MultipartReader partReader, Response response,
     Closeable closeable) {
     logRequest(reqlog, "%s for %s", operation, entityType);
 
     if ( response == null ) return null;
 
     try {
-      OkHttpResultIterator result = constructor.construct(reqlog, partList, closeable);
+      OkHttpResultIterator result = constructor.construct(reqlog, partReader, closeable);
       Headers headers = response.headers();
       long pageStart = Utilities.parseLong(headers.get(HEADER_VND_MARKLOGIC_START));
       if (pageStart > -1l) {
@@ -4584,9 +5070,60 @@ public class OkHttpServices implements RESTServices {
     return min + randRetry.nextInt(range);
   }
 
+  static class OkHttpBodyPart {
+    private Headers headers;
+    private Buffer content;
+
+    OkHttpBodyPart(Headers headers, Buffer content) {
+      this.headers = headers;
+      this.content = content;
+    }
+
+    Headers getHeaders() {
+      return headers;
+    }
+
+    Buffer getContent() {
+      return content;
+    }
+
+    String getHeader(String name) {
+      List<String> values = headers.values(name);
+      if ( values.size() > 0 ) {
+        return values.get(0);
+      }
+      return null;
+    }
+
+    String getContentType() {
+      String contentType = getHeader(HEADER_CONTENT_TYPE);
+      // the same default as a javax.mail body part
+      return (contentType != null) ? contentType : "text/plain";
+    }
+
+    String getFileName() {
+      try {
+        String filename = null;
+        String contentDisposition = getHeader(HEADER_CONTENT_DISPOSITION);
+        if ( contentDisposition != null ) {
+          filename = new ContentDisposition(contentDisposition).getParameter("filename");
+        }
+        if ( filename == null ) {
+          String contentType = getHeader(HEADER_CONTENT_TYPE);
+          if ( contentType != null ) {
+            filename = new ContentType(contentType).getParameter("name");
+          }
+        }
+        return filename;
+      } catch (ParseException e) {
+        throw new MarkLogicIOException(e);
+      }
+    }
+  }
+
   static class OkHttpResult {
     private RequestLogger reqlog;
-    private BodyPart part;
+    private OkHttpBodyPart part;
     private boolean extractedHeaders = false;
     private String uri;
     private RequestParameters headers = new RequestParameters();
@@ -4594,7 +5131,7 @@ public class OkHttpServices implements RESTServices {
     private String mimetype;
     private long length;
 
-    OkHttpResult(RequestLogger reqlog, BodyPart part) {
+    OkHttpResult(RequestLogger reqlog, OkHttpBodyPart part) {
       this.reqlog = reqlog;
       this.part = part;
     }
@@ -4662,43 +5199,45 @@ public class OkHttpServices implements RESTServices {
 
     private void extractHeaders() {
       if (part == null || extractedHeaders) return;
-      try {
-        for ( Enumeration<Header> e = part.getAllHeaders(); e.hasMoreElements(); ) {
-          Header header = e.nextElement();
-          headers.put(header.getName(), header.getValue());
-        }
-        format = getHeaderFormat(part);
-        mimetype = getHeaderMimetype(OkHttpServices.getHeader(part, HEADER_CONTENT_TYPE));
-        length = getHeaderLength(OkHttpServices.getHeader(part, HEADER_CONTENT_LENGTH));
-        uri = getHeaderUri(part);
-        extractedHeaders = true;
-      } catch (MessagingException e) {
-        throw new MarkLogicIOException(e);
+      Headers partHeaders = part.getHeaders();
+      for ( int i = 0; i < partHeaders.size(); i++ ) {
+        headers.put(partHeaders.name(i), partHeaders.value(i));
       }
+      format = getHeaderFormat(part);
+      mimetype = getHeaderMimetype(part.getHeader(HEADER_CONTENT_TYPE));
+      length = getHeaderLength(part.getHeader(HEADER_CONTENT_LENGTH));
+      uri = part.getFileName();
+      extractedHeaders = true;
     }
   }
 
   static class OkHttpServiceResult extends OkHttpResult implements RESTServices.RESTServiceResult {
-    OkHttpServiceResult(RequestLogger reqlog, BodyPart part) {
+    OkHttpServiceResult(RequestLogger reqlog, OkHttpBodyPart part) {
       super(reqlog, part);
     }
   }
 
+  /**
+   * Iterates over the parts of a multipart/mixed response as they are read
+   * from the connection, so that only the current part is held in memory.
+   * The number of parts is known only after every part has been read, so
+   * the size is -1 until then unless it is counted with {@link #countParts()}.
+   */
   static abstract class OkHttpResultIterator<T extends OkHttpResult> {
     private RequestLogger reqlog;
-    private Iterator<BodyPart> partQueue;
+    private MultipartReader partReader;
+    private Queue<OkHttpBodyPart> readAheadParts = new ArrayDeque<>();
+    private long consumed = 0;
     private long start = -1;
     private long size = -1;
     private long pageSize = -1;
     private long totalSize = -1;
     private Closeable closeable;
 
-    OkHttpResultIterator(RequestLogger reqlog, List<BodyPart> partList, Closeable closeable) {
+    OkHttpResultIterator(RequestLogger reqlog, MultipartReader partReader, Closeable closeable) {
       this.reqlog = reqlog;
-      if (partList != null && partList.size() > 0) {
-        this.size = partList.size();
-        this.partQueue = new ConcurrentLinkedQueue<>(
-          partList).iterator();
+      if (partReader != null) {
+        this.partReader = partReader;
       } else {
         this.size = 0;
       }
@@ -4714,7 +5253,17 @@ public class OkHttpServices implements RESTServices {
       return this;
     }
 
-    public long getSize() {
+    public synchronized long getSize() {
+      return size;
+    }
+
+    /**
+     * Counts the parts by reading the remaining parts ahead, which holds
+     * all of them in memory until they are iterated.
+     */
+    public synchronized long countParts() {
+      while (readAhead()) {
+      }
       return size;
     }
 
@@ -4741,32 +5290,45 @@ public class OkHttpServices implements RESTServices {
       return this;
     }
 
-    public boolean hasNext() {
-      if (partQueue == null) return false;
-      boolean hasNext = partQueue.hasNext();
-      return hasNext;
+    public synchronized boolean hasNext() {
+      if (!readAheadParts.isEmpty()) return true;
+      return readAhead();
     }
 
-    public T next() {
-      if (partQueue == null) return null;
+    public synchronized T next() {
+      if (!hasNext()) return null;
 
       try {
-        return constructNext(reqlog, partQueue.next());
+        consumed++;
+        return constructNext(reqlog, readAheadParts.poll());
       } catch (Throwable t) {
         throw new IllegalStateException("Error instantiating iterated result", t);
       }
     }
 
-    abstract T constructNext(RequestLogger logger, BodyPart part);
+    private boolean readAhead() {
+      if (partReader == null) return false;
+      OkHttpBodyPart part = readPart(partReader);
+      if (part == null) {
+        // the closing boundary has been read, so the connection can be released
+        partReader = null;
+        size = consumed + readAheadParts.size();
+        closeQuietly();
+        return false;
+      }
+      readAheadParts.add(part);
+      return true;
+    }
+
+    abstract T constructNext(RequestLogger logger, OkHttpBodyPart part);
 
     public void remove() {
-      if (partQueue == null) return;
-      partQueue.remove();
-      if (!partQueue.hasNext()) close();
+      throw new UnsupportedOperationException();
     }
 
-    public void close() {
-      partQueue = null;
+    public synchronized void close() {
+      partReader = null;
+      readAheadParts.clear();
       reqlog = null;
       if ( closeable != null ) {
         try {
@@ -4776,6 +5338,16 @@ public class OkHttpServices implements RESTServices {
         }
       }
     }
+
+    private void closeQuietly() {
+      if ( closeable != null ) {
+        try {
+          closeable.close();
+        } catch (IOException e) {
+          logger.warn("Could not close response after reading all parts", e);
+        }
+      }
+    }
   }
 
   static class OkHttpServiceResultIterator
@@ -4783,10 +5355,10 @@ public class OkHttpServices implements RESTServices {
     implements RESTServiceResultIterator
   {
     OkHttpServiceResultIterator(RequestLogger reqlog,
-                                       List<BodyPart> partList, Closeable closeable) {
-      super(reqlog, partList, closeable);
+                                       MultipartReader partReader, Closeable closeable) {
+      super(reqlog, partReader, closeable);
     }
-    OkHttpServiceResult constructNext(RequestLogger logger, BodyPart part) {
+    OkHttpServiceResult constructNext(RequestLogger logger, OkHttpBodyPart part) {
       return new OkHttpServiceResult(logger, part);
     }
   }
@@ -4796,10 +5368,10 @@ public class OkHttpServices implements RESTServices {
     implements Iterator<OkHttpResult>
   {
     DefaultOkHttpResultIterator(RequestLogger reqlog,
-                                       List<BodyPart> partList, Closeable closeable) {
-      super(reqlog, partList, closeable);
+                                       MultipartReader partReader, Closeable closeable) {
+      super(reqlog, partReader, closeable);
     }
-    OkHttpResult constructNext(RequestLogger logger, BodyPart part) {
+    OkHttpResult constructNext(RequestLogger logger, OkHttpBodyPart part) {
       return new OkHttpResult(logger, part);
     }
   }
@@ -5081,13 +5653,9 @@ public class OkHttpServices implements RESTServices {
     long startTime = System.currentTimeMillis();
     int nextDelay = 0;
     int retry = 0;
+    RetryScheduler.Refusal refusal = null;
     for (; retry < minRetry || (System.currentTimeMillis() - startTime) < maxDelay; retry++) {
-      if (nextDelay > 0) {
-        try {
-          Thread.sleep(nextDelay);
-        } catch (InterruptedException e) {
-        }
-      }
+      if (nextDelay > 0 && (refusal = retryScheduler.awaitRetry(nextDelay)) != null) break;
 
       if (queryDef instanceof StructuredQueryDefinition) {
         response = doPost(null, requestBldr, structure);
@@ -5103,6 +5671,7 @@ public class OkHttpServices implements RESTServices {
 
       if (!retryStatus.contains(status)) {
         if (isFirstRequest()) setFirstRequest(false);
+        retryScheduler.recordSuccess();
 
         break;
       }
@@ -5117,10 +5686,7 @@ public class OkHttpServices implements RESTServices {
     if (retryStatus.contains(status)) {
       checkFirstRequest();
       closeResponse(response);
-      throw new FailedRetryException(
-        "Service unavailable and maximum retry period elapsed: "+
-          ((System.currentTimeMillis() - startTime) / 1000)+
-          " seconds after "+retry+" retries");
+      throw failedRetry(refusal, startTime, retry);
     }
     if (status == STATUS_FORBIDDEN) {
       throw new ForbiddenUserException("User is not allowed to match",
@@ -5446,6 +6012,13 @@ public class OkHttpServices implements RESTServices {
     return response.message().replaceFirst("^\\d+ ", "");
   }
 
+  static private <T> T getEntity(OkHttpBodyPart part, Class<T> as) {
+    Buffer content = part.getContent();
+    return getEntity(
+      ResponseBody.create(content, MediaType.parse(part.getContentType()), content.size()),
+      as);
+  }
+
   static private <T> T getEntity(BodyPart part, Class<T> as) {
     try {
       String contentType = part.getContentType();
@@ -5541,6 +6114,33 @@ public class OkHttpServices implements RESTServices {
     }
   }
 
+  static private MultipartReader getPartReader(ResponseBody body) {
+    try {
+      if ( body == null || body.contentLength() == 0 ) return null;
+      // waits only for the first bytes of the response instead of the entire multipart body
+      if ( body.source().exhausted() ) return null;
+      return new MultipartReader(body);
+    } catch (IOException e) {
+      throw new MarkLogicIOException(e);
+    }
+  }
+
+  static private OkHttpBodyPart readPart(MultipartReader partReader) {
+    try {
+      MultipartReader.Part part = partReader.nextPart();
+      if ( part == null ) return null;
+      try {
+        Buffer content = new Buffer();
+        content.writeAll(part.body());
+        return new OkHttpBodyPart(part.headers(), content);
+      } finally {
+        part.close();
+      }
+    } catch (IOException e) {
+      throw new MarkLogicIOException(e);
+    }
+  }
+
   static private List<BodyPart> getPartList(MimeMultipart multipart) {
     try {
       if ( multipart == null ) return null;
@@ -5560,7 +6160,8 @@ public class OkHttpServices implements RESTServices {
 
     ObjectRequestBody(Object obj, MediaType contentType) {
       super();
-      this.obj = obj;
+      // encode strings once so the length is known and a resent request doesn't encode again
+      this.obj = (obj instanceof String) ? ((String) obj).getBytes(StandardCharsets.UTF_8) : obj;
       this.contentType = contentType;
     }
 
@@ -5569,6 +6170,11 @@ public class OkHttpServices implements RESTServices {
       return contentType;
     }
 
+    @Override
+    public long contentLength() {
+      return (obj instanceof byte[]) ? ((byte[]) obj).length : -1;
+    }
+
     @Override
     public void writeTo(BufferedSink sink) throws IOException {
       if ( obj instanceof InputStream ) {
@@ -5579,8 +6185,6 @@ public class OkHttpServices implements RESTServices {
         }
       } else if ( obj instanceof byte[] ) {
         sink.write((byte[]) obj);
-      } else if ( obj instanceof String) {
-        sink.write(((String) obj).getBytes(StandardCharsets.UTF_8));
       } else if ( obj == null ) {
       } else {
         throw new IllegalStateException("Cannot write object of type: " + obj.getClass());
@@ -6668,7 +7272,7 @@ public class OkHttpServices implements RESTServices {
 
   @FunctionalInterface
   private interface ResultIteratorConstructor<T> {
-    T construct(RequestLogger logger, List list, Closeable closeable);
+    T construct(RequestLogger logger, MultipartReader partReader, Closeable closeable);
   }
 
   static class DnsImpl implements Dns {
@@ -21,6 +21,7 @@ import java.util.Calendar;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Stream;
 
 import com.marklogic.client.DatabaseClient;
@@ -55,6 +56,7 @@ import com.marklogic.client.semantics.SPARQLQueryDefinition;
 import com.marklogic.client.util.EditableNamespaceContext;
 import com.marklogic.client.util.RequestLogger;
 import com.marklogic.client.util.RequestParameters;
+import com.marklogic.client.util.RequestStatistics;
 
 public interface RESTServices {
 
@@ -108,11 +110,26 @@ public interface RESTServices {
 
   String MAX_DELAY_PROP = "com.marklogic.client.maximumRetrySeconds";
   String MIN_RETRY_PROP = "com.marklogic.client.minimumRetries";
+  String RETRY_BUDGET_PROP = "com.marklogic.client.retryBudgetPerSecond";
+  String CIRCUIT_BREAKER_FAILURES_PROP = "com.marklogic.client.circuitBreakerFailures";
+  String CIRCUIT_BREAKER_SECONDS_PROP = "com.marklogic.client.circuitBreakerSeconds";
+  String REQUEST_STATISTICS_PROP = "com.marklogic.client.requestStatistics";
+  String MAX_IDLE_CONNECTIONS_PROP = "com.marklogic.client.maxIdleConnections";
+  String KEEP_ALIVE_SECONDS_PROP = "com.marklogic.client.keepAliveSeconds";
+  String CONNECT_TIMEOUT_SECONDS_PROP = "com.marklogic.client.connectTimeoutSeconds";
+  String READ_TIMEOUT_SECONDS_PROP = "com.marklogic.client.readTimeoutSeconds";
+  String WRITE_TIMEOUT_SECONDS_PROP = "com.marklogic.client.writeTimeoutSeconds";
+  String MAX_ASYNC_REQUESTS_PROP = "com.marklogic.client.maxAsyncRequests";
+  String HTTP2_PROP = "com.marklogic.client.http2";
+  String REQUEST_COMPRESSION_LEVEL_PROP = "com.marklogic.client.requestCompressionLevel";
+  String REQUEST_COMPRESSION_MIN_BYTES_PROP = "com.marklogic.client.requestCompressionMinBytes";
 
   Set<Integer> getRetryStatus();
   int getMaxDelay();
   void setMaxDelay(int maxDelay);
 
+  RequestStatistics getRequestStatistics();
+
   void connect(String host, int port, String database, SecurityContext securityContext);
   DatabaseClient getDatabaseClient();
   void setDatabaseClient(DatabaseClient client);
@@ -121,11 +138,16 @@ public interface RESTServices {
   TemporalDescriptor deleteDocument(RequestLogger logger, DocumentDescriptor desc, Transaction transaction,
                                            Set<Metadata> categories, RequestParameters extraParams)
     throws ResourceNotFoundException, ForbiddenUserException, FailedRequestException;
+  CompletableFuture<TemporalDescriptor> deleteDocumentAsync(RequestLogger logger, DocumentDescriptor desc,
+                                                            Transaction transaction, RequestParameters extraParams);
 
   boolean getDocument(RequestLogger logger, DocumentDescriptor desc, Transaction transaction,
                              Set<Metadata> categories, RequestParameters extraParams,
                              DocumentMetadataReadHandle metadataHandle, AbstractReadHandle contentHandle)
     throws ResourceNotFoundException, ForbiddenUserException,  FailedRequestException;
+  CompletableFuture<Boolean> getDocumentAsync(RequestLogger logger, DocumentDescriptor desc, Transaction transaction,
+                                              Set<Metadata> categories, RequestParameters extraParams,
+                                              DocumentMetadataReadHandle metadataHandle, AbstractReadHandle contentHandle);
 
   DocumentDescriptor head(RequestLogger logger, String uri, Transaction transaction)
     throws ForbiddenUserException, FailedRequestException;
@@ -144,12 +166,21 @@ public interface RESTServices {
                                                             ServerTransform transform, Transaction transaction, Format defaultFormat, T output,
                                                             String temporalCollection, String extraContentDispositionParams)
     throws ResourceNotFoundException, ForbiddenUserException,  FailedRequestException;
+  CompletableFuture<Void> postBulkDocumentsAsync(RequestLogger logger, DocumentWriteSet writeSet,
+                                                 ServerTransform transform, Transaction transaction, Format defaultFormat,
+                                                 String temporalCollection, String extraContentDispositionParams);
+  CompletableFuture<Void> postBulkDocumentsWithAsyncRetry(RequestLogger logger, DocumentWriteSet writeSet,
+                                                          ServerTransform transform, Format defaultFormat,
+                                                          String temporalCollection, String extraContentDispositionParams);
 
   TemporalDescriptor putDocument(RequestLogger logger, DocumentDescriptor desc, Transaction transaction,
                                         Set<Metadata> categories, RequestParameters extraParams,
                                         DocumentMetadataWriteHandle metadataHandle, AbstractWriteHandle contentHandle)
     throws ResourceNotFoundException, ResourceNotResendableException,
     ForbiddenUserException, FailedRequestException;
+  CompletableFuture<TemporalDescriptor> putDocumentAsync(RequestLogger logger, DocumentDescriptor desc, Transaction transaction,
+                                                         Set<Metadata> categories, RequestParameters extraParams,
+                                                         DocumentMetadataWriteHandle metadataHandle, AbstractWriteHandle contentHandle);
 
   DocumentDescriptorImpl postDocument(RequestLogger logger, DocumentUriTemplate template,
                                              Transaction transaction, Set<Metadata> categories, RequestParameters extraParams,
@@ -170,6 +201,7 @@ public interface RESTServices {
     throws ForbiddenUserException, FailedRequestException;
   void delete(RequestLogger logger, Transaction transaction, Set<Metadata> categories, String... uris)
     throws ResourceNotFoundException, ForbiddenUserException, FailedRequestException;
+  CompletableFuture<Void> deleteAsync(RequestLogger logger, Transaction transaction, String... uris);
 
   Transaction openTransaction(String name, int timeLimit)
     throws ForbiddenUserException, FailedRequestException;
@@ -0,0 +1,325 @@
+/*
+ * Copyright (c) 2021 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.impl;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.marklogic.client.util.RequestStatistics;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Records the phases of each OkHttp call as an event listener and
+ * accumulates the measurements by endpoint when the call finishes.
+ * The listener for a call only sees events from one thread at a time,
+ * so it keeps the timestamps in plain fields and only touches the
+ * shared counters once per call.
+ */
+class RequestStatisticsImpl implements RequestStatistics, EventListener.Factory {
+  private final Map<String, EndpointStatisticsImpl> endpoints = new ConcurrentHashMap<>();
+  private volatile EndpointStatisticsImpl total = new EndpointStatisticsImpl();
+
+  @Override
+  public Set<String> getEndpoints() {
+    return Collections.unmodifiableSet(endpoints.keySet());
+  }
+  @Override
+  public EndpointStatistics getEndpoint(String endpoint) {
+    return endpoints.get(endpoint);
+  }
+  @Override
+  public EndpointStatistics getTotal() {
+    return total;
+  }
+  @Override
+  public void reset() {
+    endpoints.clear();
+    total = new EndpointStatisticsImpl();
+  }
+
+  @Override
+  public EventListener create(Call call) {
+    Request request = call.request();
+    return new CallListener(request.method() + " " + normalizePath(request.url().encodedPath()));
+  }
+
+  /**
+   * Reduces the path to the REST endpoint so document uris, resource
+   * names, and the like don't produce an unbounded number of endpoints.
+   * For instance, /v1/documents stays the same, /v1/internal/uris keeps
+   * its second segment, and /v1/resources/myext keeps the extension name.
+   */
+  static String normalizePath(String path) {
+    if (path == null || !(path.startsWith("/v1/") || path.startsWith("/LATEST/"))) {
+      return path;
+    }
+    int versionEnd = path.indexOf('/', 1);
+    int segmentEnd = path.indexOf('/', versionEnd + 1);
+    if (segmentEnd < 0) {
+      return path;
+    }
+    String segment = path.substring(versionEnd + 1, segmentEnd);
+    if ("internal".equals(segment) || "resources".equals(segment)) {
+      int nextEnd = path.indexOf('/', segmentEnd + 1);
+      return (nextEnd < 0) ? path : path.substring(0, nextEnd);
+    }
+    return path.substring(0, segmentEnd);
+  }
+
+  private void record(String endpoint, CallListener call) {
+    endpoints.computeIfAbsent(endpoint, key -> new EndpointStatisticsImpl()).record(call);
+    total.record(call);
+  }
+
+  private class CallListener extends EventListener {
+    private final String endpoint;
+    private long callStart;
+    private long connectStart;
+    private long tlsStart;
+    private long requestStart;
+    private long requestSent;
+    private long bodyStart;
+    private int  requests;
+    private int  lastStatus;
+    private boolean recorded;
+
+    private int  connections;
+    private int  acquisitions;
+    private int  authChallenges;
+    private long connectNanos;
+    private long tlsNanos;
+    private long authChallengeNanos;
+    private long serverNanos;
+    private long bodyNanos;
+    private long bytesSent;
+    private long bytesReceived;
+    private long totalNanos;
+    private int  status;
+
+    CallListener(String endpoint) {
+      this.endpoint = endpoint;
+    }
+
+    @Override
+    public void callStart(Call call) {
+      callStart = System.nanoTime();
+    }
+    @Override
+    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+      connectStart = System.nanoTime();
+    }
+    @Override
+    public void secureConnectStart(Call call) {
+      tlsStart = System.nanoTime();
+    }
+    @Override
+    public void secureConnectEnd(Call call, Handshake handshake) {
+      tlsNanos += System.nanoTime() - tlsStart;
+    }
+    @Override
+    public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+      connections++;
+      connectNanos += System.nanoTime() - connectStart;
+    }
+    @Override
+    public void connectFailed(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol,
+        IOException ioe) {
+      connectNanos += System.nanoTime() - connectStart;
+    }
+    @Override
+    public void connectionAcquired(Call call, Connection connection) {
+      acquisitions++;
+    }
+    @Override
+    public void requestHeadersStart(Call call) {
+      long now = System.nanoTime();
+      if (requests > 0 && lastStatus == RESTServices.STATUS_UNAUTHORIZED) {
+        // the authenticator is sending the request again after a challenge
+        authChallenges++;
+        authChallengeNanos += now - requestStart;
+      }
+      requests++;
+      requestStart = now;
+    }
+    @Override
+    public void requestHeadersEnd(Call call, Request request) {
+      requestSent = System.nanoTime();
+    }
+    @Override
+    public void requestBodyEnd(Call call, long byteCount) {
+      requestSent = System.nanoTime();
+      bytesSent += byteCount;
+    }
+    @Override
+    public void responseHeadersStart(Call call) {
+      // only the final response counts as server time
+      serverNanos = System.nanoTime() - requestSent;
+    }
+    @Override
+    public void responseHeadersEnd(Call call, Response response) {
+      lastStatus = response.code();
+    }
+    @Override
+    public void responseBodyStart(Call call) {
+      bodyStart = System.nanoTime();
+    }
+    @Override
+    public void responseBodyEnd(Call call, long byteCount) {
+      bodyNanos += System.nanoTime() - bodyStart;
+      bytesReceived += byteCount;
+    }
+    @Override
+    public void callEnd(Call call) {
+      finish(lastStatus);
+    }
+    @Override
+    public void callFailed(Call call, IOException ioe) {
+      finish(0);
+    }
+
+    private void finish(int finalStatus) {
+      if (recorded) return;
+      recorded = true;
+      status = finalStatus;
+      totalNanos = System.nanoTime() - callStart;
+      record(endpoint, this);
+    }
+  }
+
+  static class EndpointStatisticsImpl implements EndpointStatistics {
+    private final LongAdder calls              = new LongAdder();
+    private final LongAdder failures           = new LongAdder();
+    private final LongAdder authChallenges     = new LongAdder();
+    private final LongAdder connections        = new LongAdder();
+    private final LongAdder reusedConnections  = new LongAdder();
+    private final LongAdder bytesSent          = new LongAdder();
+    private final LongAdder bytesReceived      = new LongAdder();
+    private final LongAdder totalNanos         = new LongAdder();
+    private final AtomicLong maxNanos          = new AtomicLong();
+    private final LongAdder connectNanos       = new LongAdder();
+    private final LongAdder tlsNanos           = new LongAdder();
+    private final LongAdder authChallengeNanos = new LongAdder();
+    private final LongAdder serverNanos        = new LongAdder();
+    private final LongAdder bodyNanos          = new LongAdder();
+    private final Map<Integer, LongAdder> statusCounts = new ConcurrentHashMap<>();
+
+    private void record(CallListener call) {
+      calls.increment();
+      if (call.status == 0) {
+        failures.increment();
+      } else {
+        statusCounts.computeIfAbsent(call.status, key -> new LongAdder()).increment();
+      }
+      if (call.authChallenges > 0) authChallenges.add(call.authChallenges);
+      if (call.connections    > 0) connections.add(call.connections);
+      if (call.acquisitions > call.connections) reusedConnections.add(call.acquisitions - call.connections);
+      bytesSent.add(call.bytesSent);
+      bytesReceived.add(call.bytesReceived);
+      totalNanos.add(call.totalNanos);
+      maxNanos.accumulateAndGet(call.totalNanos, Math::max);
+      connectNanos.add(call.connectNanos);
+      tlsNanos.add(call.tlsNanos);
+      authChallengeNanos.add(call.authChallengeNanos);
+      serverNanos.add(call.serverNanos);
+      bodyNanos.add(call.bodyNanos);
+    }
+
+    @Override
+    public long getCalls() {
+      return calls.sum();
+    }
+    @Override
+    public long getFailures() {
+      return failures.sum();
+    }
+    @Override
+    public long getStatusCount(int statusCode) {
+      LongAdder count = statusCounts.get(statusCode);
+      return (count == null) ? 0 : count.sum();
+    }
+    @Override
+    public Set<Integer> getStatusCodes() {
+      return Collections.unmodifiableSet(statusCounts.keySet());
+    }
+    @Override
+    public long getAuthChallenges() {
+      return authChallenges.sum();
+    }
+    @Override
+    public long getConnections() {
+      return connections.sum();
+    }
+    @Override
+    public long getReusedConnections() {
+      return reusedConnections.sum();
+    }
+    @Override
+    public long getBytesSent() {
+      return bytesSent.sum();
+    }
+    @Override
+    public long getBytesReceived() {
+      return bytesReceived.sum();
+    }
+    @Override
+    public long getTotalNanos() {
+      return totalNanos.sum();
+    }
+    @Override
+    public long getMaxNanos() {
+      return maxNanos.get();
+    }
+    @Override
+    public long getConnectNanos() {
+      return connectNanos.sum();
+    }
+    @Override
+    public long getTlsNanos() {
+      return tlsNanos.sum();
+    }
+    @Override
+    public long getAuthChallengeNanos() {
+      return authChallengeNanos.sum();
+    }
+    @Override
+    public long getServerNanos() {
+      return serverNanos.sum();
+    }
+    @Override
+    public long getResponseBodyNanos() {
+      return bodyNanos.sum();
+    }
+    @Override
+    public double getMeanMillis() {
+      long count = calls.sum();
+      return (count == 0) ? 0 : totalNanos.sum() / (count * 1000000.0);
+    }
+  }
+}
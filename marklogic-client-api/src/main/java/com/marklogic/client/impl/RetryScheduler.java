@@ -0,0 +1,263 @@
+/*
+ * Copyright (c) 2021 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.impl;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Decides whether a request that failed with a retryable status
+ * may be retried and schedules the retry.
+ *
+ * Each client has its own retry budget and circuit breaker:
+ * <ul>
+ * <li>The budget limits the number of retries per second for all
+ * requests of the client so a struggling cluster isn't flooded with
+ * retries from many threads at once.</li>
+ * <li>The circuit breaker opens after the threshold of consecutive
+ * retryable failures and refuses retries until the cool down elapses.
+ * Afterward, a single retry is let through to probe the server, and
+ * the next successful response closes the breaker again.</li>
+ * </ul>
+ * Both are disabled unless configured.
+ *
+ * The delays before retries are timed by a single daemon thread
+ * shared by all clients.  Asynchronous requests are resent by the
+ * timer, so their waits don't occupy any threads.  WriteBatcher
+ * sends its batches the same way after the first attempt, so its
+ * threads move on to other batches while a batch waits to retry.
+ * A synchronous request has to wait for its outcome, but it waits
+ * for the timer instead of sleeping, so all waits of the client end
+ * as soon as the circuit breaker opens instead of each running out
+ * its delay.
+ */
+class RetryScheduler {
+  static final private Logger logger = LoggerFactory.getLogger(RetryScheduler.class);
+
+  /**
+   * Why a retry didn't happen.
+   */
+  enum Refusal {
+    BUDGET_EXHAUSTED("retry budget exhausted"),
+    CIRCUIT_OPEN("circuit breaker open"),
+    INTERRUPTED("interrupted while waiting to retry");
+
+    private final String reason;
+    Refusal(String reason) {
+      this.reason = reason;
+    }
+    String getReason() {
+      return reason;
+    }
+  }
+
+  private static ScheduledExecutorService timer;
+
+  private int  budgetPerSecond = 0;
+  private int  breakerThreshold = 0;
+  private long breakerCoolDown = 0;
+
+  private long budgetWindowStart = 0;
+  private int  budgetUsed = 0;
+
+  private int  consecutiveFailures = 0;
+  private long breakerOpenedAt = 0;
+  private boolean breakerOpen = false;
+  private boolean probing = false;
+
+  private final Set<CompletableFuture<Refusal>> pendingRetries = new HashSet<>();
+
+  synchronized void setRetryBudget(int retriesPerSecond) {
+    if (retriesPerSecond < 0) {
+      throw new IllegalArgumentException("retry budget must not be negative: "+retriesPerSecond);
+    }
+    this.budgetPerSecond = retriesPerSecond;
+  }
+  synchronized int getRetryBudget() {
+    return budgetPerSecond;
+  }
+
+  synchronized void setCircuitBreaker(int failureThreshold, long coolDownMillis) {
+    if (failureThreshold < 0) {
+      throw new IllegalArgumentException("failure threshold must not be negative: "+failureThreshold);
+    }
+    if (coolDownMillis < 0) {
+      throw new IllegalArgumentException("cool down must not be negative: "+coolDownMillis);
+    }
+    this.breakerThreshold = failureThreshold;
+    this.breakerCoolDown = coolDownMillis;
+  }
+  synchronized boolean isCircuitOpen() {
+    return breakerOpen;
+  }
+
+  /**
+   * Records a response that doesn't call for a retry, closing the breaker.
+   */
+  synchronized void recordSuccess() {
+    consecutiveFailures = 0;
+    if (breakerOpen) {
+      logger.info("closing circuit breaker after successful response");
+    }
+    breakerOpen = false;
+    probing = false;
+  }
+
+  /**
+   * Records a retryable failure and decides whether the request may be retried.
+   * @return null if the retry is permitted by the circuit breaker and budget
+   * or else the reason for refusing it
+   */
+  Refusal permitRetry() {
+    List<CompletableFuture<Refusal>> cancelledRetries = new ArrayList<>();
+    Refusal refusal = permitRetry(cancelledRetries, null);
+    cancelRetries(cancelledRetries);
+    return refusal;
+  }
+
+  /*
+   * Decides on the retry and, if the retry is permitted, adds it to the pending
+   * retries.  When the circuit breaker opens, the pending retries are collected
+   * for cancelling after releasing the lock, so their callbacks can't run while
+   * holding the lock.
+   */
+  private synchronized Refusal permitRetry(
+        List<CompletableFuture<Refusal>> cancelledRetries, CompletableFuture<Refusal> retry
+  ) {
+    Refusal refusal = decideRetry(cancelledRetries);
+    if (refusal == null && retry != null) {
+      pendingRetries.add(retry);
+    }
+    return refusal;
+  }
+
+  private Refusal decideRetry(List<CompletableFuture<Refusal>> cancelledRetries) {
+    long now = System.currentTimeMillis();
+    consecutiveFailures++;
+    if (breakerThreshold > 0) {
+      if (breakerOpen) {
+        if (probing) {
+          // the server is still failing, so wait for another cool down
+          probing = false;
+          breakerOpenedAt = now;
+          return Refusal.CIRCUIT_OPEN;
+        } else if (now - breakerOpenedAt < breakerCoolDown) {
+          return Refusal.CIRCUIT_OPEN;
+        }
+        probing = true;
+      } else if (consecutiveFailures >= breakerThreshold) {
+        logger.warn("opening circuit breaker after {} consecutive retryable failures", consecutiveFailures);
+        breakerOpen = true;
+        breakerOpenedAt = now;
+        // the retries waiting for their delay would only fail again
+        cancelledRetries.addAll(pendingRetries);
+        return Refusal.CIRCUIT_OPEN;
+      }
+    }
+    if (budgetPerSecond > 0) {
+      if (now - budgetWindowStart >= 1000) {
+        budgetWindowStart = now;
+        budgetUsed = 0;
+      }
+      if (budgetUsed >= budgetPerSecond) {
+        return Refusal.BUDGET_EXHAUSTED;
+      }
+      budgetUsed++;
+    }
+    return null;
+  }
+
+  private void cancelRetries(List<CompletableFuture<Refusal>> cancelledRetries) {
+    for (CompletableFuture<Refusal> cancelledRetry : cancelledRetries) {
+      cancelledRetry.complete(Refusal.CIRCUIT_OPEN);
+    }
+  }
+
+  /**
+   * Waits for the shared timer before retrying a synchronous request.
+   * If the thread is interrupted, the wait ends and the thread keeps its
+   * interrupt status.
+   * @param delayMillis the delay before the retry
+   * @return null if the request should be retried or else the reason
+   * for giving up
+   */
+  Refusal awaitRetry(int delayMillis) {
+    CompletableFuture<Refusal> retry = scheduleRetry(delayMillis);
+    try {
+      return retry.get();
+    } catch (InterruptedException e) {
+      retry.complete(Refusal.INTERRUPTED);
+      Thread.currentThread().interrupt();
+      return Refusal.INTERRUPTED;
+    } catch (ExecutionException e) {
+      // the future is only ever completed with a value
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  /**
+   * Schedules the retry of an asynchronous request on the shared timer.
+   * @param delayMillis the delay before the retry
+   * @return a future that completes with null when the request should be
+   * retried or with the reason for giving up
+   */
+  CompletableFuture<Refusal> scheduleRetry(int delayMillis) {
+    CompletableFuture<Refusal> retry = new CompletableFuture<>();
+    List<CompletableFuture<Refusal>> cancelledRetries = new ArrayList<>();
+    Refusal refusal = permitRetry(cancelledRetries, retry);
+    cancelRetries(cancelledRetries);
+    if (refusal != null) {
+      retry.complete(refusal);
+      return retry;
+    }
+    ScheduledFuture<?> delay = getTimer().schedule(
+        () -> retry.complete(null), Math.max(delayMillis, 0), TimeUnit.MILLISECONDS
+    );
+    retry.whenComplete((result, error) -> {
+      delay.cancel(false);
+      synchronized (this) {
+        pendingRetries.remove(retry);
+      }
+    });
+    return retry;
+  }
+
+  private static synchronized ScheduledExecutorService getTimer() {
+    if (timer == null) {
+      AtomicInteger threadCount = new AtomicInteger();
+      ThreadFactory factory = runnable -> {
+        Thread thread = new Thread(runnable, "marklogic-retry-"+threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      };
+      timer = Executors.newSingleThreadScheduledExecutor(factory);
+    }
+    return timer;
+  }
+}
@@ -39,6 +39,7 @@ import com.fasterxml.jackson.core.*;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.node.JsonNodeType;
 import com.marklogic.client.DatabaseClientFactory.HandleFactoryRegistry;
 import com.marklogic.client.MarkLogicBindingException;
@@ -62,6 +63,10 @@ public class RowManagerImpl
   extends AbstractLoggingManager
   implements RowManager
 {
+  // the readers are immutable and thread-safe, so all row sets share them
+  static private ObjectReader rowReader    = null;
+  static private ObjectReader headerReader = null;
+
   private RESTServices services;
   private HandleFactoryRegistry handleRegistry;
   private RowSetPart   datatypeStyle     = null;
@@ -72,6 +77,21 @@ public class RowManagerImpl
     this.services = services;
   }
 
+  static private ObjectReader getRowReader() {
+    // okay if one thread overwrites another during lazy initialization
+    if (rowReader == null) {
+      rowReader = new ObjectMapper().readerFor(JsonNode.class);
+    }
+    return rowReader;
+  }
+  static private ObjectReader getHeaderReader() {
+    // okay if one thread overwrites another during lazy initialization
+    if (headerReader == null) {
+      headerReader = new ObjectMapper().readerFor(Object.class);
+    }
+    return headerReader;
+  }
+
   HandleFactoryRegistry getHandleRegistry() {
     return handleRegistry;
   }
@@ -183,6 +203,31 @@ public class RowManagerImpl
 
     return rowset;
   }
+  @Override
+  public RowCursor resultCursor(Plan plan) {
+    return resultCursor(plan, null);
+  }
+  @Override
+  public RowCursor resultCursor(Plan plan, Transaction transaction) {
+    PlanBuilderBaseImpl.RequestPlan requestPlan = checkPlan(plan);
+
+    AbstractWriteHandle astHandle = requestPlan.getHandle();
+
+    // the header declares the column types once so each row is an array of bare values
+    RequestParameters params = getParamBindings(requestPlan);
+    addDatatypeStyleParam(params,     RowSetPart.HEADER);
+    addRowStructureStyleParam(params, RowStructure.ARRAY);
+
+    InputStreamHandle rowsHandle = services.postResource(
+      requestLogger, "rows", transaction, params, astHandle, new InputStreamHandle().withFormat(Format.JSON)
+    );
+
+    RowCursorImpl cursor = new RowCursorImpl(rowsHandle.get());
+    cursor.init();
+
+    return cursor;
+  }
+
   @Override
   public <T extends StructureReadHandle> RowSet<T> resultRows(Plan plan, T rowHandle) {
     return resultRows(plan, rowHandle, (Transaction) null);
@@ -438,19 +483,18 @@ public class RowManagerImpl
         case "json":
           try {
             List<Map<String, String>> cols = null;
+            Object header = getHeaderReader().readValue(
+              headerRow.getContent(new InputStreamHandle()).get()
+            );
             switch (rowStructureStyle) {
               case OBJECT:
-                Map<String, Object> headerObj = (Map<String, Object>) new ObjectMapper().readValue(
-                  headerRow.getContent(new InputStreamHandle()).get(), Map.class
-                );
+                Map<String, Object> headerObj = (Map<String, Object>) header;
                 if (headerObj != null) {
                   cols = (List<Map<String, String>>) headerObj.get("columns");
                 }
                 break;
               case ARRAY:
-                cols = (List<Map<String, String>>) new ObjectMapper().readValue(
-                  headerRow.getContent(new InputStreamHandle()).get(), List.class
-                );
+                cols = (List<Map<String, String>>) header;
                 break;
               default:
                 throw new InternalError("unknown row structure style: "+rowStructureStyle);
@@ -650,10 +694,10 @@ public class RowManagerImpl
         Map<String, RowRecord.ColumnKind> kinds     = null;
         Map<String, Object>               row       = new HashMap<>();
 
-        InputStream rowStream = currentRow.getContent(new InputStreamHandle()).get();
-
-        ObjectMapper rowMapper = new ObjectMapper();
-        JsonNode rowNode = rowMapper.readTree(rowStream);
+        JsonNode rowNode;
+        try (InputStream rowStream = currentRow.getContent(new InputStreamHandle()).get()) {
+          rowNode = getRowReader().readTree(rowStream);
+        }
 
         switch(rowStructureStyle) {
           case ARRAY:
@@ -945,6 +989,404 @@ public class RowManagerImpl
     }
   }
 
+  static class RowCursorImpl implements RowCursor {
+    private InputStream          rowStream    = null;
+    private JsonParser           parser       = null;
+    private String[]             columnNames  = new String[0];
+    private String[]             columnTypes  = new String[0];
+    private Map<String, Integer> columnIndexes = new HashMap<>();
+    private ColumnBatchImpl      batch        = null;
+    private boolean              hasRow       = false;
+
+    RowCursorImpl(InputStream rowStream) {
+      this.rowStream = rowStream;
+    }
+
+    void init() {
+      if (rowStream == null) {
+        batch = new ColumnBatchImpl(0);
+        return;
+      }
+      try {
+        parser = getRowReader().createParser(rowStream);
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+          throw new MarkLogicIOException("rows response should be a JSON array");
+        }
+        if (parser.nextToken() == JsonToken.START_ARRAY) {
+          JsonNode header = parser.readValueAsTree();
+          int colSize = header.size();
+          columnNames = new String[colSize];
+          columnTypes = new String[colSize];
+          for (int i=0; i < colSize; i++) {
+            JsonNode col = header.get(i);
+            columnNames[i] = col.path("name").asText(null);
+            columnTypes[i] = col.path("type").asText(null);
+            columnIndexes.put(columnNames[i], i);
+          }
+        } else {
+          close();
+        }
+      } catch (IOException e) {
+        close();
+        throw new MarkLogicIOException("could not read JSON header", e);
+      }
+      batch = new ColumnBatchImpl(columnNames.length);
+    }
+
+    @Override
+    public String[] getColumnNames() {
+      return columnNames;
+    }
+    @Override
+    public String[] getColumnTypes() {
+      return columnTypes;
+    }
+    @Override
+    public int getColumnIndex(String columnName) {
+      Integer index = columnIndexes.get(columnName);
+      return (index == null) ? -1 : index;
+    }
+
+    @Override
+    public boolean next() {
+      hasRow = (fill(1) == 1);
+      return hasRow;
+    }
+    @Override
+    public ColumnBatch nextBatch(int maxRows) {
+      if (maxRows < 1) {
+        throw new IllegalArgumentException("Must read at least one row in a batch instead of "+maxRows);
+      }
+      hasRow = false;
+      fill(maxRows);
+      return batch;
+    }
+    private int fill(int maxRows) {
+      batch.reset(maxRows);
+      if (parser == null) {
+        return 0;
+      }
+      try {
+        while (batch.size < maxRows) {
+          JsonToken token = parser.nextToken();
+          if (token != JsonToken.START_ARRAY) {
+            close();
+            break;
+          }
+          readRow(batch.size);
+          batch.size++;
+        }
+      } catch (IOException e) {
+        close();
+        throw new MarkLogicIOException("could not read row", e);
+      }
+      return batch.size;
+    }
+    private void readRow(int row) throws IOException {
+      int col = 0;
+      for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+        if (token == null) {
+          throw new MarkLogicIOException("rows response ended within a row");
+        }
+        if (col < columnNames.length) {
+          batch.readValue(parser, token, col, row);
+        } else {
+          parser.skipChildren();
+        }
+        col++;
+      }
+      for (; col < columnNames.length; col++) {
+        batch.setNull(col, row);
+      }
+    }
+
+    private void checkRow() {
+      if (!hasRow) {
+        throw new IllegalStateException("no current row");
+      }
+    }
+    @Override
+    public RowRecord.ColumnKind getKind(int column) {
+      checkRow();
+      return batch.getKind(column, 0);
+    }
+    @Override
+    public String getDatatype(int column) {
+      return columnTypes[column];
+    }
+    @Override
+    public boolean isNull(int column) {
+      checkRow();
+      return batch.nulls[column][0];
+    }
+    @Override
+    public boolean getBoolean(int column) {
+      checkRow();
+      return batch.getBoolean(column, 0);
+    }
+    @Override
+    public int getInt(int column) {
+      return (int) getLong(column);
+    }
+    @Override
+    public long getLong(int column) {
+      checkRow();
+      return batch.getLong(column, 0);
+    }
+    @Override
+    public float getFloat(int column) {
+      return (float) getDouble(column);
+    }
+    @Override
+    public double getDouble(int column) {
+      checkRow();
+      return batch.getDouble(column, 0);
+    }
+    @Override
+    public String getString(int column) {
+      checkRow();
+      return batch.getString(column, 0);
+    }
+    @Override
+    public JsonNode getContainer(int column) {
+      checkRow();
+      Object value = batch.objects[column][0];
+      return (value instanceof JsonNode) ? (JsonNode) value : null;
+    }
+
+    @Override
+    public void close() {
+      hasRow = false;
+      if (parser != null) {
+        try {
+          parser.close();
+        } catch (IOException e) {
+          throw new MarkLogicIOException("could not close rows response", e);
+        } finally {
+          parser = null;
+        }
+      } else if (rowStream != null) {
+        try {
+          rowStream.close();
+        } catch (IOException e) {
+          throw new MarkLogicIOException("could not close rows response", e);
+        }
+      }
+      rowStream = null;
+    }
+  }
+  static class ColumnBatchImpl implements RowCursor.ColumnBatch {
+    // the type of each value determines the conversions to the other types
+    private static final byte NULL      = 0;
+    private static final byte INTEGER   = 1;
+    private static final byte DECIMAL   = 2;
+    private static final byte BIG       = 3;
+    private static final byte STRING    = 4;
+    private static final byte BOOLEAN   = 5;
+    private static final byte CONTAINER = 6;
+
+    private final int columnCount;
+    private int          capacity = 0;
+    int                  size     = 0;
+    private byte[][]     types;
+    boolean[][]          nulls;
+    private long[][]     longs;
+    private double[][]   doubles;
+    Object[][]           objects;
+    private String[][]   strings;
+    // whether the string values of a column have been converted to longs or doubles
+    private boolean[]    longsConverted;
+    private boolean[]    doublesConverted;
+
+    ColumnBatchImpl(int columnCount) {
+      this.columnCount      = columnCount;
+      this.types            = new byte[columnCount][];
+      this.nulls            = new boolean[columnCount][];
+      this.longs            = new long[columnCount][];
+      this.doubles          = new double[columnCount][];
+      this.objects          = new Object[columnCount][];
+      this.strings          = new String[columnCount][];
+      this.longsConverted   = new boolean[columnCount];
+      this.doublesConverted = new boolean[columnCount];
+    }
+
+    void reset(int maxRows) {
+      if (maxRows > capacity) {
+        for (int col=0; col < columnCount; col++) {
+          types[col]   = new byte[maxRows];
+          nulls[col]   = new boolean[maxRows];
+          longs[col]   = new long[maxRows];
+          doubles[col] = new double[maxRows];
+          objects[col] = new Object[maxRows];
+          strings[col] = null;
+        }
+        capacity = maxRows;
+      }
+      for (int col=0; col < columnCount; col++) {
+        longsConverted[col]   = false;
+        doublesConverted[col] = false;
+        // release references from the previous batch
+        Object[] colObjects = objects[col];
+        for (int row=0; row < size; row++) {
+          colObjects[row] = null;
+        }
+      }
+      size = 0;
+    }
+
+    void readValue(JsonParser parser, JsonToken token, int col, int row) throws IOException {
+      switch (token) {
+        case VALUE_NULL:
+          setNull(col, row);
+          return;
+        case VALUE_NUMBER_INT:
+          if (parser.getNumberType() == JsonParser.NumberType.BIG_INTEGER) {
+            double value = parser.getDoubleValue();
+            set(col, row, BIG, (long) value, value, parser.getText());
+          } else {
+            long longValue = parser.getLongValue();
+            set(col, row, INTEGER, longValue, longValue, null);
+          }
+          return;
+        case VALUE_NUMBER_FLOAT:
+          double value = parser.getDoubleValue();
+          if (parser.getNumberType() == JsonParser.NumberType.BIG_DECIMAL) {
+            set(col, row, BIG, (long) value, value, parser.getText());
+          } else {
+            set(col, row, DECIMAL, (long) value, value, null);
+          }
+          return;
+        case VALUE_STRING:
+          set(col, row, STRING, 0, 0, parser.getText());
+          return;
+        case VALUE_TRUE:
+          set(col, row, BOOLEAN, 1, 1, null);
+          return;
+        case VALUE_FALSE:
+          set(col, row, BOOLEAN, 0, 0, null);
+          return;
+        case START_ARRAY:
+        case START_OBJECT:
+          set(col, row, CONTAINER, 0, 0, parser.readValueAsTree());
+          return;
+        default:
+          throw new MarkLogicIOException("column "+col+" with unexpected JSON token: "+token);
+      }
+    }
+    void setNull(int col, int row) {
+      set(col, row, NULL, 0, 0, null);
+    }
+    private void set(int col, int row, byte type, long longValue, double doubleValue, Object object) {
+      types[col][row]   = type;
+      nulls[col][row]   = (type == NULL);
+      longs[col][row]   = longValue;
+      doubles[col][row] = doubleValue;
+      objects[col][row] = object;
+    }
+
+    RowRecord.ColumnKind getKind(int col, int row) {
+      switch (types[col][row]) {
+        case NULL:
+          return RowRecord.ColumnKind.NULL;
+        case CONTAINER:
+          return RowRecord.ColumnKind.CONTAINER_VALUE;
+        default:
+          return RowRecord.ColumnKind.ATOMIC_VALUE;
+      }
+    }
+    boolean getBoolean(int col, int row) {
+      switch (types[col][row]) {
+        case STRING:
+          return Boolean.parseBoolean((String) objects[col][row]);
+        default:
+          return longs[col][row] != 0;
+      }
+    }
+    long getLong(int col, int row) {
+      if (types[col][row] == STRING) {
+        return toLong(col, row);
+      }
+      return longs[col][row];
+    }
+    double getDouble(int col, int row) {
+      if (types[col][row] == STRING) {
+        return Double.parseDouble((String) objects[col][row]);
+      }
+      return doubles[col][row];
+    }
+    String getString(int col, int row) {
+      switch (types[col][row]) {
+        case NULL:
+          return null;
+        case INTEGER:
+          return String.valueOf(longs[col][row]);
+        case DECIMAL:
+          return String.valueOf(doubles[col][row]);
+        case BOOLEAN:
+          return String.valueOf(longs[col][row] != 0);
+        default:
+          return objects[col][row].toString();
+      }
+    }
+    private long toLong(int col, int row) {
+      String value = (String) objects[col][row];
+      try {
+        return Long.parseLong(value);
+      } catch (NumberFormatException e) {
+        return (long) Double.parseDouble(value);
+      }
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+    @Override
+    public boolean[] getNulls(int column) {
+      return nulls[column];
+    }
+    @Override
+    public long[] getLongs(int column) {
+      long[] colLongs = longs[column];
+      if (!longsConverted[column]) {
+        byte[] colTypes = types[column];
+        for (int row=0; row < size; row++) {
+          if (colTypes[row] == STRING) {
+            colLongs[row] = toLong(column, row);
+          }
+        }
+        longsConverted[column] = true;
+      }
+      return colLongs;
+    }
+    @Override
+    public double[] getDoubles(int column) {
+      double[] colDoubles = doubles[column];
+      if (!doublesConverted[column]) {
+        byte[] colTypes = types[column];
+        for (int row=0; row < size; row++) {
+          if (colTypes[row] == STRING) {
+            colDoubles[row] = Double.parseDouble((String) objects[column][row]);
+          }
+        }
+        doublesConverted[column] = true;
+      }
+      return colDoubles;
+    }
+    @Override
+    public String[] getStrings(int column) {
+      String[] colStrings = strings[column];
+      if (colStrings == null) {
+        colStrings = new String[capacity];
+        strings[column] = colStrings;
+      }
+      for (int row=0; row < size; row++) {
+        colStrings[row] = getString(column, row);
+      }
+      return colStrings;
+    }
+  }
+
   static class RowRecordImpl implements RowRecord {
     private static final Map<Class<? extends XsAnyAtomicTypeVal>, Function<String,? extends XsAnyAtomicTypeVal>>
       factories = new HashMap<>();
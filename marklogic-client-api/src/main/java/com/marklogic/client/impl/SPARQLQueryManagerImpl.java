@@ -15,9 +15,20 @@
  */
 package com.marklogic.client.impl;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.marklogic.client.MarkLogicIOException;
 import com.marklogic.client.Transaction;
 import com.marklogic.client.io.Format;
+import com.marklogic.client.io.InputStreamHandle;
 import com.marklogic.client.io.JacksonHandle;
 import com.marklogic.client.io.StringHandle;
 import com.marklogic.client.io.marker.AbstractReadHandle;
@@ -27,10 +38,14 @@ import com.marklogic.client.io.marker.TriplesReadHandle;
 import com.marklogic.client.semantics.Capability;
 import com.marklogic.client.semantics.GraphPermissions;
 import com.marklogic.client.semantics.RDFMimeTypes;
+import com.marklogic.client.semantics.SPARQLMimeTypes;
 import com.marklogic.client.semantics.SPARQLQueryDefinition;
 import com.marklogic.client.semantics.SPARQLQueryManager;
+import com.marklogic.client.semantics.SPARQLResultCursor;
 
 public class SPARQLQueryManagerImpl extends AbstractLoggingManager implements SPARQLQueryManager {
+  final static private JsonFactory jsonFactory = new JsonFactory();
+
   private RESTServices services;
   private long pageLength = -1;
 
@@ -79,6 +94,23 @@ public class SPARQLQueryManagerImpl extends AbstractLoggingManager implements SP
     return executeQueryImpl(qdef, handle, start, tx, false);
   }
 
+  @Override
+  public SPARQLResultCursor executeSelectCursor(SPARQLQueryDefinition qdef) {
+    return executeSelectCursor(qdef, null);
+  }
+
+  @Override
+  public SPARQLResultCursor executeSelectCursor(SPARQLQueryDefinition qdef, Transaction tx) {
+    InputStreamHandle resultsHandle = executeQueryImpl(
+      qdef, new InputStreamHandle().withMimetype(SPARQLMimeTypes.SPARQL_JSON), tx, false
+    );
+
+    SPARQLResultCursorImpl cursor = new SPARQLResultCursorImpl(resultsHandle.get());
+    cursor.init();
+
+    return cursor;
+  }
+
   @Override
   public long getPageLength() {
     return pageLength;
@@ -174,4 +206,232 @@ public class SPARQLQueryManagerImpl extends AbstractLoggingManager implements SP
   public GraphPermissions permission(String role, Capability... capabilities) {
     return new GraphPermissionsImpl().permission(role, capabilities);
   }
+
+  static class SPARQLResultCursorImpl implements SPARQLResultCursor {
+    private InputStream          resultStream  = null;
+    private JsonParser           parser        = null;
+    private String[]             variableNames = new String[0];
+    private Map<String, Integer> variableIndexes = new HashMap<>();
+    private TermKind[]           kinds         = new TermKind[0];
+    private String[]             values        = new String[0];
+    private String[]             datatypes     = new String[0];
+    private String[]             languages     = new String[0];
+    private boolean              hasRow        = false;
+
+    SPARQLResultCursorImpl(InputStream resultStream) {
+      this.resultStream = resultStream;
+    }
+
+    // reads up to the start of the bindings, collecting the variables from the head
+    void init() {
+      if (resultStream == null) {
+        return;
+      }
+      try {
+        parser = jsonFactory.createParser(resultStream);
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+          throw new MarkLogicIOException("SPARQL results should be a JSON object");
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          String fieldName = parser.getCurrentName();
+          JsonToken token = parser.nextToken();
+          if ("head".equals(fieldName) && token == JsonToken.START_OBJECT) {
+            readHead();
+          } else if ("results".equals(fieldName) && token == JsonToken.START_OBJECT) {
+            if (seekBindings()) {
+              return;
+            }
+          } else {
+            parser.skipChildren();
+          }
+        }
+        close();
+      } catch (IOException e) {
+        close();
+        throw new MarkLogicIOException("could not read SPARQL results", e);
+      }
+    }
+    private void readHead() throws IOException {
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String fieldName = parser.getCurrentName();
+        JsonToken token = parser.nextToken();
+        if ("vars".equals(fieldName) && token == JsonToken.START_ARRAY) {
+          while (parser.nextToken() == JsonToken.VALUE_STRING) {
+            addVariable(parser.getText());
+          }
+        } else {
+          parser.skipChildren();
+        }
+      }
+    }
+    private boolean seekBindings() throws IOException {
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String fieldName = parser.getCurrentName();
+        JsonToken token = parser.nextToken();
+        if ("bindings".equals(fieldName) && token == JsonToken.START_ARRAY) {
+          return true;
+        }
+        parser.skipChildren();
+      }
+      return false;
+    }
+    private int addVariable(String variableName) {
+      int index = variableNames.length;
+      int size  = index + 1;
+      variableNames = Arrays.copyOf(variableNames, size);
+      kinds         = Arrays.copyOf(kinds,         size);
+      values        = Arrays.copyOf(values,        size);
+      datatypes     = Arrays.copyOf(datatypes,     size);
+      languages     = Arrays.copyOf(languages,     size);
+      variableNames[index] = variableName;
+      kinds[index]         = TermKind.UNBOUND;
+      variableIndexes.put(variableName, index);
+      return index;
+    }
+
+    @Override
+    public String[] getVariableNames() {
+      return variableNames.clone();
+    }
+    @Override
+    public int getVariableIndex(String variableName) {
+      Integer index = variableIndexes.get(variableName);
+      return (index == null) ? -1 : index;
+    }
+
+    @Override
+    public boolean next() {
+      hasRow = false;
+      if (parser == null) {
+        return false;
+      }
+      try {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+          close();
+          return false;
+        }
+        Arrays.fill(kinds,     TermKind.UNBOUND);
+        Arrays.fill(values,    null);
+        Arrays.fill(datatypes, null);
+        Arrays.fill(languages, null);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          String variableName = parser.getCurrentName();
+          if (parser.nextToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            continue;
+          }
+          // a binding for a variable missing from the head is added as a new variable
+          Integer index = variableIndexes.get(variableName);
+          readTerm((index == null) ? addVariable(variableName) : index);
+        }
+      } catch (IOException e) {
+        close();
+        throw new MarkLogicIOException("could not read SPARQL solution", e);
+      }
+      hasRow = true;
+      return true;
+    }
+    private void readTerm(int variable) throws IOException {
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String fieldName = parser.getCurrentName();
+        parser.nextToken();
+        switch (fieldName) {
+          case "type":
+            kinds[variable] = toKind(parser.getText());
+            break;
+          case "value":
+            values[variable] = parser.getText();
+            break;
+          case "datatype":
+            datatypes[variable] = parser.getText();
+            break;
+          case "xml:lang":
+            languages[variable] = parser.getText();
+            break;
+          default:
+            parser.skipChildren();
+            break;
+        }
+      }
+    }
+    private TermKind toKind(String type) {
+      switch (type) {
+        case "uri":
+          return TermKind.URI;
+        case "literal":
+        case "typed-literal":
+          return TermKind.LITERAL;
+        case "bnode":
+          return TermKind.BNODE;
+        default:
+          throw new MarkLogicIOException("unknown SPARQL term type: "+type);
+      }
+    }
+
+    private void checkRow() {
+      if (!hasRow) {
+        throw new IllegalStateException("no current solution");
+      }
+    }
+    @Override
+    public TermKind getKind(int variable) {
+      checkRow();
+      return kinds[variable];
+    }
+    @Override
+    public boolean isBound(int variable) {
+      return getKind(variable) != TermKind.UNBOUND;
+    }
+    @Override
+    public String getDatatype(int variable) {
+      checkRow();
+      return datatypes[variable];
+    }
+    @Override
+    public String getLanguage(int variable) {
+      checkRow();
+      return languages[variable];
+    }
+    @Override
+    public String getString(int variable) {
+      checkRow();
+      return values[variable];
+    }
+    @Override
+    public boolean getBoolean(int variable) {
+      String value = getString(variable);
+      return (value == null) ? false : ValueConverter.StringToBooleanPrimitive(value);
+    }
+    @Override
+    public long getLong(int variable) {
+      String value = getString(variable);
+      return (value == null) ? 0 : ValueConverter.StringToLongPrimitive(value);
+    }
+    @Override
+    public double getDouble(int variable) {
+      String value = getString(variable);
+      return (value == null) ? 0 : ValueConverter.StringToDoublePrimitive(value);
+    }
+
+    @Override
+    public void close() {
+      hasRow = false;
+      if (parser != null) {
+        try {
+          parser.close();
+        } catch (IOException e) {
+          // ignore.
+        }
+        parser = null;
+      }
+      if (resultStream != null) {
+        try {
+          resultStream.close();
+        } catch (IOException e) {
+          // ignore.
+        }
+        resultStream = null;
+      }
+    }
+  }
 }
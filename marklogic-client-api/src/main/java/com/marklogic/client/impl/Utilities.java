@@ -287,6 +287,53 @@ public final class Utilities {
       );
     }
   }
+  @SuppressWarnings("unchecked")
+  public static <T extends AbstractReadHandle> T exportBytesToHandle(
+    byte[] bytes, T handle
+  ) {
+    if (handle == null) {
+      return null;
+    }
+
+    @SuppressWarnings("rawtypes")
+    HandleImplementation baseHandle = HandleAccessor.checkHandle(handle,
+      "export");
+
+    baseHandle.receiveContent(
+      bytesToObject(bytes, baseHandle.receiveAs())
+    );
+
+    return handle;
+  }
+  public static Object bytesToObject(byte[] bytes, Class<?> as) {
+    if (bytes == null || bytes.length == 0) {
+      return null;
+    }
+
+    if (byte[].class.isAssignableFrom(as)) {
+      return bytes;
+    } else if (File.class.isAssignableFrom(as)) {
+      try {
+        File tempFile = File.createTempFile("tmp", ".xml");
+        try (OutputStream out = new FileOutputStream(tempFile)) {
+          out.write(bytes);
+        }
+        return tempFile;
+      } catch (IOException e) {
+        throw new MarkLogicIOException(e);
+      }
+    } else if (InputStream.class.isAssignableFrom(as)) {
+      return new ByteArrayInputStream(bytes);
+    } else if (Reader.class.isAssignableFrom(as)) {
+      return new StringReader(new String(bytes, StandardCharsets.UTF_8));
+    } else if (String.class.isAssignableFrom(as)) {
+      return new String(bytes, StandardCharsets.UTF_8);
+    } else {
+      throw new IllegalArgumentException(
+        "Unrecognized class for export: "+as.getName()
+      );
+    }
+  }
   public static byte[] eventsToBytes(List<XMLEvent> events) {
     ByteArrayOutputStream baos = new ByteArrayOutputStream();
     if (!writeEvents(events, baos)) {
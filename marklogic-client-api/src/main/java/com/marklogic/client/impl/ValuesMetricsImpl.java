@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2019 MarkLogic Corporation
+ * Copyright (c) 2021 MarkLogic Corporation
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,45 +15,34 @@
  */
 package com.marklogic.client.impl;
 
-import javax.xml.bind.annotation.XmlElement;
-
-import com.marklogic.client.impl.ValuesBuilder.Values;
 import com.marklogic.client.query.ValuesMetrics;
 
 /**
- * A CountedDistinctValue is a value that includes a frequency.
+ * The metrics reported for a values or tuples query.
  */
 public class ValuesMetricsImpl implements ValuesMetrics {
-  @XmlElement(namespace = Values.VALUES_NS, name = "values-resolution-time")
-  private ValuesMetricImpl valuesResolutionTime;
-
-  @XmlElement(namespace = Values.VALUES_NS, name = "aggregate-resolution-time")
-  private ValuesMetricImpl aggregateResolutionTime;
-
-  @XmlElement(namespace = Values.VALUES_NS, name = "total-time")
-  private ValuesMetricImpl totalTime;
+  private long valuesResolutionTime    = -1;
+  private long aggregateResolutionTime = -1;
+  private long totalTime               = -1;
+
+  public ValuesMetricsImpl(long valuesResolutionTime, long aggregateResolutionTime, long totalTime) {
+    this.valuesResolutionTime    = valuesResolutionTime;
+    this.aggregateResolutionTime = aggregateResolutionTime;
+    this.totalTime               = totalTime;
+  }
 
   @Override
   public long getValuesResolutionTime() {
-    if (valuesResolutionTime == null) {
-      return -1;
-    }
-    return valuesResolutionTime.getValue();
+    return valuesResolutionTime;
   }
 
   @Override
   public long getAggregateResolutionTime() {
-    if (aggregateResolutionTime == null) {
-      return -1;
-    }
-    return aggregateResolutionTime.getValue();
+    return aggregateResolutionTime;
   }
 
   @Override
   public long getTotalTime() {
-    if (totalTime == null) {
-      return -1;
-    }
-    return totalTime.getValue();
+    return totalTime;
   }
 }
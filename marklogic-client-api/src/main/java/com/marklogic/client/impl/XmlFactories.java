@@ -17,6 +17,8 @@ package com.marklogic.client.impl;
 
 import javax.xml.stream.FactoryConfigurationError;
 import javax.xml.stream.XMLOutputFactory;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.TransformerFactoryConfigurationError;
 import java.lang.ref.SoftReference;
 
 public final class XmlFactories {
@@ -29,6 +31,14 @@ public final class XmlFactories {
       }
     });
 
+  private static final CachedInstancePerThreadSupplier<TransformerFactory> cachedTransformerFactory =
+    new CachedInstancePerThreadSupplier<TransformerFactory>(new Supplier<TransformerFactory>() {
+      @Override
+      public TransformerFactory get() {
+        return TransformerFactory.newInstance();
+      }
+    });
+
   private XmlFactories() {} // preventing instances of utility class
 
   /**
@@ -67,6 +77,19 @@ public final class XmlFactories {
     return cachedOutputFactory.get();
   }
 
+  /**
+   * Returns a shared {@link TransformerFactory}.
+   * <p>
+   * A TransformerFactory isn't thread safe, so the instance is shared only by calls from the same thread.
+   *
+   * @return  a {@link TransformerFactory}
+   *
+   * @throws TransformerFactoryConfigurationError  see {@link TransformerFactory#newInstance()}
+   */
+  public static TransformerFactory getTransformerFactory() {
+    return cachedTransformerFactory.get();
+  }
+
   /**
    * Represents a supplier of results.
    *
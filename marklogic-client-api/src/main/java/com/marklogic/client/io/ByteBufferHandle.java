@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2021 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.marklogic.client.io.marker.BinaryWriteHandle;
+import com.marklogic.client.io.marker.GenericWriteHandle;
+import com.marklogic.client.io.marker.JSONWriteHandle;
+import com.marklogic.client.io.marker.OperationNotSupported;
+import com.marklogic.client.io.marker.StructureWriteHandle;
+import com.marklogic.client.io.marker.TextWriteHandle;
+import com.marklogic.client.io.marker.XMLWriteHandle;
+
+/**
+ * A Byte Buffer Handle represents document content as the remaining bytes
+ * of a ByteBuffer for writing.
+ *
+ * The handle writes the bytes directly from the buffer without copying them,
+ * so the buffer can be a slice of a larger array or of a memory-mapped file
+ * such as the documents split from an aggregate by the JSONSplitter or
+ * XMLSplitter.  The content of the buffer must not change until the document
+ * has been written.
+ *
+ * As with a BytesHandle, JSON, text, or XML content must be encoded in UTF-8.
+ */
+public class ByteBufferHandle
+  extends BaseHandle<OperationNotSupported, OutputStreamSender>
+  implements OutputStreamSender,
+    BinaryWriteHandle,
+    GenericWriteHandle,
+    JSONWriteHandle,
+    TextWriteHandle,
+    XMLWriteHandle,
+    StructureWriteHandle
+{
+  private ByteBuffer content;
+
+  /**
+   * Zero-argument constructor.
+   */
+  public ByteBufferHandle() {
+    super();
+    setResendable(true);
+  }
+  /**
+   * Initializes the handle with the remaining bytes of a buffer as the content.
+   * @param content	the buffer
+   */
+  public ByteBufferHandle(ByteBuffer content) {
+    this();
+    set(content);
+  }
+
+  /**
+   * Returns a read-only view of the bytes of the content.
+   * @return	the buffer
+   */
+  public ByteBuffer get() {
+    return (content == null) ? null : content.asReadOnlyBuffer();
+  }
+  /**
+   * Assigns the remaining bytes of a buffer as the content.  Later changes
+   * to the position or limit of the buffer don't affect the content.
+   * @param content	the buffer
+   */
+  public void set(ByteBuffer content) {
+    this.content = (content == null) ? null : content.slice();
+  }
+  /**
+   * Assigns the remaining bytes of a buffer as the content and returns
+   * the handle as a fluent convenience.
+   * @param content	the buffer
+   * @return	this handle
+   */
+  public ByteBufferHandle with(ByteBuffer content) {
+    set(content);
+    return this;
+  }
+
+  /**
+   * Specifies the format of the content and returns the handle
+   * as a fluent convenience.
+   * @param format	the format of the content
+   * @return	this handle
+   */
+  public ByteBufferHandle withFormat(Format format) {
+    setFormat(format);
+    return this;
+  }
+  /**
+   * Specifies the mime type of the content and returns the handle
+   * as a fluent convenience.
+   * @param mimetype	the mime type of the content
+   * @return	this handle
+   */
+  public ByteBufferHandle withMimetype(String mimetype) {
+    setMimetype(mimetype);
+    return this;
+  }
+
+  /**
+   * Returns the number of bytes in the content.
+   * @return	the byte length
+   */
+  @Override
+  public long getByteLength() {
+    return (content == null) ? 0 : content.remaining();
+  }
+
+  /**
+   * Writes the bytes of the content to the output stream.
+   * @param out	the output stream
+   * @throws IOException	if the content cannot be written
+   */
+  @Override
+  public void write(OutputStream out) throws IOException {
+    ByteBuffer source = content.duplicate();
+    if (source.hasArray()) {
+      out.write(source.array(), source.arrayOffset() + source.position(), source.remaining());
+      return;
+    }
+
+    // the bytes of a direct or read-only buffer can only be copied out
+    byte[] chunk = new byte[Math.min(source.remaining(), 8192)];
+    while (source.hasRemaining()) {
+      int length = Math.min(source.remaining(), chunk.length);
+      source.get(chunk, 0, length);
+      out.write(chunk, 0, length);
+    }
+  }
+
+  /**
+   * Returns the content decoded as a UTF-8 string.
+   * @return	the string
+   */
+  @Override
+  public String toString() {
+    if (content == null) {
+      return null;
+    }
+    ByteBuffer source = content.duplicate();
+    if (source.hasArray()) {
+      return new String(source.array(), source.arrayOffset() + source.position(), source.remaining(),
+        StandardCharsets.UTF_8);
+    }
+    return StandardCharsets.UTF_8.decode(source).toString();
+  }
+
+  @Override
+  protected OutputStreamSender sendContent() {
+    if (content == null) {
+      throw new IllegalStateException("No buffer to write");
+    }
+
+    return this;
+  }
+}
@@ -19,9 +19,9 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.io.UnsupportedEncodingException;
+import java.io.PushbackInputStream;
+import java.io.StringWriter;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
@@ -34,14 +34,20 @@ import java.util.Set;
 import javax.xml.XMLConstants;
 import javax.xml.datatype.Duration;
 import javax.xml.namespace.QName;
-import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.XMLStreamWriter;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactoryConfigurationError;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
 
 import com.marklogic.client.impl.*;
 import org.slf4j.Logger;
@@ -50,9 +56,13 @@ import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.marklogic.client.MarkLogicIOException;
 import com.marklogic.client.MarkLogicInternalException;
 import com.marklogic.client.io.marker.BufferableHandle;
@@ -62,6 +72,10 @@ import com.marklogic.client.util.NameMap;
 
 /**
  * A DocumentMetadataHandle represents the metadata for a database document.
+ *
+ * The metadata is read and written in the XML format by default or in
+ * the JSON format if specified with {@link #setFormat(Format)}. Property
+ * values are only parsed into DOM nodes when they have child elements.
  */
 public class DocumentMetadataHandle
   extends BaseHandle<InputStream, OutputStreamSender>
@@ -72,6 +86,9 @@ public class DocumentMetadataHandle
   final static private String REST_API_NS     = "http://marklogic.com/rest-api";
   final static private String PROPERTY_API_NS = "http://marklogic.com/xdmp/property";
 
+  final static private ObjectMapper    mapper       = new ObjectMapper();
+  final static private XMLInputFactory inputFactory = makeInputFactory();
+
   /**
    * Represents the collections for a database document.
    */
@@ -281,6 +298,11 @@ public class DocumentMetadataHandle
       super();
     }
 
+    // JSON metadata can have object and array values
+    @Override
+    protected boolean isValidValue(Object value) {
+      return value instanceof JsonNode || super.isValidValue(value);
+    }
 
   }
 
@@ -488,18 +510,30 @@ public class DocumentMetadataHandle
   }
 
   /**
-   * Restricts the format used parsing and serializing the metadata.
+   * Restricts the format used parsing and serializing the metadata
+   * to XML or JSON. The metadata is read in either format regardless
+   * of the format of the handle.
    */
   @Override
   public void setFormat(Format format) {
-    if (format != Format.XML)
-      throw new IllegalArgumentException("DocumentMetadataHandle supports the XML format only");
+    if (format != Format.XML && format != Format.JSON)
+      throw new IllegalArgumentException("DocumentMetadataHandle supports the XML and JSON formats only");
+    super.setFormat(format);
+  }
+  /**
+   * Specifies the format used parsing and serializing the metadata.
+   * @param format	the XML or JSON format
+   * @return	the document metadata handle
+   */
+  public DocumentMetadataHandle withFormat(Format format) {
+    setFormat(format);
+    return this;
   }
 
   /**
    * fromBuffer() populates DocumentMetadataHandle from a byte array
-   * buffer.  The buffer must store document metadata in XML format
-   * in the UTF-8 encoding.
+   * buffer.  The buffer must store document metadata in XML or JSON
+   * format in the UTF-8 encoding.
    */
   @Override
   public void fromBuffer(byte[] buffer) {
@@ -535,21 +569,31 @@ public class DocumentMetadataHandle
   @Override
   protected void receiveContent(InputStream content) {
     try {
-      if (logger.isInfoEnabled())
-        logger.info("Parsing metadata structure from input stream");
-
-      Document document = null;
-      if (content != null) {
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        factory.setNamespaceAware(true);
-        factory.setValidating(false);
-        DocumentBuilder builder = factory.newDocumentBuilder();
-        document = builder.parse(new InputSource(new InputStreamReader(content, StandardCharsets.UTF_8)));
-        content.close();
-      }
+      if (logger.isDebugEnabled())
+        logger.debug("Parsing metadata structure from input stream");
+
+      clearMetadataImpl();
+      if (content == null)
+        return;
 
-      receiveMetadataImpl(document);
-    } catch (SAXException e) {
+      PushbackInputStream input = new PushbackInputStream(content, 1);
+      try {
+        int first = input.read();
+        while (first != -1 && Character.isWhitespace(first)) {
+          first = input.read();
+        }
+        if (first == -1)
+          return;
+        input.unread(first);
+
+        if (first == '{')
+          receiveJSONImpl(input);
+        else
+          receiveXMLImpl(input);
+      } finally {
+        input.close();
+      }
+    } catch (XMLStreamException e) {
       logger.error("Failed to parse metadata structure from input stream",e);
       throw new MarkLogicInternalException(e);
     } catch (IOException e) {
@@ -566,185 +610,200 @@ public class DocumentMetadataHandle
   }
   @Override
   public void write(OutputStream out) throws IOException {
-    sendMetadataImpl(out);
+    if (getFormat() == Format.JSON)
+      sendJSONImpl(out);
+    else
+      sendMetadataImpl(out);
   }
 
-  private void receiveMetadataImpl(Document document) {
-    receiveCollectionsImpl(document);
-    receivePermissionsImpl(document);
-    receivePropertiesImpl(document);
-    receiveQualityImpl(document);
-    receiveMetadataValuesImpl(document);
+  static private XMLInputFactory makeInputFactory() {
+    XMLInputFactory factory = XMLInputFactory.newFactory();
+    factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+    factory.setProperty(XMLInputFactory.IS_VALIDATING,      false);
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD,        false);
+    return factory;
   }
 
-  private void receiveMetadataValuesImpl(Document document) {
-    DocumentMetadataValues metadataValues = getMetadataValues();
-    metadataValues.clear();
-
-    if (document == null)
-      return;
-
-    NodeList valuesIn = document.getElementsByTagNameNS(REST_API_NS, "metadata-values");
-    int valuesInLength = valuesIn.getLength();
-    for (int i = 0; i < valuesInLength; i++) {
-      String key = null;
-      String value = null;
+  private void clearMetadataImpl() {
+    getCollections().clear();
+    getPermissions().clear();
+    getProperties().clear();
+    getMetadataValues().clear();
+    setQuality(0);
+  }
 
-      NodeList children = valuesIn.item(i).getChildNodes();
-      for (int j = 0; j < children.getLength(); j++) {
-        Node node = children.item(j);
-        if (node.getNodeType() != Node.ELEMENT_NODE)
-          continue;
-        Element element = (Element) node;
-
-        if ("metadata-value".equals(element.getLocalName())) {
-          key = element.getAttribute("key");
-          value = element.getTextContent();
-        } else if (logger.isWarnEnabled())
-          logger.warn("Skipping unknown value element", element.getTagName());
-        if (key == null || value == null) {
-          if (logger.isWarnEnabled())
-            logger.warn("Could not parse value");
+  // reads the metadata in a single pass, building DOM only for properties with element children
+  private void receiveXMLImpl(InputStream content) throws XMLStreamException, ParserConfigurationException {
+    XMLStreamReader reader = inputFactory.createXMLStreamReader(content, "UTF-8");
+    try {
+      while (reader.hasNext()) {
+        if (reader.next() != XMLStreamConstants.START_ELEMENT)
           continue;
-        }
 
-        metadataValues.put(key, value);
+        String namespaceURI = reader.getNamespaceURI();
+        String localName    = reader.getLocalName();
+        if (REST_API_NS.equals(namespaceURI)) {
+          if ("collection".equals(localName))
+            getCollections().add(reader.getElementText());
+          else if ("permission".equals(localName))
+            receivePermissionImpl(reader);
+          else if ("quality".equals(localName))
+            receiveQualityImpl(reader.getElementText());
+          else if ("metadata-value".equals(localName)) {
+            String key   = reader.getAttributeValue(null, "key");
+            String value = reader.getElementText();
+            if (key == null) {
+              if (logger.isWarnEnabled())
+                logger.warn("Could not parse value");
+              continue;
+            }
+            getMetadataValues().put(key, value);
+          }
+        } else if (PROPERTY_API_NS.equals(namespaceURI) && "properties".equals(localName)) {
+          receivePropertiesImpl(reader);
+        }
       }
+    } finally {
+      reader.close();
     }
   }
-
-  private void receiveCollectionsImpl(Document document) {
-    DocumentCollections collections = getCollections();
-    collections.clear();
-
-    if (document == null)
-      return;
-
-    NodeList collectionsIn = document.getElementsByTagNameNS(REST_API_NS, "collection");
-    int collectionsInLength = collectionsIn.getLength();
-    for (int i=0; i < collectionsInLength; i++) {
-      collections.add(collectionsIn.item(i).getTextContent());
-    }
-  }
-  private void receivePermissionsImpl(Document document) {
-    DocumentPermissions permissions = getPermissions();
-    permissions.clear();
-
-    if (document == null)
-      return;
-
-    NodeList permissionsIn = document.getElementsByTagNameNS(REST_API_NS, "permission");
-    int permissionsInLength = permissionsIn.getLength();
-    for (int i=0; i < permissionsInLength; i++) {
-      String roleName = null;
-      Set<Capability> caps = new HashSet<>();
-
-      NodeList children = permissionsIn.item(i).getChildNodes();
-      for (int j=0; j < children.getLength(); j++) {
-        Node node = children.item(j);
-        if (node.getNodeType() != Node.ELEMENT_NODE)
-          continue;
-        Element element = (Element) node;
-
-        if ("role-name".equals(element.getLocalName()))
-          roleName = element.getTextContent();
-        else if ("capability".equals(element.getLocalName()))
-          caps.add(Capability.getValueOf(element.getTextContent()));
-        else if (logger.isWarnEnabled())
-          logger.warn("Skipping unknown permission element", element.getTagName());
-      }
-
-      if (roleName == null || caps.size() == 0) {
+  private void receivePermissionImpl(XMLStreamReader reader) throws XMLStreamException {
+    String roleName = null;
+    Set<Capability> caps = new HashSet<>();
+
+    while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+      String localName = reader.getLocalName();
+      if ("role-name".equals(localName))
+        roleName = reader.getElementText();
+      else if ("capability".equals(localName))
+        caps.add(Capability.getValueOf(reader.getElementText()));
+      else {
         if (logger.isWarnEnabled())
-          logger.warn("Could not parse permission");
-        continue;
+          logger.warn("Skipping unknown permission element {}", localName);
+        skipElement(reader);
       }
-
-      permissions.put(roleName, caps);
     }
-  }
-  private void receivePropertiesImpl(Document document) {
-    DocumentProperties properties = getProperties();
-    properties.clear();
 
-    if (document == null)
-      return;
-
-    Node propertyContainer = document.getElementsByTagNameNS(PROPERTY_API_NS, "properties").item(0);
-    if (propertyContainer == null)
+    if (roleName == null || caps.size() == 0) {
+      if (logger.isWarnEnabled())
+        logger.warn("Could not parse permission");
       return;
+    }
 
-    NodeList propertiesIn = propertyContainer.getChildNodes();
-    for (int i=0; i < propertiesIn.getLength(); i++) {
-      Node node = propertiesIn.item(i);
-      if (node.getNodeType() != Node.ELEMENT_NODE)
-        continue;
-      Element property = (Element) node;
-
-      QName propertyName = null;
-
-      String namespaceURI = property.getNamespaceURI();
-      if (namespaceURI != null) {
-        String prefix    = property.getPrefix();
-        if (prefix != null) {
-          propertyName = new QName(namespaceURI, property.getLocalName(), prefix);
-        } else {
-          propertyName = new QName(namespaceURI, property.getTagName());
-        }
-      } else {
-        propertyName = new QName(property.getTagName());
-      }
+    getPermissions().put(roleName, caps);
+  }
+  private void receivePropertiesImpl(XMLStreamReader reader) throws XMLStreamException, ParserConfigurationException {
+    DocumentProperties properties = getProperties();
 
-      if (!property.hasChildNodes()) {
-        properties.put(propertyName, (String) null);
+    while (reader.hasNext()) {
+      int eventType = reader.next();
+      if (eventType == XMLStreamConstants.END_ELEMENT)
+        return;
+      if (eventType != XMLStreamConstants.START_ELEMENT)
         continue;
-      }
 
-      NodeList children = property.getChildNodes();
-      boolean hasChildElements = false;
-      int childCount = children.getLength();
-      for (int j=0; j < childCount; j++) {
-        Node child = children.item(j);
-        if (child.getNodeType() == Node.ELEMENT_NODE) {
-          hasChildElements = true;
-          break;
+      QName  propertyName = reader.getName();
+      String type         = reader.getAttributeValue(
+        XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI, "type");
+
+      // collect the text until the end of the property or its first child element
+      StringBuilder text = new StringBuilder();
+      boolean hasChildNodes = false;
+      boolean isReceived    = false;
+      property: while (reader.hasNext()) {
+        switch (reader.next()) {
+          case XMLStreamConstants.CHARACTERS:
+          case XMLStreamConstants.CDATA:
+          case XMLStreamConstants.SPACE:
+            text.append(reader.getText());
+            hasChildNodes = true;
+            break;
+          case XMLStreamConstants.COMMENT:
+          case XMLStreamConstants.PROCESSING_INSTRUCTION:
+            hasChildNodes = true;
+            break;
+          case XMLStreamConstants.START_ELEMENT:
+            properties.put(propertyName, receivePropertyNodes(reader, propertyName, text));
+            isReceived = true;
+            break property;
+          case XMLStreamConstants.END_ELEMENT:
+            if (!hasChildNodes) {
+              properties.put(propertyName, (String) null);
+              isReceived = true;
+            }
+            break property;
         }
       }
-      if (hasChildElements) {
-        properties.put(propertyName, children);
+      if (isReceived)
         continue;
-      }
 
       // TODO: casting known properties such as prop:last-modified
 
-      String value = property.getTextContent();
-      if (property.hasAttributeNS(
-        XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI, "type")) {
-        String type = property.getAttributeNS(
-          XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI, "type");
+      String value = text.toString();
+      if (type != null)
         properties.put(propertyName, ValueConverter.convertToJava(type, value));
-        continue;
-      } else {
+      else
         properties.put(propertyName, value);
-      }
-
-      properties.put(propertyName, value);
     }
   }
-  private void receiveQualityImpl(Document document) {
-    if (document == null) {
-      setQuality(0);
-      return;
-    }
-
-    Node quality = document.getElementsByTagNameNS(REST_API_NS, "quality").item(0);
-    if (quality == null) {
-      setQuality(0);
-      return;
+  // builds DOM for a property with element children starting from its first child element
+  private NodeList receivePropertyNodes(XMLStreamReader reader, QName propertyName, CharSequence leadingText)
+    throws XMLStreamException, ParserConfigurationException
+  {
+    DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    factory.setNamespaceAware(true);
+    factory.setValidating(false);
+    Document document = factory.newDocumentBuilder().newDocument();
+
+    Element property = document.createElementNS(
+      emptyToNull(propertyName.getNamespaceURI()), qualifiedName(propertyName.getPrefix(), propertyName.getLocalPart()));
+    document.appendChild(property);
+    if (leadingText.length() > 0)
+      property.appendChild(document.createTextNode(leadingText.toString()));
+
+    Node parent = property;
+    int eventType = reader.getEventType();
+    while (true) {
+      switch (eventType) {
+        case XMLStreamConstants.START_ELEMENT:
+          Element element = document.createElementNS(
+            emptyToNull(reader.getNamespaceURI()), qualifiedName(reader.getPrefix(), reader.getLocalName()));
+          for (int i=0; i < reader.getNamespaceCount(); i++) {
+            String prefix = emptyToNull(reader.getNamespacePrefix(i));
+            element.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI,
+              (prefix == null) ? "xmlns" : "xmlns:"+prefix, reader.getNamespaceURI(i));
+          }
+          for (int i=0; i < reader.getAttributeCount(); i++) {
+            element.setAttributeNS(emptyToNull(reader.getAttributeNamespace(i)),
+              qualifiedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)),
+              reader.getAttributeValue(i));
+          }
+          parent.appendChild(element);
+          parent = element;
+          break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.SPACE:
+          parent.appendChild(document.createTextNode(reader.getText()));
+          break;
+        case XMLStreamConstants.CDATA:
+          parent.appendChild(document.createCDATASection(reader.getText()));
+          break;
+        case XMLStreamConstants.COMMENT:
+          parent.appendChild(document.createComment(reader.getText()));
+          break;
+        case XMLStreamConstants.PROCESSING_INSTRUCTION:
+          parent.appendChild(document.createProcessingInstruction(reader.getPITarget(), reader.getPIData()));
+          break;
+        case XMLStreamConstants.END_ELEMENT:
+          if (parent == property)
+            return property.getChildNodes();
+          parent = parent.getParentNode();
+          break;
+      }
+      eventType = reader.next();
     }
-
-    String qualityText = quality.getTextContent();
-
+  }
+  private void receiveQualityImpl(String qualityText) {
     int qualityNum = 0;
     try {
       qualityNum = Utilities.parseInt(qualityText);
@@ -753,11 +812,114 @@ public class DocumentMetadataHandle
       }
     } catch(NumberFormatException ex) {
       if (logger.isWarnEnabled())
-        logger.warn("Could not parse quality integer from", qualityText);
+        logger.warn("Could not parse quality integer from {}", qualityText);
     }
 
     setQuality(qualityNum);
   }
+  static private void skipElement(XMLStreamReader reader) throws XMLStreamException {
+    for (int depth = 1; depth > 0; ) {
+      int eventType = reader.next();
+      if (eventType == XMLStreamConstants.START_ELEMENT)
+        depth++;
+      else if (eventType == XMLStreamConstants.END_ELEMENT)
+        depth--;
+    }
+  }
+  static private String emptyToNull(String value) {
+    return (value == null || value.length() == 0) ? null : value;
+  }
+  static private String qualifiedName(String prefix, String localName) {
+    return (prefix == null || prefix.length() == 0) ? localName : prefix+":"+localName;
+  }
+
+  private void receiveJSONImpl(InputStream content) throws IOException {
+    try (JsonParser parser = mapper.getFactory().createParser(content)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT)
+        throw new MarkLogicIOException("Metadata JSON must be an object");
+
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.getCurrentName();
+        JsonToken token = parser.nextToken();
+        if ("collections".equals(field) && token == JsonToken.START_ARRAY) {
+          while (parser.nextToken() != JsonToken.END_ARRAY) {
+            getCollections().add(parser.getValueAsString());
+          }
+        } else if ("permissions".equals(field) && token == JsonToken.START_ARRAY) {
+          while (parser.nextToken() == JsonToken.START_OBJECT) {
+            receivePermissionImpl(parser);
+          }
+        } else if ("properties".equals(field) && token == JsonToken.START_OBJECT) {
+          DocumentProperties properties = getProperties();
+          while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            QName  propertyName = QName.valueOf(parser.getCurrentName());
+            Object value        = receivePropertyValue(parser, parser.nextToken());
+            if (value == null)
+              properties.put(propertyName, (String) null);
+            else
+              properties.put(propertyName, value);
+          }
+        } else if ("quality".equals(field) && token != JsonToken.VALUE_NULL) {
+          receiveQualityImpl(parser.getValueAsString());
+        } else if ("metadataValues".equals(field) && token == JsonToken.START_OBJECT) {
+          DocumentMetadataValues metadataValues = getMetadataValues();
+          while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String key = parser.getCurrentName();
+            parser.nextToken();
+            metadataValues.put(key, parser.getValueAsString());
+          }
+        } else {
+          parser.skipChildren();
+        }
+      }
+    }
+  }
+  private void receivePermissionImpl(JsonParser parser) throws IOException {
+    String roleName = null;
+    Set<Capability> caps = new HashSet<>();
+
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.getCurrentName();
+      JsonToken token = parser.nextToken();
+      if ("role-name".equals(field))
+        roleName = parser.getValueAsString();
+      else if ("capabilities".equals(field) && token == JsonToken.START_ARRAY) {
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+          caps.add(Capability.getValueOf(parser.getValueAsString()));
+        }
+      } else {
+        if (logger.isWarnEnabled())
+          logger.warn("Skipping unknown permission field {}", field);
+        parser.skipChildren();
+      }
+    }
+
+    if (roleName == null || caps.size() == 0) {
+      if (logger.isWarnEnabled())
+        logger.warn("Could not parse permission");
+      return;
+    }
+
+    getPermissions().put(roleName, caps);
+  }
+  // object and array values are kept as JsonNode
+  static private Object receivePropertyValue(JsonParser parser, JsonToken token) throws IOException {
+    switch (token) {
+      case VALUE_NULL:
+        return null;
+      case VALUE_TRUE:
+      case VALUE_FALSE:
+        return parser.getBooleanValue();
+      case VALUE_NUMBER_INT:
+      case VALUE_NUMBER_FLOAT:
+        return parser.getNumberValue();
+      case START_OBJECT:
+      case START_ARRAY:
+        return mapper.readTree(parser);
+      default:
+        return parser.getValueAsString();
+    }
+  }
 
   // TODO: select the metadata sent
   private void sendMetadataImpl(OutputStream out) {
@@ -796,6 +958,96 @@ public class DocumentMetadataHandle
     }
   }
 
+  private void sendJSONImpl(OutputStream out) throws IOException {
+    try (JsonGenerator generator = mapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+      generator.writeStartObject();
+
+      if (getCollections().size() > 0) {
+        generator.writeArrayFieldStart("collections");
+        for (String collection: getCollections()) {
+          generator.writeString(collection);
+        }
+        generator.writeEndArray();
+      }
+
+      if (getPermissions().size() > 0) {
+        generator.writeArrayFieldStart("permissions");
+        for (Map.Entry<String, Set<Capability>> permission: getPermissions().entrySet()) {
+          generator.writeStartObject();
+          generator.writeStringField("role-name", permission.getKey());
+          generator.writeArrayFieldStart("capabilities");
+          for (Capability capability: permission.getValue()) {
+            generator.writeString(capability.toString().toLowerCase());
+          }
+          generator.writeEndArray();
+          generator.writeEndObject();
+        }
+        generator.writeEndArray();
+      }
+
+      if (getProperties().size() > 0) {
+        generator.writeObjectFieldStart("properties");
+        for (Map.Entry<QName, Object> property: getProperties().entrySet()) {
+          QName propertyName = property.getKey();
+          if (PROPERTY_API_NS.equals(propertyName.getNamespaceURI()))
+            continue;
+          generator.writeFieldName(propertyName.toString());
+          sendPropertyValue(generator, property.getValue());
+        }
+        generator.writeEndObject();
+      }
+
+      if (qualityModified)
+        generator.writeNumberField("quality", getQuality());
+
+      if (getMetadataValues().size() > 0) {
+        generator.writeObjectFieldStart("metadataValues");
+        for (Map.Entry<String, String> value : getMetadataValues().entrySet()) {
+          generator.writeStringField(value.getKey(), value.getValue());
+        }
+        generator.writeEndObject();
+      }
+
+      generator.writeEndObject();
+    } catch (TransformerException e) {
+      throw new MarkLogicIOException("Failed to serialize metadata", e);
+    }
+  }
+  static private void sendPropertyValue(JsonGenerator generator, Object value) throws IOException, TransformerException {
+    if (value == null) {
+      generator.writeNull();
+    } else if (value instanceof String) {
+      generator.writeString((String) value);
+    } else if (value instanceof Boolean) {
+      generator.writeBoolean((Boolean) value);
+    } else if (value instanceof Integer || value instanceof Long ||
+               value instanceof Short || value instanceof Byte) {
+      generator.writeNumber(((Number) value).longValue());
+    } else if (value instanceof BigInteger) {
+      generator.writeNumber((BigInteger) value);
+    } else if (value instanceof BigDecimal) {
+      generator.writeNumber((BigDecimal) value);
+    } else if (value instanceof Double || value instanceof Float) {
+      generator.writeNumber(((Number) value).doubleValue());
+    } else if (value instanceof JsonNode) {
+      generator.writeTree((JsonNode) value);
+    } else if (value instanceof NodeList) {
+      // the nodes are serialized separately because a list can have several elements
+      NodeList nodes = (NodeList) value;
+      Transformer transformer = XmlFactories.getTransformerFactory().newTransformer();
+      transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+      StringWriter writer = new StringWriter();
+      for (int i=0; i < nodes.getLength(); i++) {
+        transformer.transform(new DOMSource(nodes.item(i)), new StreamResult(writer));
+      }
+      generator.writeString(writer.toString());
+    } else {
+      String[] lexical = new String[1];
+      ValueConverter.convertFromJava(value, (original, type, text) -> lexical[0] = text);
+      generator.writeString(lexical[0]);
+    }
+  }
+
   private void sendMetadataValuesImpl(XMLStreamWriter serializer) throws XMLStreamException {
     if (getMetadataValues() == null || getMetadataValues().size() == 0)
       return;
@@ -879,6 +1131,9 @@ public class DocumentMetadataHandle
         if (valueSerializer == null)
           valueSerializer = new ValueSerializer(serializer);
 
+        // XML metadata can only express a JSON object or array as its text
+        if (value instanceof JsonNode)
+          value = value.toString();
         ValueConverter.convertFromJava(value, valueSerializer);
       } else {
         new DOMWriter(serializer).serializeNodeList((NodeList) value);
@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2021 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.io;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.marklogic.client.document.DocumentWriteOperation;
+
+/**
+ * A Pooled Bytes Handle represents document content as bytes copied into
+ * a reusable buffer that belongs to a pool of handles.
+ *
+ * When a program writes many documents with a WriteBatcher, acquiring the
+ * handles from a pool and recycling them after each batch is written
+ * avoids allocating a handle and a byte array for every document:
+ *
+ * <pre>{@code
+ *     PooledBytesHandle.Pool pool = new PooledBytesHandle.Pool(64 * 1024, 1000, false);
+ *     WriteBatcher batcher = dataMovementManager.newWriteBatcher()
+ *         .withHandleRecycler(PooledBytesHandle::recycle);
+ *     ...
+ *     batcher.add(uri, pool.acquire().with(bytes).withFormat(Format.JSON));
+ *}</pre>
+ *
+ * A handle must not be used after it has been released to the pool.
+ */
+public class PooledBytesHandle extends ByteBufferHandle {
+  private final Pool pool;
+  private final AtomicBoolean released = new AtomicBoolean(false);
+  private ByteBuffer buffer;
+
+  private PooledBytesHandle(Pool pool) {
+    super();
+    this.pool = pool;
+  }
+
+  /**
+   * Copies the bytes into the buffer of the handle as the content.
+   * @param content	the bytes
+   */
+  public void set(byte[] content) {
+    if (content == null) {
+      super.set(null);
+      return;
+    }
+    set(content, 0, content.length);
+  }
+  /**
+   * Copies a range of the bytes into the buffer of the handle as the content.
+   * @param content	the bytes
+   * @param offset	the offset of the first byte to copy
+   * @param length	the number of bytes to copy
+   */
+  public void set(byte[] content, int offset, int length) {
+    ByteBuffer target = reserve(length);
+    target.put(content, offset, length);
+    target.flip();
+    super.set(target);
+  }
+  /**
+   * Copies the remaining bytes of a buffer into the buffer of the handle
+   * as the content.  The position of the source buffer doesn't change.
+   * @param content	the buffer
+   */
+  @Override
+  public void set(ByteBuffer content) {
+    if (content == null) {
+      super.set(null);
+      return;
+    }
+    ByteBuffer target = reserve(content.remaining());
+    target.put(content.duplicate());
+    target.flip();
+    super.set(target);
+  }
+
+  /**
+   * Copies the bytes into the buffer of the handle as the content and
+   * returns the handle as a fluent convenience.
+   * @param content	the bytes
+   * @return	this handle
+   */
+  public PooledBytesHandle with(byte[] content) {
+    set(content);
+    return this;
+  }
+  @Override
+  public PooledBytesHandle with(ByteBuffer content) {
+    set(content);
+    return this;
+  }
+  @Override
+  public PooledBytesHandle withFormat(Format format) {
+    setFormat(format);
+    return this;
+  }
+  @Override
+  public PooledBytesHandle withMimetype(String mimetype) {
+    setMimetype(mimetype);
+    return this;
+  }
+
+  /**
+   * Returns the handle and its buffer to the pool.  Releasing a handle
+   * more than once has no effect.
+   */
+  public void release() {
+    if (!released.compareAndSet(false, true)) {
+      return;
+    }
+    super.set(null);
+    setFormat(Format.UNKNOWN);
+    setMimetype(null);
+    pool.release(this);
+  }
+
+  /**
+   * Releases the content handle of a written document if the handle
+   * is a PooledBytesHandle.  The method can be passed to
+   * {@link com.marklogic.client.datamovement.WriteBatcher#withHandleRecycler WriteBatcher.withHandleRecycler}.
+   * @param writeOperation	the written document
+   */
+  public static void recycle(DocumentWriteOperation writeOperation) {
+    if (writeOperation != null && writeOperation.getContent() instanceof PooledBytesHandle) {
+      ((PooledBytesHandle) writeOperation.getContent()).release();
+    }
+  }
+
+  private ByteBuffer reserve(int length) {
+    if (released.get()) {
+      throw new IllegalStateException("Cannot set the content of a handle released to its pool");
+    }
+    if (buffer == null || buffer.capacity() < length) {
+      buffer = pool.allocate(length);
+    }
+    buffer.clear();
+    return buffer;
+  }
+
+  /**
+   * A pool of handles with reusable heap or direct buffers.  The pool keeps
+   * up to the maximum number of idle handles and allocates a new handle when
+   * none is idle, so acquiring a handle never waits.  A buffer enlarged for
+   * content bigger than the buffer size is discarded on release so a few large
+   * documents don't inflate the memory held by the pool.
+   */
+  public static class Pool {
+    private final int bufferSize;
+    private final boolean direct;
+    private final BlockingQueue<PooledBytesHandle> idle;
+
+    /**
+     * Initializes the pool.
+     * @param bufferSize	the initial capacity of the buffer of each handle
+     * @param maxIdle	the maximum number of released handles kept for reuse
+     * @param direct	whether to allocate direct instead of heap buffers
+     */
+    public Pool(int bufferSize, int maxIdle, boolean direct) {
+      if (bufferSize < 1) {
+        throw new IllegalArgumentException("buffer size must be at least 1: "+bufferSize);
+      }
+      if (maxIdle < 1) {
+        throw new IllegalArgumentException("maximum idle handles must be at least 1: "+maxIdle);
+      }
+      this.bufferSize = bufferSize;
+      this.direct     = direct;
+      this.idle       = new ArrayBlockingQueue<>(maxIdle);
+    }
+
+    /**
+     * Takes an idle handle from the pool or creates a new handle.
+     * @return	a handle without content
+     */
+    public PooledBytesHandle acquire() {
+      PooledBytesHandle handle = idle.poll();
+      if (handle == null) {
+        return new PooledBytesHandle(this);
+      }
+      handle.released.set(false);
+      return handle;
+    }
+
+    /**
+     * Returns the number of released handles waiting for reuse.
+     * @return	the idle handle count
+     */
+    public int getIdleCount() {
+      return idle.size();
+    }
+
+    private ByteBuffer allocate(int length) {
+      int capacity = Math.max(bufferSize, length);
+      return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    private void release(PooledBytesHandle handle) {
+      if (handle.buffer != null && handle.buffer.capacity() > bufferSize) {
+        handle.buffer = null;
+      }
+      // when the pool is full, the handle is left to the garbage collector
+      idle.offer(handle);
+    }
+  }
+}
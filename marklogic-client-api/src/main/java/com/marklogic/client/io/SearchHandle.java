@@ -15,6 +15,9 @@
  */
 package com.marklogic.client.io;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
@@ -24,12 +27,14 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 import javax.xml.datatype.DatatypeConfigurationException;
 import javax.xml.datatype.DatatypeFactory;
 import javax.xml.namespace.QName;
 import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
@@ -50,6 +55,7 @@ import com.marklogic.client.DatabaseClientFactory.HandleFactoryRegistry;
 import com.marklogic.client.MarkLogicIOException;
 import com.marklogic.client.impl.HandleAccessor;
 import com.marklogic.client.impl.Utilities;
+import com.marklogic.client.impl.XmlFactories;
 import com.marklogic.client.io.marker.ContentHandle;
 import com.marklogic.client.io.marker.OperationNotSupported;
 import com.marklogic.client.io.marker.SearchReadHandle;
@@ -69,6 +75,12 @@ import java.util.Map;
  * <code>forceDOM</code> flag can be set to cause the handle to always return DOM documents,
  * even in the default case.</p>
  *
+ * <p>Snippets, metadata, relevance information, and extracted content are kept as
+ * serialized XML for each result and only parsed when requested.</p>
+ *
+ * <p>In streaming mode, the handle reads the results from the response as they are
+ * requested with {@link #getResultCursor()} instead of reading the entire response
+ * when the search returns. See {@link #setStreaming(boolean)}.</p>
  */
 public class SearchHandle
   extends BaseHandle<InputStream, OperationNotSupported>
@@ -88,17 +100,19 @@ public class SearchHandle
   private List<Report>      reports;
 
   private Map<String, FacetResult> facets;
-  private Map<String, EventRange>  constraints;
+  private Map<String, byte[]>      constraints;
 
-  private EventRange     planEvents;
-  private List<XMLEvent> events;
+  private byte[]     plan;
 
   private long       totalResults = -1;
   private long       start        = -1;
   private int        pageLength   = 0;
   private String     snippetType;
   private String[]   qtext;
-  private EventRange queryEvents;
+  private byte[]     query;
+
+  private boolean            streaming = false;
+  private SearchResponseImpl pendingResponse;
 
   public SearchHandle() {
     super();
@@ -131,6 +145,46 @@ public class SearchHandle
     return this;
   }
 
+  /**
+   * Specifies whether to read the results lazily as they arrive
+   * from the server.
+   *
+   * <p>In streaming mode, the search only reads the attributes of the
+   * response such as the total and start. Iterate over the results with
+   * {@link #getResultCursor()} to parse each result from the response as
+   * it is read from the connection without retaining the results that were
+   * already iterated. Accessing the facets, metrics, or any other part of
+   * the response that follows the results reads the rest of the response,
+   * keeping any results that weren't iterated.</p>
+   *
+   * <p>The connection stays open until the end of the response is read or
+   * the cursor is closed, so a streaming handle must be read to the end or
+   * its cursor closed.</p>
+   *
+   * @param streaming	true to read the results lazily
+   */
+  public void setStreaming(boolean streaming) {
+    this.streaming = streaming;
+  }
+  /**
+   * Returns whether the handle reads the results lazily.
+   * @return	true if the handle is in streaming mode
+   */
+  public boolean isStreaming() {
+    return streaming;
+  }
+  /**
+   * Fluent setter for whether to read the results lazily
+   * as they arrive from the server.
+   * @param streaming	true to read the results lazily
+   * @return	The SearchHandle instance on which this method was called.
+   * @see #setStreaming(boolean)
+   */
+  public SearchHandle withStreaming(boolean streaming) {
+    setStreaming(streaming);
+    return this;
+  }
+
   @Override
   protected Class<InputStream> receiveAs() {
     return InputStream.class;
@@ -138,47 +192,94 @@ public class SearchHandle
 
   @Override
   protected void receiveContent(InputStream content) {
+    closePending();
     try {
-      XMLInputFactory factory = XMLInputFactory.newFactory();
-      factory.setProperty("javax.xml.stream.isNamespaceAware", true);
-      factory.setProperty("javax.xml.stream.isValidating",     false);
-      factory.setProperty("javax.xml.stream.isCoalescing",     true);
+      XMLInputFactory factory = makeInputFactory();
 
       XMLEventReader reader = factory.createXMLEventReader(content, "UTF-8");
-      SearchResponseImpl response = new SearchResponseImpl();
-      response.parse(reader);
-      reader.close();
-      try {
-        content.close();
-      } catch (IOException e) {
-        // ignore.
+      SearchResponseImpl response = new SearchResponseImpl(reader, content);
+      if (streaming) {
+        response.parseHeader();
+        totalResults    = response.tempTotalResults;
+        start           = response.tempStart;
+        pageLength      = response.tempPageLength;
+        snippetType     = response.tempSnippetType;
+        pendingResponse = response;
+        return;
       }
 
-      summary          =
-        (response.tempSummary == null || response.tempSummary.size() < 1) ?
-        new MatchDocumentSummary[0]:
-        response.tempSummary.toArray(new MatchDocumentSummary[response.tempSummary.size()]);
-      metrics          = response.tempMetrics;
-      facets           = response.tempFacets;
-      warnings         = response.tempWarnings;
-      reports          = response.tempReports;
-      planEvents       = response.tempPlanEvents;
-      constraints      = response.tempConstraints;
-      events           = response.tempEvents;
-      totalResults     = response.tempTotalResults;
-      start            = response.tempStart;
-      pageLength       = response.tempPageLength;
-      snippetType      = response.tempSnippetType;
-      qtext            =
-        (response.qtextList == null || response.qtextList.size() < 1) ?
-        null :
-        response.qtextList.toArray(new String[response.qtextList.size()]);
-      queryEvents      = response.tempQueryEvents;
+      response.parse();
+      response.close();
 
+      copyResponse(response);
+    } catch (XMLStreamException e) {
+      throw new MarkLogicIOException("Could not construct search results: parser error", e);
+    }
+  }
+  private void copyResponse(SearchResponseImpl response) {
+    summary          =
+      (response.tempSummary == null || response.tempSummary.size() < 1) ?
+      new MatchDocumentSummary[0]:
+      response.tempSummary.toArray(new MatchDocumentSummary[response.tempSummary.size()]);
+    metrics          = response.tempMetrics;
+    facets           = response.tempFacets;
+    warnings         = response.tempWarnings;
+    reports          = response.tempReports;
+    plan             = response.tempPlan;
+    constraints      = response.tempConstraints;
+    totalResults     = response.tempTotalResults;
+    start            = response.tempStart;
+    pageLength       = response.tempPageLength;
+    snippetType      = response.tempSnippetType;
+    qtext            =
+      (response.qtextList == null || response.qtextList.size() < 1) ?
+      null :
+      response.qtextList.toArray(new String[response.qtextList.size()]);
+    query            = response.tempQuery;
+  }
+  // reads the rest of a streamed response
+  private void completeResponse() {
+    SearchResponseImpl response = pendingResponse;
+    if (response == null) {
+      return;
+    }
+    pendingResponse = null;
+    try {
+      response.parse();
+      copyResponse(response);
     } catch (XMLStreamException e) {
       throw new MarkLogicIOException("Could not construct search results: parser error", e);
+    } finally {
+      response.close();
     }
   }
+  private void closePending() {
+    if (pendingResponse != null) {
+      pendingResponse.close();
+      pendingResponse = null;
+    }
+  }
+  static private XMLInputFactory makeInputFactory() {
+    XMLInputFactory factory = XMLInputFactory.newFactory();
+    factory.setProperty("javax.xml.stream.isNamespaceAware", true);
+    factory.setProperty("javax.xml.stream.isValidating",     false);
+    factory.setProperty("javax.xml.stream.isCoalescing",     true);
+    return factory;
+  }
+
+  /**
+   * Returns a cursor over the summaries for the matched documents.
+   *
+   * <p>In streaming mode, each result is parsed from the response when the
+   * cursor advances to it, and the results that the cursor has passed are not
+   * retained by the handle. Otherwise, the cursor iterates over the results
+   * returned by {@link #getMatchResults()}.</p>
+   *
+   * @return	the cursor, which should be closed if not read to the end
+   */
+  public ResultCursor getResultCursor() {
+    return new ResultCursor();
+  }
 
   /**
    * Sets the query definition used in the search.
@@ -188,21 +289,21 @@ public class SearchHandle
    * @param querydef The new QueryDefinition
    */
   public void setQueryCriteria(SearchQueryDefinition querydef) {
+    closePending();
     this.querydef = querydef;
     summary      = null;
     metrics      = null;
     facets       = null;
     warnings     = null;
     reports      = null;
-    planEvents   = null;
+    plan         = null;
     constraints  = null;
-    events       = null;
     totalResults = -1;
     start        = -1;
     pageLength   = 0;
     snippetType  = null;
     qtext        = null;
-    queryEvents  = null;
+    query        = null;
   }
   /**
    * Returns the query definition used for the search represented by this handle.
@@ -269,14 +370,14 @@ public class SearchHandle
    */
   @Override
   public String[] getStringQueries() {
+    completeResponse();
     return qtext;
   }
 
   @Override
   public <T extends XMLReadHandle> T getQuery(T handle) {
-    return Utilities.exportToHandle(
-      getSlice(events, queryEvents), handle
-    );
+    completeResponse();
+    return Utilities.exportBytesToHandle(query, handle);
   }
 
   /**
@@ -285,15 +386,20 @@ public class SearchHandle
    */
   @Override
   public SearchMetrics getMetrics() {
+    completeResponse();
     return metrics;
   }
 
   /**
    * Returns an array of summaries for the matched documents.
+   *
+   * <p>In streaming mode, the array only has the results that
+   * weren't already read with the cursor.</p>
    * @return The summary array.
    */
   @Override
   public MatchDocumentSummary[] getMatchResults() {
+    completeResponse();
     return summary;
   }
 
@@ -303,6 +409,7 @@ public class SearchHandle
    */
   @Override
   public String[] getFacetNames() {
+    completeResponse();
     if (facets == null || facets.isEmpty()) {
       return new String[0];
     }
@@ -316,6 +423,7 @@ public class SearchHandle
    */
   @Override
   public FacetResult getFacetResult(String name) {
+    completeResponse();
     if (facets == null || facets.isEmpty()) {
       return null;
     }
@@ -327,6 +435,7 @@ public class SearchHandle
    */
   @Override
   public FacetResult[] getFacetResults() {
+    completeResponse();
     if (facets == null || facets.isEmpty()) {
       return new FacetResult[0];
     }
@@ -336,6 +445,7 @@ public class SearchHandle
 
   @Override
   public String[] getConstraintNames() {
+    completeResponse();
     if (constraints == null || constraints.isEmpty()) {
       return new String[0];
     }
@@ -344,30 +454,30 @@ public class SearchHandle
   }
   @Override
   public <T extends XMLReadHandle> T getConstraint(String name, T handle) {
+    completeResponse();
     if (constraints == null || constraints.isEmpty()) {
       return null;
     }
 
-    EventRange constraintEvents = constraints.get(name);
-    if (constraintEvents == null) {
+    byte[] constraint = constraints.get(name);
+    if (constraint == null) {
       return null;
     }
 
-    return Utilities.exportToHandle(
-      getSlice(events, constraintEvents), handle
-    );
+    return Utilities.exportBytesToHandle(constraint, handle);
   }
   @Override
   public <T extends XMLReadHandle> Iterator<T> getConstraintIterator(T handle) {
+    completeResponse();
     if (constraints == null || constraints.isEmpty()) {
       List<T> list = Collections.emptyList();
       return list.iterator();
     }
 
-    List<EventRange> constraintList =
+    List<byte[]> constraintList =
       new ArrayList<>(constraints.values());
 
-    return new EventIterator<>(events, constraintList, handle);
+    return new FragmentIterator<>(constraintList, handle);
   }
 
   /**
@@ -383,9 +493,8 @@ public class SearchHandle
   }
   @Override
   public <T extends XMLReadHandle> T getPlan(T handle) {
-    return Utilities.exportToHandle(
-      getSlice(events, planEvents), handle
-    );
+    completeResponse();
+    return Utilities.exportBytesToHandle(plan, handle);
   }
 
   /**
@@ -394,6 +503,7 @@ public class SearchHandle
    */
   @Override
   public Warning[] getWarnings() {
+    completeResponse();
     return (warnings == null) ? new Warning[0] : warnings.toArray(new Warning[0]);
   }
 
@@ -403,30 +513,47 @@ public class SearchHandle
    */
   @Override
   public Report[] getReports() {
+    completeResponse();
     return (reports == null) ? new Report[0] : reports.toArray(new Report[0]);
   }
 
-  private List<XMLEvent> getSlice(
-    List<XMLEvent> eventList, EventRange eventRange
-  ) {
-    if (eventList == null || eventRange == null) {
+  static private List<XMLEvent> parseFragment(byte[] fragment) {
+    if (fragment == null || fragment.length == 0) {
       return null;
     }
 
-    return eventList.subList(eventRange.getFirst(), eventRange.getNext());
+    try {
+      XMLEventReader reader = makeInputFactory().createXMLEventReader(
+        new ByteArrayInputStream(fragment), "UTF-8");
+      List<XMLEvent> events = new ArrayList<>();
+      while (reader.hasNext()) {
+        XMLEvent event = reader.nextEvent();
+        switch (event.getEventType()) {
+          case XMLStreamConstants.START_DOCUMENT:
+          case XMLStreamConstants.END_DOCUMENT:
+            break;
+          default:
+            events.add(event);
+            break;
+        }
+      }
+      reader.close();
+      return events;
+    } catch (XMLStreamException e) {
+      throw new MarkLogicIOException("Could not parse search result fragment", e);
+    }
   }
-  private Document[] getEventDocuments(List<XMLEvent> eventList, List<EventRange> rangeList) {
-    if (rangeList == null || rangeList.size() < 1) {
+  private Document[] getFragmentDocuments(List<byte[]> fragmentList) {
+    if (fragmentList == null || fragmentList.size() < 1) {
       return new Document[0];
     }
 
     List<Document> documents = new ArrayList<>();
 
     DOMHandle handle = new DOMHandle();
-    for (int i=0; i < rangeList.size(); i++) {
-      EventRange eventRange = rangeList.get(i);
-      handle = Utilities.exportToHandle(
-        getSlice(eventList, eventRange), handle
+    for (int i=0; i < fragmentList.size(); i++) {
+      handle = Utilities.exportBytesToHandle(
+        fragmentList.get(i), handle
       );
       Document document = (handle == null) ? null : handle.get();
       if (document != null) {
@@ -486,19 +613,70 @@ public class SearchHandle
     }
   }
 
-  static private class EventRange {
-    private int first = -1;
-    private int next  = -1; // 1 after the last item in the range
-    private EventRange(int first, int next) {
+  /**
+   * Iterates over the summaries of the matched documents, parsing each
+   * result from the response when the cursor advances to the result
+   * if the handle is in streaming mode.
+   */
+  public class ResultCursor implements Iterator<MatchDocumentSummary>, Closeable {
+    private MatchDocumentSummary[] results;
+    private int                    nextResult = 0;
+    private MatchDocumentSummary   pending;
+    private SearchResponseImpl     response;
+
+    private ResultCursor() {
       super();
-      this.first = first;
-      this.next  = next;
+      response = pendingResponse;
+      if (response == null) {
+        results = (summary == null) ? new MatchDocumentSummary[0] : summary;
+      }
     }
-    int getFirst() {
-      return first;
+
+    @Override
+    public boolean hasNext() {
+      if (pending != null) {
+        return true;
+      }
+      if (response == null) {
+        return nextResult < results.length;
+      }
+      if (response != pendingResponse) {
+        return false;
+      }
+      try {
+        pending = response.readResult();
+      } catch (XMLStreamException e) {
+        close();
+        throw new MarkLogicIOException("Could not read search results: parser error", e);
+      }
+      if (pending == null) {
+        completeResponse();
+        return false;
+      }
+      return true;
+    }
+    @Override
+    public MatchDocumentSummary next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException("no more search results");
+      }
+      if (response == null) {
+        return results[nextResult++];
+      }
+      MatchDocumentSummary result = pending;
+      pending = null;
+      return result;
     }
-    int getNext() {
-      return next;
+    /**
+     * Releases the connection if the results weren't read to the end.
+     * The remainder of the response is discarded.
+     */
+    @Override
+    public void close() {
+      pending = null;
+      if (response != null && response == pendingResponse) {
+        closePending();
+      }
     }
   }
 
@@ -512,11 +690,11 @@ public class SearchHandle
     private String mimeType = null;
     private Format format = null;
 
-    private List<EventRange> snippetEvents;
-    private EventRange            extractedEvents;
-    private EventRange            metadataEvents;
-    private EventRange            relevanceEvents;
-    private List<String>     similarUris;
+    private List<byte[]>          snippets;
+    private byte[]                extracted;
+    private byte[]                metadata;
+    private byte[]                relevanceInfo;
+    private List<String>          similarUris;
     private String                extractSelected;
 
     public MatchDocumentSummaryImpl(String uri, int score, double confidence, double fitness, String path, String mimeType, Format format, String extractSelected) {
@@ -558,15 +736,14 @@ public class SearchHandle
     @Override
     public ExtractedResult getExtracted() {
       ExtractedResultImpl result = new ExtractedResultImpl();
-      populateExtractedResult( result, events, extractedEvents );
+      populateExtractedResult( result, parseFragment(extracted) );
       return result;
     }
 
-    private void populateExtractedResult(ExtractedResultImpl result, List<XMLEvent> events,
-                                         EventRange extractedEvents)
+    private void populateExtractedResult(ExtractedResultImpl result, List<XMLEvent> events)
     {
-      int start = extractedEvents.first;
-      int end   = extractedEvents.next;
+      int start = 0;
+      int end   = events.size();
       StartElement element = events.get(start).asStartElement();
       QName elementName = element.getName();
       if ( "extracted-none".equals(elementName.getLocalPart()) ) {
@@ -584,9 +761,8 @@ public class SearchHandle
         int startChildren = start + 1;
         int endChildren = end - 1;
         // now get the children (extracted items) as strings
-        EventRange extractedItemEvents = new EventRange(startChildren, endChildren);
         if ( Format.XML == getFormat() ) {
-          result.setItems( populateExtractedItems(getSlice(events, extractedItemEvents)) );
+          result.setItems( populateExtractedItems(events.subList(startChildren, endChildren)) );
           // if extractSelected is "include", this is not a root document node
         } else if ( Format.JSON == getFormat() && "include".equals(extractSelected) ) {
           XMLEvent event = events.get(startChildren);
@@ -665,37 +841,35 @@ public class SearchHandle
     }
     @Override
     public <T extends XMLReadHandle> T getFirstSnippet(T handle) {
-      if (snippetEvents == null || snippetEvents.size() < 1) {
+      if (snippets == null || snippets.size() < 1) {
         return null;
       }
 
-      return Utilities.exportToHandle(
-        getSlice(events, snippetEvents.get(0)), handle
-      );
+      return Utilities.exportBytesToHandle(snippets.get(0), handle);
     }
     @Override
     public String getFirstSnippetText() {
-      if (snippetEvents == null || snippetEvents.size() < 1) {
+      if (snippets == null || snippets.size() < 1) {
         return null;
       }
 
       return Utilities.eventTextToString(
-        getSlice(events, snippetEvents.get(0))
+        parseFragment(snippets.get(0))
       );
     }
 
     @Override
     public Document[] getSnippets() {
-      return getEventDocuments(events, snippetEvents);
+      return getFragmentDocuments(snippets);
     }
     @Override
     public <T extends XMLReadHandle> Iterator<T> getSnippetIterator(T handle) {
-      if (snippetEvents == null || snippetEvents.size() < 1) {
+      if (snippets == null || snippets.size() < 1) {
         List<T> list = Collections.emptyList();
         return list.iterator();
       }
 
-      return new EventIterator<T>(events, snippetEvents, handle);
+      return new FragmentIterator<T>(snippets, handle);
     }
 
     @Override
@@ -726,9 +900,7 @@ public class SearchHandle
     }
     @Override
     public <T extends XMLReadHandle> T getMetadata(T handle) {
-      return Utilities.exportToHandle(
-        getSlice(events, metadataEvents), handle
-      );
+      return Utilities.exportBytesToHandle(metadata, handle);
     }
 
     @Override
@@ -761,9 +933,7 @@ public class SearchHandle
     }
     @Override
     public <T extends XMLReadHandle> T getRelevanceInfo(T handle) {
-      return Utilities.exportToHandle(
-        getSlice(events, relevanceEvents), handle
-      );
+      return Utilities.exportBytesToHandle(relevanceInfo, handle);
     }
   }
 
@@ -1017,20 +1187,18 @@ public class SearchHandle
     }
   }
 
-  class EventIterator<T extends XMLReadHandle> implements Iterator<T> {
-    private List<XMLEvent>   eventList;
-    private List<EventRange> rangeList;
-    private T                handle;
-    private int              nextEvent = 0;
-    EventIterator(List<XMLEvent> eventList, List<EventRange> rangeList, T handle) {
+  class FragmentIterator<T extends XMLReadHandle> implements Iterator<T> {
+    private List<byte[]> fragmentList;
+    private T            handle;
+    private int          nextFragment = 0;
+    FragmentIterator(List<byte[]> fragmentList, T handle) {
       super();
-      this.eventList = eventList;
-      this.rangeList = rangeList;
-      this.handle    = handle;
+      this.fragmentList = fragmentList;
+      this.handle       = handle;
     }
     @Override
     public boolean hasNext() {
-      return rangeList != null && nextEvent < rangeList.size();
+      return fragmentList != null && nextFragment < fragmentList.size();
     }
     @Override
     public T next() {
@@ -1038,9 +1206,8 @@ public class SearchHandle
         return null;
       }
 
-      EventRange eventRange = rangeList.get(nextEvent++);
-      return Utilities.exportToHandle(
-        getSlice(eventList, eventRange), handle
+      return Utilities.exportBytesToHandle(
+        fragmentList.get(nextFragment++), handle
       );
     }
     @Override
@@ -1050,63 +1217,85 @@ public class SearchHandle
   }
 
   private class SearchResponseImpl {
+    private XMLEventReader reader;
+    private InputStream    content;
+
     private List<MatchDocumentSummary> tempSummary;
     private MatchDocumentSummaryImpl currSummary;
 
     private List<Warning> tempWarnings;
     private List<Report>  tempReports;
 
-    private SearchMetrics          tempMetrics;
-    private EventRange             tempPlanEvents;
-    private List<XMLEvent>         tempEvents;
+    private SearchMetrics tempMetrics;
+    private byte[]        tempPlan;
 
     private long tempTotalResults = -1;
     private long tempStart        = -1;
     private int  tempPageLength   = 0;
 
     private Map<String, FacetResult> tempFacets;
-    private Map<String, EventRange>  tempConstraints;
+    private Map<String, byte[]>      tempConstraints;
 
     private String tempSnippetType;
     private String tempExtractSelected;
     private List<String>      qtextList;
 
-    private EventRange tempQueryEvents;
+    private byte[] tempQuery;
 
-    private SearchResponseImpl() {
+    private SearchResponseImpl(XMLEventReader reader, InputStream content) {
       super();
+      this.reader  = reader;
+      this.content = content;
     }
 
-    private void parse(XMLEventReader reader) throws XMLStreamException {
-      tempEvents = new ArrayList<>();
-
+    private void parse() throws XMLStreamException {
+      for (MatchDocumentSummaryImpl result = readResult(); result != null; result = readResult()) {
+        if (tempSummary == null) {
+          tempSummary = new ArrayList<>();
+        }
+        tempSummary.add(result);
+      }
+    }
+    // reads up to and including the response element
+    private void parseHeader() throws XMLStreamException {
+      QName responseName = new QName(SEARCH_NS, "response");
       while (reader.hasNext()) {
         XMLEvent event = reader.nextEvent();
-        int eventType = event.getEventType();
-
-        switch (eventType) {
-          case XMLStreamConstants.START_ELEMENT:
-            handleTop(reader, event.asStartElement());
-            break;
-          case XMLStreamConstants.END_ELEMENT:
-          case XMLStreamConstants.START_DOCUMENT:
-          case XMLStreamConstants.END_DOCUMENT:
-          case XMLStreamConstants.CDATA:
-          case XMLStreamConstants.CHARACTERS:
-          case XMLStreamConstants.ATTRIBUTE:
-          case XMLStreamConstants.COMMENT:
-          case XMLStreamConstants.DTD:
-          case XMLStreamConstants.ENTITY_DECLARATION:
-          case XMLStreamConstants.ENTITY_REFERENCE:
-          case XMLStreamConstants.NAMESPACE:
-          case XMLStreamConstants.NOTATION_DECLARATION:
-          case XMLStreamConstants.PROCESSING_INSTRUCTION:
-          case XMLStreamConstants.SPACE:
-            break;
-          default:
-            throw new InternalError("unknown event type: "+eventType);
+        if (event.isStartElement()) {
+          StartElement element = event.asStartElement();
+          handleTop(reader, element);
+          if (responseName.equals(element.getName())) {
+            return;
+          }
+        }
+      }
+    }
+    // handles the top elements up to and including the next result
+    private MatchDocumentSummaryImpl readResult() throws XMLStreamException {
+      QName resultName = new QName(SEARCH_NS, "result");
+      while (reader.hasNext()) {
+        XMLEvent event = reader.nextEvent();
+        if (event.isStartElement()) {
+          StartElement element = event.asStartElement();
+          if (resultName.equals(element.getName())) {
+            return handleResult(reader, element);
+          }
+          handleTop(reader, element);
         }
       }
+      return null;
+    }
+    private void close() {
+      try {
+        reader.close();
+      } catch (XMLStreamException e) {
+        // ignore.
+      }
+      try {
+        content.close();
+      } catch (IOException e) {
+        // ignore.
+      }
     }
 
     private void handleTop(XMLEventReader reader, StartElement element) throws XMLStreamException {
@@ -1119,7 +1308,6 @@ public class SearchHandle
       String localName = name.getLocalPart();
 
       if ("response".equals(localName))           { handleResponse(reader, element);
-      } else if ("result".equals(localName))      { handleResult(reader, element);
       } else if ("facet".equals(localName))       { handleFacet(reader, element);
       } else if ("boxes".equals(localName))       { handleGeoFacet(reader, element);
       } else if ("qtext".equals(localName))       { handleQText(reader, element);
@@ -1134,6 +1322,7 @@ public class SearchHandle
       }
     }
 
+    // the children of the response are handled as top elements
     private void handleResponse(XMLEventReader reader, StartElement element)
       throws XMLStreamException
     {
@@ -1145,30 +1334,8 @@ public class SearchHandle
       }
       tempStart        = Utilities.parseLong(getAttribute(element, "start"));
       tempExtractSelected = getAttribute(element, "selected");
-
-      collectTop(reader, element);
     }
-    private void collectTop(XMLEventReader reader, StartElement element)
-      throws XMLStreamException
-    {
-      QName startName = element.getName();
-      events: while (reader.hasNext()) {
-        XMLEvent event = reader.nextEvent();
-
-        int eventType = event.getEventType();
-        switch (eventType) {
-          case XMLStreamConstants.START_ELEMENT:
-            handleTop(reader, event.asStartElement());
-            break;
-          case XMLStreamConstants.END_ELEMENT:
-            if (startName.equals(event.asEndElement().getName())) {
-              break events;
-            }
-            break;
-        }
-      }
-    }
-    private void handleResult(XMLEventReader reader, StartElement element)
+    private MatchDocumentSummaryImpl handleResult(XMLEventReader reader, StartElement element)
       throws XMLStreamException
     {
       String ruri     = getAttribute(element, "uri");
@@ -1189,12 +1356,11 @@ public class SearchHandle
       currSummary = new MatchDocumentSummaryImpl(
         ruri, score, confidence, fitness, path, mimeType, format, tempExtractSelected);
 
-      if (tempSummary == null) {
-        tempSummary = new ArrayList<>();
-      }
-      tempSummary.add(currSummary);
-
       collectResult(reader, element);
+
+      MatchDocumentSummaryImpl result = currSummary;
+      currSummary = null;
+      return result;
     }
     private void collectResult(XMLEventReader reader, StartElement element)
       throws XMLStreamException
@@ -1254,22 +1420,20 @@ public class SearchHandle
 
       // capture raw snippet
       if (eventBuf != null) {
-        int first = tempEvents.size();
-        tempEvents.addAll(eventBuf);
-        addSnippet(new EventRange(first, tempEvents.size()));
+        addSnippet(Utilities.eventsToBytes(eventBuf));
       }
     }
     private void handleExtracted(XMLEventReader reader, StartElement element)
       throws XMLStreamException
     {
-      currSummary.extractedEvents = consumeEvents(reader, element);
+      currSummary.extracted = consumeEvents(reader, element);
     }
     private void handleMetadata(XMLEventReader reader, StartElement element)
       throws XMLStreamException
     {
       // TODO:  populate map with element name/content key/value pairs
       // TODO:  special handling for constraint-meta, attribute-meta?
-      currSummary.metadataEvents = consumeEvents(reader, element);
+      currSummary.metadata = consumeEvents(reader, element);
     }
     private void handleSimilar(XMLEventReader reader, StartElement element)
       throws XMLStreamException
@@ -1282,24 +1446,24 @@ public class SearchHandle
     private void handleRelevanceInfo(XMLEventReader reader, StartElement element)
       throws XMLStreamException
     {
-      currSummary.relevanceEvents = consumeEvents(reader, element);
+      currSummary.relevanceInfo = consumeEvents(reader, element);
     }
     private void handlePlan(XMLEventReader reader, StartElement element)
       throws XMLStreamException
     {
-      tempPlanEvents = consumeEvents(reader, element);
+      tempPlan = consumeEvents(reader, element);
     }
     private void handleSnippet(XMLEventReader reader, StartElement element)
       throws XMLStreamException
     {
-      int first = tempEvents.size();
-      tempEvents.add(element);
+      FragmentWriter fragment = new FragmentWriter();
+      fragment.add(element);
 
-      collectSnippet(reader, element);
+      collectSnippet(reader, element, fragment);
 
-      addSnippet(new EventRange(first, tempEvents.size()));
+      addSnippet(fragment.toBytes());
     }
-    private void collectSnippet(XMLEventReader reader, StartElement element)
+    private void collectSnippet(XMLEventReader reader, StartElement element, FragmentWriter fragment)
       throws XMLStreamException
     {
       QName matchName = new QName(SEARCH_NS, "match");
@@ -1307,14 +1471,14 @@ public class SearchHandle
       QName snippetName = element.getName();
       events: while (reader.hasNext()) {
         XMLEvent event = reader.nextEvent();
-        tempEvents.add(event);
+        fragment.add(event);
 
         int eventType = event.getEventType();
         eventType: switch (eventType) {
           case XMLStreamConstants.START_ELEMENT:
             StartElement startElement = event.asStartElement();
             if (matchName.equals(startElement.getName())) {
-              handleMatch(reader, startElement);
+              handleMatch(reader, startElement, fragment);
               break eventType;
             }
             break;
@@ -1326,13 +1490,13 @@ public class SearchHandle
         }
       }
     }
-    private void addSnippet(EventRange snippetRange) {
-      if (currSummary.snippetEvents == null) {
-        currSummary.snippetEvents = new ArrayList<>();
+    private void addSnippet(byte[] snippet) {
+      if (currSummary.snippets == null) {
+        currSummary.snippets = new ArrayList<>();
       }
-      currSummary.snippetEvents.add(snippetRange);
+      currSummary.snippets.add(snippet);
     }
-    private void handleMatch(XMLEventReader reader, StartElement element)
+    private void handleMatch(XMLEventReader reader, StartElement element, FragmentWriter fragment)
       throws XMLStreamException
     {
       MatchLocationImpl location = new MatchLocationImpl(getAttribute(element, "path"));
@@ -1345,7 +1509,7 @@ public class SearchHandle
       QName matchName = element.getName();
       events: while (reader.hasNext()) {
         XMLEvent event = reader.nextEvent();
-        tempEvents.add(event);
+        fragment.add(event);
 
         int eventType = event.getEventType();
         switch (eventType) {
@@ -1495,7 +1659,7 @@ public class SearchHandle
     private void handleQuery(XMLEventReader reader, StartElement element)
       throws XMLStreamException
     {
-      tempQueryEvents = consumeEvents(reader, element);
+      tempQuery = consumeEvents(reader, element);
     }
     private void handleMetrics(XMLEventReader reader, StartElement element)
       throws XMLStreamException
@@ -1606,16 +1770,16 @@ public class SearchHandle
     private long parseTime(DatatypeFactory dtFactory, Calendar now, String time) {
       return dtFactory.newDurationDayTime(time).getTimeInMillis(now);
     }
-    private EventRange consumeEvents(XMLEventReader reader, StartElement element)
+    private byte[] consumeEvents(XMLEventReader reader, StartElement element)
       throws XMLStreamException
     {
-      int first = tempEvents.size();
-      tempEvents.add(element);
+      FragmentWriter fragment = new FragmentWriter();
+      fragment.add(element);
 
       QName startName = element.getName();
       events: while (reader.hasNext()) {
         XMLEvent event = reader.nextEvent();
-        tempEvents.add(event);
+        fragment.add(event);
 
         int eventType = event.getEventType();
         switch (eventType) {
@@ -1626,7 +1790,25 @@ public class SearchHandle
         }
       }
 
-      return new EventRange(first, tempEvents.size());
+      return fragment.toBytes();
+    }
+  }
+
+  // serializes the events of an element as it is parsed
+  static private class FragmentWriter {
+    private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private XMLEventWriter        writer;
+    private FragmentWriter() throws XMLStreamException {
+      super();
+      writer = XmlFactories.getOutputFactory().createXMLEventWriter(buffer, "UTF-8");
+    }
+    private void add(XMLEvent event) throws XMLStreamException {
+      writer.add(event);
+    }
+    private byte[] toBytes() throws XMLStreamException {
+      writer.flush();
+      writer.close();
+      return buffer.toByteArray();
     }
   }
 
@@ -15,23 +15,21 @@
  */
 package com.marklogic.client.io;
 
-import java.io.IOException;
+import java.io.Closeable;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.UnsupportedEncodingException;
-import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.JAXBException;
-import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLStreamException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.marklogic.client.MarkLogicBindingException;
 import com.marklogic.client.MarkLogicIOException;
-import com.marklogic.client.impl.TuplesBuilder;
 import com.marklogic.client.io.marker.OperationNotSupported;
 import com.marklogic.client.io.marker.TuplesReadHandle;
 import com.marklogic.client.query.AggregateResult;
@@ -39,19 +37,31 @@ import com.marklogic.client.query.Tuple;
 import com.marklogic.client.query.TuplesResults;
 import com.marklogic.client.query.ValuesDefinition;
 import com.marklogic.client.query.ValuesMetrics;
-import java.util.Map;
 
 /**
  * A TuplesHandle represents a set of tuples returned by a query on the server.
+ *
+ * <p>The handle reads the response with a streaming parser. In streaming mode,
+ * the tuples are read from the connection as they are requested with
+ * {@link #getTupleCursor()} so a large page of co-occurrences doesn't have
+ * to be held in memory. To page through the tuples with bounded memory,
+ * set the page length on the QueryManager and pass the start of each page
+ * to QueryManager.tuples() with a streaming handle.
+ * See {@link #setStreaming(boolean)}.</p>
  */
 public class TuplesHandle
   extends BaseHandle<InputStream, OperationNotSupported>
   implements TuplesReadHandle, TuplesResults
 {
-  static final private Logger logger = LoggerFactory.getLogger(DOMHandle.class);
+  static final private Logger logger = LoggerFactory.getLogger(TuplesHandle.class);
+
+  private String            name;
+  private Tuple[]           tuples;
+  private AggregateResult[] aggregates;
+  private ValuesMetrics     metrics;
 
-  private TuplesBuilder.Tuples tuplesHolder;
-  private Unmarshaller unmarshaller;
+  private boolean              streaming = false;
+  private ValuesResponseReader pendingResponse;
 
   private ValuesDefinition valdef = null;
   private Map<String, AggregateResult> hashedAggregates = null;
@@ -59,15 +69,6 @@ public class TuplesHandle
   public TuplesHandle() {
     super();
     super.setFormat(Format.XML);
-
-    try {
-      JAXBContext jc = JaxbContextLoader.CACHED_CONTEXT;
-      unmarshaller = jc.createUnmarshaller();
-    } catch (JAXBException e) {
-      throw new MarkLogicBindingException(e);
-    } catch (NoClassDefFoundError ncdfe) {
-      throw new MarkLogicBindingException(new JAXBException("JAXB context initialization failed"));
-    }
   }
 
   /**
@@ -80,7 +81,7 @@ public class TuplesHandle
   @Override
   public void setFormat(Format format) {
     if (format != Format.XML)
-      throw new IllegalArgumentException("ValuesHandle supports the XML format only");
+      throw new IllegalArgumentException("TuplesHandle supports the XML format only");
   }
 
   /**
@@ -96,6 +97,44 @@ public class TuplesHandle
     return this;
   }
 
+  /**
+   * Specifies whether to read the tuples lazily as they arrive
+   * from the server.
+   *
+   * <p>In streaming mode, the query only reads the name of the tuples.
+   * Iterate over the tuples with {@link #getTupleCursor()} to parse each
+   * tuple as it is read from the connection without retaining the tuples
+   * that were already iterated. Accessing the aggregates or metrics reads
+   * the rest of the response, keeping any tuples that weren't iterated.</p>
+   *
+   * <p>The connection stays open until the end of the response is read or
+   * the cursor is closed, so a streaming handle must be read to the end or
+   * its cursor closed.</p>
+   *
+   * @param streaming	true to read the tuples lazily
+   */
+  public void setStreaming(boolean streaming) {
+    this.streaming = streaming;
+  }
+  /**
+   * Returns whether the handle reads the tuples lazily.
+   * @return	true if the handle is in streaming mode
+   */
+  public boolean isStreaming() {
+    return streaming;
+  }
+  /**
+   * Fluent setter for whether to read the tuples lazily
+   * as they arrive from the server.
+   * @param streaming	true to read the tuples lazily
+   * @return	The TuplesHandle instance on which this method was called.
+   * @see #setStreaming(boolean)
+   */
+  public TuplesHandle withStreaming(boolean streaming) {
+    setStreaming(streaming);
+    return this;
+  }
+
   @Override
   protected Class<InputStream> receiveAs() {
     return InputStream.class;
@@ -103,19 +142,48 @@ public class TuplesHandle
 
   @Override
   protected void receiveContent(InputStream content) {
+    closePending();
+    tuples           = null;
+    aggregates       = null;
+    metrics          = null;
+    hashedAggregates = null;
     try {
-      tuplesHolder = (TuplesBuilder.Tuples) unmarshaller.unmarshal(
-        new InputStreamReader(content, StandardCharsets.UTF_8)
-      );
-    } catch (JAXBException e) {
-      logger.error("Failed to unmarshall tuples",e);
-      throw new MarkLogicIOException(e);
-    } finally {
-      try {
-        content.close();
-      } catch (IOException e) {
-        // ignore.
+      pendingResponse = new ValuesResponseReader(content);
+    } catch (XMLStreamException e) {
+      logger.error("Failed to read tuples",e);
+      throw new MarkLogicIOException("Could not read tuples: parser error", e);
+    }
+    name = pendingResponse.getName();
+    if (!streaming) {
+      completeResponse();
+    }
+  }
+  // reads the rest of a streamed response
+  private void completeResponse() {
+    ValuesResponseReader response = pendingResponse;
+    if (response == null) {
+      return;
+    }
+    pendingResponse = null;
+    try {
+      List<Tuple> remainder = new ArrayList<>();
+      for (Tuple tuple = response.readTuple(); tuple != null; tuple = response.readTuple()) {
+        remainder.add(tuple);
       }
+      tuples     = remainder.toArray(new Tuple[remainder.size()]);
+      aggregates = response.getAggregates().toArray(new AggregateResult[0]);
+      metrics    = response.getMetrics();
+    } catch (XMLStreamException e) {
+      logger.error("Failed to read tuples",e);
+      throw new MarkLogicIOException("Could not read tuples: parser error", e);
+    } finally {
+      response.close();
+    }
+  }
+  private void closePending() {
+    if (pendingResponse != null) {
+      pendingResponse.close();
+      pendingResponse = null;
     }
   }
 
@@ -137,28 +205,48 @@ public class TuplesHandle
 
   @Override
   public String getName() {
-    return tuplesHolder.getName();
+    return name;
   }
 
   /**
    * Returns an array of the Tuples returned by this query.
+   *
+   * <p>In streaming mode, the array only has the tuples that
+   * weren't iterated with the cursor.</p>
+   *
    * @return The tuples array.
    */
   @Override
   public Tuple[] getTuples() {
-    return tuplesHolder.getTuples();
+    completeResponse();
+    return tuples;
+  }
+
+  /**
+   * Returns a cursor over the tuples.
+   *
+   * <p>In streaming mode, each tuple is parsed from the response when the
+   * cursor advances to it, and the tuples that the cursor has passed are not
+   * retained by the handle. Otherwise, the cursor iterates over the tuples
+   * returned by {@link #getTuples()}.</p>
+   *
+   * @return	the cursor, which should be closed if not read to the end
+   */
+  public TupleCursor getTupleCursor() {
+    return new TupleCursor();
   }
 
   @Override
   public AggregateResult[] getAggregates() {
-    return tuplesHolder.getAggregates();
+    completeResponse();
+    return aggregates;
   }
 
   @Override
   public AggregateResult getAggregate(String name) {
     if (hashedAggregates == null) {
       hashedAggregates = new HashMap<>();
-      for (AggregateResult aggregate : tuplesHolder.getAggregates()) {
+      for (AggregateResult aggregate : getAggregates()) {
         hashedAggregates.put(aggregate.getName(), aggregate);
       }
     }
@@ -172,23 +260,74 @@ public class TuplesHandle
 
   @Override
   public ValuesMetrics getMetrics() {
-    return tuplesHolder.getMetrics();
+    completeResponse();
+    return metrics;
   }
 
   /**
-   * Initialization-on-demand holder for {@link TuplesHandle}'s JAXB context.
+   * Iterates over the tuples, parsing each tuple from the response
+   * when the cursor advances to the tuple if the handle is in
+   * streaming mode.
    */
-  private static class JaxbContextLoader {
+  public class TupleCursor implements Iterator<Tuple>, Closeable {
+    private Tuple[]              results;
+    private int                  nextResult = 0;
+    private Tuple                pending;
+    private ValuesResponseReader response;
 
-    private static final JAXBContext CACHED_CONTEXT;
+    private TupleCursor() {
+      super();
+      response = pendingResponse;
+      if (response == null) {
+        results = (tuples == null) ? new Tuple[0] : tuples;
+      }
+    }
 
-    static {
+    @Override
+    public boolean hasNext() {
+      if (pending != null) {
+        return true;
+      }
+      if (response == null) {
+        return nextResult < results.length;
+      }
+      if (response != pendingResponse) {
+        return false;
+      }
       try {
-        CACHED_CONTEXT = JAXBContext.newInstance(TuplesBuilder.Tuples.class);
-      } catch (JAXBException e) {
-        throw new MarkLogicBindingException(e);
+        pending = response.readTuple();
+      } catch (XMLStreamException e) {
+        close();
+        throw new MarkLogicIOException("Could not read tuples: parser error", e);
+      }
+      if (pending == null) {
+        completeResponse();
+        return false;
+      }
+      return true;
+    }
+    @Override
+    public Tuple next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException("no more tuples");
+      }
+      if (response == null) {
+        return results[nextResult++];
+      }
+      Tuple result = pending;
+      pending = null;
+      return result;
+    }
+    /**
+     * Releases the connection if the tuples weren't read to the end.
+     * The remainder of the response is discarded.
+     */
+    @Override
+    public void close() {
+      pending = null;
+      if (response != null && response == pendingResponse) {
+        closePending();
       }
     }
   }
-
 }
@@ -15,23 +15,21 @@
  */
 package com.marklogic.client.io;
 
-import java.io.IOException;
+import java.io.Closeable;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.UnsupportedEncodingException;
-import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.JAXBException;
-import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLStreamException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.marklogic.client.MarkLogicBindingException;
 import com.marklogic.client.MarkLogicIOException;
-import com.marklogic.client.impl.ValuesBuilder;
 import com.marklogic.client.io.marker.OperationNotSupported;
 import com.marklogic.client.io.marker.ValuesReadHandle;
 import com.marklogic.client.query.AggregateResult;
@@ -39,21 +37,34 @@ import com.marklogic.client.query.CountedDistinctValue;
 import com.marklogic.client.query.ValuesDefinition;
 import com.marklogic.client.query.ValuesMetrics;
 import com.marklogic.client.query.ValuesResults;
-import java.util.Map;
 
 /**
  * A ValuesHandle represents a list of values or of tuples
  * (combination of values for the same document) retrieved
  * from the indexes.
+ *
+ * <p>The handle reads the response with a streaming parser. In streaming mode,
+ * the values are read from the connection as they are requested with
+ * {@link #getValueCursor()}. To page through the values with bounded memory,
+ * set the page length on the QueryManager and pass the start of each page
+ * to QueryManager.values() with a streaming handle.
+ * See {@link #setStreaming(boolean)}.</p>
  */
 public class ValuesHandle
   extends BaseHandle<InputStream, OperationNotSupported>
   implements ValuesReadHandle, ValuesResults
 {
-  static final private Logger logger = LoggerFactory.getLogger(DOMHandle.class);
+  static final private Logger logger = LoggerFactory.getLogger(ValuesHandle.class);
+
+  private String                 name;
+  private String                 type;
+  private CountedDistinctValue[] values;
+  private AggregateResult[]      aggregates;
+  private ValuesMetrics          metrics;
+
+  private boolean              streaming = false;
+  private ValuesResponseReader pendingResponse;
 
-  private ValuesBuilder.Values valuesHolder;
-  private Unmarshaller unmarshaller;
   private Map<String, AggregateResult> hashedAggregates = null;
 
   private ValuesDefinition valuesdef = null;
@@ -64,15 +75,6 @@ public class ValuesHandle
   public ValuesHandle() {
     super();
     super.setFormat(Format.XML);
-
-    try {
-      JAXBContext jc = JaxbContextLoader.CACHED_CONTEXT;
-      unmarshaller = jc.createUnmarshaller();
-    } catch (JAXBException e) {
-      throw new MarkLogicBindingException(e);
-    } catch (NoClassDefFoundError ncdfe) {
-      throw new MarkLogicBindingException(new JAXBException("JAXB context initialization failed"));
-    }
   }
 
   /**
@@ -94,13 +96,51 @@ public class ValuesHandle
    * This handle only supports XML.
    *
    * @param format The format, which must be Format.XML or an exception will be raised.
-   * @return The SearchHandle instance on which this method was called.
+   * @return The ValuesHandle instance on which this method was called.
    */
   public ValuesHandle withFormat(Format format) {
     setFormat(format);
     return this;
   }
 
+  /**
+   * Specifies whether to read the values lazily as they arrive
+   * from the server.
+   *
+   * <p>In streaming mode, the query only reads the name and type of the
+   * values. Iterate over the values with {@link #getValueCursor()} to parse
+   * each value as it is read from the connection without retaining the values
+   * that were already iterated. Accessing the aggregates or metrics reads
+   * the rest of the response, keeping any values that weren't iterated.</p>
+   *
+   * <p>The connection stays open until the end of the response is read or
+   * the cursor is closed, so a streaming handle must be read to the end or
+   * its cursor closed.</p>
+   *
+   * @param streaming	true to read the values lazily
+   */
+  public void setStreaming(boolean streaming) {
+    this.streaming = streaming;
+  }
+  /**
+   * Returns whether the handle reads the values lazily.
+   * @return	true if the handle is in streaming mode
+   */
+  public boolean isStreaming() {
+    return streaming;
+  }
+  /**
+   * Fluent setter for whether to read the values lazily
+   * as they arrive from the server.
+   * @param streaming	true to read the values lazily
+   * @return	The ValuesHandle instance on which this method was called.
+   * @see #setStreaming(boolean)
+   */
+  public ValuesHandle withStreaming(boolean streaming) {
+    setStreaming(streaming);
+    return this;
+  }
+
   @Override
   protected Class<InputStream> receiveAs() {
     return InputStream.class;
@@ -108,19 +148,49 @@ public class ValuesHandle
 
   @Override
   protected void receiveContent(InputStream content) {
+    closePending();
+    values           = null;
+    aggregates       = null;
+    metrics          = null;
+    hashedAggregates = null;
     try {
-      valuesHolder = (ValuesBuilder.Values) unmarshaller.unmarshal(
-        new InputStreamReader(content, StandardCharsets.UTF_8)
-      );
-    } catch (JAXBException e) {
-      logger.error("Failed to unmarshall values",e);
-      throw new MarkLogicIOException(e);
-    } finally {
-      try {
-        content.close();
-      } catch (IOException e) {
-        // ignore.
+      pendingResponse = new ValuesResponseReader(content);
+    } catch (XMLStreamException e) {
+      logger.error("Failed to read values",e);
+      throw new MarkLogicIOException("Could not read values: parser error", e);
+    }
+    name = pendingResponse.getName();
+    type = pendingResponse.getType();
+    if (!streaming) {
+      completeResponse();
+    }
+  }
+  // reads the rest of a streamed response
+  private void completeResponse() {
+    ValuesResponseReader response = pendingResponse;
+    if (response == null) {
+      return;
+    }
+    pendingResponse = null;
+    try {
+      List<CountedDistinctValue> remainder = new ArrayList<>();
+      for (CountedDistinctValue value = response.readValue(); value != null; value = response.readValue()) {
+        remainder.add(value);
       }
+      values     = remainder.toArray(new CountedDistinctValue[remainder.size()]);
+      aggregates = response.getAggregates().toArray(new AggregateResult[0]);
+      metrics    = response.getMetrics();
+    } catch (XMLStreamException e) {
+      logger.error("Failed to read values",e);
+      throw new MarkLogicIOException("Could not read values: parser error", e);
+    } finally {
+      response.close();
+    }
+  }
+  private void closePending() {
+    if (pendingResponse != null) {
+      pendingResponse.close();
+      pendingResponse = null;
     }
   }
 
@@ -142,29 +212,53 @@ public class ValuesHandle
 
   @Override
   public String getName() {
-    return valuesHolder.getName();
+    return name;
   }
 
   @Override
   public String getType() {
-    return valuesHolder.getType();
+    return type;
   }
 
+  /**
+   * Returns an array of the values returned by this query.
+   *
+   * <p>In streaming mode, the array only has the values that
+   * weren't iterated with the cursor.</p>
+   *
+   * @return The values array.
+   */
   @Override
   public CountedDistinctValue[] getValues() {
-    return valuesHolder.getValues();
+    completeResponse();
+    return values;
+  }
+
+  /**
+   * Returns a cursor over the values.
+   *
+   * <p>In streaming mode, each value is parsed from the response when the
+   * cursor advances to it, and the values that the cursor has passed are not
+   * retained by the handle. Otherwise, the cursor iterates over the values
+   * returned by {@link #getValues()}.</p>
+   *
+   * @return	the cursor, which should be closed if not read to the end
+   */
+  public ValueCursor getValueCursor() {
+    return new ValueCursor();
   }
 
   @Override
   public AggregateResult[] getAggregates() {
-    return valuesHolder.getAggregates();
+    completeResponse();
+    return aggregates;
   }
 
   @Override
   public AggregateResult getAggregate(String name) {
     if (hashedAggregates == null) {
       hashedAggregates = new HashMap<> ();
-      for (AggregateResult aggregate : valuesHolder.getAggregates()) {
+      for (AggregateResult aggregate : getAggregates()) {
         hashedAggregates.put(aggregate.getName(), aggregate);
       }
     }
@@ -178,23 +272,74 @@ public class ValuesHandle
 
   @Override
   public ValuesMetrics getMetrics() {
-    return valuesHolder.getMetrics();
+    completeResponse();
+    return metrics;
   }
 
   /**
-   * Initialization-on-demand holder for {@link ValuesHandle}'s JAXB context.
+   * Iterates over the values, parsing each value from the response
+   * when the cursor advances to the value if the handle is in
+   * streaming mode.
    */
-  private static class JaxbContextLoader {
+  public class ValueCursor implements Iterator<CountedDistinctValue>, Closeable {
+    private CountedDistinctValue[] results;
+    private int                    nextResult = 0;
+    private CountedDistinctValue   pending;
+    private ValuesResponseReader   response;
 
-    private static final JAXBContext CACHED_CONTEXT;
+    private ValueCursor() {
+      super();
+      response = pendingResponse;
+      if (response == null) {
+        results = (values == null) ? new CountedDistinctValue[0] : values;
+      }
+    }
 
-    static {
+    @Override
+    public boolean hasNext() {
+      if (pending != null) {
+        return true;
+      }
+      if (response == null) {
+        return nextResult < results.length;
+      }
+      if (response != pendingResponse) {
+        return false;
+      }
       try {
-        CACHED_CONTEXT = JAXBContext.newInstance(ValuesBuilder.Values.class);
-      } catch (JAXBException e) {
-        throw new MarkLogicBindingException(e);
+        pending = response.readValue();
+      } catch (XMLStreamException e) {
+        close();
+        throw new MarkLogicIOException("Could not read values: parser error", e);
+      }
+      if (pending == null) {
+        completeResponse();
+        return false;
+      }
+      return true;
+    }
+    @Override
+    public CountedDistinctValue next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException("no more values");
+      }
+      if (response == null) {
+        return results[nextResult++];
+      }
+      CountedDistinctValue result = pending;
+      pending = null;
+      return result;
+    }
+    /**
+     * Releases the connection if the values weren't read to the end.
+     * The remainder of the response is discarded.
+     */
+    @Override
+    public void close() {
+      pending = null;
+      if (response != null && response == pendingResponse) {
+        closePending();
       }
     }
   }
-
 }
@@ -17,26 +17,20 @@ package com.marklogic.client.io;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.UnsupportedEncodingException;
+import java.util.HashMap;
 
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.JAXBException;
-import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.marklogic.client.MarkLogicBindingException;
 import com.marklogic.client.MarkLogicIOException;
-import com.marklogic.client.impl.ValuesListBuilder;
 import com.marklogic.client.io.marker.OperationNotSupported;
 import com.marklogic.client.io.marker.ValuesListReadHandle;
 import com.marklogic.client.query.ValuesListResults;
 
-import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
-
 /**
  * A ValuesListHandle represents a list of available named lexicon configurations
  * from saved query options.
@@ -46,9 +40,9 @@ public class ValuesListHandle
   implements ValuesListReadHandle, ValuesListResults
 {
   static final private Logger logger = LoggerFactory.getLogger(ValuesListHandle.class);
+  static final private String VALUES_LIST_NS = "http://marklogic.com/rest-api";
 
-  private ValuesListBuilder.ValuesList valuesHolder;
-  private Unmarshaller unmarshaller;
+  private HashMap<String, String> valuesMap;
 
   String optionsName = null;
 
@@ -58,15 +52,6 @@ public class ValuesListHandle
   public ValuesListHandle() {
     super();
     super.setFormat(Format.XML);
-
-    try {
-      JAXBContext jc = JaxbContextLoader.CACHED_CONTEXT;
-      unmarshaller = jc.createUnmarshaller();
-    } catch (JAXBException e) {
-      throw new MarkLogicBindingException(e);
-    } catch (NoClassDefFoundError ncdfe) {
-      throw new MarkLogicBindingException(new JAXBException("JAXB context initialization failed"));
-    }
   }
 
   /**
@@ -121,12 +106,37 @@ public class ValuesListHandle
 
   @Override
   protected void receiveContent(InputStream content) {
+    HashMap<String, String> map = new HashMap<>();
     try {
-      valuesHolder = (ValuesListBuilder.ValuesList) unmarshaller.unmarshal(
-        new InputStreamReader(content, StandardCharsets.UTF_8)
-      );
-    } catch (JAXBException e) {
-      logger.error("Failed to unmarshall values list",e);
+      XMLStreamReader reader = ValuesResponseReader.inputFactory.createXMLStreamReader(content, "UTF-8");
+      try {
+        reader.nextTag();
+        if (!isRestElement(reader, "values-list")) {
+          throw new XMLStreamException("unexpected element " + reader.getName() +
+            ", expected {" + VALUES_LIST_NS + "}values-list", reader.getLocation());
+        }
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+          if (!isRestElement(reader, "values")) {
+            ValuesResponseReader.skipElement(reader);
+            continue;
+          }
+          String name = null;
+          String uri  = null;
+          while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if (isRestElement(reader, "name"))
+              name = reader.getElementText();
+            else if (isRestElement(reader, "uri"))
+              uri = reader.getElementText();
+            else
+              ValuesResponseReader.skipElement(reader);
+          }
+          map.put(name, uri);
+        }
+      } finally {
+        reader.close();
+      }
+    } catch (XMLStreamException e) {
+      logger.error("Failed to read values list",e);
       throw new MarkLogicIOException(e);
     } finally {
       try {
@@ -135,7 +145,11 @@ public class ValuesListHandle
         // ignore.
       }
     }
+    valuesMap = map;
+  }
 
+  private static boolean isRestElement(XMLStreamReader reader, String localName) {
+    return VALUES_LIST_NS.equals(reader.getNamespaceURI()) && localName.equals(reader.getLocalName());
   }
 
   /**
@@ -147,22 +161,6 @@ public class ValuesListHandle
    */
   @Override
   public HashMap<String, String> getValuesMap() {
-    return valuesHolder.getValuesMap();
-  }
-
-  /**
-   * Initialization-on-demand holder for {@link ValuesListHandle}'s JAXB context.
-   */
-  private static class JaxbContextLoader {
-
-    private static final JAXBContext CACHED_CONTEXT;
-
-    static {
-      try {
-        CACHED_CONTEXT = JAXBContext.newInstance(ValuesListBuilder.ValuesList.class);
-      } catch (JAXBException e) {
-        throw new MarkLogicBindingException(e);
-      }
-    }
+    return valuesMap;
   }
 }
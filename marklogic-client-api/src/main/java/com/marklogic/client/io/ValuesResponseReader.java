@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2021 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.GregorianCalendar;
+import java.util.List;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.marklogic.client.impl.Utilities;
+import com.marklogic.client.impl.ValuesMetricsImpl;
+import com.marklogic.client.query.AggregateResult;
+import com.marklogic.client.query.CountedDistinctValue;
+import com.marklogic.client.query.Tuple;
+import com.marklogic.client.query.TypedDistinctValue;
+import com.marklogic.client.query.ValuesMetrics;
+
+/**
+ * Reads a values or tuples response one distinct value or tuple
+ * at a time so the caller can decide whether to retain the items.
+ * The aggregates and metrics are collected as the reader passes them.
+ * The response is closed when the reader reaches the end.
+ */
+class ValuesResponseReader implements Closeable {
+  final static XMLInputFactory inputFactory = makeInputFactory();
+
+  private XMLStreamReader reader;
+  private InputStream     content;
+
+  private String                name;
+  private String                type;
+  private List<AggregateResult> aggregates = new ArrayList<>();
+  private ValuesMetrics         metrics;
+
+  ValuesResponseReader(InputStream content) throws XMLStreamException {
+    this.content = content;
+    try {
+      reader = inputFactory.createXMLStreamReader(content, "UTF-8");
+      reader.nextTag();
+      name = reader.getAttributeValue(null, "name");
+      type = reader.getAttributeValue(null, "type");
+    } catch (XMLStreamException e) {
+      close();
+      throw e;
+    }
+  }
+
+  String getName() {
+    return name;
+  }
+  String getType() {
+    return type;
+  }
+  List<AggregateResult> getAggregates() {
+    return aggregates;
+  }
+  ValuesMetrics getMetrics() {
+    return metrics;
+  }
+  boolean isClosed() {
+    return reader == null;
+  }
+
+  /**
+   * Reads the next tuple.
+   * @return the tuple or null at the end of the response
+   */
+  Tuple readTuple() throws XMLStreamException {
+    if (!nextItem("tuple"))
+      return null;
+
+    long frequency = readFrequency();
+    List<TypedDistinctValue> values = new ArrayList<>();
+    while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+      if ("distinct-value".equals(reader.getLocalName())) {
+        String valueType = reader.getAttributeValue(XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI, "type");
+        values.add(new TypedDistinctValue(valueType, reader.getElementText()));
+      } else {
+        skipElement(reader);
+      }
+    }
+    return new Tuple(frequency, values.toArray(new TypedDistinctValue[values.size()]));
+  }
+  /**
+   * Reads the next distinct value.
+   * @return the value or null at the end of the response
+   */
+  CountedDistinctValue readValue() throws XMLStreamException {
+    if (!nextItem("distinct-value"))
+      return null;
+
+    long frequency = readFrequency();
+    return new CountedDistinctValue(frequency, reader.getElementText());
+  }
+
+  // advances to the start of the next item, collecting the aggregates and metrics on the way
+  private boolean nextItem(String itemName) throws XMLStreamException {
+    if (reader == null)
+      return false;
+    try {
+      while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+        String localName = reader.getLocalName();
+        if (itemName.equals(localName))
+          return true;
+        else if ("aggregate-result".equals(localName))
+          aggregates.add(new AggregateResult(reader.getAttributeValue(null, "name"), reader.getElementText()));
+        else if ("metrics".equals(localName))
+          metrics = readMetrics();
+        else
+          skipElement(reader);
+      }
+    } catch (XMLStreamException e) {
+      close();
+      throw e;
+    }
+    close();
+    return false;
+  }
+  private long readFrequency() {
+    String frequency = reader.getAttributeValue(null, "frequency");
+    return (frequency == null) ? 0 : Long.parseLong(frequency);
+  }
+  private ValuesMetrics readMetrics() throws XMLStreamException {
+    GregorianCalendar now = new GregorianCalendar();
+    long valuesTime    = -1;
+    long aggregateTime = -1;
+    long totalTime     = -1;
+    while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+      String localName = reader.getLocalName();
+      if ("values-resolution-time".equals(localName))
+        valuesTime = parseTime(now, reader.getElementText());
+      else if ("aggregate-resolution-time".equals(localName))
+        aggregateTime = parseTime(now, reader.getElementText());
+      else if ("total-time".equals(localName))
+        totalTime = parseTime(now, reader.getElementText());
+      else
+        skipElement(reader);
+    }
+    return new ValuesMetricsImpl(valuesTime, aggregateTime, totalTime);
+  }
+  private long parseTime(GregorianCalendar now, String time) {
+    return Utilities.getDatatypeFactory().newDurationDayTime(time).getTimeInMillis(now);
+  }
+  static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+    for (int depth = 1; depth > 0; ) {
+      int eventType = reader.next();
+      if (eventType == XMLStreamConstants.START_ELEMENT)
+        depth++;
+      else if (eventType == XMLStreamConstants.END_ELEMENT)
+        depth--;
+    }
+  }
+
+  /**
+   * Releases the response without reading the rest of it.
+   */
+  @Override
+  public void close() {
+    if (reader != null) {
+      try {
+        reader.close();
+      } catch (XMLStreamException e) {
+        // ignore.
+      }
+      reader = null;
+    }
+    if (content != null) {
+      try {
+        content.close();
+      } catch (IOException e) {
+        // ignore.
+      }
+      content = null;
+    }
+  }
+
+  static private XMLInputFactory makeInputFactory() {
+    XMLInputFactory factory = XMLInputFactory.newFactory();
+    factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+    factory.setProperty(XMLInputFactory.IS_VALIDATING,      false);
+    factory.setProperty(XMLInputFactory.IS_COALESCING,      true);
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD,        false);
+    return factory;
+  }
+}
@@ -17,19 +17,25 @@ package com.marklogic.client.query;
 
 import com.marklogic.client.impl.ValueConverter;
 
-import javax.xml.bind.annotation.XmlAttribute;
-import javax.xml.bind.annotation.XmlValue;
-
 /**
  * A CountedDistinctValue is a value that includes a frequency.
  */
 public class AggregateResult {
-  @XmlAttribute(name = "name")
   String name;
-
-  @XmlValue
   String value;
 
+  public AggregateResult() {
+  }
+  /**
+   * Constructs an aggregate with the name and value read from the server.
+   * @param name The name of the aggregate.
+   * @param value The lexical value.
+   */
+  public AggregateResult(String name, String value) {
+    this.name  = name;
+    this.value = value;
+  }
+
   /**
    * Returns the name of this aggregate.
    * @return The name.
@@ -17,19 +17,25 @@ package com.marklogic.client.query;
 
 import com.marklogic.client.impl.ValueConverter;
 
-import javax.xml.bind.annotation.XmlAttribute;
-import javax.xml.bind.annotation.XmlValue;
-
 /**
  * A CountedDistinctValue is a value that includes a frequency.
  */
 public class CountedDistinctValue {
-  @XmlAttribute(name = "frequency")
   long frequency;
-
-  @XmlValue
   String value;
 
+  public CountedDistinctValue() {
+  }
+  /**
+   * Constructs a value with the frequency and value read from the server.
+   * @param frequency The frequency of the value.
+   * @param value The lexical value.
+   */
+  public CountedDistinctValue(long frequency, String value) {
+    this.frequency = frequency;
+    this.value     = value;
+  }
+
   /**
    * Returns the frequency associated with this value.
    * @return The frequency.
@@ -67,4 +73,39 @@ public class CountedDistinctValue {
   public <T> T get(String type, Class<T> as) {
     return ValueConverter.convertToJava(type, value, as);
   }
+
+  /**
+   * Returns the value as a string without conversion.
+   * @return The lexical value.
+   */
+  public String getString() {
+    return value;
+  }
+
+  /**
+   * Returns the value as a primitive long without boxing.
+   * @return The value.
+   * @throws IllegalArgumentException if the value isn't an integer
+   */
+  public long getLong() {
+    return ValueConverter.StringToLongPrimitive(value);
+  }
+
+  /**
+   * Returns the value as a primitive double without boxing.
+   * @return The value.
+   * @throws IllegalArgumentException if the value isn't a number
+   */
+  public double getDouble() {
+    return ValueConverter.StringToDoublePrimitive(value);
+  }
+
+  /**
+   * Returns the value as a primitive boolean without boxing.
+   * @return The value.
+   * @throws IllegalArgumentException if the value isn't a boolean
+   */
+  public boolean getBoolean() {
+    return ValueConverter.StringToBooleanPrimitive(value);
+  }
 }
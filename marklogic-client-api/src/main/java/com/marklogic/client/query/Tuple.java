@@ -15,25 +15,28 @@
  */
 package com.marklogic.client.query;
 
-import com.marklogic.client.impl.TuplesBuilder;
-
-import javax.xml.bind.annotation.XmlAttribute;
-import javax.xml.bind.annotation.XmlElement;
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * A Tuple is a single tuple value taken from a tuple/value query.
  */
 public class Tuple {
-  @XmlAttribute(name = "frequency")
   private long frequency;
 
-  @XmlElement(namespace = TuplesBuilder.Tuples.TUPLES_NS, name = "distinct-value")
-  private List<TypedDistinctValue> distinctValues;
+  private TypedDistinctValue[] distinctValues;
 
   public Tuple() {
-    distinctValues = new ArrayList<>();
+    this(0, new TypedDistinctValue[0]);
+  }
+  /**
+   * Constructs a tuple with the frequency and values read from the server.
+   * @param frequency The frequency of the tuple.
+   * @param distinctValues The values in the tuple.
+   */
+  public Tuple(long frequency, TypedDistinctValue[] distinctValues) {
+    if (distinctValues == null) {
+      throw new IllegalArgumentException("null values for tuple");
+    }
+    this.frequency      = frequency;
+    this.distinctValues = distinctValues;
   }
 
   /**
@@ -49,6 +52,23 @@ public class Tuple {
    * @return The array of values.
    */
   public TypedDistinctValue[] getValues() {
-    return distinctValues.toArray(new TypedDistinctValue[0]);
+    return distinctValues.clone();
+  }
+
+  /**
+   * Returns the number of values in this tuple.
+   * @return The number of values.
+   */
+  public int getValueCount() {
+    return distinctValues.length;
+  }
+
+  /**
+   * Returns one of the values in this tuple without copying the values.
+   * @param index The position of the value in the tuple, starting at 0.
+   * @return The value.
+   */
+  public TypedDistinctValue getValue(int index) {
+    return distinctValues[index];
   }
 }
@@ -17,19 +17,25 @@ package com.marklogic.client.query;
 
 import com.marklogic.client.impl.ValueConverter;
 
-import javax.xml.bind.annotation.XmlAttribute;
-import javax.xml.bind.annotation.XmlValue;
-
 /**
  * A TypedDistinctValue is a value that includes a type.
  */
 public class TypedDistinctValue {
-  @XmlAttribute(namespace = "http://www.w3.org/2001/XMLSchema-instance", name = "type")
   String type;
-
-  @XmlValue
   String value;
 
+  public TypedDistinctValue() {
+  }
+  /**
+   * Constructs a value with the type and value read from the server.
+   * @param type The XSD type name of the value.
+   * @param value The lexical value.
+   */
+  public TypedDistinctValue(String type, String value) {
+    this.type  = type;
+    this.value = value;
+  }
+
   /**
    * Returns the type of the value.
    *
@@ -54,4 +60,39 @@ public class TypedDistinctValue {
   public <T> T get(Class<T> as) {
     return ValueConverter.convertToJava(type, value, as);
   }
+
+  /**
+   * Returns the value as a string without conversion.
+   * @return The lexical value.
+   */
+  public String getString() {
+    return value;
+  }
+
+  /**
+   * Returns the value as a primitive long without boxing.
+   * @return The value.
+   * @throws IllegalArgumentException if the value isn't an integer
+   */
+  public long getLong() {
+    return ValueConverter.StringToLongPrimitive(value);
+  }
+
+  /**
+   * Returns the value as a primitive double without boxing.
+   * @return The value.
+   * @throws IllegalArgumentException if the value isn't a number
+   */
+  public double getDouble() {
+    return ValueConverter.StringToDoublePrimitive(value);
+  }
+
+  /**
+   * Returns the value as a primitive boolean without boxing.
+   * @return The value.
+   * @throws IllegalArgumentException if the value isn't a boolean
+   */
+  public boolean getBoolean() {
+    return ValueConverter.StringToBooleanPrimitive(value);
+  }
 }
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2021 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.row;
+
+import java.io.Closeable;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * A Row Cursor reads the rows produced by a plan one at a time
+ * as they arrive from the database, reusing the same storage for
+ * every row instead of constructing a map for each row.
+ *
+ * The column header is decoded once, and the column values are
+ * accessed by the zero-based index of the column. Use
+ * {@link #getColumnIndex(String)} once to look up the index of
+ * a column by its name.
+ *
+ * The values of the current row are only valid until the next call
+ * to {@link #next()} or {@link #nextBatch(int)}.
+ *
+ * A cursor must be closed to release the connection if the rows are
+ * not read to the end.
+ */
+public interface RowCursor extends Closeable {
+    /**
+     * Identifies the columns in the rows.
+     * @return	The column names
+     */
+    String[] getColumnNames();
+
+    /**
+     * Identifies the data types of the columns as declared by the header.
+     *
+     * Note that a column with inconsistent values can have values with
+     * a different data type than the header data type.
+     * @return	The column data types
+     */
+    String[] getColumnTypes();
+
+    /**
+     * Gets the index of a column for use with the accessors.
+     * @param columnName	the name of the column
+     * @return	the zero-based index of the column or -1 if the rows have no such column
+     */
+    int getColumnIndex(String columnName);
+
+    /**
+     * Advances to the next row, which becomes the current row.
+     * @return	true if a row was read or false if the end of the rows was reached
+     */
+    boolean next();
+
+    /**
+     * Reads up to the specified number of rows as column vectors.
+     * The batch and its arrays are reused for the next batch, and
+     * the cursor has no current row after reading a batch.
+     * @param maxRows	the maximum number of rows in the batch
+     * @return	the batch of rows, which is empty when the end of the rows was reached
+     */
+    ColumnBatch nextBatch(int maxRows);
+
+    /**
+     * Identifies whether the value of a column in the current row
+     * is an atomic value, a container, or a null.
+     * @param column	the index of the column
+     * @return	the kind of value of the column in the current row
+     */
+    RowRecord.ColumnKind getKind(int column);
+
+    /**
+     * Identifies the server data type for a column as declared by the header.
+     * @param column	the index of the column
+     * @return	the server data type
+     */
+    String getDatatype(int column);
+
+    /**
+     * Whether the column has a null value in the current row.
+     * @param column	the index of the column
+     * @return	true if the value of the column is null
+     */
+    boolean isNull(int column);
+
+    /**
+     * Gets the value of a column in the current row as a boolean.
+     * @param column	the index of the column
+     * @return	the value or false if the value is null
+     */
+    boolean getBoolean(int column);
+
+    /**
+     * Gets the value of a column in the current row as an int.
+     * @param column	the index of the column
+     * @return	the value or zero if the value is null
+     */
+    int getInt(int column);
+
+    /**
+     * Gets the value of a column in the current row as a long.
+     * @param column	the index of the column
+     * @return	the value or zero if the value is null
+     */
+    long getLong(int column);
+
+    /**
+     * Gets the value of a column in the current row as a float.
+     * @param column	the index of the column
+     * @return	the value or zero if the value is null
+     */
+    float getFloat(int column);
+
+    /**
+     * Gets the value of a column in the current row as a double.
+     * @param column	the index of the column
+     * @return	the value or zero if the value is null
+     */
+    double getDouble(int column);
+
+    /**
+     * Gets the value of a column in the current row as a string.
+     * @param column	the index of the column
+     * @return	the value or null if the value is null
+     */
+    String getString(int column);
+
+    /**
+     * Gets the value of a column in the current row as a JSON array or object.
+     * @param column	the index of the column
+     * @return	the container or null if the value is not a container
+     */
+    JsonNode getContainer(int column);
+
+    /**
+     * Closes the cursor and releases the connection.
+     */
+    @Override
+    void close();
+
+    /**
+     * A Column Batch provides the values of a batch of rows as arrays
+     * with one entry per row for each column. The arrays are reused
+     * for subsequent batches and may be longer than the batch, so only
+     * the entries up to the size of the batch are valid.
+     */
+    interface ColumnBatch {
+        /**
+         * The number of rows in the batch.
+         * @return	the row count
+         */
+        int size();
+
+        /**
+         * Gets the null flags of a column for the rows in the batch.
+         * @param column	the index of the column
+         * @return	an array with true for each row in which the column is null
+         */
+        boolean[] getNulls(int column);
+
+        /**
+         * Gets the values of a column for the rows in the batch as longs.
+         * @param column	the index of the column
+         * @return	an array with the value for each row, which is zero for a null
+         */
+        long[] getLongs(int column);
+
+        /**
+         * Gets the values of a column for the rows in the batch as doubles.
+         * @param column	the index of the column
+         * @return	an array with the value for each row, which is zero for a null
+         */
+        double[] getDoubles(int column);
+
+        /**
+         * Gets the values of a column for the rows in the batch as strings.
+         * @param column	the index of the column
+         * @return	an array with the value for each row, which is null for a null
+         */
+        String[] getStrings(int column);
+    }
+}
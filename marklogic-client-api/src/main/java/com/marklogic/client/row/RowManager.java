@@ -120,6 +120,31 @@ public interface RowManager {
      * @return	an iterable over the results with a map interface for each row
      */
     RowSet<RowRecord> resultRows(Plan plan, Transaction transaction);
+    /**
+     * Constructs and retrieves a set of database rows based on a plan as a cursor
+     * that decodes the column header once and provides the column values of each row
+     * through index-based accessors, reusing the same storage for every row.
+     *
+     * The rows are read from the response as they arrive, and the values can also
+     * be read as batches of column vectors. The cursor must be closed if the rows
+     * are not read to the end.
+     * @param plan	the definition of a plan for the database rows
+     * @return	a cursor over the result rows
+     */
+    default RowCursor resultCursor(Plan plan) {
+        return resultCursor(plan, null);
+    }
+    /**
+     * Constructs and retrieves a set of database rows based on a plan as a cursor
+     * with index-based accessors for the column values and reflecting documents
+     * written or deleted by an uncommitted transaction.
+     * @param plan	the definition of a plan for the database rows
+     * @param transaction	a open transaction for documents from which rows have been projected
+     * @return	a cursor over the result rows
+     */
+    default RowCursor resultCursor(Plan plan, Transaction transaction) {
+        throw new UnsupportedOperationException("Row cursors not supported by this row manager");
+    }
     /**
      * Constructs and retrieves a set of database rows based on a plan using
      * a JSON or XML handle for each row.
@@ -43,6 +43,16 @@ import com.marklogic.client.io.marker.XMLReadHandle;
  *        ...
  *    }</pre>
  *
+ * <p>Or read the solutions of a large SELECT one at a time:</p>
+ *
+ * <pre>    try (SPARQLResultCursor cursor = sparqlMgr.executeSelectCursor(query)) {
+ *        int s = cursor.getVariableIndex("s");
+ *        while ( cursor.next() ) {
+ *            String subject = cursor.getString(s);
+ *            ...
+ *        }
+ *    }</pre>
+ *
  * <p>Or perform a SPARQL CONSTRUCT:</p>
  *
  * <pre>    String sparql = "CONSTRUCT { &lt;a&gt; &lt;b&gt; &lt;c&gt; } WHERE { ?s ?p ?o } LIMIT 10";
@@ -138,6 +148,28 @@ public interface SPARQLQueryManager  {
    */
   <T extends SPARQLResultsReadHandle> T executeSelect(SPARQLQueryDefinition qdef, T handle, long start, Transaction tx);
 
+  /** Execute a SPARQL "SELECT" query and read the solutions one at a time
+   * as they arrive instead of reading the whole response into a handle.
+   * Unless a page length has been set, the cursor reads all of the solutions
+   * from a single request, so large results don't have to be paged.
+   * @param qdef the query
+   * @return the cursor over the solutions, which must be closed if not read to the end
+   */
+  default SPARQLResultCursor executeSelectCursor(SPARQLQueryDefinition qdef) {
+    return executeSelectCursor(qdef, null);
+  }
+
+  /** Execute a SPARQL "SELECT" query and read the solutions one at a time
+   * as they arrive instead of reading the whole response into a handle.
+   * @param qdef the query
+   * @param tx the transaction context for this operation
+   * @return the cursor over the solutions, which must be closed if not read to the end
+   * @see #executeSelectCursor(SPARQLQueryDefinition)
+   */
+  default SPARQLResultCursor executeSelectCursor(SPARQLQueryDefinition qdef, Transaction tx) {
+    throw new UnsupportedOperationException("Select cursors not supported by this query manager");
+  }
+
   /** @return the currently set pageLength or -1 if no page length has been set */
   long getPageLength();
 
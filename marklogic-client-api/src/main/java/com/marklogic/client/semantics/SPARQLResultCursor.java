@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2021 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.semantics;
+
+import java.io.Closeable;
+
+/**
+ * A SPARQL Result Cursor reads the solutions of a SPARQL SELECT query
+ * one at a time as they arrive from the database, reusing the same
+ * storage for every solution instead of building a tree for the
+ * whole response.
+ *
+ * The bound terms are accessed by the zero-based index of the variable.
+ * Use {@link #getVariableIndex(String)} once to look up the index of
+ * a variable by its name.
+ *
+ * The terms of the current solution are only valid until the next call
+ * to {@link #next()}.
+ *
+ * A cursor must be closed to release the connection if the solutions are
+ * not read to the end.
+ *
+ * @see SPARQLQueryManager#executeSelectCursor(SPARQLQueryDefinition)
+ */
+public interface SPARQLResultCursor extends Closeable {
+  /**
+   * The kind of term bound to a variable in a solution.
+   */
+  enum TermKind {
+    /** An IRI. */
+    URI,
+    /** A literal, which may have a datatype or language. */
+    LITERAL,
+    /** A blank node. */
+    BNODE,
+    /** No term is bound to the variable. */
+    UNBOUND
+  }
+
+  /**
+   * Identifies the variables selected by the query.
+   * @return	the variable names without the leading question mark
+   */
+  String[] getVariableNames();
+
+  /**
+   * Gets the index of a variable for use with the accessors.
+   * @param variableName	the name of the variable without the leading question mark
+   * @return	the zero-based index of the variable or -1 if the query didn't select the variable
+   */
+  int getVariableIndex(String variableName);
+
+  /**
+   * Advances to the next solution, which becomes the current solution.
+   * @return	true if a solution was read or false if the end of the solutions was reached
+   */
+  boolean next();
+
+  /**
+   * Identifies the kind of term bound to a variable in the current solution.
+   * @param variable	the index of the variable
+   * @return	the kind of term
+   */
+  TermKind getKind(int variable);
+
+  /**
+   * Whether a term is bound to a variable in the current solution.
+   * @param variable	the index of the variable
+   * @return	true if the variable has a term
+   */
+  boolean isBound(int variable);
+
+  /**
+   * Gets the IRI of the datatype of a literal in the current solution.
+   * @param variable	the index of the variable
+   * @return	the datatype or null if the term isn't a typed literal
+   */
+  String getDatatype(int variable);
+
+  /**
+   * Gets the language tag of a literal in the current solution.
+   * @param variable	the index of the variable
+   * @return	the language tag or null if the term isn't a literal with a language
+   */
+  String getLanguage(int variable);
+
+  /**
+   * Gets the lexical form of the term bound to a variable in the current solution,
+   * which is the IRI, the literal value, or the blank node label.
+   * @param variable	the index of the variable
+   * @return	the value or null if the variable is unbound
+   */
+  String getString(int variable);
+
+  /**
+   * Gets the value of a literal in the current solution as a boolean.
+   * @param variable	the index of the variable
+   * @return	the value or false if the variable is unbound
+   */
+  boolean getBoolean(int variable);
+
+  /**
+   * Gets the value of a literal in the current solution as a long.
+   * @param variable	the index of the variable
+   * @return	the value or zero if the variable is unbound
+   */
+  long getLong(int variable);
+
+  /**
+   * Gets the value of a literal in the current solution as a double.
+   * @param variable	the index of the variable
+   * @return	the value or zero if the variable is unbound
+   */
+  double getDouble(int variable);
+
+  /**
+   * Closes the cursor and releases the connection.
+   */
+  @Override
+  void close();
+}
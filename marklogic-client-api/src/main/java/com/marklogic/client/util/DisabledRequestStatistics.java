@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2021 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.util;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * The statistics of a client that doesn't collect request statistics,
+ * which stay empty.
+ */
+class DisabledRequestStatistics implements RequestStatistics {
+  static final DisabledRequestStatistics INSTANCE = new DisabledRequestStatistics();
+
+  private final EndpointStatistics total = new EmptyEndpointStatistics();
+
+  private DisabledRequestStatistics() {
+  }
+
+  @Override
+  public Set<String> getEndpoints() {
+    return Collections.emptySet();
+  }
+  @Override
+  public EndpointStatistics getEndpoint(String endpoint) {
+    return null;
+  }
+  @Override
+  public EndpointStatistics getTotal() {
+    return total;
+  }
+  @Override
+  public void reset() {
+  }
+
+  static class EmptyEndpointStatistics implements EndpointStatistics {
+    @Override
+    public long getCalls() {
+      return 0;
+    }
+    @Override
+    public long getFailures() {
+      return 0;
+    }
+    @Override
+    public long getStatusCount(int statusCode) {
+      return 0;
+    }
+    @Override
+    public Set<Integer> getStatusCodes() {
+      return Collections.emptySet();
+    }
+    @Override
+    public long getAuthChallenges() {
+      return 0;
+    }
+    @Override
+    public long getConnections() {
+      return 0;
+    }
+    @Override
+    public long getReusedConnections() {
+      return 0;
+    }
+    @Override
+    public long getBytesSent() {
+      return 0;
+    }
+    @Override
+    public long getBytesReceived() {
+      return 0;
+    }
+    @Override
+    public long getTotalNanos() {
+      return 0;
+    }
+    @Override
+    public long getMaxNanos() {
+      return 0;
+    }
+    @Override
+    public long getConnectNanos() {
+      return 0;
+    }
+    @Override
+    public long getTlsNanos() {
+      return 0;
+    }
+    @Override
+    public long getAuthChallengeNanos() {
+      return 0;
+    }
+    @Override
+    public long getServerNanos() {
+      return 0;
+    }
+    @Override
+    public long getResponseBodyNanos() {
+      return 0;
+    }
+    @Override
+    public double getMeanMillis() {
+      return 0;
+    }
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2021 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.util;
+
+import java.util.Set;
+
+/**
+ * Request Statistics accumulate timings, payload sizes, and status codes
+ * for the HTTP requests that a DatabaseClient sends to the server, grouped
+ * by endpoint such as {@code POST /v1/documents} or {@code GET /v1/internal/uris}.
+ *
+ * The timings break each call into the phases where time can go:  opening
+ * connections, negotiating TLS, the round trip for an authentication
+ * challenge such as digest authentication, waiting for the server to
+ * respond, and streaming the response body.  Recording is cheap, so the
+ * statistics are collected unless the
+ * {@code com.marklogic.client.requestStatistics} system property is false.
+ *
+ * A call is recorded when it finishes, which for a response read as a
+ * stream is when the stream is closed.
+ *
+ * @see com.marklogic.client.DatabaseClient#getRequestStatistics()
+ */
+public interface RequestStatistics {
+  /**
+   * Returns the endpoints that have been called.
+   * @return	the endpoints as the method and normalized path
+   */
+  Set<String> getEndpoints();
+
+  /**
+   * Returns the statistics for one endpoint.
+   * @param endpoint	the method and normalized path as returned by getEndpoints()
+   * @return	the statistics or null if the endpoint hasn't been called
+   */
+  EndpointStatistics getEndpoint(String endpoint);
+
+  /**
+   * Returns the statistics for the calls to all endpoints.
+   * @return	the statistics
+   */
+  EndpointStatistics getTotal();
+
+  /**
+   * Discards the statistics accumulated so far.
+   */
+  void reset();
+
+  /**
+   * Returns the statistics of a client that doesn't collect request
+   * statistics, which are always empty.
+   * @return	the empty statistics
+   */
+  static RequestStatistics disabled() {
+    return DisabledRequestStatistics.INSTANCE;
+  }
+
+  /**
+   * The statistics accumulated for the calls to an endpoint.
+   */
+  interface EndpointStatistics {
+    /**
+     * Returns the number of completed calls, including failed calls.
+     * @return	the call count
+     */
+    long getCalls();
+    /**
+     * Returns the number of calls that failed without a response,
+     * for instance because of a connection error or cancellation.
+     * @return	the failure count
+     */
+    long getFailures();
+    /**
+     * Returns the number of calls whose final response had the status code.
+     * @param statusCode	the HTTP status code such as 200 or 503
+     * @return	the call count for the status
+     */
+    long getStatusCount(int statusCode);
+    /**
+     * Returns the status codes of the final responses received so far.
+     * @return	the status codes
+     */
+    Set<Integer> getStatusCodes();
+    /**
+     * Returns the number of authentication challenges answered by sending
+     * the request again within the calls.
+     * @return	the challenge count
+     */
+    long getAuthChallenges();
+    /**
+     * Returns the number of new connections opened by the calls.  Calls that
+     * reuse a pooled connection don't open a connection.
+     * @return	the connection count
+     */
+    long getConnections();
+    /**
+     * Returns the number of times the calls used a connection from the
+     * connection pool instead of opening a new connection.  A low ratio
+     * of reused connections to calls suggests that the pool evicts idle
+     * connections too soon for the number of threads.
+     * @return	the reuse count
+     */
+    long getReusedConnections();
+    /**
+     * Returns the number of bytes of request bodies sent.
+     * @return	the byte count
+     */
+    long getBytesSent();
+    /**
+     * Returns the number of bytes of response bodies received.
+     * @return	the byte count
+     */
+    long getBytesReceived();
+    /**
+     * Returns the total time of the calls from start to finish.
+     * @return	the time in nanoseconds
+     */
+    long getTotalNanos();
+    /**
+     * Returns the longest time of a call from start to finish.
+     * @return	the time in nanoseconds
+     */
+    long getMaxNanos();
+    /**
+     * Returns the total time spent opening connections, including TLS negotiation.
+     * @return	the time in nanoseconds
+     */
+    long getConnectNanos();
+    /**
+     * Returns the total time spent negotiating TLS for new connections.
+     * @return	the time in nanoseconds
+     */
+    long getTlsNanos();
+    /**
+     * Returns the total time between sending a request that was answered
+     * with an authentication challenge and sending the request again.
+     * @return	the time in nanoseconds
+     */
+    long getAuthChallengeNanos();
+    /**
+     * Returns the total time between sending the final request of each call
+     * and receiving the response headers, which is mostly server time.
+     * @return	the time in nanoseconds
+     */
+    long getServerNanos();
+    /**
+     * Returns the total time spent streaming response bodies.
+     * @return	the time in nanoseconds
+     */
+    long getResponseBodyNanos();
+    /**
+     * Returns the mean time of a call from start to finish.
+     * @return	the time in milliseconds
+     */
+    double getMeanMillis();
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2021 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.DatabaseClientFactory;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+public class ConnectionSettingsTest {
+  private static final String[] PROPS = {
+    "com.marklogic.client.maxIdleConnections",
+    "com.marklogic.client.keepAliveSeconds",
+    "com.marklogic.client.connectTimeoutSeconds",
+    "com.marklogic.client.readTimeoutSeconds",
+    "com.marklogic.client.writeTimeoutSeconds",
+    "com.marklogic.client.maxAsyncRequests",
+    "com.marklogic.client.http2"
+  };
+
+  @After
+  public void clearProperties() {
+    for (String prop: PROPS) {
+      System.clearProperty(prop);
+    }
+  }
+
+  @Test
+  public void testDefaults() {
+    DatabaseClient client1 = newClient();
+    DatabaseClient client2 = newClient();
+    try {
+      OkHttpClient okClient1 = (OkHttpClient) client1.getClientImplementation();
+      OkHttpClient okClient2 = (OkHttpClient) client2.getClientImplementation();
+      assertSame(okClient1.connectionPool(), okClient2.connectionPool());
+      assertEquals(0, okClient1.readTimeoutMillis());
+      assertEquals(0, okClient1.writeTimeoutMillis());
+      assertEquals(64, okClient1.dispatcher().getMaxRequests());
+      assertEquals(64, okClient1.dispatcher().getMaxRequestsPerHost());
+      assertEquals(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1), okClient1.protocols());
+    } finally {
+      client1.release();
+      client2.release();
+    }
+  }
+
+  @Test
+  public void testConfigured() {
+    DatabaseClient defaultClient = newClient();
+    System.setProperty("com.marklogic.client.maxIdleConnections", "128");
+    System.setProperty("com.marklogic.client.keepAliveSeconds", "60");
+    System.setProperty("com.marklogic.client.connectTimeoutSeconds", "5");
+    System.setProperty("com.marklogic.client.readTimeoutSeconds", "30");
+    System.setProperty("com.marklogic.client.writeTimeoutSeconds", "40");
+    System.setProperty("com.marklogic.client.maxAsyncRequests", "256");
+    System.setProperty("com.marklogic.client.http2", "true");
+    DatabaseClient client1 = newClient();
+    DatabaseClient client2 = newClient();
+    try {
+      OkHttpClient okClient1 = (OkHttpClient) client1.getClientImplementation();
+      OkHttpClient okClient2 = (OkHttpClient) client2.getClientImplementation();
+      assertSame(okClient1.connectionPool(), okClient2.connectionPool());
+      assertNotSame(((OkHttpClient) defaultClient.getClientImplementation()).connectionPool(),
+        okClient1.connectionPool());
+      assertEquals(5000, okClient1.connectTimeoutMillis());
+      assertEquals(30000, okClient1.readTimeoutMillis());
+      assertEquals(40000, okClient1.writeTimeoutMillis());
+      assertEquals(256, okClient1.dispatcher().getMaxRequests());
+      assertEquals(256, okClient1.dispatcher().getMaxRequestsPerHost());
+      assertEquals(Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE), okClient1.protocols());
+    } finally {
+      defaultClient.release();
+      client1.release();
+      client2.release();
+    }
+
+    System.setProperty("com.marklogic.client.http2", "false");
+    DatabaseClient http1Client = newClient();
+    try {
+      assertEquals(Collections.singletonList(Protocol.HTTP_1_1),
+        ((OkHttpClient) http1Client.getClientImplementation()).protocols());
+    } finally {
+      http1Client.release();
+    }
+
+    System.setProperty("com.marklogic.client.http2", "h3");
+    try {
+      newClient().release();
+      fail("invalid protocol setting");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testClientSettings() {
+    System.setProperty("com.marklogic.client.maxAsyncRequests", "256");
+    DatabaseClient defaultClient = newClient();
+    DatabaseClient client1 = DatabaseClientFactory.newClient("localhost", 8012, null,
+      new DatabaseClientFactory.BasicAuthContext("user", "password"), null,
+      new DatabaseClientFactory.ConnectionSettings().withMaxIdleConnections(16).withMaxAsyncRequests(8));
+    DatabaseClientFactory.Bean bean = new DatabaseClientFactory.Bean();
+    bean.setHost("localhost");
+    bean.setPort(8012);
+    bean.setSecurityContext(new DatabaseClientFactory.BasicAuthContext("user", "password"));
+    bean.setConnectionSettings(new DatabaseClientFactory.ConnectionSettings().withMaxIdleConnections(16));
+    DatabaseClient client2 = bean.newClient();
+    try {
+      OkHttpClient defaultOkClient = (OkHttpClient) defaultClient.getClientImplementation();
+      OkHttpClient okClient1 = (OkHttpClient) client1.getClientImplementation();
+      OkHttpClient okClient2 = (OkHttpClient) client2.getClientImplementation();
+      // the settings of the client take precedence over the system properties
+      assertEquals(256, defaultOkClient.dispatcher().getMaxRequests());
+      assertEquals(8, okClient1.dispatcher().getMaxRequests());
+      assertEquals(8, okClient1.dispatcher().getMaxRequestsPerHost());
+      assertEquals(256, okClient2.dispatcher().getMaxRequests());
+      assertNotSame(defaultOkClient.connectionPool(), okClient1.connectionPool());
+      assertSame(okClient1.connectionPool(), okClient2.connectionPool());
+    } finally {
+      defaultClient.release();
+      client1.release();
+      client2.release();
+    }
+
+    try {
+      new DatabaseClientFactory.ConnectionSettings().withMaxAsyncRequests(-1);
+      fail("negative setting");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  private static DatabaseClient newClient() {
+    return DatabaseClientFactory.newClient("localhost", 8012, new DatabaseClientFactory.BasicAuthContext("user", "password"));
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2021 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.DatabaseClientFactory;
+import com.marklogic.client.io.Format;
+import com.marklogic.client.io.StringHandle;
+
+public class DigestAuthCacheTest {
+  @Test
+  public void testSharedChallenge() throws Exception {
+    AtomicInteger challenges = new AtomicInteger();
+    List<String> authorizations = new CopyOnWriteArrayList<>();
+    StubServer server = new StubServer(exchange -> {
+      StubServer.readAll(exchange.getRequestBody());
+      String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+      if (authorization == null || !authorization.startsWith("Digest ")) {
+        challenges.incrementAndGet();
+        exchange.getResponseHeaders().add("WWW-Authenticate",
+          "Digest realm=\"public\", qop=\"auth\", nonce=\"0123456789abcdef\", opaque=\"fedcba9876543210\"");
+        exchange.sendResponseHeaders(401, -1);
+      } else {
+        authorizations.add(authorization);
+        exchange.sendResponseHeaders(201, -1);
+      }
+      exchange.close();
+    });
+    int port = server.getPort();
+    DatabaseClient client1 = DatabaseClientFactory.newClient("localhost", port,
+      new DatabaseClientFactory.DigestAuthContext("digestUser", "digestPassword"));
+    DatabaseClient client2 = DatabaseClientFactory.newClient("localhost", port,
+      new DatabaseClientFactory.DigestAuthContext("digestUser", "digestPassword"));
+    DatabaseClient client3 = DatabaseClientFactory.newClient("localhost", port,
+      new DatabaseClientFactory.DigestAuthContext("digestUser", "otherPassword"));
+    try {
+      write(client1, 3);
+      assertEquals(1, challenges.get());
+      assertEquals(1, client1.getRequestStatistics().getTotal().getAuthChallenges());
+
+      // a client with the same credentials reuses the answered challenge
+      write(client2, 3);
+      assertEquals(1, challenges.get());
+      assertEquals(0, client2.getRequestStatistics().getTotal().getAuthChallenges());
+
+      // a client with other credentials must answer its own challenge
+      write(client3, 1);
+      assertEquals(2, challenges.get());
+      assertEquals(1, client3.getRequestStatistics().getTotal().getAuthChallenges());
+
+      assertEquals(7, authorizations.size());
+      for (int i = 0; i < 6; i++) {
+        assertTrue(authorizations.get(i).contains(String.format("nc=%08x", i + 1)));
+      }
+      assertTrue(authorizations.get(6).contains("nc=00000001"));
+    } finally {
+      client1.release();
+      client2.release();
+      client3.release();
+      server.stop();
+    }
+  }
+
+  @Test
+  public void testReleasedClientsEvicted() throws Exception {
+    AtomicInteger challenges = new AtomicInteger();
+    StubServer server = new StubServer(exchange -> {
+      StubServer.readAll(exchange.getRequestBody());
+      String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+      if (authorization == null || !authorization.startsWith("Digest ")) {
+        challenges.incrementAndGet();
+        exchange.getResponseHeaders().add("WWW-Authenticate",
+          "Digest realm=\"public\", qop=\"auth\", nonce=\"0123456789abcdef\", opaque=\"fedcba9876543210\"");
+        exchange.sendResponseHeaders(401, -1);
+      } else {
+        exchange.sendResponseHeaders(201, -1);
+      }
+      exchange.close();
+    });
+    int port = server.getPort();
+    try {
+      DatabaseClient client1 = DatabaseClientFactory.newClient("localhost", port,
+        new DatabaseClientFactory.DigestAuthContext("digestUser", "digestPassword"));
+      DatabaseClient client2 = DatabaseClientFactory.newClient("localhost", port,
+        new DatabaseClientFactory.DigestAuthContext("digestUser", "digestPassword"));
+      write(client1, 1);
+      assertEquals(1, challenges.get());
+
+      // the authenticator is kept while another client with the credentials is open
+      client1.release();
+      write(client2, 1);
+      assertEquals(1, challenges.get());
+
+      // releasing the last client for the credentials evicts the authenticator
+      client2.release();
+      DatabaseClient client3 = DatabaseClientFactory.newClient("localhost", port,
+        new DatabaseClientFactory.DigestAuthContext("digestUser", "digestPassword"));
+      write(client3, 1);
+      assertEquals(2, challenges.get());
+      client3.release();
+    } finally {
+      server.stop();
+    }
+  }
+
+  private static void write(DatabaseClient client, int count) {
+    for (int i = 0; i < count; i++) {
+      client.newTextDocumentManager().write("/digest/doc"+i+".txt", new StringHandle("text "+i).withFormat(Format.TEXT));
+    }
+  }
+}
@@ -16,12 +16,14 @@
 package com.marklogic.client.test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 
 import javax.xml.namespace.QName;
@@ -39,6 +41,8 @@ import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.marklogic.client.Transaction;
 import com.marklogic.client.document.DocumentManager.Metadata;
 import com.marklogic.client.document.BinaryDocumentManager;
@@ -50,6 +54,7 @@ import com.marklogic.client.io.DocumentMetadataHandle.DocumentMetadataValues;
 import com.marklogic.client.io.DocumentMetadataHandle.DocumentPermissions;
 import com.marklogic.client.io.DocumentMetadataHandle.DocumentProperties;
 import com.marklogic.client.io.FileHandle;
+import com.marklogic.client.io.Format;
 import com.marklogic.client.io.InputStreamHandle;
 import com.marklogic.client.io.StringHandle;
 import java.util.List;
@@ -185,6 +190,110 @@ public class DocumentMetadataHandleTest {
     }
   }
 
+  @Test
+  public void testParseAndSerialize() {
+    String metadataText = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"+
+      "<rapi:metadata uri=\"/test/parse.xml\" xmlns:rapi=\"http://marklogic.com/rest-api\" xmlns:prop=\"http://marklogic.com/xdmp/property\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">"+
+        "<rapi:collections><rapi:collection>c1</rapi:collection><rapi:collection>c2</rapi:collection></rapi:collections>"+
+        "<rapi:permissions><rapi:permission>"+
+          "<rapi:role-name>app-user</rapi:role-name><rapi:capability>read</rapi:capability><rapi:capability>update</rapi:capability>"+
+        "</rapi:permission></rapi:permissions>"+
+        "<prop:properties>"+
+          "<first>value one</first>"+
+          "<second xsi:type=\"xs:int\">2</second>"+
+          "<empty/>"+
+          "<ns:named xmlns:ns=\"http://example.com/ns\">named value</ns:named>"+
+          "<third> <third.first a=\"b\">value third one</third.first><third.second>3.2</third.second></third>"+
+        "</prop:properties>"+
+        "<rapi:quality>3</rapi:quality>"+
+        "<rapi:metadata-values><rapi:metadata-value key=\"key1\">value1</rapi:metadata-value></rapi:metadata-values>"+
+      "</rapi:metadata>";
+
+    DocumentMetadataHandle xmlHandle = new DocumentMetadataHandle();
+    xmlHandle.fromBuffer(metadataText.getBytes(StandardCharsets.UTF_8));
+    checkMetadata(xmlHandle);
+
+    NodeList thirdNodes = (NodeList) xmlHandle.getProperties().get("third");
+    assertEquals(3, thirdNodes.getLength());
+    assertEquals(" ", thirdNodes.item(0).getNodeValue());
+    Element thirdFirst = (Element) thirdNodes.item(1);
+    assertEquals("third.first", thirdFirst.getLocalName());
+    assertEquals("b", thirdFirst.getAttribute("a"));
+    assertEquals("value third one", thirdFirst.getTextContent());
+
+    // the metadata survives serializing as XML and as JSON
+    DocumentMetadataHandle copy = new DocumentMetadataHandle();
+    copy.fromBuffer(xmlHandle.toBuffer());
+    checkMetadata(copy);
+    assertEquals(3, ((NodeList) copy.getProperties().get("third")).getLength());
+
+    xmlHandle.setFormat(Format.JSON);
+    String json = xmlHandle.toString();
+    assertTrue(json, json.startsWith("{\"collections\":["));
+    DocumentMetadataHandle jsonHandle = new DocumentMetadataHandle().withFormat(Format.JSON);
+    jsonHandle.fromBuffer(json.getBytes(StandardCharsets.UTF_8));
+    checkMetadata(jsonHandle);
+    assertTrue(((String) jsonHandle.getProperties().get("third")).contains("<third.second>3.2</third.second>"));
+
+    jsonHandle.fromBuffer((
+      "{\"collections\":[\"c3\"], \"properties\":{\"flag\":true, \"obj\":{\"a\":[1,2]}}, \"quality\":1}"
+      ).getBytes(StandardCharsets.UTF_8));
+    assertEquals(1, jsonHandle.getCollections().size());
+    assertEquals(0, jsonHandle.getPermissions().size());
+    assertEquals(Boolean.TRUE, jsonHandle.getProperties().get("flag"));
+    assertEquals("{\"a\":[1,2]}", jsonHandle.getProperties().get("obj").toString());
+    assertEquals(1, jsonHandle.getQuality());
+    assertTrue(jsonHandle.getMetadataValues().isEmpty());
+  }
+  @Test
+  public void testJSONObjectAndArrayProperties() throws IOException {
+    String json = "{\"properties\":{"+
+      "\"obj\":{\"name\":\"value\",\"nested\":{\"flag\":true,\"n\":1.5}},"+
+      "\"arr\":[1,\"two\",[3],{\"four\":null}],"+
+      "\"text\":\"{\\\"not\\\":\\\"an object\\\"}\""+
+      "}}";
+    DocumentMetadataHandle handle = new DocumentMetadataHandle().withFormat(Format.JSON);
+    handle.fromBuffer(json.getBytes(StandardCharsets.UTF_8));
+
+    ObjectMapper mapper = new ObjectMapper();
+    DocumentProperties properties = handle.getProperties();
+    JsonNode obj = (JsonNode) properties.get("obj");
+    assertTrue(obj.isObject());
+    assertEquals(mapper.readTree("{\"name\":\"value\",\"nested\":{\"flag\":true,\"n\":1.5}}"), obj);
+    JsonNode arr = (JsonNode) properties.get("arr");
+    assertTrue(arr.isArray());
+    assertEquals(mapper.readTree("[1,\"two\",[3],{\"four\":null}]"), arr);
+    assertEquals("{\"not\":\"an object\"}", properties.get("text"));
+
+    // the objects and arrays are written back as JSON instead of as strings
+    JsonNode sent = mapper.readTree(handle.toBuffer());
+    assertEquals(obj, sent.get("properties").get("obj"));
+    assertEquals(arr, sent.get("properties").get("arr"));
+    assertTrue(sent.get("properties").get("text").isTextual());
+
+    DocumentMetadataHandle copy = new DocumentMetadataHandle().withFormat(Format.JSON);
+    copy.fromBuffer(handle.toBuffer());
+    assertEquals(obj, copy.getProperties().get("obj"));
+    assertEquals(arr, copy.getProperties().get("arr"));
+    assertEquals("{\"not\":\"an object\"}", copy.getProperties().get("text"));
+  }
+  private void checkMetadata(DocumentMetadataHandle handle) {
+    assertEquals(2, handle.getCollections().size());
+    assertTrue(handle.getCollections().contains("c1") && handle.getCollections().contains("c2"));
+    assertEquals(1, handle.getPermissions().size());
+    assertEquals(2, handle.getPermissions().get("app-user").size());
+    assertTrue(handle.getPermissions().get("app-user").contains(Capability.UPDATE));
+    DocumentProperties properties = handle.getProperties();
+    assertEquals("value one", properties.get("first"));
+    assertEquals(2, properties.get("second"));
+    assertTrue(properties.containsKey("empty"));
+    assertNull(properties.get("empty"));
+    assertEquals("named value", properties.get(new QName("http://example.com/ns", "named")));
+    assertTrue(properties.containsKey("third"));
+    assertEquals(3, handle.getQuality());
+    assertEquals("value1", handle.getMetadataValues().get("key1"));
+  }
+
   @Test
   public void testCapabilityEnum() {
     assertEquals(Capability.EXECUTE, Capability.getValueOf("execute"));
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2021 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.FailedRetryException;
+import com.marklogic.client.impl.RESTServices;
+import com.marklogic.client.io.Format;
+import com.marklogic.client.io.StringHandle;
+
+public class FailedRetryTest {
+  private StubServer server;
+  private AtomicInteger requests = new AtomicInteger();
+  private CountDownLatch firstRequest = new CountDownLatch(1);
+  private volatile String retryAfter = null;
+
+  @Before
+  public void setUp() throws IOException {
+    // the service stays unavailable
+    server = new StubServer(exchange -> {
+      StubServer.readAll(exchange.getRequestBody());
+      requests.incrementAndGet();
+      if (retryAfter != null) {
+        exchange.getResponseHeaders().add("Retry-After", retryAfter);
+      }
+      exchange.sendResponseHeaders(503, -1);
+      exchange.close();
+      firstRequest.countDown();
+    });
+  }
+
+  @After
+  public void tearDown() {
+    System.clearProperty(RESTServices.RETRY_BUDGET_PROP);
+    System.clearProperty(RESTServices.CIRCUIT_BREAKER_FAILURES_PROP);
+    server.stop();
+  }
+
+  @Test
+  public void testCircuitBreakerReleasesWaitingRetries() throws Exception {
+    System.setProperty(RESTServices.CIRCUIT_BREAKER_FAILURES_PROP, "2");
+    retryAfter = "5000";
+    DatabaseClient client = newClient();
+    try {
+      AtomicReference<String> waitingFailure = new AtomicReference<>();
+      Thread waiting = new Thread(() -> waitingFailure.set(writeUntilFailure(client)));
+      long startTime = System.currentTimeMillis();
+      waiting.start();
+      assertTrue(firstRequest.await(10, TimeUnit.SECONDS));
+
+      // the second consecutive failure opens the breaker, which ends the first write's wait too
+      assertTrue(writeUntilFailure(client).contains("circuit breaker open"));
+      waiting.join(10000);
+      assertTrue(waitingFailure.get().contains("circuit breaker open"));
+      assertTrue(System.currentTimeMillis() - startTime < 4000);
+      assertEquals(2, requests.get());
+    } finally {
+      client.release();
+    }
+  }
+
+  @Test
+  public void testRetryBudgetReported() {
+    System.setProperty(RESTServices.RETRY_BUDGET_PROP, "1");
+    DatabaseClient client = newClient();
+    try {
+      // the first retry uses the budget for the second, so the write waits
+      // for the first retry and then fails instead of waiting again
+      String message = writeUntilFailure(client);
+      assertTrue(message, message.contains("retry budget exhausted"));
+      assertEquals(2, requests.get());
+    } finally {
+      client.release();
+    }
+  }
+
+  @Test
+  public void testInterruptReported() throws Exception {
+    retryAfter = "5000";
+    DatabaseClient client = newClient();
+    try {
+      AtomicReference<String> failure = new AtomicReference<>();
+      AtomicBoolean isInterrupted = new AtomicBoolean();
+      Thread writer = new Thread(() -> {
+        failure.set(writeUntilFailure(client));
+        isInterrupted.set(Thread.currentThread().isInterrupted());
+      });
+      long startTime = System.currentTimeMillis();
+      writer.start();
+      assertTrue(firstRequest.await(10, TimeUnit.SECONDS));
+      Thread.sleep(200);
+      writer.interrupt();
+      writer.join(10000);
+
+      assertTrue(failure.get(), failure.get().contains("interrupted while waiting to retry"));
+      assertTrue(isInterrupted.get());
+      assertTrue(System.currentTimeMillis() - startTime < 4000);
+      assertEquals(1, requests.get());
+    } finally {
+      client.release();
+    }
+  }
+
+  private DatabaseClient newClient() {
+    return server.newClient();
+  }
+  private static String writeUntilFailure(DatabaseClient client) {
+    try {
+      client.newTextDocumentManager().write("/retry/doc.txt", new StringHandle("text").withFormat(Format.TEXT));
+    } catch (FailedRetryException e) {
+      return e.getMessage();
+    }
+    fail("write succeeded while the service is unavailable");
+    return null;
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2021 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.document.DocumentWriteSet;
+import com.marklogic.client.document.TextDocumentManager;
+import com.marklogic.client.io.BytesHandle;
+import com.marklogic.client.io.Format;
+import com.marklogic.client.io.InputStreamHandle;
+import com.marklogic.client.io.StringHandle;
+
+public class GzipCompressionTest {
+  static class Received {
+    final String method;
+    final String encoding;
+    final String body;
+    Received(String method, String encoding, String body) {
+      this.method   = method;
+      this.encoding = encoding;
+      this.body     = body;
+    }
+  }
+
+  @After
+  public void clearProperties() {
+    System.clearProperty("com.marklogic.client.requestCompressionLevel");
+    System.clearProperty("com.marklogic.client.requestCompressionMinBytes");
+  }
+
+  @Test
+  public void testCompression() throws Exception {
+    String largeText = repeat("compressible text ", 200);
+    List<Received> received = new CopyOnWriteArrayList<>();
+    StubServer server = new StubServer(exchange -> {
+      String encoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+      InputStream in = exchange.getRequestBody();
+      if ("gzip".equals(encoding)) {
+        in = new GZIPInputStream(in);
+      }
+      received.add(new Received(exchange.getRequestMethod(), encoding,
+        StubServer.readString(in)));
+      if ("GET".equals(exchange.getRequestMethod())) {
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        byte[] bytes = largeText.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "text/plain");
+        exchange.getResponseHeaders().add("vnd.marklogic.document-format", "text");
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+          ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+          try (GZIPOutputStream gzipOut = new GZIPOutputStream(compressed)) {
+            gzipOut.write(bytes);
+          }
+          bytes = compressed.toByteArray();
+          exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+        }
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+          out.write(bytes);
+        }
+      } else {
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        byte[] bytes = "{\"documents\":[]}".getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders("PUT".equals(exchange.getRequestMethod()) ? 201 : 200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+          out.write(bytes);
+        }
+      }
+    });
+
+    System.setProperty("com.marklogic.client.requestCompressionLevel", "6");
+    System.setProperty("com.marklogic.client.requestCompressionMinBytes", "256");
+    DatabaseClient client = server.newClient();
+    try {
+      TextDocumentManager docMgr = client.newTextDocumentManager();
+
+      docMgr.write("/gzip/large.txt", new StringHandle(largeText).withFormat(Format.TEXT));
+      assertEquals("gzip", received.get(0).encoding);
+      assertEquals(largeText, received.get(0).body);
+
+      // content of known length below the minimum isn't compressed
+      docMgr.write("/gzip/small.txt", new BytesHandle("small".getBytes(StandardCharsets.UTF_8)).withFormat(Format.TEXT));
+      assertNull(received.get(1).encoding);
+      assertEquals("small", received.get(1).body);
+
+      // a stream of unknown length is compressed while it is sent
+      docMgr.write("/gzip/stream.txt", new InputStreamHandle(
+        new ByteArrayInputStream(largeText.getBytes(StandardCharsets.UTF_8))).withFormat(Format.TEXT));
+      assertEquals("gzip", received.get(2).encoding);
+      assertEquals(largeText, received.get(2).body);
+
+      DocumentWriteSet writeSet = docMgr.newWriteSet();
+      for (int i = 0; i < 10; i++) {
+        writeSet.add("/gzip/bulk"+i+".txt", new StringHandle(largeText).withFormat(Format.TEXT));
+      }
+      docMgr.write(writeSet);
+      Received bulk = received.get(3);
+      assertEquals("POST", bulk.method);
+      assertEquals("gzip", bulk.encoding);
+      assertTrue(bulk.body.contains("/gzip/bulk9.txt"));
+
+      String read = docMgr.read("/gzip/large.txt", new StringHandle()).get();
+      assertEquals(largeText, read);
+      assertTrue(client.getRequestStatistics().getEndpoint("GET /v1/documents").getBytesReceived() < largeText.length());
+    } finally {
+      client.release();
+      server.stop();
+    }
+  }
+
+  private static String repeat(String value, int times) {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < times; i++) {
+      builder.append(value).append(i);
+    }
+    return builder.toString();
+  }
+}
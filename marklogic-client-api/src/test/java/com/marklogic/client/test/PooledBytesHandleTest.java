@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2021 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import com.marklogic.client.document.DocumentWriteOperation.OperationType;
+import com.marklogic.client.impl.DocumentWriteOperationImpl;
+import com.marklogic.client.io.Format;
+import com.marklogic.client.io.PooledBytesHandle;
+import com.marklogic.client.io.StringHandle;
+
+public class PooledBytesHandleTest {
+  @Test
+  public void testReuse() throws Exception {
+    PooledBytesHandle.Pool pool = new PooledBytesHandle.Pool(16, 2, false);
+
+    PooledBytesHandle handle = pool.acquire().with(bytes("{\"a\":1}")).withFormat(Format.JSON);
+    assertEquals(7, handle.getByteLength());
+    assertEquals("{\"a\":1}", written(handle));
+    assertEquals("application/json", handle.getMimetype());
+
+    handle.release();
+    handle.release();
+    assertEquals(1, pool.getIdleCount());
+    assertNull(handle.get());
+    assertEquals(Format.UNKNOWN, handle.getFormat());
+    try {
+      handle.set(bytes("x"));
+      fail("set after release");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+
+    PooledBytesHandle reused = pool.acquire();
+    assertSame(handle, reused);
+    assertEquals(0, pool.getIdleCount());
+    reused.set(bytes("second"));
+    assertEquals("second", written(reused));
+
+    // content bigger than the buffer size gets its own buffer that isn't kept
+    String large = "0123456789abcdefghijklmnopqrstuvwxyz";
+    reused.set(bytes(large));
+    assertEquals(large, written(reused));
+    assertEquals(large, reused.toString());
+
+    PooledBytesHandle other = pool.acquire();
+    assertNotSame(reused, other);
+  }
+
+  @Test
+  public void testRecycle() throws Exception {
+    PooledBytesHandle.Pool pool = new PooledBytesHandle.Pool(1024, 1, true);
+
+    PooledBytesHandle first  = pool.acquire().with(bytes("<a>first</a>")).withFormat(Format.XML);
+    PooledBytesHandle second = pool.acquire().with(bytes("<a>second</a>")).withFormat(Format.XML);
+    assertEquals("<a>first</a>", written(first));
+
+    PooledBytesHandle.recycle(new DocumentWriteOperationImpl(OperationType.DOCUMENT_WRITE, "/first.xml", null, first));
+    PooledBytesHandle.recycle(new DocumentWriteOperationImpl(OperationType.DOCUMENT_WRITE, "/second.xml", null, second));
+    PooledBytesHandle.recycle(new DocumentWriteOperationImpl(OperationType.DOCUMENT_WRITE, "/third.txt", null,
+      new StringHandle("not pooled")));
+    // the pool keeps only one idle handle
+    assertEquals(1, pool.getIdleCount());
+    assertSame(first, pool.acquire());
+  }
+
+  private static byte[] bytes(String content) {
+    return content.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static String written(PooledBytesHandle handle) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    handle.write(out);
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+}
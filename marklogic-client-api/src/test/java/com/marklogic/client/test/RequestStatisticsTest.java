@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2021 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.DatabaseClientFactory;
+import com.marklogic.client.ResourceNotFoundException;
+import com.marklogic.client.document.JSONDocumentManager;
+import com.marklogic.client.impl.RESTServices;
+import com.marklogic.client.io.Format;
+import com.marklogic.client.io.StringHandle;
+import com.marklogic.client.util.RequestStatistics;
+
+public class RequestStatisticsTest {
+  @Test
+  public void testEndpoints() throws Exception {
+    StubServer server = new StubServer(exchange -> {
+      StubServer.readAll(exchange.getRequestBody());
+      String uri = exchange.getRequestURI().toString();
+      if ("PUT".equals(exchange.getRequestMethod())) {
+        exchange.sendResponseHeaders(201, -1);
+        exchange.close();
+        return;
+      }
+      int status = 200;
+      String body = "{\"a\":1}";
+      if (uri.contains("missing")) {
+        status = 404;
+        body = "{\"errorResponse\":{\"statusCode\":404,\"status\":\"Not Found\",\"message\":\"missing\"}}";
+      }
+      byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().add("Content-Type", "application/json");
+      exchange.getResponseHeaders().add("vnd.marklogic.document-format", "json");
+      exchange.sendResponseHeaders(status, bytes.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(bytes);
+      }
+    });
+    DatabaseClient client = server.newClient();
+    try {
+      JSONDocumentManager docMgr = client.newJSONDocumentManager();
+      for (int i = 0; i < 3; i++) {
+        docMgr.write("/stats/doc"+i+".json", new StringHandle("{\"n\":"+i+"}").withFormat(Format.JSON));
+      }
+      assertEquals("{\"a\":1}", docMgr.read("/stats/doc0.json", new StringHandle()).get());
+      try {
+        docMgr.read("/stats/missing.json", new StringHandle());
+        fail("read of missing document");
+      } catch (ResourceNotFoundException e) {
+        // expected
+      }
+
+      RequestStatistics stats = client.getRequestStatistics();
+      assertNotNull(stats);
+      assertTrue(stats.getEndpoints().contains("PUT /v1/documents"));
+      assertTrue(stats.getEndpoints().contains("GET /v1/documents"));
+
+      RequestStatistics.EndpointStatistics writes = stats.getEndpoint("PUT /v1/documents");
+      assertEquals(3, writes.getCalls());
+      assertEquals(3, writes.getStatusCount(201));
+      assertEquals("{\"n\":0}".length() * 3, writes.getBytesSent());
+      assertEquals(0, writes.getBytesReceived());
+
+      RequestStatistics.EndpointStatistics reads = stats.getEndpoint("GET /v1/documents");
+      assertEquals(2, reads.getCalls());
+      assertEquals(1, reads.getStatusCount(200));
+      assertEquals(1, reads.getStatusCount(404));
+      assertEquals(0, reads.getFailures());
+      assertTrue(reads.getBytesReceived() > "{\"a\":1}".length());
+      assertTrue(reads.getTotalNanos() >= reads.getServerNanos());
+      assertTrue(reads.getMaxNanos() > 0);
+
+      RequestStatistics.EndpointStatistics total = stats.getTotal();
+      assertEquals(5, total.getCalls());
+      assertTrue(total.getConnections() >= 1);
+      assertEquals(total.getCalls(), total.getConnections() + total.getReusedConnections());
+
+      stats.reset();
+      assertTrue(stats.getEndpoints().isEmpty());
+      assertEquals(0, stats.getTotal().getCalls());
+    } finally {
+      client.release();
+      server.stop();
+    }
+  }
+
+  @Test
+  public void testDisabled() {
+    System.setProperty(RESTServices.REQUEST_STATISTICS_PROP, "false");
+    DatabaseClient client = null;
+    try {
+      client = DatabaseClientFactory.newClient("localhost", 8000,
+        new DatabaseClientFactory.BasicAuthContext("user", "password"));
+      RequestStatistics stats = client.getRequestStatistics();
+      assertNotNull(stats);
+      assertTrue(stats.getEndpoints().isEmpty());
+      assertEquals(0, stats.getTotal().getCalls());
+      assertTrue(stats.getTotal().getStatusCodes().isEmpty());
+    } finally {
+      System.clearProperty(RESTServices.REQUEST_STATISTICS_PROP);
+      if (client != null) client.release();
+    }
+  }
+}
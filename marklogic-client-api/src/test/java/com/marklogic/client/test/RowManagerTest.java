@@ -411,6 +411,41 @@ public class RowManagerTest {
     }
   }
   @Test
+  public void testResultCursor() {
+    RowManager rowMgr = Common.client.newRowManager();
+
+    PlanBuilder p = rowMgr.newPlanBuilder();
+    PlanBuilder.ExportablePlan plan =
+      p.fromLiterals(litRows)
+        .orderBy(p.col("rowNum"))
+        .select(p.colSeq("rowNum", "city", "temp"));
+
+    try (RowCursor cursor = rowMgr.resultCursor(plan)) {
+      assertArrayEquals("unmatched column names", new String[]{"rowNum", "city", "temp"}, cursor.getColumnNames());
+      assertEquals("unexpected first column type", "xs:integer", cursor.getColumnTypes()[0]);
+
+      int rowNum = cursor.getColumnIndex("rowNum");
+      int city   = cursor.getColumnIndex("city");
+      int temp   = cursor.getColumnIndex("temp");
+      assertEquals("unexpected index for missing column", -1, cursor.getColumnIndex("missing"));
+
+      assertTrue("no first row", cursor.next());
+      assertEquals("unexpected first row number", 1, cursor.getLong(rowNum));
+      assertEquals("unexpected first city", "New York", cursor.getString(city));
+      assertEquals("unexpected first temp", 82, cursor.getInt(temp));
+      assertEquals("unexpected first kind", ColumnKind.ATOMIC_VALUE, cursor.getKind(city));
+
+      RowCursor.ColumnBatch batch = cursor.nextBatch(10);
+      assertEquals("unexpected batch size", 2, batch.size());
+      assertArrayEquals("unexpected batch row numbers", new long[]{2, 3}, Arrays.copyOf(batch.getLongs(rowNum), 2));
+      assertEquals("unexpected batch city", "Phoenix", batch.getStrings(city)[1]);
+      assertEquals("unexpected batch temp", 72.0, batch.getDoubles(temp)[0], 0.0);
+
+      assertEquals("expected end of rows", 0, cursor.nextBatch(10).size());
+      assertFalse("expected no more rows", cursor.next());
+    }
+  }
+  @Test
   public void testResultRowDocs()
     throws IOException, XPathExpressionException, TransformerConfigurationException, TransformerException, TransformerFactoryConfigurationError, SAXException
   {
@@ -16,17 +16,30 @@
 package com.marklogic.client.test;
 
 import com.marklogic.client.io.Format;
+import com.marklogic.client.io.InputStreamHandle;
+import com.marklogic.client.io.marker.AbstractReadHandle;
 import com.marklogic.client.io.marker.TriplesReadHandle;
 import com.marklogic.client.semantics.RDFMimeTypes;
+import com.marklogic.client.semantics.SPARQLMimeTypes;
 import com.marklogic.client.semantics.SPARQLQueryDefinition;
+import com.marklogic.client.semantics.SPARQLResultCursor;
 import com.marklogic.client.impl.HandleImplementation;
 import com.marklogic.client.impl.RESTServices;
 import com.marklogic.client.impl.SPARQLQueryManagerImpl;
 import com.marklogic.client.impl.SPARQLQueryDefinitionImpl;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import org.junit.Test;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 /**
  *
@@ -71,6 +84,73 @@ public class SPARQLQueryManagerImplTest {
     assertTrue(triplesHandle.getMimetype().equals(Format.TEXT.getDefaultMimetype()));
   }
 
+  @Test
+  public void testExecuteSelectCursor() {
+    String results =
+      "{\"head\":{\"vars\":[\"s\",\"count\",\"label\"]}," +
+      "\"results\":{\"bindings\":[" +
+        "{\"s\":{\"type\":\"uri\",\"value\":\"http://example.org/a\"}," +
+         "\"count\":{\"type\":\"literal\",\"value\":\"42\"," +
+           "\"datatype\":\"http://www.w3.org/2001/XMLSchema#integer\"}," +
+         "\"label\":{\"type\":\"literal\",\"value\":\"apple\",\"xml:lang\":\"en\"}}," +
+        "{\"s\":{\"type\":\"bnode\",\"value\":\"b0\"}," +
+         "\"count\":{\"type\":\"literal\",\"value\":\"2.5\"," +
+           "\"datatype\":\"http://www.w3.org/2001/XMLSchema#double\"}}" +
+      "]}}";
+    SPARQLResultCursor cursor = executeSelectCursor(results);
+    assertArrayEquals(new String[]{"s", "count", "label"}, cursor.getVariableNames());
+    cursor.getVariableNames()[0] = "changed";
+    assertArrayEquals(new String[]{"s", "count", "label"}, cursor.getVariableNames());
+    int s     = cursor.getVariableIndex("s");
+    int count = cursor.getVariableIndex("count");
+    int label = cursor.getVariableIndex("label");
+    assertEquals(-1, cursor.getVariableIndex("missing"));
+
+    assertTrue(cursor.next());
+    assertEquals(SPARQLResultCursor.TermKind.URI, cursor.getKind(s));
+    assertEquals("http://example.org/a", cursor.getString(s));
+    assertEquals(SPARQLResultCursor.TermKind.LITERAL, cursor.getKind(count));
+    assertEquals("http://www.w3.org/2001/XMLSchema#integer", cursor.getDatatype(count));
+    assertEquals(42, cursor.getLong(count));
+    assertEquals("apple", cursor.getString(label));
+    assertEquals("en", cursor.getLanguage(label));
+    assertNull(cursor.getDatatype(label));
+
+    assertTrue(cursor.next());
+    assertEquals(SPARQLResultCursor.TermKind.BNODE, cursor.getKind(s));
+    assertEquals(2.5, cursor.getDouble(count), 0.001);
+    assertFalse(cursor.isBound(label));
+    assertNull(cursor.getString(label));
+    assertNull(cursor.getLanguage(label));
+
+    assertFalse(cursor.next());
+    assertFalse(cursor.next());
+    cursor.close();
+  }
+
+  @Test
+  public void testExecuteSelectCursorEmpty() {
+    SPARQLResultCursor cursor = executeSelectCursor(
+      "{\"head\":{\"vars\":[\"s\"]},\"results\":{\"bindings\":[]}}");
+    assertArrayEquals(new String[]{"s"}, cursor.getVariableNames());
+    assertFalse(cursor.next());
+    cursor.close();
+  }
+
+  private SPARQLResultCursor executeSelectCursor(String results) {
+    RESTServices services = mock(RESTServices.class);
+    when(services.executeSparql(any(), any(SPARQLQueryDefinition.class), any(AbstractReadHandle.class),
+        anyLong(), anyLong(), any(), anyBoolean()))
+      .thenAnswer(invocation -> {
+        InputStreamHandle handle = (InputStreamHandle) invocation.getArguments()[2];
+        assertEquals(SPARQLMimeTypes.SPARQL_JSON, handle.getMimetype());
+        handle.set(new ByteArrayInputStream(results.getBytes(StandardCharsets.UTF_8)));
+        return handle;
+      });
+    SPARQLQueryManagerImpl sparqlQueryManager = new SPARQLQueryManagerImpl(services);
+    return sparqlQueryManager.executeSelectCursor(new SPARQLQueryDefinitionImpl("SELECT * WHERE { ?s ?p ?o }"));
+  }
+
   private HandleImplementation executeSetRdfXmlOrJsonMimetype(Format format, String mimeType) {
     HandleImplementation triplesHandle = new HandleImplementationTester();
     triplesHandle.setFormat(format);
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2021 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.test;
+
+import static org.custommonkey.xmlunit.XMLAssert.assertXMLEqual;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.io.SearchHandle;
+import com.marklogic.client.io.StringHandle;
+import com.marklogic.client.query.ExtractedItem;
+import com.marklogic.client.query.ExtractedResult;
+import com.marklogic.client.query.FacetResult;
+import com.marklogic.client.query.MatchDocumentSummary;
+import com.marklogic.client.query.MatchLocation;
+import com.marklogic.client.query.QueryManager;
+import com.marklogic.client.query.StringQueryDefinition;
+
+public class SearchHandleStreamingTest {
+  static final private String RESPONSE =
+    "<search:response xmlns:search=\"http://marklogic.com/appservices/search\" " +
+      "snippet-format=\"snippet\" total=\"3\" start=\"1\" page-length=\"10\" selected=\"include\">" +
+    result(1) + result(2) + result(3) +
+    "<search:facet name=\"color\" type=\"xs:string\">" +
+      "<search:facet-value name=\"red\" count=\"2\">red</search:facet-value>" +
+      "<search:facet-value name=\"blue\" count=\"1\">blue</search:facet-value>" +
+    "</search:facet>" +
+    "<search:qtext>apple</search:qtext>" +
+    "<search:metrics>" +
+      "<search:query-resolution-time>PT0.001S</search:query-resolution-time>" +
+      "<search:total-time>PT0.005S</search:total-time>" +
+    "</search:metrics>" +
+    "</search:response>";
+
+  static private StubServer     server;
+  static private DatabaseClient client;
+
+  static private String result(int i) {
+    return "<search:result index=\""+i+"\" uri=\"/fruit/"+i+".xml\" path=\"fn:doc(&quot;/fruit/"+i+".xml&quot;)\" " +
+        "score=\""+(100 - i)+"\" confidence=\"0.5\" fitness=\"0.75\" format=\"xml\" mimetype=\"application/xml\">" +
+      "<search:snippet><search:match path=\"fn:doc(&quot;/fruit/"+i+".xml&quot;)/fruit\">an " +
+        "<search:highlight>apple</search:highlight> number "+i+"</search:match></search:snippet>" +
+      "<search:extracted kind=\"element\"><name>apple "+i+"</name><color>red</color></search:extracted>" +
+      "<search:metadata><color>red</color></search:metadata>" +
+      "</search:result>";
+  }
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    server = new StubServer(exchange -> {
+      byte[] bytes = RESPONSE.getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().add("Content-Type", "application/xml");
+      exchange.sendResponseHeaders(200, bytes.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(bytes);
+      }
+    });
+    client = server.newClient();
+  }
+  @AfterClass
+  public static void afterClass() {
+    client.release();
+    server.stop();
+  }
+
+  @Test
+  public void testParsed() throws Exception {
+    SearchHandle results = search(new SearchHandle());
+    assertFalse(results.isStreaming());
+    assertEquals(3, results.getTotalResults());
+
+    MatchDocumentSummary[] summaries = results.getMatchResults();
+    assertEquals(3, summaries.length);
+    for (int i = 0; i < summaries.length; i++) {
+      checkSummary(i + 1, summaries[i]);
+    }
+    checkTrailing(results);
+
+    int count = 0;
+    for (SearchHandle.ResultCursor cursor = results.getResultCursor(); cursor.hasNext(); count++) {
+      checkSummary(count + 1, cursor.next());
+    }
+    assertEquals(3, count);
+  }
+
+  @Test
+  public void testStreamed() throws Exception {
+    SearchHandle results = search(new SearchHandle().withStreaming(true));
+    assertEquals(3, results.getTotalResults());
+    assertEquals(1, results.getStart());
+    assertEquals(10, results.getPageLength());
+
+    int count = 0;
+    try (SearchHandle.ResultCursor cursor = results.getResultCursor()) {
+      while (cursor.hasNext()) {
+        checkSummary(++count, cursor.next());
+      }
+    }
+    assertEquals(3, count);
+
+    // the iterated results aren't retained
+    assertEquals(0, results.getMatchResults().length);
+    checkTrailing(results);
+  }
+
+  @Test
+  public void testStreamedRemainder() throws Exception {
+    SearchHandle results = search(new SearchHandle().withStreaming(true));
+
+    SearchHandle.ResultCursor cursor = results.getResultCursor();
+    checkSummary(1, cursor.next());
+
+    // reading the facets reads the rest of the response
+    checkTrailing(results);
+    assertFalse(cursor.hasNext());
+
+    MatchDocumentSummary[] summaries = results.getMatchResults();
+    assertEquals(2, summaries.length);
+    checkSummary(2, summaries[0]);
+    checkSummary(3, summaries[1]);
+  }
+
+  @Test
+  public void testStreamedClose() throws Exception {
+    SearchHandle results = search(new SearchHandle().withStreaming(true));
+    SearchHandle.ResultCursor cursor = results.getResultCursor();
+    checkSummary(1, cursor.next());
+    cursor.close();
+    assertFalse(cursor.hasNext());
+
+    // the client can still search after discarding the rest of a response
+    results = search(results);
+    assertEquals(3, results.getMatchResults().length);
+  }
+
+  private SearchHandle search(SearchHandle handle) {
+    QueryManager queryMgr = client.newQueryManager();
+    StringQueryDefinition querydef = queryMgr.newStringDefinition();
+    querydef.setCriteria("apple");
+    return queryMgr.search(querydef, handle);
+  }
+
+  private void checkSummary(int i, MatchDocumentSummary summary) throws SAXException, IOException {
+    assertEquals("/fruit/"+i+".xml", summary.getUri());
+    assertEquals(100 - i, summary.getScore());
+
+    assertEquals("an apple number "+i, summary.getFirstSnippetText());
+    MatchLocation[] locations = summary.getMatchLocations();
+    assertEquals(1, locations.length);
+    assertEquals(3, locations[0].getSnippets().length);
+    assertTrue(locations[0].getSnippets()[1].isHighlighted());
+    assertEquals(1, summary.getSnippets().length);
+
+    Document metadata = summary.getMetadata();
+    assertNotNull(metadata);
+    assertEquals("metadata", metadata.getDocumentElement().getLocalName());
+    assertEquals("red", metadata.getDocumentElement().getTextContent());
+
+    ExtractedResult extracted = summary.getExtracted();
+    assertFalse(extracted.isEmpty());
+    assertEquals("element", extracted.getKind());
+    assertEquals(2, extracted.size());
+    ExtractedItem item = extracted.next();
+    // the serializer may declare the empty default namespace, so compare the XML instead of the text
+    assertXMLEqual("<name>apple "+i+"</name>", item.getAs(String.class));
+    assertXMLEqual("<color>red</color>", extracted.next().get(new StringHandle()).get());
+  }
+
+  private void checkTrailing(SearchHandle results) {
+    FacetResult facet = results.getFacetResult("color");
+    assertNotNull(facet);
+    assertEquals(2, facet.getFacetValues().length);
+    assertEquals(2, facet.getFacetValues()[0].getCount());
+    assertEquals("apple", results.getStringQueries()[0]);
+    assertEquals(5, results.getMetrics().getTotalTime());
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2021 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.DatabaseClientFactory;
+import com.marklogic.client.DatabaseClientFactory.SecurityContext;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A local HTTP server that answers every request with the handler of the test
+ * so the test can exercise the client without a MarkLogic server.
+ */
+public class StubServer {
+  private final HttpServer server;
+
+  public StubServer(HttpHandler handler) throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/", handler);
+    server.start();
+  }
+
+  public int getPort() {
+    return server.getAddress().getPort();
+  }
+
+  public DatabaseClient newClient() {
+    return newClient(new DatabaseClientFactory.BasicAuthContext("user", "password"));
+  }
+  public DatabaseClient newClient(SecurityContext securityContext) {
+    return DatabaseClientFactory.newClient("localhost", getPort(), securityContext);
+  }
+
+  public void stop() {
+    server.stop(0);
+  }
+
+  public static byte[] readAll(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buf = new byte[8192];
+    for (int n = in.read(buf); n > 0; n = in.read(buf)) {
+      out.write(buf, 0, n);
+    }
+    return out.toByteArray();
+  }
+  public static String readString(InputStream in) throws IOException {
+    return new String(readAll(in), StandardCharsets.UTF_8);
+  }
+}
@@ -16,16 +16,24 @@
 package com.marklogic.client.test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.Reader;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import com.marklogic.client.ResourceNotFoundException;
+import com.marklogic.client.document.DocumentWriteSet;
 import com.marklogic.client.document.TextDocumentManager;
+import com.marklogic.client.io.DocumentMetadataHandle;
 import com.marklogic.client.io.BytesHandle;
 import com.marklogic.client.io.FileHandle;
 import com.marklogic.client.io.InputStreamHandle;
@@ -67,4 +75,48 @@ public class TextDocumentTest {
     assertEquals("Text document mismatch with file",text.length(),file.length());
   }
 
+  @Test
+  public void testReadWriteAsync() throws Exception {
+    String docId = "/test/testWriteAsync1.txt";
+    String text  = "A simple asynchronous text document";
+
+    TextDocumentManager docMgr = Common.client.newTextDocumentManager();
+
+    DocumentMetadataHandle metadata = new DocumentMetadataHandle().withCollections("async");
+    docMgr.writeAsync(docId, metadata, new StringHandle().with(text)).get();
+
+    DocumentMetadataHandle readMetadata = new DocumentMetadataHandle();
+    StringHandle readHandle = docMgr.readAsync(docId, readMetadata, new StringHandle()).get();
+    assertEquals("Text document async write difference", text, readHandle.get());
+    assertTrue("Text document async metadata missing collection",
+      readMetadata.getCollections().contains("async"));
+
+    DocumentWriteSet writeSet = docMgr.newWriteSet();
+    CompletableFuture<?>[] reads = new CompletableFuture<?>[5];
+    for (int i = 0; i < reads.length; i++) {
+      writeSet.add("/test/testWriteAsync" + (i + 2) + ".txt", new StringHandle().with(text + i));
+    }
+    docMgr.writeAsync(writeSet).get();
+    for (int i = 0; i < reads.length; i++) {
+      reads[i] = docMgr.readAsync("/test/testWriteAsync" + (i + 2) + ".txt", new StringHandle());
+    }
+    CompletableFuture.allOf(reads).get();
+    for (int i = 0; i < reads.length; i++) {
+      assertEquals("Text document async bulk write difference", text + i,
+        ((StringHandle) reads[i].get()).get());
+    }
+
+    docMgr.deleteAsync(docId).get();
+    docMgr.deleteAsync("/test/testWriteAsync2.txt", "/test/testWriteAsync3.txt",
+      "/test/testWriteAsync4.txt", "/test/testWriteAsync5.txt", "/test/testWriteAsync6.txt").get();
+    assertNull("Text document not deleted asynchronously", docMgr.exists(docId));
+
+    try {
+      docMgr.readAsync(docId, new StringHandle()).get();
+      fail("Read of deleted text document succeeded");
+    } catch (ExecutionException e) {
+      assertTrue("Unexpected read failure for deleted text document",
+        e.getCause() instanceof ResourceNotFoundException);
+    }
+  }
 }
@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2021 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.MarkLogicIOException;
+import com.marklogic.client.impl.HandleAccessor;
+import com.marklogic.client.io.TuplesHandle;
+import com.marklogic.client.io.ValuesHandle;
+import com.marklogic.client.io.ValuesListHandle;
+import com.marklogic.client.query.CountedDistinctValue;
+import com.marklogic.client.query.QueryManager;
+import com.marklogic.client.query.Tuple;
+import com.marklogic.client.query.TypedDistinctValue;
+import com.marklogic.client.query.ValuesDefinition;
+
+public class ValuesHandleStreamingTest {
+  static final private int VALUE_COUNT = 10;
+
+  static private StubServer     server;
+  static private DatabaseClient client;
+
+  static private String tuples() {
+    StringBuilder response = new StringBuilder(
+      "<values-response name=\"co\" xmlns=\"http://marklogic.com/appservices/search\" " +
+        "xmlns:xs=\"http://www.w3.org/2001/XMLSchema\" " +
+        "xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">");
+    for (int i = 1; i <= 3; i++) {
+      response.append("<tuple frequency=\"").append(i).append("\">")
+        .append("<distinct-value xsi:type=\"xs:double\">").append(i).append(".5</distinct-value>")
+        .append("<distinct-value xsi:type=\"xs:int\">").append(i).append("</distinct-value>")
+        .append("<distinct-value xsi:type=\"xs:boolean\">").append(i % 2 == 1).append("</distinct-value>")
+        .append("</tuple>");
+    }
+    response.append(
+      "<aggregate-result name=\"covariance\">0.75</aggregate-result>" +
+      "<metrics>" +
+        "<values-resolution-time>PT0.002S</values-resolution-time>" +
+        "<aggregate-resolution-time>PT0.001S</aggregate-resolution-time>" +
+        "<total-time>PT0.004S</total-time>" +
+      "</metrics>" +
+      "</values-response>");
+    return response.toString();
+  }
+  static private String values(int start, int pageLength) {
+    StringBuilder response = new StringBuilder(
+      "<values-response name=\"size\" type=\"xs:unsignedLong\" xmlns=\"http://marklogic.com/appservices/search\">");
+    int end = Math.min(start + pageLength, VALUE_COUNT + 1);
+    for (int i = start; i < end; i++) {
+      response.append("<distinct-value frequency=\"1\">").append(i * 100).append("</distinct-value>");
+    }
+    response.append("</values-response>");
+    return response.toString();
+  }
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    server = new StubServer(exchange -> {
+      Map<String, String> params = new HashMap<>();
+      String query = exchange.getRequestURI().getRawQuery();
+      if (query != null) {
+        for (String param : query.split("&")) {
+          int sep = param.indexOf('=');
+          params.put(param.substring(0, sep), URLDecoder.decode(param.substring(sep + 1), "UTF-8"));
+        }
+      }
+      String body = exchange.getRequestURI().getPath().endsWith("/co") ? tuples() : values(
+        Integer.parseInt(params.getOrDefault("start", "1")),
+        Integer.parseInt(params.getOrDefault("pageLength", String.valueOf(VALUE_COUNT))));
+      byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().add("Content-Type", "application/xml");
+      exchange.sendResponseHeaders(200, bytes.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(bytes);
+      }
+    });
+    client = server.newClient();
+  }
+  @AfterClass
+  public static void afterClass() {
+    client.release();
+    server.stop();
+  }
+
+  @Test
+  public void testTuplesParsed() {
+    QueryManager queryMgr = client.newQueryManager();
+    ValuesDefinition vdef = queryMgr.newValuesDefinition("co", "valuesoptions");
+    TuplesHandle results = queryMgr.tuples(vdef, new TuplesHandle());
+    assertFalse(results.isStreaming());
+    assertEquals("co", results.getName());
+
+    Tuple[] tuples = results.getTuples();
+    assertEquals(3, tuples.length);
+    for (int i = 0; i < tuples.length; i++) {
+      checkTuple(i + 1, tuples[i]);
+    }
+    checkTrailing(results);
+
+    int count = 0;
+    for (TuplesHandle.TupleCursor cursor = results.getTupleCursor(); cursor.hasNext(); count++) {
+      checkTuple(count + 1, cursor.next());
+    }
+    assertEquals(3, count);
+  }
+
+  @Test
+  public void testTuplesStreamed() {
+    QueryManager queryMgr = client.newQueryManager();
+    ValuesDefinition vdef = queryMgr.newValuesDefinition("co", "valuesoptions");
+    TuplesHandle results = queryMgr.tuples(vdef, new TuplesHandle().withStreaming(true));
+    assertEquals("co", results.getName());
+
+    TuplesHandle.TupleCursor cursor = results.getTupleCursor();
+    checkTuple(1, cursor.next());
+
+    // reading the aggregates reads the rest of the response
+    checkTrailing(results);
+    assertFalse(cursor.hasNext());
+
+    Tuple[] tuples = results.getTuples();
+    assertEquals(2, tuples.length);
+    checkTuple(2, tuples[0]);
+    checkTuple(3, tuples[1]);
+  }
+
+  @Test
+  public void testValuesPaged() {
+    QueryManager queryMgr = client.newQueryManager();
+    queryMgr.setPageLength(3);
+    ValuesDefinition vdef = queryMgr.newValuesDefinition("size", "valuesoptions");
+
+    ValuesHandle results = new ValuesHandle().withStreaming(true);
+    long expected = 100;
+    for (long start = 1; ; start += queryMgr.getPageLength()) {
+      queryMgr.values(vdef, results, start);
+      assertEquals("size", results.getName());
+      assertEquals("xs:unsignedLong", results.getType());
+
+      int count = 0;
+      try (ValuesHandle.ValueCursor cursor = results.getValueCursor()) {
+        while (cursor.hasNext()) {
+          CountedDistinctValue value = cursor.next();
+          assertEquals(1, value.getCount());
+          assertEquals(expected, value.getLong());
+          assertEquals(expected, (long) value.get(results.getType(), Long.class));
+          expected += 100;
+          count++;
+        }
+      }
+      assertEquals(0, results.getValues().length);
+      assertEquals(0, results.getAggregates().length);
+      if (count < queryMgr.getPageLength()) {
+        break;
+      }
+    }
+    assertEquals((VALUE_COUNT + 1) * 100, expected);
+  }
+
+  @Test
+  public void testValuesClose() {
+    QueryManager queryMgr = client.newQueryManager();
+    ValuesDefinition vdef = queryMgr.newValuesDefinition("size", "valuesoptions");
+    ValuesHandle results = queryMgr.values(vdef, new ValuesHandle().withStreaming(true));
+
+    ValuesHandle.ValueCursor cursor = results.getValueCursor();
+    assertEquals("100", cursor.next().getString());
+    cursor.close();
+    assertFalse(cursor.hasNext());
+
+    // the client can still query after discarding the rest of a response
+    results.setStreaming(false);
+    assertEquals(VALUE_COUNT, queryMgr.values(vdef, results).getValues().length);
+  }
+
+  @Test
+  public void testValuesListNamespace() {
+    ValuesListHandle list = new ValuesListHandle();
+    HandleAccessor.receiveContent(list, new ByteArrayInputStream((
+      "<rapi:values-list xmlns:rapi=\"http://marklogic.com/rest-api\">" +
+        "<rapi:values><rapi:name>size</rapi:name><rapi:uri>/v1/values/size</rapi:uri></rapi:values>" +
+        "<values><name>other</name><uri>/v1/values/other</uri></values>" +
+      "</rapi:values-list>").getBytes(StandardCharsets.UTF_8)));
+    assertEquals(1, list.getValuesMap().size());
+    assertEquals("/v1/values/size", list.getValuesMap().get("size"));
+
+    try {
+      HandleAccessor.receiveContent(new ValuesListHandle(), new ByteArrayInputStream(
+        "<values-list><values><name>size</name><uri>/v1/values/size</uri></values></values-list>"
+          .getBytes(StandardCharsets.UTF_8)));
+      fail("values list outside the REST API namespace was accepted");
+    } catch (MarkLogicIOException e) {
+      // expected
+    }
+  }
+
+  private void checkTuple(int i, Tuple tuple) {
+    assertEquals(i, tuple.getCount());
+    assertEquals(3, tuple.getValueCount());
+    TypedDistinctValue[] values = tuple.getValues();
+    assertEquals(3, values.length);
+    assertEquals("xs:double", values[0].getType());
+    assertEquals(i + 0.5, values[0].getDouble(), 0.001);
+    assertEquals(i + 0.5, values[0].get(Double.class), 0.001);
+    assertEquals("xs:int", tuple.getValue(1).getType());
+    assertEquals(i, tuple.getValue(1).getLong());
+    assertEquals(Integer.valueOf(i), tuple.getValue(1).get(Integer.class));
+    assertEquals(i % 2 == 1, tuple.getValue(2).getBoolean());
+  }
+
+  private void checkTrailing(TuplesHandle results) {
+    assertEquals(1, results.getAggregates().length);
+    assertNotNull(results.getAggregate("covariance"));
+    assertEquals(0.75, results.getAggregate("covariance").get("xs:double", Double.class), 0.001);
+    assertEquals(2, results.getMetrics().getValuesResolutionTime());
+    assertEquals(1, results.getMetrics().getAggregateResolutionTime());
+    assertEquals(4, results.getMetrics().getTotalTime());
+    assertTrue(results.getMetrics().getTotalTime() >= results.getMetrics().getValuesResolutionTime());
+  }
+}
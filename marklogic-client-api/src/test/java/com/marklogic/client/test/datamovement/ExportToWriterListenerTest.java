@@ -16,13 +16,24 @@
 package com.marklogic.client.test.datamovement;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.File;
 import java.io.FileWriter;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.Random;
 
 import com.marklogic.client.datamovement.*;
@@ -40,6 +51,7 @@ import com.marklogic.client.query.StructuredQueryDefinition;
 import com.marklogic.client.query.StructuredQueryBuilder;
 
 import com.marklogic.client.test.Common;
+import com.marklogic.client.test.StubServer;
 
 public class ExportToWriterListenerTest {
   private Logger logger = LoggerFactory.getLogger(ExportToWriterListenerTest.class);
@@ -115,4 +127,70 @@ public class ExportToWriterListenerTest {
     }
     if(outputFile.exists()) outputFile.delete();
   }
+
+  @Test
+  public void testQueuedShards() throws Exception {
+    StubServer server = new StubServer(exchange -> {
+      byte[] bytes;
+      if ( exchange.getRequestURI().getPath().contains("forestinfo") ) {
+        bytes = ("[{\"id\":\"1\",\"name\":\"f1\",\"database\":\"db\",\"host\":\"localhost\"," +
+          "\"updatesAllowed\":\"all\"}]").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+      } else {
+        // answer the bulk read with one part for each uri
+        StringBuilder parts = new StringBuilder();
+        for ( String param : exchange.getRequestURI().getRawQuery().split("&") ) {
+          if ( !param.startsWith("uri=") ) continue;
+          String uri = URLDecoder.decode(param.substring(4), "UTF-8");
+          parts.append("--BOUNDARY\r\nContent-Type: application/json\r\n")
+            .append("Content-Disposition: attachment; filename=\"").append(uri).append("\"; category=content; format=json\r\n\r\n")
+            .append("{\"uri\":\"").append(uri).append("\",\"text\":\"caf\u00e9\"}\r\n");
+        }
+        parts.append("--BOUNDARY--\r\n");
+        bytes = parts.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "multipart/mixed; boundary=BOUNDARY");
+      }
+      exchange.sendResponseHeaders(200, bytes.length);
+      try ( OutputStream out = exchange.getResponseBody() ) {
+        out.write(bytes);
+      }
+    });
+    DatabaseClient stubClient = server.newClient();
+    try {
+      DataMovementManager stubMoveMgr = stubClient.newDataMovementManager();
+      List<String> uris = new ArrayList<>();
+      for ( int i = 0; i < 500; i++ ) {
+        uris.add("/export/doc" + i + ".json");
+      }
+      StringWriter[] writers = {new StringWriter(), new StringWriter(), new StringWriter()};
+      AtomicInteger failures = new AtomicInteger();
+      ExportToWriterListener exportListener = new ExportToWriterListener(writers)
+        .withRecordSuffix("\n")
+        .withWriteQueue(2);
+      exportListener.onFailure((batch, throwable) -> failures.incrementAndGet());
+
+      QueryBatcher queryJob = stubMoveMgr.newQueryBatcher(uris.iterator())
+        .withThreadCount(4)
+        .withBatchSize(17)
+        .onUrisReady(exportListener);
+      stubMoveMgr.startJob(queryJob);
+      queryJob.awaitCompletion();
+      stubMoveMgr.stopJob(queryJob);
+      exportListener.flushAndWait();
+
+      assertEquals(0, failures.get());
+      Set<String> records = new HashSet<>();
+      for ( StringWriter writer : writers ) {
+        String output = writer.toString();
+        assertTrue("each writer should receive some batches", output.length() > 0);
+        assertTrue(output.endsWith("\n"));
+        records.addAll(Arrays.asList(output.split("\n")));
+      }
+      assertEquals(500, records.size());
+      assertTrue(records.contains("{\"uri\":\"/export/doc499.json\",\"text\":\"caf\u00e9\"}"));
+    } finally {
+      stubClient.release();
+      server.stop();
+    }
+  }
 }
@@ -0,0 +1,338 @@
+/*
+ * Copyright (c) 2021 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.test.datamovement;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.datamovement.DataMovementManager;
+import com.marklogic.client.datamovement.GraphBatchFailureListener;
+import com.marklogic.client.datamovement.GraphBatcher;
+import com.marklogic.client.semantics.GraphManager;
+import com.marklogic.client.test.StubServer;
+
+public class GraphBatcherTest {
+  private static final String QUADS =
+    "# a comment\n" +
+    "<http://example.org/s1> <http://example.org/p> \"one\" <http://example.org/g1> .\n" +
+    "<http://example.org/s2> <http://example.org/p> \"two > \\\"2\\\"\"@en <http://example.org/g1> .\n" +
+    "\n" +
+    "_:b1 <http://example.org/p> \"3\"^^<http://www.w3.org/2001/XMLSchema#int> <http://example.org/g2> .\n" +
+    "<http://example.org/s4> <http://example.org/p> <http://example.org/o4> .\n" +
+    "<http://example.org/s5> <http://example.org/p> _:b2 <http://example.org/g1>.\n";
+
+  private StubServer server;
+  private DatabaseClient client;
+  private Map<String, List<String>> received = new ConcurrentHashMap<>();
+  private AtomicInteger requests = new AtomicInteger();
+  private AtomicInteger failuresLeft = new AtomicInteger();
+  // when set, the graph requests wait until the latch opens
+  private volatile CountDownLatch requestGate = null;
+  private CountDownLatch requestArrived = new CountDownLatch(1);
+
+  @Before
+  public void setUp() throws IOException {
+    server = new StubServer(exchange -> {
+      String path = exchange.getRequestURI().getPath();
+      String body = StubServer.readString(exchange.getRequestBody());
+      int status = 204;
+      byte[] response = null;
+      if (path.contains("forestinfo")) {
+        status = 200;
+        response = ("[{\"id\":\"1\",\"name\":\"f1\",\"database\":\"db\",\"host\":\"localhost\",\"updatesAllowed\":\"all\"}]")
+          .getBytes(StandardCharsets.UTF_8);
+      } else if (path.endsWith("/graphs")) {
+        requests.incrementAndGet();
+        requestArrived.countDown();
+        CountDownLatch gate = requestGate;
+        if (gate != null) {
+          try {
+            gate.await(10, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+        if (failuresLeft.getAndDecrement() > 0) {
+          status = 500;
+        } else {
+          String query = URLDecoder.decode(exchange.getRequestURI().getRawQuery(), "UTF-8");
+          String graph = query.startsWith("graph=") ? query.substring("graph=".length()) : query;
+          List<String> triples = received.computeIfAbsent(graph, key -> Collections.synchronizedList(new ArrayList<>()));
+          for (String line: body.split("\n")) {
+            if (line.length() > 0) triples.add(line);
+          }
+        }
+      }
+      exchange.getResponseHeaders().add("Content-Type", "application/json");
+      exchange.sendResponseHeaders(status, (response == null) ? -1 : response.length);
+      if (response != null) {
+        try (OutputStream out = exchange.getResponseBody()) {
+          out.write(response);
+        }
+      }
+      exchange.close();
+    });
+    client = server.newClient();
+  }
+
+  @After
+  public void tearDown() {
+    client.release();
+    server.stop();
+  }
+
+  @Test
+  public void testQuadsGroupedByGraph() {
+    DataMovementManager moveMgr = client.newDataMovementManager();
+    AtomicInteger successes = new AtomicInteger();
+    GraphBatcher batcher = moveMgr.newGraphBatcher()
+      .withBatchSize(2)
+      .withThreadCount(2)
+      .onSuccess(event -> successes.incrementAndGet());
+    moveMgr.startJob(batcher);
+    batcher.addQuads(new ByteArrayInputStream(QUADS.getBytes(StandardCharsets.UTF_8)));
+    batcher.add("http://example.org/g2", "<http://example.org/s6> <http://example.org/p> \"six\" .");
+    batcher.flushAndWait();
+    moveMgr.stopJob(batcher);
+
+    assertEquals(6, batcher.getTriplesAdded());
+    assertEquals(6, batcher.getTriplesWritten());
+    assertEquals(4, batcher.getBatchCount());
+    assertEquals(4, successes.get());
+    assertEquals(0, batcher.getFailedBatches());
+
+    List<String> g1 = received.get("http://example.org/g1");
+    assertEquals(3, g1.size());
+    assertTrue(g1.contains("<http://example.org/s2> <http://example.org/p> \"two > \\\"2\\\"\"@en ."));
+    assertTrue(g1.stream().anyMatch(triple -> triple.matches(
+      "<http://example\\.org/s5> <http://example\\.org/p> <http://marklogic\\.com/semantics/blank/[^>]+/b2> \\.")));
+    List<String> g2 = received.get("http://example.org/g2");
+    assertEquals(2, g2.size());
+    assertTrue(g2.stream().anyMatch(triple -> triple.matches(
+      "<http://marklogic\\.com/semantics/blank/[^>]+/b1> <http://example\\.org/p> " +
+        "\"3\"\\^\\^<http://www\\.w3\\.org/2001/XMLSchema#int> \\.")));
+    assertEquals(Collections.singletonList("<http://example.org/s4> <http://example.org/p> <http://example.org/o4> ."),
+      received.get("default="));
+  }
+
+  @Test
+  public void testBlankNodesSpanBatches() {
+    DataMovementManager moveMgr = client.newDataMovementManager();
+    GraphBatcher batcher = moveMgr.newGraphBatcher()
+      .withBatchSize(1)
+      .withThreadCount(2);
+    moveMgr.startJob(batcher);
+    String triples =
+      "_:b1 <http://example.org/p> _:b2 .\n" +
+      "_:b2 <http://example.org/p> \"_:b1\" .\n";
+    batcher.addTriples("http://example.org/g1", new ByteArrayInputStream(triples.getBytes(StandardCharsets.UTF_8)));
+    batcher.addTriples("http://example.org/g2", new ByteArrayInputStream(triples.getBytes(StandardCharsets.UTF_8)));
+    batcher.add("http://example.org/g3", "_:b1 <http://example.org/p> \"one\" .");
+    batcher.add("http://example.org/g3", "_:b1 <http://example.org/p> \"two\" .");
+    batcher.flushAndWait();
+    moveMgr.stopJob(batcher);
+    assertEquals(6, batcher.getBatchCount());
+
+    // the labels identify the same node in every batch for the same input
+    Pattern blankNode = Pattern.compile("<(http://marklogic\\.com/semantics/blank/[^>]+)>");
+    List<String> g1 = received.get("http://example.org/g1");
+    assertEquals(2, g1.size());
+    Set<String> g1Nodes = new HashSet<>();
+    for (String triple: g1) {
+      Matcher matcher = blankNode.matcher(triple);
+      while (matcher.find()) g1Nodes.add(matcher.group(1));
+    }
+    assertEquals(2, g1Nodes.size());
+    // a literal that looks like a label isn't changed
+    assertTrue(g1.stream().anyMatch(triple -> triple.endsWith(" <http://example.org/p> \"_:b1\" .")));
+
+    // but not across inputs
+    Set<String> g2Nodes = new HashSet<>();
+    for (String triple: received.get("http://example.org/g2")) {
+      Matcher matcher = blankNode.matcher(triple);
+      while (matcher.find()) g2Nodes.add(matcher.group(1));
+    }
+    assertEquals(2, g2Nodes.size());
+    assertTrue(Collections.disjoint(g1Nodes, g2Nodes));
+
+    Set<String> g3Nodes = new HashSet<>();
+    for (String triple: received.get("http://example.org/g3")) {
+      Matcher matcher = blankNode.matcher(triple);
+      assertTrue(matcher.find());
+      g3Nodes.add(matcher.group(1));
+    }
+    assertEquals(1, g3Nodes.size());
+  }
+
+  @Test
+  public void testFailedBatchRetried() {
+    failuresLeft.set(2);
+    DataMovementManager moveMgr = client.newDataMovementManager();
+    AtomicInteger failures = new AtomicInteger();
+    GraphBatcher batcher = moveMgr.newGraphBatcher()
+      .withBatchSize(10)
+      .onFailure((event, throwable) -> {
+        failures.incrementAndGet();
+        event.withDisposition(GraphBatchFailureListener.BatchFailureDisposition.RETRY);
+      });
+    moveMgr.startJob(batcher);
+    batcher.addTriples(GraphManager.DEFAULT_GRAPH, new ByteArrayInputStream(
+      ("<http://example.org/s1> <http://example.org/p> \"one\" .\n" +
+       "<http://example.org/s2> <http://example.org/p> \"two\" .\n").getBytes(StandardCharsets.UTF_8)));
+    batcher.flushAndWait();
+    moveMgr.stopJob(batcher);
+
+    assertEquals(2, failures.get());
+    assertEquals(3, requests.get());
+    assertEquals(0, batcher.getFailedBatches());
+    assertEquals(2, batcher.getTriplesWritten());
+    assertEquals(2, received.get("default=").size());
+  }
+
+  @Test
+  public void testFailedBatchSkipped() {
+    failuresLeft.set(1);
+    DataMovementManager moveMgr = client.newDataMovementManager();
+    GraphBatcher batcher = moveMgr.newGraphBatcher().withBatchSize(1);
+    moveMgr.startJob(batcher);
+    batcher.add("http://example.org/g1", "<http://example.org/s1> <http://example.org/p> \"one\" .");
+    batcher.add("http://example.org/g1", "<http://example.org/s2> <http://example.org/p> \"two\" .");
+    batcher.flushAndWait();
+    moveMgr.stopJob(batcher);
+
+    assertEquals(2, batcher.getBatchCount());
+    assertEquals(1, batcher.getFailedBatches());
+    assertEquals(1, batcher.getTriplesWritten());
+    assertEquals(1, received.get("http://example.org/g1").size());
+  }
+
+  @Test
+  public void testBatchesAfterStopDispositionReported() throws Exception {
+    failuresLeft.set(1);
+    requestGate = new CountDownLatch(1);
+    DataMovementManager moveMgr = client.newDataMovementManager();
+    List<String> failures = new CopyOnWriteArrayList<>();
+    GraphBatcher batcher = moveMgr.newGraphBatcher()
+      .withBatchSize(2)
+      .withThreadCount(1)
+      .onFailure((event, throwable) -> {
+        failures.add(event.getJobBatchNumber()+":"+event.getTriples().length+":"+throwable.getClass().getSimpleName());
+        event.withDisposition(GraphBatchFailureListener.BatchFailureDisposition.STOP);
+      });
+    moveMgr.startJob(batcher);
+    // the first batch is sent, the second is queued, and the last statement waits for a full batch
+    addTriples(batcher, "http://example.org/g1", 1, 2);
+    assertTrue(requestArrived.await(10, TimeUnit.SECONDS));
+    addTriples(batcher, "http://example.org/g1", 3, 4);
+    addTriples(batcher, "http://example.org/g2", 5, 5);
+
+    // the first batch fails and stops the job, so the other batches are reported instead of written
+    requestGate.countDown();
+    assertTrue(batcher.awaitCompletion(10, TimeUnit.SECONDS));
+    assertEquals(1, requests.get());
+    assertEquals(3, batcher.getFailedBatches());
+    assertEquals(3, failures.size());
+    assertTrue(failures.contains("1:2:FailedRequestException"));
+    assertTrue(failures.contains("2:2:IllegalStateException"));
+    assertTrue(failures.contains("3:1:IllegalStateException"));
+    assertEquals(0, batcher.getTriplesWritten());
+    moveMgr.stopJob(batcher);
+  }
+
+  @Test
+  public void testStopReportsUnwrittenBatches() throws Exception {
+    requestGate = new CountDownLatch(1);
+    DataMovementManager moveMgr = client.newDataMovementManager();
+    List<String> dropped = new CopyOnWriteArrayList<>();
+    GraphBatcher batcher = moveMgr.newGraphBatcher()
+      .withBatchSize(2)
+      .withThreadCount(1)
+      .onFailure((event, throwable) -> {
+        if (throwable instanceof IllegalStateException)
+          dropped.add(event.getJobBatchNumber()+":"+event.getTriples().length);
+      });
+    moveMgr.startJob(batcher);
+    addTriples(batcher, "http://example.org/g1", 1, 2);
+    assertTrue(requestArrived.await(10, TimeUnit.SECONDS));
+    addTriples(batcher, "http://example.org/g1", 3, 4);
+    addTriples(batcher, "http://example.org/g2", 5, 5);
+
+    // the queued batch and the statements that didn't fill a batch are reported when stopped
+    moveMgr.stopJob(batcher);
+    assertEquals(2, dropped.size());
+    assertTrue(dropped.contains("2:2"));
+    assertTrue(dropped.contains("3:1"));
+    assertTrue(batcher.getFailedBatches() >= 2);
+    try {
+      addTriples(batcher, "http://example.org/g2", 6, 6);
+      fail("added triples after the job stopped");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+
+    requestGate.countDown();
+    assertTrue(batcher.awaitCompletion(10, TimeUnit.SECONDS));
+    assertEquals(1, requests.get());
+  }
+
+  @Test
+  public void testMalformedQuad() {
+    DataMovementManager moveMgr = client.newDataMovementManager();
+    GraphBatcher batcher = moveMgr.newGraphBatcher();
+    moveMgr.startJob(batcher);
+    try {
+      batcher.addQuads(new ByteArrayInputStream(
+        "<http://example.org/s1> <http://example.org/p> \"unterminated <http://example.org/g1> .\n"
+          .getBytes(StandardCharsets.UTF_8)));
+      fail("malformed quad was accepted");
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("line 1"));
+    } finally {
+      moveMgr.stopJob(batcher);
+    }
+  }
+
+  private static void addTriples(GraphBatcher batcher, String graphUri, int first, int last) {
+    for (int i = first; i <= last; i++) {
+      batcher.add(graphUri, "<http://example.org/s"+i+"> <http://example.org/p> \""+i+"\" .");
+    }
+  }
+}
@@ -16,13 +16,21 @@
 
 package com.marklogic.client.test.datamovement;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.marklogic.client.datamovement.JSONSplitter;
 import com.marklogic.client.datamovement.NodeOperation;
 import com.marklogic.client.document.DocumentWriteOperation;
+import com.marklogic.client.io.ByteBufferHandle;
+import com.marklogic.client.io.Format;
 import com.marklogic.client.io.StringHandle;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.Iterator;
 import java.util.stream.Stream;
 
@@ -210,6 +218,38 @@ public class JSONSplitterTest {
 
     }
 
+    @Test
+    public void testJSONSplitterBuffer() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+
+        JSONSplitter<StringHandle> splitter = JSONSplitter.makeArraySplitter();
+        ByteBufferHandle[] result;
+        try (FileChannel channel = FileChannel.open(Paths.get(jsonArrayFile), StandardOpenOption.READ)) {
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            result = splitter.splitBuffer(mapped).toArray(size -> new ByteBufferHandle[size]);
+        }
+        assertEquals(5, splitter.getCount());
+        for (int i = 0; i < result.length; i++) {
+            assertEquals(Format.JSON, result[i].getFormat());
+            assertEquals(mapper.readTree(expectedArray[i]), mapper.readTree(result[i].toString()));
+        }
+
+        String multibyte = "  [{\"name\":\"Zo\u00eb \u6771\u4eac\"}, {\"name\":\"\ud83d\ude00\"}]";
+        byte[] bytes = ("xx" + multibyte).getBytes(StandardCharsets.UTF_8);
+        ByteBuffer offsetBuffer = ByteBuffer.wrap(bytes, 2, bytes.length - 2);
+        Iterator<DocumentWriteOperation> itr = splitter.splitBufferWriteOperations(offsetBuffer, "TestJson.json").iterator();
+        String[] expected = new String[]{"{\"name\":\"Zo\u00eb \u6771\u4eac\"}", "{\"name\":\"\ud83d\ude00\"}"};
+        int i = 0;
+        while (itr.hasNext()) {
+            DocumentWriteOperation docOp = itr.next();
+            assertTrue(docOp.getUri().startsWith("TestJson" + (i+1)));
+            assertTrue(docOp.getUri().endsWith(".json"));
+            assertEquals(expected[i], docOp.getContent().toString());
+            i++;
+        }
+        assertEquals(2, splitter.getCount());
+    }
+
     @Test
     public void testJSONSplitterWriteWithoutInputName() throws Exception {
 
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2021 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.test.datamovement;
+
+import com.marklogic.client.FailedRequestException;
+import com.marklogic.client.datamovement.JobMetrics;
+import com.marklogic.client.datamovement.JobTicket;
+import com.marklogic.client.datamovement.impl.RequestMetricsImpl;
+import com.marklogic.client.impl.FailedRequest;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class JobMetricsTest {
+    @Test
+    public void testAggregation() {
+        JobMetrics metrics = new JobMetrics();
+
+        for (int i = 0; i < 98; i++) {
+            metrics.processEvent(request("job1", "host1", TimeUnit.MILLISECONDS.toNanos(3))
+                    .withItemCount(100).withBytesSent(1000).withQueueDepth(i % 10));
+        }
+        metrics.processEvent(request("job1", "host2", TimeUnit.MILLISECONDS.toNanos(700))
+                .withItemCount(100).withBytesSent(-1).withQueueDepth(2));
+
+        FailedRequest unavailable = new FailedRequest();
+        unavailable.setStatusCode(503);
+        unavailable.setStatusString("Service Unavailable");
+        metrics.processEvent(request("job1", "host2", TimeUnit.MILLISECONDS.toNanos(40))
+                .withRetry(true)
+                .withThrowable(new FailedRequestException("unavailable", unavailable)));
+
+        metrics.processEvent(request("job2", "host1", TimeUnit.MILLISECONDS.toNanos(1))
+                .withItemCount(5).withBytesReceived(250));
+
+        JobMetrics.Stats job1 = metrics.getJobStats("job1");
+        assertEquals(100, job1.getRequests());
+        assertEquals(1, job1.getFailures());
+        assertEquals(1, job1.getRetries());
+        assertEquals(9900, job1.getItems());
+        assertEquals(98000, job1.getBytesSent());
+        assertEquals(1, job1.getStatusCount(503));
+        assertEquals(0, job1.getStatusCount(500));
+        assertEquals(5, job1.getLatencyPercentileMillis(0.5));
+        assertEquals(50, job1.getLatencyPercentileMillis(0.99));
+        assertEquals(1000, job1.getLatencyPercentileMillis(1));
+        assertEquals(700.0, job1.getMaxLatencyMillis(), 0.001);
+        assertEquals((98 * 3 + 700 + 40) / 100.0, job1.getMeanLatencyMillis(), 0.001);
+        assertEquals(0, job1.getQueueDepth());
+        assertEquals(9, job1.getMaxQueueDepth());
+
+        JobMetrics.Stats host1 = metrics.getHostStats("host1");
+        assertEquals(99, host1.getRequests());
+        assertEquals(250, host1.getBytesReceived());
+        assertEquals(2, metrics.getHostStats("host2").getRequests());
+
+        assertEquals(2, metrics.getJobIds().size());
+        metrics.removeJob("job2");
+        assertNull(metrics.getJobStats("job2"));
+        assertEquals(99, metrics.getHostStats("host1").getRequests());
+    }
+
+    private static RequestMetricsImpl request(String jobId, String host, long nanos) {
+        return new RequestMetricsImpl(JobTicket.JobType.WRITE_BATCHER)
+                .withJobId(jobId)
+                .withJobName("test")
+                .withHost(host)
+                .withDurationNanos(nanos);
+    }
+}
@@ -10,9 +10,13 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 import java.util.zip.GZIPInputStream;
 
@@ -207,4 +211,35 @@ public class LineSplitterTest {
         assertEquals(4, splitter.getCount());
     }
 
+    @Test
+    public void testSplitterPathParallel() throws Exception {
+        StringBuilder content = new StringBuilder();
+        for (int i = 1; i <= 1000; i++) {
+            content.append("{\"line\":").append(i).append(",\"text\":\"é").append(i).append("\"}");
+            content.append((i % 3 == 0) ? "\r\n" : "\n");
+            if (i % 100 == 0) {
+                content.append("\n");
+            }
+        }
+        Path path = Files.createTempFile("line-splitter", ".jsonl");
+        try {
+            Files.write(path, content.toString().getBytes(StandardCharsets.UTF_8));
+
+            LineSplitter splitter = new LineSplitter();
+            splitter.setChunkSize(500);
+            splitter.setUriMaker(new UriMakerTest());
+            Stream<DocumentWriteOperation> contentStream = splitter.splitWriteOperations(path, "parallel");
+            assertTrue(contentStream.isParallel());
+            assertEquals(1000, splitter.getCount());
+
+            Map<String, String> docs = new ConcurrentHashMap<>();
+            contentStream.forEach(docOp -> docs.put(docOp.getUri(), docOp.getContent().toString()));
+            assertEquals(1000, docs.size());
+            for (int i = 1; i <= 1000; i++) {
+                assertEquals("{\"line\":"+i+",\"text\":\"é"+i+"\"}", docs.get("parallel"+i+"_abcd.xml"));
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
 }
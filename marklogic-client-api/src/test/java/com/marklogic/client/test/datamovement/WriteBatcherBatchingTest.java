@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2021 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.test.datamovement;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.datamovement.DataMovementManager;
+import com.marklogic.client.datamovement.WriteBatcher;
+import com.marklogic.client.datamovement.impl.WriteBatcherImpl;
+import com.marklogic.client.io.Format;
+import com.marklogic.client.io.StringHandle;
+import com.marklogic.client.test.StubServer;
+
+public class WriteBatcherBatchingTest {
+  private static final Pattern FILENAME = Pattern.compile("filename=\"?([^\";\\r\\n]+)");
+
+  private StubServer server;
+  private DatabaseClient client;
+  // the uris of each written batch in the order received
+  private List<List<String>> writtenBatches = Collections.synchronizedList(new ArrayList<>());
+  private AtomicInteger failuresLeft = new AtomicInteger();
+  private AtomicInteger unavailableLeft = new AtomicInteger();
+
+  @Before
+  public void setUp() throws IOException {
+    server = new StubServer(exchange -> {
+      String path = exchange.getRequestURI().getPath();
+      String body = StubServer.readString(exchange.getRequestBody());
+      int status = 200;
+      String response = "{}";
+      if ( path.contains("forestinfo") ) {
+        response = "[{\"id\":\"1\",\"name\":\"f1\",\"database\":\"db\",\"host\":\"localhost\",\"updatesAllowed\":\"all\"}]";
+      } else if ( path.endsWith("/documents") ) {
+        if ( unavailableLeft.getAndDecrement() > 0 ) {
+          exchange.getResponseHeaders().add("Retry-After", "1000");
+          exchange.sendResponseHeaders(503, -1);
+          exchange.close();
+          return;
+        } else if ( failuresLeft.getAndDecrement() > 0 ) {
+          status = 500;
+          response = "{\"errorResponse\":{\"statusCode\":500,\"status\":\"Internal Server Error\"," +
+            "\"messageCode\":\"XDMP-OVERLOAD\",\"message\":\"overloaded\"}}";
+        } else {
+          List<String> uris = new ArrayList<>();
+          Matcher matcher = FILENAME.matcher(body);
+          while ( matcher.find() ) {
+            uris.add(matcher.group(1));
+          }
+          writtenBatches.add(uris);
+          response = "{\"documents\":[]}";
+        }
+      }
+      byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().add("Content-Type", "application/json");
+      exchange.sendResponseHeaders(status, bytes.length);
+      try ( OutputStream out = exchange.getResponseBody() ) {
+        out.write(bytes);
+      }
+    });
+    client = server.newClient();
+  }
+
+  @After
+  public void tearDown() {
+    client.release();
+    server.stop();
+  }
+
+  @Test
+  public void testBatchSizeChangedByAdaptiveBatching() {
+    // the overloaded first batch halves the batch size from 9 to 4
+    failuresLeft.set(1);
+    DataMovementManager moveMgr = client.newDataMovementManager();
+    WriteBatcher batcher = moveMgr.newWriteBatcher()
+      .withBatchSize(9)
+      .withThreadCount(1)
+      .withAdaptiveBatching(9, 1);
+    moveMgr.startJob(batcher);
+    addDocs(batcher, 0, 9);
+    batcher.awaitCompletion();
+    assertEquals(4, ((WriteBatcherImpl) batcher).getCurrentBatchSize());
+
+    // each batch fills to the new size without waiting for a flush
+    addDocs(batcher, 9, 21);
+    batcher.awaitCompletion();
+    assertEquals(Arrays.asList(4, 4, 4), batchSizes());
+    batcher.flushAndWait();
+    moveMgr.stopJob(batcher);
+    assertEquals(Arrays.asList(4, 4, 4), batchSizes());
+  }
+
+  @Test
+  public void testDocOverByteLimitStartsNextBatch() {
+    DataMovementManager moveMgr = client.newDataMovementManager();
+    WriteBatcher batcher = moveMgr.newWriteBatcher()
+      .withBatchSize(10)
+      .withMaxBatchBytes(10)
+      .withThreadCount(1);
+    moveMgr.startJob(batcher);
+    // each doc that would put a batch over 10 bytes is held for the next batch
+    batcher.add("/bytes/0.txt", new StringHandle("aa").withFormat(Format.TEXT));
+    batcher.add("/bytes/1.txt", new StringHandle("aaaaaaaaa").withFormat(Format.TEXT));
+    batcher.add("/bytes/2.txt", new StringHandle("aa").withFormat(Format.TEXT));
+    batcher.add("/bytes/3.txt", new StringHandle("a").withFormat(Format.TEXT));
+    batcher.flushAndWait();
+    moveMgr.stopJob(batcher);
+
+    assertEquals(Arrays.asList(
+      Arrays.asList("/bytes/0.txt"),
+      Arrays.asList("/bytes/1.txt"),
+      Arrays.asList("/bytes/2.txt", "/bytes/3.txt")
+      ), writtenBatches);
+  }
+
+  @Test
+  public void testBlockedAddKeepsBatchNumbers() {
+    DataMovementManager moveMgr = client.newDataMovementManager();
+    List<Long> batchNumbers = Collections.synchronizedList(new ArrayList<>());
+    WriteBatcher batcher = moveMgr.newWriteBatcher()
+      .withBatchSize(10)
+      .withThreadCount(1)
+      .withMaxInFlight(10, 27)
+      .withForestAssignmentPolicy((uri, forests) -> forests[0])
+      .onBatchSuccess(batch -> batchNumbers.add(batch.getJobBatchNumber()));
+    moveMgr.startJob(batcher);
+    // each doc has 9 bytes, so the fourth doc waits for the docs queued for the host
+    // to be written, which mustn't use up batch numbers on the empty round-robin queue
+    addDocs(batcher, 0, 7);
+    batcher.flushAndWait();
+    moveMgr.stopJob(batcher);
+
+    List<Long> sorted = new ArrayList<>(batchNumbers);
+    Collections.sort(sorted);
+    assertEquals(Arrays.asList(1L, 2L, 3L), sorted);
+  }
+
+  @Test
+  public void testMaxInFlightBelowBatchSize() {
+    DataMovementManager moveMgr = client.newDataMovementManager();
+    WriteBatcher batcher = moveMgr.newWriteBatcher()
+      .withBatchSize(10)
+      .withMaxInFlight(5, 0);
+    try {
+      moveMgr.startJob(batcher);
+      fail("maxInFlightDocuments under the batchSize should be rejected");
+    } catch (IllegalStateException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("batchSize"));
+    }
+  }
+
+  @Test
+  public void testRetryingBatchFreesThread() {
+    // the only thread writes the second batch while the first waits to retry
+    unavailableLeft.set(1);
+    DataMovementManager moveMgr = client.newDataMovementManager();
+    WriteBatcher batcher = moveMgr.newWriteBatcher()
+      .withBatchSize(1)
+      .withThreadCount(1);
+    moveMgr.startJob(batcher);
+    addDocs(batcher, 0, 2);
+    batcher.awaitCompletion();
+    assertEquals(Arrays.asList(
+      Collections.singletonList("/batching/1.json"), Collections.singletonList("/batching/0.json")
+    ), writtenBatches);
+    moveMgr.stopJob(batcher);
+  }
+
+  private void addDocs(WriteBatcher batcher, int start, int end) {
+    for ( int i=start; i < end; i++ ) {
+      batcher.add("/batching/" + i + ".json", new StringHandle("{\"doc\":" + i + "}"));
+    }
+  }
+
+  private List<Integer> batchSizes() {
+    List<Integer> sizes = new ArrayList<>();
+    synchronized ( writtenBatches ) {
+      for ( List<String> batch : writtenBatches ) {
+        sizes.add(batch.size());
+      }
+    }
+    return sizes;
+  }
+}
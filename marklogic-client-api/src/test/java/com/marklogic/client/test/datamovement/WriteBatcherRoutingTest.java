@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2021 MarkLogic Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marklogic.client.test.datamovement;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.datamovement.DataMovementManager;
+import com.marklogic.client.datamovement.FilteredForestConfiguration;
+import com.marklogic.client.datamovement.Forest;
+import com.marklogic.client.datamovement.ForestAssignmentPolicy;
+import com.marklogic.client.datamovement.WriteBatcher;
+import com.marklogic.client.io.StringHandle;
+import com.marklogic.client.test.StubServer;
+
+public class WriteBatcherRoutingTest {
+  private static final Pattern FILENAME = Pattern.compile("filename=\"?([^\";\\r\\n]+)");
+  // spreads the uris over the forests consistently, which is enough to check the routing
+  private static final ForestAssignmentPolicy BY_HASH =
+    (uri, forests) -> forests[Math.floorMod(uri.hashCode(), forests.length)];
+
+  private StubServer server;
+  private DatabaseClient client;
+  // the host header of the request that wrote each uri
+  private Map<String,String> writtenHosts = new ConcurrentHashMap<>();
+
+  @Before
+  public void setUp() throws IOException {
+    server = new StubServer(exchange -> {
+      String path = exchange.getRequestURI().getPath();
+      String body = StubServer.readString(exchange.getRequestBody());
+      String response = "{}";
+      if ( path.contains("forestinfo") ) {
+        response = "[" +
+          forestInfo("1", "localhost") + "," + forestInfo("2", "localhost") + "," +
+          forestInfo("3", "127.0.0.1") + "," + forestInfo("4", "127.0.0.1") + "]";
+      } else if ( path.endsWith("/documents") ) {
+        String host = exchange.getRequestHeaders().getFirst("Host");
+        host = host.substring(0, host.lastIndexOf(':'));
+        Matcher matcher = FILENAME.matcher(body);
+        while ( matcher.find() ) {
+          writtenHosts.put(matcher.group(1), host);
+        }
+        response = "{\"documents\":[]}";
+      }
+      byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().add("Content-Type", "application/json");
+      exchange.sendResponseHeaders(200, bytes.length);
+      try ( OutputStream out = exchange.getResponseBody() ) {
+        out.write(bytes);
+      }
+    });
+    client = server.newClient();
+  }
+
+  @After
+  public void tearDown() {
+    client.release();
+    server.stop();
+  }
+
+  @Test
+  public void testRoutedToForestHost() {
+    DataMovementManager moveMgr = client.newDataMovementManager();
+    AtomicBoolean failed = new AtomicBoolean(false);
+    WriteBatcher batcher = moveMgr.newWriteBatcher()
+      .withBatchSize(5)
+      .withThreadCount(2)
+      .withForestAssignmentPolicy(BY_HASH)
+      .onBatchFailure((batch, throwable) -> failed.set(true));
+    moveMgr.startJob(batcher);
+    for ( int i=0; i < 50; i++ ) {
+      batcher.add("/routing/" + i + ".json", new StringHandle("{}"));
+    }
+    batcher.flushAndWait();
+    moveMgr.stopJob(batcher);
+
+    assertFalse(failed.get());
+    assertEquals(50, writtenHosts.size());
+    Forest[] forests = batcher.getForestConfig().listForests();
+    for ( Map.Entry<String,String> written : writtenHosts.entrySet() ) {
+      Forest forest = BY_HASH.assignForest(written.getKey(), forests);
+      assertEquals(written.getKey(), forest.getPreferredHost(), written.getValue());
+    }
+    assertEquals(2, new HashSet<>(writtenHosts.values()).size());
+  }
+
+  @Test
+  public void testRemovedHostKeepsQueuedDocs() {
+    DataMovementManager moveMgr = client.newDataMovementManager();
+    WriteBatcher batcher = moveMgr.newWriteBatcher()
+      .withBatchSize(100)
+      .withForestAssignmentPolicy(BY_HASH);
+    moveMgr.startJob(batcher);
+    for ( int i=0; i < 20; i++ ) {
+      batcher.add("/routing/" + i + ".json", new StringHandle("{}"));
+    }
+    // the docs queued for the removed host are written to the remaining host
+    batcher.withForestConfig(
+      new FilteredForestConfiguration(batcher.getForestConfig()).withBlackList("127.0.0.1"));
+    for ( int i=20; i < 30; i++ ) {
+      batcher.add("/routing/" + i + ".json", new StringHandle("{}"));
+    }
+    batcher.flushAndWait();
+    moveMgr.stopJob(batcher);
+
+    assertEquals(30, writtenHosts.size());
+    for ( String host : writtenHosts.values() ) {
+      assertEquals("localhost", host);
+    }
+  }
+
+  private static String forestInfo(String id, String host) {
+    return "{\"id\":\"" + id + "\",\"name\":\"f" + id + "\",\"database\":\"db\",\"host\":\"" + host +
+      "\",\"updatesAllowed\":\"all\"}";
+  }
+}
@@ -27,6 +27,8 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InterruptedIOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
@@ -54,6 +56,8 @@ import com.marklogic.client.query.StructuredQueryBuilder;
 import com.marklogic.client.datamovement.BatchFailureListener;
 import com.marklogic.client.datamovement.DataMovementManager;
 import com.marklogic.client.datamovement.FilteredForestConfiguration;
+import com.marklogic.client.datamovement.Forest;
+import com.marklogic.client.datamovement.ForestAssignmentPolicy;
 import com.marklogic.client.datamovement.ForestConfiguration;
 import com.marklogic.client.datamovement.HostAvailabilityListener;
 import com.marklogic.client.datamovement.JobReport;
@@ -834,6 +838,185 @@ public class WriteBatcherTest {
     assertEquals(300, docCount);
   }
 
+  @Test
+  public void testForestAssignmentPolicy() throws Exception {
+    String collection = whbTestCollection + ".testForestAssignmentPolicy";
+    String query1 = "fn:count(fn:collection('" + collection + "'))";
+    Map<String,String> predictedHosts = new ConcurrentHashMap<>();
+    ForestAssignmentPolicy policy = (uri, forests) -> {
+      Forest forest = forests[Math.floorMod(uri.hashCode(), forests.length)];
+      predictedHosts.put(uri, forest.getPreferredHost());
+      return forest;
+    };
+    AtomicInteger successCount = new AtomicInteger(0);
+    AtomicInteger misroutedCount = new AtomicInteger(0);
+    AtomicBoolean failed = new AtomicBoolean(false);
+    WriteBatcher batcher = moveMgr.newWriteBatcher()
+      .withBatchSize(7)
+      .withThreadCount(2)
+      .withForestAssignmentPolicy(policy)
+      .onBatchSuccess(batch -> {
+        for ( WriteEvent event : batch.getItems() ) {
+          successCount.incrementAndGet();
+          if ( ! batch.getClient().getHost().equals(predictedHosts.get(event.getTargetUri())) ) {
+            misroutedCount.incrementAndGet();
+          }
+        }
+      })
+      .onBatchFailure((batch, throwable) -> {
+        throwable.printStackTrace();
+        failed.set(true);
+      });
+    assertSame(policy, batcher.getForestAssignmentPolicy());
+    moveMgr.startJob(batcher);
+
+    DocumentMetadataHandle meta = new DocumentMetadataHandle()
+      .withCollections(collection, whbTestCollection);
+    for ( int i=0; i < 100; i++ ) {
+      batcher.add("/WriteBatcherTest/testForestAssignmentPolicy/" + i + ".txt", meta,
+        new StringHandle("test").withFormat(Format.TEXT));
+    }
+    batcher.flushAndWait();
+    moveMgr.stopJob(batcher);
+
+    assertFalse(failed.get());
+    assertEquals(100, successCount.get());
+    assertEquals(0, misroutedCount.get());
+    int docCount = client.newServerEval().xquery(query1).eval().next().getNumber().intValue();
+    assertEquals(100, docCount);
+  }
+
+  @Test
+  public void testAdaptiveBatching() throws Exception {
+    String collection = whbTestCollection + ".testAdaptiveBatching";
+    String query1 = "fn:count(fn:collection('" + collection + "'))";
+    AtomicBoolean failed = new AtomicBoolean(false);
+    WriteBatcher batcher = moveMgr.newWriteBatcher()
+      .withBatchSize(5)
+      .withThreadCount(1)
+      .withAdaptiveBatching(50, 4)
+      .onBatchFailure((batch, throwable) -> {
+        throwable.printStackTrace();
+        failed.set(true);
+      });
+    assertTrue(batcher.isAdaptiveBatching());
+    JobTicket ticket = moveMgr.startJob(batcher);
+
+    DocumentMetadataHandle meta = new DocumentMetadataHandle()
+      .withCollections(collection, whbTestCollection);
+    for ( int i=0; i < 500; i++ ) {
+      batcher.add("/WriteBatcherTest/testAdaptiveBatching/" + i + ".txt", meta,
+        new StringHandle("test").withFormat(Format.TEXT));
+    }
+    batcher.flushAndWait();
+    JobReport report = moveMgr.getJobReport(ticket);
+    moveMgr.stopJob(batcher);
+
+    assertFalse(failed.get());
+    assertEquals(500, report.getSuccessEventsCount());
+    assertTrue(report.getAdjustmentsCount() > 0);
+    assertTrue(report.getCurrentBatchSize() >= 1 && report.getCurrentBatchSize() <= 50);
+    assertTrue(report.getCurrentThreadCount() >= 1 && report.getCurrentThreadCount() <= 4);
+    int docCount = client.newServerEval().xquery(query1).eval().next().getNumber().intValue();
+    assertEquals(500, docCount);
+  }
+
+  @Test
+  public void testMaxBatchBytes() throws Exception {
+    String collection = whbTestCollection + ".testMaxBatchBytes";
+    String query1 = "fn:count(fn:collection('" + collection + "'))";
+    char[] smallContent = new char[100];
+    Arrays.fill(smallContent, 's');
+    char[] largeContent = new char[2000];
+    Arrays.fill(largeContent, 'l');
+    AtomicInteger successCount = new AtomicInteger(0);
+    AtomicInteger oversizedCount = new AtomicInteger(0);
+    AtomicBoolean failed = new AtomicBoolean(false);
+    WriteBatcher batcher = moveMgr.newWriteBatcher()
+      .withBatchSize(50)
+      .withMaxBatchBytes(1000)
+      .onBatchSuccess(batch -> {
+        long batchBytes = 0;
+        for ( WriteEvent event : batch.getItems() ) {
+          successCount.incrementAndGet();
+          batchBytes += ((StringHandle) event.getContent()).get().length();
+        }
+        if ( batchBytes > 1000 && batch.getItems().length > 1 ) {
+          oversizedCount.incrementAndGet();
+        }
+      })
+      .onBatchFailure((batch, throwable) -> {
+        throwable.printStackTrace();
+        failed.set(true);
+      });
+    assertEquals(1000, batcher.getMaxBatchBytes());
+    moveMgr.startJob(batcher);
+
+    DocumentMetadataHandle meta = new DocumentMetadataHandle()
+      .withCollections(collection, whbTestCollection);
+    for ( int i=0; i < 200; i++ ) {
+      String content = new String((i % 20 == 0) ? largeContent : smallContent);
+      batcher.add("/WriteBatcherTest/testMaxBatchBytes/" + i + ".txt", meta,
+        new StringHandle(content).withFormat(Format.TEXT));
+    }
+    batcher.flushAndWait();
+    moveMgr.stopJob(batcher);
+
+    assertFalse(failed.get());
+    assertEquals(200, successCount.get());
+    assertEquals(0, oversizedCount.get());
+    int docCount = client.newServerEval().xquery(query1).eval().next().getNumber().intValue();
+    assertEquals(200, docCount);
+  }
+
+  @Test
+  public void testMaxInFlight() throws Exception {
+    String collection = whbTestCollection + ".testMaxInFlight";
+    String query1 = "fn:count(fn:collection('" + collection + "'))";
+    AtomicInteger writtenCount = new AtomicInteger(0);
+    AtomicInteger callerWrites = new AtomicInteger(0);
+    AtomicBoolean failed = new AtomicBoolean(false);
+    Thread addingThread = Thread.currentThread();
+    WriteBatcher batcher = moveMgr.newWriteBatcher()
+      .withBatchSize(10)
+      .withThreadCount(2)
+      .withMaxInFlight(25, 0)
+      .onBatchSuccess(batch -> {
+        writtenCount.addAndGet(batch.getItems().length);
+        if ( Thread.currentThread() == addingThread ) callerWrites.incrementAndGet();
+      })
+      .onBatchFailure((batch, throwable) -> {
+        throwable.printStackTrace();
+        failed.set(true);
+      });
+    assertEquals(25, batcher.getMaxInFlightDocuments());
+    assertEquals(0, batcher.getMaxInFlightBytes());
+    moveMgr.startJob(batcher);
+
+    DocumentMetadataHandle meta = new DocumentMetadataHandle()
+      .withCollections(collection, whbTestCollection);
+    int maxInFlight = 0;
+    for ( int i=0; i < 200; i++ ) {
+      String uri = "/WriteBatcherTest/testMaxInFlight/" + i + ".txt";
+      StringHandle content = new StringHandle("test").withFormat(Format.TEXT);
+      if ( i % 2 == 0 ) {
+        batcher.add(uri, meta, content);
+      } else {
+        assertTrue(batcher.tryAdd(uri, meta, content, 1, TimeUnit.MINUTES));
+      }
+      maxInFlight = Math.max(maxInFlight, (i + 1) - writtenCount.get());
+    }
+    batcher.flushAndWait();
+    moveMgr.stopJob(batcher);
+
+    assertFalse(failed.get());
+    assertEquals(200, writtenCount.get());
+    assertTrue("too many documents in flight: " + maxInFlight, maxInFlight <= 25);
+    assertEquals(0, callerWrites.get());
+    int docCount = client.newServerEval().xquery(query1).eval().next().getNumber().intValue();
+    assertEquals(200, docCount);
+  }
+
   @Test
   public void testAddMultiThreadedSuccess_Issue48() throws Exception{
     String collection = whbTestCollection + ".testAddMultiThreadedSuccess_Issue48";
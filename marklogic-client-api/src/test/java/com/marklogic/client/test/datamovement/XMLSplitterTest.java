@@ -19,6 +19,7 @@ package com.marklogic.client.test.datamovement;
 import com.marklogic.client.datamovement.NodeOperation;
 import com.marklogic.client.datamovement.XMLSplitter;
 import com.marklogic.client.document.DocumentWriteOperation;
+import com.marklogic.client.io.ByteBufferHandle;
 import com.marklogic.client.io.Format;
 import com.marklogic.client.io.StringHandle;
 import com.marklogic.client.io.marker.XMLWriteHandle;
@@ -27,6 +28,10 @@ import org.junit.Test;
 import javax.xml.stream.XMLStreamReader;
 import java.io.File;
 import java.io.FileInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.Iterator;
 import java.util.stream.Stream;
 
@@ -223,6 +228,52 @@ public class XMLSplitterTest {
 
     }
 
+    @Test
+    public void testXMLSplitterBuffer() throws Exception {
+
+        XMLSplitter<StringHandle> splitter = XMLSplitter.makeSplitter("http://www.marklogic.com/people/", "person");
+        ByteBuffer input = ByteBuffer.wrap(Files.readAllBytes(Paths.get(xmlFile)));
+        ByteBufferHandle[] result = splitter.splitBuffer(input).toArray(size -> new ByteBufferHandle[size]);
+        assertEquals(3, splitter.getCount());
+
+        for (int i = 0; i < result.length; i++) {
+            assertEquals(Format.XML, result[i].getFormat());
+            String element = result[i].toString();
+            // the slice keeps the original markup and adds the inherited default namespace
+            assertTrue(element.startsWith("<person xmlns=\"http://www.marklogic.com/people/\""));
+            assertEquals(expected[i].substring(expected[i].indexOf("<person")).replace(" xmlns=\"http://www.marklogic.com/people/\"", ""),
+                    element.replace(" xmlns=\"http://www.marklogic.com/people/\"", ""));
+        }
+
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<!DOCTYPE root [<!ENTITY e \"<item>\">]>\n" +
+                "<root xmlns:a=\"http://a/\" xmlns:b=\"http://b/?x=1&amp;y=2\">" +
+                "<!-- <item>commented</item> --><?pi <item>?>" +
+                "<a:item id=\"1\" note=\"a > b\">Zo\u00eb \u6771\u4eac<![CDATA[<item/>]]></a:item>" +
+                "<a:item id=\"2\"/>" +
+                "<skip><a:item id=\"3\"><b:part/></a:item></skip>" +
+                "<a:item xmlns:a=\"http://a/\" id=\"4\"><a:item id=\"5\"/></a:item>" +
+                "</root>";
+        XMLSplitter<StringHandle> nsSplitter = XMLSplitter.makeSplitter("http://a/", "item");
+        Iterator<DocumentWriteOperation> itr = nsSplitter.splitBufferWriteOperations(
+                ByteBuffer.wrap(xml.getBytes(StandardCharsets.UTF_8)), "TestSplitter.xml").iterator();
+        String[] expectedItems = new String[]{
+                "<a:item xmlns:a=\"http://a/\" xmlns:b=\"http://b/?x=1&amp;y=2\" id=\"1\" note=\"a > b\">Zo\u00eb \u6771\u4eac<![CDATA[<item/>]]></a:item>",
+                "<a:item xmlns:a=\"http://a/\" xmlns:b=\"http://b/?x=1&amp;y=2\" id=\"2\"/>",
+                "<a:item xmlns:a=\"http://a/\" xmlns:b=\"http://b/?x=1&amp;y=2\" id=\"3\"><b:part/></a:item>",
+                "<a:item xmlns:b=\"http://b/?x=1&amp;y=2\" xmlns:a=\"http://a/\" id=\"4\"><a:item id=\"5\"/></a:item>"
+        };
+        int i = 0;
+        while (itr.hasNext()) {
+            DocumentWriteOperation docOp = itr.next();
+            assertTrue(docOp.getUri().startsWith("TestSplitter" + (i+1)));
+            assertTrue(docOp.getUri().endsWith(".xml"));
+            assertEquals(expectedItems[i], docOp.getContent().toString());
+            i++;
+        }
+        assertEquals(4, nsSplitter.getCount());
+    }
+
     static public class AttributeVisitor extends XMLSplitter.Visitor<StringHandle> {
         private String nsUri, localName, attrName, attrValue;
 
@@ -7,13 +7,21 @@ import org.junit.Test;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
+import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
 
 import static org.junit.Assert.*;
 
@@ -231,6 +239,51 @@ public class ZipSplitterTest {
         assertEquals(i, 3);
     }
 
+    @Test
+    public void testSplitterWriteZipFile() throws Exception {
+        File tempFile = File.createTempFile("zip-splitter", ".zip");
+        try {
+            try (ZipOutputStream zipOutput = new ZipOutputStream(new FileOutputStream(tempFile))) {
+                for (int i = 1; i <= 200; i++) {
+                    byte[] content = ("{\"entry\":"+i+"}").getBytes(StandardCharsets.UTF_8);
+                    ZipEntry entry = new ZipEntry("dir/entry"+i+((i % 10 == 0) ? ".bin" : ".json"));
+                    if (i % 2 == 0) {
+                        CRC32 crc = new CRC32();
+                        crc.update(content);
+                        entry.setMethod(ZipEntry.STORED);
+                        entry.setSize(content.length);
+                        entry.setCrc(crc.getValue());
+                    }
+                    zipOutput.putNextEntry(entry);
+                    zipOutput.write(content);
+                    zipOutput.closeEntry();
+                }
+            }
+
+            ZipSplitter splitter = new ZipSplitter();
+            splitter.setUriTransformer(uri -> "/Test/" + uri);
+            try (ZipFile input = new ZipFile(tempFile)) {
+                Stream<DocumentWriteOperation> contentStream = splitter.splitWriteOperations(input);
+                assertTrue(contentStream.isParallel());
+                assertEquals(180, splitter.getCount());
+
+                Map<String, String> docs = new ConcurrentHashMap<>();
+                contentStream.forEach(docOp -> docs.put(docOp.getUri(), docOp.getContent().toString()));
+                assertEquals(180, docs.size());
+                for (int i = 1; i <= 200; i++) {
+                    String content = docs.get("/Test/dir/entry"+i+".json");
+                    if (i % 10 == 0) {
+                        assertNull(content);
+                    } else {
+                        assertEquals("{\"entry\":"+i+"}", content);
+                    }
+                }
+            }
+        } finally {
+            Files.delete(tempFile.toPath());
+        }
+    }
+
     private void checkContent(ZipInputStream zipInputStream,
                               ZipEntry zipEntry,
                               String unzippedContent) throws Exception {